@@ -1,16 +1,20 @@
 package ca.corefacility.bioinformatics.irida.config.analysis;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import com.github.jmchilton.blend4j.galaxy.JobsClient;
 import com.github.jmchilton.blend4j.galaxy.ToolsClient;
@@ -105,6 +109,22 @@ public class AnalysisExecutionServiceConfig {
 	@Autowired
 	private List<AnalysisSampleUpdater> defaultAnalysisSampleUpdaters;
 
+	@Autowired
+	@Qualifier("outputFileBaseDirectory")
+	private Path outputFileBaseDirectory;
+
+	/**
+	 * Number of analysis output files to download from Galaxy at once.
+	 */
+	@Value("${irida.analysis.results.download.threads:4}")
+	private int resultsDownloadThreads;
+
+	/**
+	 * Number of steps of an analysis' provenance to load from Galaxy at once.
+	 */
+	@Value("${irida.analysis.provenance.threads:4}")
+	private int provenanceThreads;
+
 	private List<AnalysisSampleUpdater> loadPluginAnalysisSampleUpdaters() {
 		List<AnalysisSampleUpdater> pluginUpdaters = Lists.newLinkedList();
 
@@ -159,13 +179,39 @@ public class AnalysisExecutionServiceConfig {
 		return new AnalysisWorkspaceServiceGalaxy(galaxyHistoriesService, galaxyWorkflowService,
 				galaxyLibrariesService, iridaWorkflowsService, analysisCollectionServiceGalaxy(),
 				analysisProvenanceService(), analysisParameterServiceGalaxy,
-				sequencingObjectService);
+				sequencingObjectService, analysisResultsExecutor(),
+				outputFileBaseDirectory.resolve("analysis-output-staging"));
+	}
+
+	/**
+	 * @return An Executor for downloading analysis output files from Galaxy.
+	 */
+	@Bean(name = "analysisResultsExecutor")
+	public ThreadPoolTaskExecutor analysisResultsExecutor() {
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(resultsDownloadThreads);
+		taskExecutor.setMaxPoolSize(resultsDownloadThreads);
+		taskExecutor.setThreadNamePrefix("analysis-results-");
+		return taskExecutor;
 	}
 
 	@Lazy
 	@Bean
 	public AnalysisProvenanceServiceGalaxy analysisProvenanceService() {
-		return new AnalysisProvenanceServiceGalaxy(galaxyHistoriesService, toolsClient, jobsClient);
+		return new AnalysisProvenanceServiceGalaxy(galaxyHistoriesService, toolsClient, jobsClient,
+				analysisProvenanceExecutor());
+	}
+
+	/**
+	 * @return An Executor for loading analysis provenance from Galaxy.
+	 */
+	@Bean(name = "analysisProvenanceExecutor")
+	public ThreadPoolTaskExecutor analysisProvenanceExecutor() {
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(provenanceThreads);
+		taskExecutor.setMaxPoolSize(provenanceThreads);
+		taskExecutor.setThreadNamePrefix("analysis-provenance-");
+		return taskExecutor;
 	}
 	
 	@Lazy
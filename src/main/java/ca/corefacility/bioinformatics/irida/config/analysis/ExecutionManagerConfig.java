@@ -20,6 +20,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.env.Environment;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import ca.corefacility.bioinformatics.irida.exceptions.ExecutionManagerConfigurationException;
 import ca.corefacility.bioinformatics.irida.model.upload.galaxy.GalaxyAccountEmail;
@@ -29,6 +30,7 @@ import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyHistori
 import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyJobErrorsService;
 import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyLibrariesService;
 import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyWorkflowService;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.GalaxyWorkflowUploadRepository;
 
 import com.github.jmchilton.blend4j.galaxy.GalaxyInstance;
 import com.github.jmchilton.blend4j.galaxy.GalaxyInstanceFactory;
@@ -89,6 +91,12 @@ public class ExecutionManagerConfig {
 
 	@Autowired
 	private Validator validator;
+
+	@Autowired
+	private GalaxyWorkflowUploadRepository galaxyWorkflowUploadRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
 	
 	/**
 	 * Builds a new ExecutionManagerGalaxy from the given properties.
@@ -215,7 +223,8 @@ public class ExecutionManagerConfig {
 	@Lazy
 	@Bean
 	public GalaxyWorkflowService galaxyWorkflowService() throws ExecutionManagerConfigurationException {
-		return new GalaxyWorkflowService(workflowsClient(), StandardCharsets.UTF_8);
+		return new GalaxyWorkflowService(workflowsClient(), StandardCharsets.UTF_8, galaxyWorkflowUploadRepository,
+				transactionManager);
 	}
 
 	/**
@@ -30,6 +30,7 @@ public class IridaApiJdbcDataSourceConfig implements DataConfig {
 
 	private static final String HIBERNATE_IMPORT_FILES = "hibernate.hbm2ddl.import_files";
 	private static final String HIBERNATE_HBM2DDL_AUTO = "hibernate.hbm2ddl.auto";
+	private static final String HIBERNATE_JDBC_BATCH_SIZE = "hibernate.jdbc.batch_size";
 	
 	/**
 	 * Custom implementation of the SpringLiquibase bean (for doing liquibase on spring startup) that
@@ -156,6 +157,11 @@ public class IridaApiJdbcDataSourceConfig implements DataConfig {
 		properties.setProperty("org.hibernate.envers.store_data_at_delete",
 				environment.getProperty("org.hibernate.envers.store_data_at_delete"));
 		properties.setProperty("show_sql", "false");
+
+		// group inserts and updates into JDBC batches so bulk writes (like metadata imports) take fewer round trips
+		properties.setProperty(HIBERNATE_JDBC_BATCH_SIZE, environment.getProperty(HIBERNATE_JDBC_BATCH_SIZE, "50"));
+		properties.setProperty("hibernate.order_inserts", "true");
+		properties.setProperty("hibernate.order_updates", "true");
 		return properties;
 	}
 }
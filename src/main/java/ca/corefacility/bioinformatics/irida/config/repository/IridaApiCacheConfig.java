@@ -0,0 +1,165 @@
+package ca.corefacility.bioinformatics.irida.config.repository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.guava.GuavaCache;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jmx.export.MBeanExporter;
+import org.springframework.jmx.export.annotation.AnnotationJmxAttributeSource;
+import org.springframework.jmx.export.assembler.MetadataMBeanInfoAssembler;
+import org.springframework.jmx.support.RegistrationPolicy;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import ca.corefacility.bioinformatics.irida.repositories.cache.ReferenceCacheEvictionListener;
+import ca.corefacility.bioinformatics.irida.repositories.cache.ReferenceCacheStatistics;
+
+/**
+ * Configuration for caching rarely written reference data (users, metadata fields, remote APIs and OAuth2 clients)
+ * read by the repositories.  Each cache region is an in-process Guava cache with its own size and time to live.
+ * A region is cleared when Hibernate writes one of its entities, and puts are delayed until the surrounding
+ * transaction commits.  Replace the {@link CacheManager} bean (for example with a
+ * {@link org.springframework.cache.jcache.JCacheCacheManager}) to use a different cache provider.
+ */
+@Configuration
+@EnableCaching
+public class IridaApiCacheConfig {
+	private static final Logger logger = LoggerFactory.getLogger(IridaApiCacheConfig.class);
+
+	/**
+	 * Cache region for {@link ca.corefacility.bioinformatics.irida.model.user.User}s read by username.
+	 */
+	public static final String USERS = "users";
+
+	/**
+	 * Cache region for {@link ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField}s read by
+	 * label or static id.
+	 */
+	public static final String METADATA_FIELDS = "metadataFields";
+
+	/**
+	 * Cache region for {@link ca.corefacility.bioinformatics.irida.model.RemoteAPI}s read by URL.
+	 */
+	public static final String REMOTE_APIS = "remoteApis";
+
+	/**
+	 * Cache region for {@link ca.corefacility.bioinformatics.irida.model.IridaClientDetails} read by client id.
+	 */
+	public static final String CLIENT_DETAILS = "clientDetails";
+
+	/**
+	 * The cache regions with their default maximum size and time to live in seconds.
+	 */
+	private static final List<RegionDefaults> REGIONS = ImmutableList.of(new RegionDefaults(USERS, 1000, 60),
+			new RegionDefaults(METADATA_FIELDS, 10000, 3600), new RegionDefaults(REMOTE_APIS, 100, 300),
+			new RegionDefaults(CLIENT_DETAILS, 500, 60));
+
+	/**
+	 * Profiles where the database is reloaded underneath the application between tests, so nothing is cached.
+	 */
+	private static final String[] UNCACHED_PROFILES = { "it", "test" };
+
+	@Autowired
+	private Environment env;
+
+	@Bean
+	public CacheManager cacheManager() {
+		if (!env.getProperty("reference.cache.enabled", Boolean.class, true) || env.acceptsProfiles(UNCACHED_PROFILES)) {
+			logger.debug("Reference data caching is disabled");
+			return new NoOpCacheManager();
+		}
+
+		SimpleCacheManager cacheManager = new SimpleCacheManager();
+		cacheManager.setCaches(REGIONS.stream()
+				.map(this::buildRegion)
+				.collect(Collectors.toList()));
+		// the proxy is the bean, so the wrapped manager has to be initialized here
+		cacheManager.afterPropertiesSet();
+
+		return new TransactionAwareCacheManagerProxy(cacheManager);
+	}
+
+	@Bean
+	public ReferenceCacheEvictionListener referenceCacheEvictionListener(CacheManager cacheManager,
+			EntityManagerFactory entityManagerFactory) {
+		ReferenceCacheEvictionListener listener = new ReferenceCacheEvictionListener(cacheManager);
+
+		EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+				.getServiceRegistry()
+				.getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_INSERT, listener);
+		registry.appendListeners(EventType.POST_UPDATE, listener);
+		registry.appendListeners(EventType.POST_DELETE, listener);
+
+		return listener;
+	}
+
+	@Bean
+	public ReferenceCacheStatistics referenceCacheStatistics(CacheManager cacheManager) {
+		return new ReferenceCacheStatistics(cacheManager);
+	}
+
+	@Bean
+	public MBeanExporter referenceCacheStatisticsExporter(ReferenceCacheStatistics referenceCacheStatistics) {
+		MBeanExporter exporter = new MBeanExporter();
+		exporter.setAssembler(new MetadataMBeanInfoAssembler(new AnnotationJmxAttributeSource()));
+		exporter.setBeans(ImmutableMap.of(ReferenceCacheStatistics.OBJECT_NAME, referenceCacheStatistics));
+		// more than one IRIDA application can run in the same container
+		exporter.setRegistrationPolicy(RegistrationPolicy.REPLACE_EXISTING);
+		return exporter;
+	}
+
+	/**
+	 * Build a cache region sized from the {@code reference.cache.<region>.size} and
+	 * {@code reference.cache.<region>.ttl} properties.
+	 *
+	 * @param region the defaults for the region
+	 * @return the {@link Cache} for the region
+	 */
+	private Cache buildRegion(RegionDefaults region) {
+		long size = env.getProperty("reference.cache." + region.name + ".size", Long.class, region.size);
+		long ttl = env.getProperty("reference.cache." + region.name + ".ttl", Long.class, region.ttl);
+		logger.debug("Caching up to " + size + " entries in " + region.name + " for " + ttl + " seconds");
+
+		return new GuavaCache(region.name, CacheBuilder.newBuilder()
+				.maximumSize(size)
+				.expireAfterWrite(ttl, TimeUnit.SECONDS)
+				.recordStats()
+				.build(), false);
+	}
+
+	/**
+	 * The name and default size and time to live of a cache region.
+	 */
+	private static class RegionDefaults {
+		private final String name;
+		private final long size;
+		private final long ttl;
+
+		RegionDefaults(String name, long size, long ttl) {
+			this.name = name;
+			this.size = size;
+			this.ttl = ttl;
+		}
+	}
+}
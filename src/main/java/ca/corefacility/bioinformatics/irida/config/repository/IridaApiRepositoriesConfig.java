@@ -37,7 +37,7 @@ import ca.corefacility.bioinformatics.irida.repositories.relational.auditing.Use
 @EnableJpaRepositories(basePackages = "ca.corefacility.bioinformatics.irida.repositories", repositoryFactoryBeanClass = EnversRevisionRepositoryFactoryBean.class)
 @ComponentScan("ca.corefacility.bioinformatics.irida.repositories.remote")
 @Import({ IridaApiPropertyPlaceholderConfig.class, IridaApiJdbcDataSourceConfig.class,
-		IridaApiFilesystemRepositoryConfig.class })
+		IridaApiFilesystemRepositoryConfig.class, IridaApiCacheConfig.class })
 @EnableJpaAuditing
 public class IridaApiRepositoriesConfig {
 
@@ -5,7 +5,9 @@ import ca.corefacility.bioinformatics.irida.security.IgnoreExpiredCredentialsFor
 import ca.corefacility.bioinformatics.irida.security.PasswordExpiryChecker;
 import ca.corefacility.bioinformatics.irida.security.permissions.BasePermission;
 import ca.corefacility.bioinformatics.irida.security.permissions.IridaPermissionEvaluator;
+import ca.corefacility.bioinformatics.irida.security.permissions.PermissionDecisionCache;
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableMap;
 import org.apache.oltu.oauth2.client.OAuthClient;
 import org.apache.oltu.oauth2.client.URLConnectionClient;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +16,10 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
+import org.springframework.jmx.export.MBeanExporter;
+import org.springframework.jmx.export.annotation.AnnotationJmxAttributeSource;
+import org.springframework.jmx.export.assembler.MetadataMBeanInfoAssembler;
+import org.springframework.jmx.support.RegistrationPolicy;
 import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
 import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
 import org.springframework.security.access.hierarchicalroles.RoleHierarchyImpl;
@@ -147,4 +153,14 @@ public class IridaApiSecurityConfig extends GlobalMethodSecurityConfiguration {
 	public WebSecurityExpressionHandler webSecurityExpressionHandler() {
 		return new DefaultWebSecurityExpressionHandler();
 	}
+
+	@Bean
+	public MBeanExporter permissionDecisionCacheExporter(PermissionDecisionCache permissionDecisionCache) {
+		MBeanExporter exporter = new MBeanExporter();
+		exporter.setAssembler(new MetadataMBeanInfoAssembler(new AnnotationJmxAttributeSource()));
+		exporter.setBeans(ImmutableMap.of(PermissionDecisionCache.OBJECT_NAME, permissionDecisionCache));
+		// more than one IRIDA application can run in the same container
+		exporter.setRegistrationPolicy(RegistrationPolicy.REPLACE_EXISTING);
+		return exporter;
+	}
 }
@@ -2,12 +2,19 @@ package ca.corefacility.bioinformatics.irida.config.services;
 
 import javax.validation.Validator;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.core.env.Environment;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import ca.corefacility.bioinformatics.irida.events.ProjectEventAspect;
 import ca.corefacility.bioinformatics.irida.events.ProjectEventHandler;
+import ca.corefacility.bioinformatics.irida.events.ProjectEventQueue;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
 import ca.corefacility.bioinformatics.irida.repositories.ProjectEventRepository;
 import ca.corefacility.bioinformatics.irida.repositories.ProjectRepository;
@@ -24,17 +31,57 @@ import ca.corefacility.bioinformatics.irida.validators.ValidMethodParametersAspe
 @Configuration
 @EnableAspectJAutoProxy(proxyTargetClass = true)
 public class IridaApiAspectsConfig {
+	private static final Logger logger = LoggerFactory.getLogger(IridaApiAspectsConfig.class);
 
 	@Bean
 	public ValidMethodParametersAspect validMethodsParametersAspect(Validator validator) {
 		return new ValidMethodParametersAspect(validator);
 	}
 
+	/**
+	 * Profiles where tests read project events straight after the change that
+	 * launched them, so events are written synchronously.
+	 */
+	private static final String[] SYNCHRONOUS_EVENT_PROFILES = { "it", "test" };
+
+	@Autowired
+	private Environment env;
+
 	@Bean
 	public ProjectEventAspect projectEventAspect(final ProjectEventRepository eventRepository,
 			final ProjectSampleJoinRepository psjRepository, final ProjectRepository projectRepository,
-			final SampleRepository sampleRepository) {
-		return new ProjectEventAspect(new ProjectEventHandler(eventRepository, psjRepository, projectRepository, sampleRepository));
+			final SampleRepository sampleRepository, final ApplicationEventPublisher eventPublisher,
+			final ProjectEventQueue projectEventQueue) {
+		if (!env.getProperty("project.event.async", Boolean.class, true)
+				|| env.acceptsProfiles(SYNCHRONOUS_EVENT_PROFILES)) {
+			logger.debug("Project events are written synchronously");
+			return new ProjectEventAspect(new ProjectEventHandler(eventRepository, psjRepository,
+					projectRepository, sampleRepository, eventPublisher));
+		}
+
+		return new ProjectEventAspect(new ProjectEventHandler(eventRepository, psjRepository, projectRepository,
+				sampleRepository, eventPublisher, projectEventQueue));
+	}
+
+	/**
+	 * Queue for project events waiting to be written. Anything left in the
+	 * queue is written when the application shuts down.
+	 * 
+	 * @param eventRepository
+	 *            repository to write events to
+	 * @param projectRepository
+	 *            repository to update project modified dates in
+	 * @param sampleRepository
+	 *            repository to update sample modified dates in
+	 * @param transactionManager
+	 *            transaction manager to write events with
+	 * @return the {@link ProjectEventQueue}
+	 */
+	@Bean(destroyMethod = "flush")
+	public ProjectEventQueue projectEventQueue(final ProjectEventRepository eventRepository,
+			final ProjectRepository projectRepository, final SampleRepository sampleRepository,
+			final PlatformTransactionManager transactionManager) {
+		return new ProjectEventQueue(eventRepository, projectRepository, sampleRepository, transactionManager);
 	}
 
 	@Bean
@@ -11,6 +11,7 @@ import java.util.Objects;
 import java.util.Properties;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -68,11 +69,13 @@ import ca.corefacility.bioinformatics.irida.plugins.IridaPlugin;
 import ca.corefacility.bioinformatics.irida.plugins.IridaPluginException;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessingChain;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessor;
+import ca.corefacility.bioinformatics.irida.processing.StreamingFileProcessor;
 import ca.corefacility.bioinformatics.irida.processing.impl.AssemblyFileProcessor;
 import ca.corefacility.bioinformatics.irida.processing.impl.ChecksumFileProcessor;
 import ca.corefacility.bioinformatics.irida.processing.impl.CoverageFileProcessor;
 import ca.corefacility.bioinformatics.irida.processing.impl.DefaultFileProcessingChain;
 import ca.corefacility.bioinformatics.irida.processing.impl.FastqcFileProcessor;
+import ca.corefacility.bioinformatics.irida.processing.impl.FusedFileProcessor;
 import ca.corefacility.bioinformatics.irida.processing.impl.GzipFileProcessor;
 import ca.corefacility.bioinformatics.irida.processing.impl.SistrTypingFileProcessor;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.AnalysisSubmissionRepository;
@@ -114,6 +117,9 @@ public class IridaApiServicesConfig {
 
 	@Value("${file.processing.decompress.remove.compressed.file}")
 	private Boolean removeCompressedFiles;
+
+	@Value("${file.processing.fused:false}")
+	private Boolean fusedFileProcessing;
 	
 	// the key + colon syntax allows default values. we use `false` here so we can conditionally show tags on the page with thymeleaf
 	@Value("${help.page.title:false}")
@@ -137,9 +143,15 @@ public class IridaApiServicesConfig {
 	@Value("${file.processing.queue.capacity}")
 	private int fpQueueCapacity;
 
+	@Value("${file.processing.fastqc.parallelism:0}")
+	private int fastqcParallelism;
+
 	@Value("${irida.debug.nrepl.server.port:#{null}}")
 	private Integer nreplPort;
 
+	@Value("${metadata.import.threads:2}")
+	private int metadataImportThreads;
+
 	@Autowired
 	private IridaPluginConfig.IridaPluginList pipelinePlugins;
 	
@@ -304,6 +316,15 @@ public class IridaApiServicesConfig {
 			fileProcessors.remove(gzipFileProcessor);
 		}
 
+		if (fusedFileProcessing) {
+			logger.info("Checksum, decompression and FastQC will share a single read of each file [file.processing.fused=true]");
+			final List<StreamingFileProcessor> streamingProcessors = fileProcessors.stream()
+					.filter(p -> p instanceof StreamingFileProcessor).map(p -> (StreamingFileProcessor) p)
+					.collect(Collectors.toList());
+			fileProcessors.removeAll(streamingProcessors);
+			fileProcessors.add(0, new FusedFileProcessor(qcRepository, streamingProcessors));
+		}
+
 		return new DefaultFileProcessingChain(sequencingObjectRepository, qcRepository, fileProcessors);
 	}
 
@@ -317,6 +338,19 @@ public class IridaApiServicesConfig {
 		return taskExecutor;
 	}
 
+	/**
+	 * Pool used by the {@link FastqcFileProcessor} to process files, FastQC
+	 * modules and charts in parallel. Defaults to one thread per available
+	 * processor.
+	 * 
+	 * @return the {@link ForkJoinPool} for FastQC
+	 */
+	@Bean(name = "fastqcForkJoinPool", destroyMethod = "shutdown")
+	public ForkJoinPool fastqcForkJoinPool() {
+		final int parallelism = fastqcParallelism > 0 ? fastqcParallelism : Runtime.getRuntime().availableProcessors();
+		logger.debug("Running FastQC with parallelism [" + parallelism + "]");
+		return new ForkJoinPool(parallelism);
+	}
 
 	@Bean
 	public Validator validator() {
@@ -408,6 +442,18 @@ public class IridaApiServicesConfig {
 		return taskExecutor;
 	}
 
+	/**
+	 * @return An Executor for importing sample metadata spreadsheets in the background.
+	 */
+	@Bean(name = "metadataImportExecutor")
+	public ThreadPoolTaskExecutor metadataImportExecutor() {
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(metadataImportThreads);
+		taskExecutor.setMaxPoolSize(metadataImportThreads);
+		taskExecutor.setThreadNamePrefix("metadata-import-");
+		return taskExecutor;
+	}
+
 	/*
 	 * Template engine for constructing ncbi export submissions
 	 */
@@ -4,21 +4,29 @@ import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyJobErro
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.AnalysisSubmissionRepository;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.JobErrorRepository;
 import ca.corefacility.bioinformatics.irida.service.AnalysisExecutionScheduledTask;
+import ca.corefacility.bioinformatics.irida.service.AnalysisSubmissionLeaseService;
 import ca.corefacility.bioinformatics.irida.service.CleanupAnalysisSubmissionCondition;
 import ca.corefacility.bioinformatics.irida.service.analysis.execution.AnalysisExecutionService;
 import ca.corefacility.bioinformatics.irida.service.impl.AnalysisExecutionScheduledTaskImpl;
+import ca.corefacility.bioinformatics.irida.service.impl.analysis.submission.AnalysisSubmissionLeaseServiceImpl;
 import ca.corefacility.bioinformatics.irida.service.impl.analysis.submission.CleanupAnalysisSubmissionConditionAge;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import javax.annotation.PostConstruct;
+import java.lang.management.ManagementFactory;
 import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -42,12 +50,52 @@ public class AnalysisScheduledTaskConfig {
 	@Autowired
 	private JobErrorRepository jobErrorRepository;
 
+	@Autowired
+	@Qualifier("analysisLeaseExecutor")
+	private ScheduledExecutorService analysisLeaseExecutor;
+
 	/**
 	 * Defines the time to clean up in number of days a submission must exist before it is cleaned up.
 	 */
 	@Value("${irida.analysis.cleanup.days}")
 	private Double daysToCleanup;
 
+	/**
+	 * Number of running workflows to check the status of at once.
+	 */
+	@Value("${irida.analysis.monitor.threads:4}")
+	private int monitorThreads;
+
+	/**
+	 * Most monitoring passes to skip for a running workflow whose status hasn't changed.
+	 */
+	@Value("${irida.analysis.monitor.max-skipped-checks:3}")
+	private int maxSkippedChecks;
+
+	/**
+	 * Name this node claims analysis submissions under.  Defaults to a name unique to this process.
+	 */
+	@Value("${irida.analysis.lease.owner:}")
+	private String leaseOwner;
+
+	/**
+	 * Time in milliseconds a claim on an analysis submission lasts without being renewed.
+	 */
+	@Value("${irida.analysis.lease.duration:300000}")
+	private long leaseDuration;
+
+	/**
+	 * Time in milliseconds between renewing the claims on analysis submissions being worked on.
+	 */
+	@Value("${irida.analysis.lease.renew.interval:60000}")
+	private long leaseRenewInterval;
+
+	/**
+	 * Most analysis submissions to claim at once in each stage.
+	 */
+	@Value("${irida.analysis.lease.batch-size:100}")
+	private int leaseBatchSize;
+
 	/**
 	 * Rate in milliseconds of the analysis execution tasks.
 	 */
@@ -106,6 +154,30 @@ public class AnalysisScheduledTaskConfig {
 		analysisExecutionScheduledTask().cleanupAnalysisSubmissions();
 	}
 
+	/**
+	 * Start renewing the claims on submissions on their own executor.  They're not renewed by the shared scheduled
+	 * task executor, since its threads can be busy with the other tasks for longer than a claim lasts.
+	 */
+	@PostConstruct
+	public void scheduleLeaseRenewal() {
+		analysisLeaseExecutor.scheduleWithFixedDelay(this::renewAnalysisSubmissionLeases, 1000, leaseRenewInterval,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Renew the claims on submissions this node is working on, and switch to error any submissions abandoned part way
+	 * through a stage by a node that has stopped.
+	 */
+	public void renewAnalysisSubmissionLeases() {
+		// an exception would stop the renewals from being scheduled again
+		try {
+			analysisSubmissionLeaseService().renewLeases();
+			analysisSubmissionLeaseService().recoverExpiredLeases();
+		} catch (RuntimeException e) {
+			logger.error("Could not renew analysis submission leases", e);
+		}
+	}
+
 	/**
 	 * Creates a new bean with a AnalysisExecutionScheduledTask for performing
 	 * the analysis tasks.
@@ -116,7 +188,44 @@ public class AnalysisScheduledTaskConfig {
 	@Bean
 	public AnalysisExecutionScheduledTask analysisExecutionScheduledTask() {
 		return new AnalysisExecutionScheduledTaskImpl(analysisSubmissionRepository, analysisExecutionService,
-				cleanupAnalysisSubmissionCondition(), galaxyJobErrorsService, jobErrorRepository);
+				cleanupAnalysisSubmissionCondition(), galaxyJobErrorsService, jobErrorRepository,
+				analysisMonitorExecutor(), maxSkippedChecks, analysisSubmissionLeaseService());
+	}
+
+	/**
+	 * Builds the service the analysis tasks claim submissions from, so more than one node can run them.
+	 *
+	 * @return An {@link AnalysisSubmissionLeaseService} that writes its claims to the database.
+	 */
+	@Bean
+	public AnalysisSubmissionLeaseService analysisSubmissionLeaseService() {
+		String owner = leaseOwner;
+		if (owner == null || owner.isEmpty()) {
+			owner = ManagementFactory.getRuntimeMXBean()
+					.getName() + "-" + UUID.randomUUID();
+		}
+
+		if (leaseRenewInterval >= leaseDuration) {
+			logger.warn("irida.analysis.lease.renew.interval=" + leaseRenewInterval
+					+ " is not less than irida.analysis.lease.duration=" + leaseDuration
+					+ ", analysis submissions may be claimed by more than one node");
+		}
+
+		logger.info("Claiming analysis submissions as " + owner);
+		return new AnalysisSubmissionLeaseServiceImpl(analysisSubmissionRepository, owner, leaseDuration,
+				leaseBatchSize);
+	}
+
+	/**
+	 * @return An Executor for checking the status of running workflows.
+	 */
+	@Bean(name = "analysisMonitorExecutor")
+	public ThreadPoolTaskExecutor analysisMonitorExecutor() {
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(monitorThreads);
+		taskExecutor.setMaxPoolSize(monitorThreads);
+		taskExecutor.setThreadNamePrefix("analysis-monitor-");
+		return taskExecutor;
 	}
 
 	/**
@@ -71,6 +71,22 @@ public class ExecutorConfig {
 		return new DelegatingSecurityContextScheduledExecutorService(delegateExecutor, schedulerContext);
 	}
 
+	/**
+	 * Executor for renewing the leases on analysis submissions.  This is kept apart from the other scheduled tasks so
+	 * that a long running task can't hold up renewing the leases until they run out.
+	 *
+	 * @return a ScheduledExecutorService
+	 */
+	@Bean(name = "analysisLeaseExecutor")
+	@Profile({ "prod", "analysis" })
+	@DependsOn("springLiquibase")
+	public ScheduledExecutorService analysisLeaseExecutor() {
+		ScheduledExecutorService delegateExecutor = Executors.newSingleThreadScheduledExecutor();
+
+		SecurityContext schedulerContext = createSchedulerSecurityContext();
+		return new DelegatingSecurityContextScheduledExecutorService(delegateExecutor, schedulerContext);
+	}
+
 	/**
 	 * Creates a security context object for the scheduled tasks.
 	 *
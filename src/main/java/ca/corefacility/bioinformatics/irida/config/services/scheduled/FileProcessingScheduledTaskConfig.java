@@ -1,13 +1,18 @@
 package ca.corefacility.bioinformatics.irida.config.services.scheduled;
 
+import java.util.concurrent.Executor;
+
+import ca.corefacility.bioinformatics.irida.events.SequencingObjectCreatedEvent;
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectProcessingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 /**
  * Scheduled task configuration for running file processors
@@ -20,13 +25,17 @@ public class FileProcessingScheduledTaskConfig {
 	@Autowired
 	private SequencingObjectProcessingService fileProcessingService;
 
+	@Autowired
+	@Qualifier("scheduledTaskExecutor")
+	private Executor taskExecutor;
+
 	@Value("${file.processing.process}")
 	private boolean processFiles;
 
 	/**
-	 * Check for newly uploaded files to process
+	 * Check for uploaded files that weren't processed when they were created
 	 */
-	@Scheduled(fixedDelay = 5000)
+	@Scheduled(fixedDelayString = "${file.processing.sweep.interval:5000}")
 	public void processFiles() {
 		if (processFiles) {
 			fileProcessingService.runProcessingJob();
@@ -34,4 +43,20 @@ public class FileProcessingScheduledTaskConfig {
 			logger.trace("Skipping file processing.  It is disabled on this server.");
 		}
 	}
+
+	/**
+	 * Start processing a newly uploaded file once it has been committed to the
+	 * database. The processing is handed off to the scheduled task executor so
+	 * that it runs with the same security context as the scheduled processing
+	 * job, and outside of the committed transaction.
+	 * 
+	 * @param event
+	 *            the event for the newly created file
+	 */
+	@TransactionalEventListener
+	public void processCreatedFile(SequencingObjectCreatedEvent event) {
+		if (processFiles) {
+			taskExecutor.execute(() -> fileProcessingService.processSequencingObject(event.getSequencingObjectId()));
+		}
+	}
 }
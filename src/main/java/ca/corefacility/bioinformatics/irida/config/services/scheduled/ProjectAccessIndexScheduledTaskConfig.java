@@ -0,0 +1,31 @@
+package ca.corefacility.bioinformatics.irida.config.services.scheduled;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import ca.corefacility.bioinformatics.irida.service.ProjectAccessIndexService;
+
+/**
+ * Scheduled task configuration for checking the project access index against
+ * project membership. This runs in every profile where the services write the
+ * index.
+ */
+@Profile({ "prod", "dev", "ncbi", "analysis", "sync", "processing", "email", "web" })
+@Configuration
+public class ProjectAccessIndexScheduledTaskConfig {
+
+	@Autowired
+	private ProjectAccessIndexService accessIndexService;
+
+	/**
+	 * Rebuild any project access index entries that are missing or out of
+	 * date. This runs when the server starts to fill in the index, then
+	 * periodically to correct any drift.
+	 */
+	@Scheduled(fixedDelayString = "${project.access.index.rebuild.interval:3600000}")
+	public void rebuildProjectAccessIndex() {
+		accessIndexService.rebuild();
+	}
+}
@@ -0,0 +1,28 @@
+package ca.corefacility.bioinformatics.irida.config.services.scheduled;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import ca.corefacility.bioinformatics.irida.events.ProjectEventQueue;
+
+/**
+ * Scheduled task configuration for writing queued project events. Events can
+ * be launched on any server, so every server writes its own queue.
+ */
+@Profile({ "prod", "dev", "ncbi", "analysis", "sync", "processing", "email", "web" })
+@Configuration
+public class ProjectEventScheduledTaskConfig {
+
+	@Autowired
+	private ProjectEventQueue projectEventQueue;
+
+	/**
+	 * Write the project events queued since the last flush.
+	 */
+	@Scheduled(fixedDelayString = "${project.event.flush.interval:2000}")
+	public void flushProjectEvents() {
+		projectEventQueue.flush();
+	}
+}
@@ -0,0 +1,29 @@
+package ca.corefacility.bioinformatics.irida.config.services.scheduled;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import ca.corefacility.bioinformatics.irida.service.SequenceFileUploadService;
+
+/**
+ * Scheduled task configuration for removing resumable sequence file uploads
+ * that were never completed
+ */
+@Profile({ "prod", "dev" })
+@Configuration
+public class SequenceFileUploadScheduledTaskConfig {
+
+	@Autowired
+	private SequenceFileUploadService uploadService;
+
+	/**
+	 * Remove uploads that have expired without being completed, along with
+	 * the bytes that were staged for them.
+	 */
+	@Scheduled(fixedDelayString = "${sequence.file.upload.cleanup.interval:3600000}")
+	public void removeExpiredUploads() {
+		uploadService.removeExpiredUploads();
+	}
+}
@@ -6,9 +6,13 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import ca.corefacility.bioinformatics.irida.events.annotations.LaunchesProjectEvent;
 import ca.corefacility.bioinformatics.irida.model.enums.UserGroupRemovedProjectEvent;
@@ -35,7 +39,10 @@ import ca.corefacility.bioinformatics.irida.repositories.sample.SampleRepository
 
 /**
  * Handles the creation of {@link ProjectEvent}s from methods annotated with
- * {@link LaunchesProjectEvent}
+ * {@link LaunchesProjectEvent}. Events are either written straight away, or
+ * handed to a {@link ProjectEventQueue} after the calling transaction commits
+ * so large operations (like copying thousands of samples) don't write an event
+ * and update the project for every sample while the user waits.
  * 
  * 
  * @see LaunchesProjectEvent
@@ -48,14 +55,34 @@ public class ProjectEventHandler {
 	private final ProjectSampleJoinRepository psjRepository;
 	private final ProjectRepository projectRepository;
 	private final SampleRepository sampleRepository;
+	private final ApplicationEventPublisher eventPublisher;
+	private final ProjectEventQueue eventQueue;
 
+	/**
+	 * Create a handler that writes events in the thread and transaction of
+	 * the annotated method.
+	 */
 	public ProjectEventHandler(final ProjectEventRepository eventRepository,
 			final ProjectSampleJoinRepository psjRepository, final ProjectRepository projectRepository,
-			final SampleRepository sampleRepository) {
+			final SampleRepository sampleRepository, final ApplicationEventPublisher eventPublisher) {
+		this(eventRepository, psjRepository, projectRepository, sampleRepository, eventPublisher, null);
+	}
+
+	/**
+	 * Create a handler that adds events to a {@link ProjectEventQueue} once
+	 * the transaction of the annotated method commits, leaving the queue to
+	 * write them.
+	 */
+	public ProjectEventHandler(final ProjectEventRepository eventRepository,
+			final ProjectSampleJoinRepository psjRepository, final ProjectRepository projectRepository,
+			final SampleRepository sampleRepository, final ApplicationEventPublisher eventPublisher,
+			final ProjectEventQueue eventQueue) {
 		this.eventRepository = eventRepository;
 		this.psjRepository = psjRepository;
 		this.projectRepository = projectRepository;
 		this.sampleRepository = sampleRepository;
+		this.eventPublisher = eventPublisher;
+		this.eventQueue = eventQueue;
 	}
 
 	/**
@@ -68,7 +95,6 @@ public class ProjectEventHandler {
 	 */
 	public void delegate(MethodEvent methodEvent) {
 		Class<? extends ProjectEvent> eventClass = methodEvent.getEventClass();
-		final Date eventDate = new Date();
 
 		Collection<ProjectEvent> events = new ArrayList<>();
 
@@ -79,18 +105,7 @@ public class ProjectEventHandler {
 		} else if (eventClass.equals(UserRoleSetProjectEvent.class)) {
 			events.add(handleUserRoleSetProjectEvent(methodEvent));
 		} else if (eventClass.equals(DataAddedToSampleProjectEvent.class)) {
-			final Collection<DataAddedToSampleProjectEvent> dataAddedEvents = handleSequenceFileAddedEvent(methodEvent);
-			
-			/*
-			 * We want the sample to show modification when these events are
-			 * added, so update mod date
-			 */
-			for (final DataAddedToSampleProjectEvent e : dataAddedEvents) {
-				final Sample s = e.getSample();
-				s.setModifiedDate(eventDate);
-				sampleRepository.save(s);
-			}
-			events.addAll(dataAddedEvents);
+			events.addAll(handleSequenceFileAddedEvent(methodEvent));
 		} else if (eventClass.equals(UserGroupRoleSetProjectEvent.class)) {
 			events.add(handleUserGroupRoleSetProjectEvent(methodEvent));
 		} else if (eventClass.equals(UserGroupRemovedProjectEvent.class)) {
@@ -101,11 +116,94 @@ public class ProjectEventHandler {
 			logger.warn("No handler found for event class " + eventClass.getName());
 		}
 
+		if (events.isEmpty()) {
+			return;
+		}
+
+		if (eventQueue == null) {
+			writeEvents(events);
+		} else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			// don't write events for changes that might still be rolled back
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					queueEvents(events);
+				}
+			});
+		} else {
+			queueEvents(events);
+		}
+	}
+
+	/**
+	 * Save events one at a time and update the modified date of the
+	 * {@link Project}s and {@link Sample}s they touched.
+	 * 
+	 * @param events
+	 *            the unsaved events
+	 */
+	private void writeEvents(Collection<ProjectEvent> events) {
+		final Date eventDate = new Date();
+
+		Collection<ProjectEvent> savedEvents = new ArrayList<>();
 		for (ProjectEvent e : events) {
+			savedEvents.add(eventRepository.save(e));
+		}
+
+		/*
+		 * We want the sample to show modification when data is added, so update
+		 * mod date
+		 */
+		for (Sample s : getModifiedSamples(savedEvents)) {
+			s.setModifiedDate(eventDate);
+			sampleRepository.save(s);
+		}
+
+		for (ProjectEvent e : savedEvents) {
 			Project project = e.getProject();
 			project.setModifiedDate(eventDate);
 			projectRepository.save(project);
 		}
+
+		publishEvents(savedEvents);
+	}
+
+	/**
+	 * Add events to the {@link ProjectEventQueue} to be written later.
+	 * 
+	 * @param events
+	 *            the unsaved events
+	 */
+	private void queueEvents(Collection<ProjectEvent> events) {
+		eventQueue.add(events, getModifiedSamples(events));
+		publishEvents(events);
+	}
+
+	/**
+	 * Let the rest of the application know about events (e.g. so that cached
+	 * permission decisions can be cleared)
+	 * 
+	 * @param events
+	 *            the events to publish
+	 */
+	private void publishEvents(Collection<ProjectEvent> events) {
+		for (ProjectEvent e : events) {
+			eventPublisher.publishEvent(e);
+		}
+	}
+
+	/**
+	 * Get the {@link Sample}s that had data added to them by a set of events.
+	 * 
+	 * @param events
+	 *            the events
+	 * @return the {@link Sample}s to show as modified
+	 */
+	private List<Sample> getModifiedSamples(Collection<ProjectEvent> events) {
+		return events.stream()
+				.filter(e -> e instanceof DataAddedToSampleProjectEvent)
+				.map(e -> ((DataAddedToSampleProjectEvent) e).getSample())
+				.collect(Collectors.toList());
 	}
 	
 	/**
@@ -128,7 +226,7 @@ public class ProjectEventHandler {
 				}
 				logger.trace("Adding multi sample " + singleElement.toString());
 
-				events.add(eventRepository.save(new SampleAddedProjectEvent((ProjectSampleJoin) singleElement)));
+				events.add(new SampleAddedProjectEvent((ProjectSampleJoin) singleElement));
 			}
 
 		} else {
@@ -139,7 +237,7 @@ public class ProjectEventHandler {
 
 			logger.trace("Adding single sample " + returnValue.toString());
 
-			events.add(eventRepository.save(new SampleAddedProjectEvent((ProjectSampleJoin) returnValue)));
+			events.add(new SampleAddedProjectEvent((ProjectSampleJoin) returnValue));
 		}
 
 		return events;
@@ -167,7 +265,7 @@ public class ProjectEventHandler {
 			throw new IllegalArgumentException(
 					"Project or user cannot be found on method annotated with @LaunchesProjectEvent(UserRemovedProjectEvent.class)");
 		}
-		return eventRepository.save(new UserRemovedProjectEvent(project, user));
+		return new UserRemovedProjectEvent(project, user);
 	}
 
 	/**
@@ -184,7 +282,7 @@ public class ProjectEventHandler {
 			throw new IllegalArgumentException(
 					"Project or user group cannot be found on method annotated with @LaunchesProjectEvent(UserGroupRemovedProjectEvent.class)");
 		}
-		return eventRepository.save(new UserGroupRemovedProjectEvent((Project) project.get(), (UserGroup) user.get()));
+		return new UserGroupRemovedProjectEvent((Project) project.get(), (UserGroup) user.get());
 	}
 
 	/**
@@ -201,7 +299,7 @@ public class ProjectEventHandler {
 					"Method annotated with @LaunchesProjectEvent(UserRoleSetProjectEvent.class) method must return ProjectUserJoin");
 		}
 		ProjectUserJoin join = (ProjectUserJoin) returnValue;
-		return eventRepository.save(new UserRoleSetProjectEvent(join));
+		return new UserRoleSetProjectEvent(join);
 
 	}
 
@@ -219,7 +317,7 @@ public class ProjectEventHandler {
 					"Method annotated with @LaunchesProjectEvent(UserGroupRoleSetProjectEvent.class) method must return UserGroupProjectJoin");
 		}
 		UserGroupProjectJoin join = (UserGroupProjectJoin) returnValue;
-		return eventRepository.save(new UserGroupRoleSetProjectEvent(join));
+		return new UserGroupRoleSetProjectEvent(join);
 
 	}
 
@@ -270,7 +368,7 @@ public class ProjectEventHandler {
 
 		List<Join<Project, Sample>> projectForSample = psjRepository.getProjectForSample(subject);
 		for (Join<Project, Sample> psj : projectForSample) {
-			events.add(eventRepository.save(new DataAddedToSampleProjectEvent(psj.getSubject(), subject)));
+			events.add(new DataAddedToSampleProjectEvent(psj.getSubject(), subject));
 		}
 		return events;
 	}
@@ -294,12 +392,12 @@ public class ProjectEventHandler {
 			if (sampleOpt.isPresent()) {
 				Sample sample = (Sample) sampleOpt.get();
 
-				events.add(eventRepository.save(new SampleRemovedProjectEvent(project, sample.getSampleName())));
+				events.add(new SampleRemovedProjectEvent(project, sample.getSampleName()));
 			} else if (sampleListOpt.isPresent()) {
 				@SuppressWarnings("unchecked")
 				Iterable<Sample> samples = (Iterable<Sample>) sampleListOpt.get();
 				for (Sample sample : samples) {
-					events.add(eventRepository.save(new SampleRemovedProjectEvent(project, sample.getSampleName())));
+					events.add(new SampleRemovedProjectEvent(project, sample.getSampleName()));
 				}
 			}
 		}
@@ -0,0 +1,192 @@
+package ca.corefacility.bioinformatics.irida.events;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import ca.corefacility.bioinformatics.irida.model.event.ProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.repositories.ProjectEventRepository;
+import ca.corefacility.bioinformatics.irida.repositories.ProjectRepository;
+import ca.corefacility.bioinformatics.irida.repositories.sample.SampleRepository;
+
+/**
+ * Holds {@link ProjectEvent}s created by the {@link ProjectEventHandler} until
+ * they're written by {@link #flush()}. Each flush writes the queued events
+ * together and sets the modified date of every {@link Project} and
+ * {@link Sample} they touched once, no matter how many events touched it.
+ *
+ * @see ProjectEventHandler
+ */
+public class ProjectEventQueue {
+	private static final Logger logger = LoggerFactory.getLogger(ProjectEventQueue.class);
+
+	/**
+	 * The largest number of events written in a single transaction.
+	 */
+	private static final int FLUSH_BATCH_SIZE = 1000;
+
+	private final ProjectEventRepository eventRepository;
+	private final ProjectRepository projectRepository;
+	private final SampleRepository sampleRepository;
+	private final TransactionTemplate transactionTemplate;
+
+	private final Queue<ProjectEvent> events = new ConcurrentLinkedQueue<>();
+	private final Set<Long> modifiedSamples = ConcurrentHashMap.newKeySet();
+
+	public ProjectEventQueue(final ProjectEventRepository eventRepository, final ProjectRepository projectRepository,
+			final SampleRepository sampleRepository, final PlatformTransactionManager transactionManager) {
+		this.eventRepository = eventRepository;
+		this.projectRepository = projectRepository;
+		this.sampleRepository = sampleRepository;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * Queue events to be written on the next flush.
+	 *
+	 * @param projectEvents
+	 *            the unsaved {@link ProjectEvent}s
+	 * @param samples
+	 *            {@link Sample}s whose modified date should be updated
+	 */
+	public void add(Collection<? extends ProjectEvent> projectEvents, Collection<Sample> samples) {
+		events.addAll(projectEvents);
+		samples.forEach(s -> modifiedSamples.add(s.getId()));
+	}
+
+	/**
+	 * Get the number of events waiting to be written
+	 *
+	 * @return the number of queued events
+	 */
+	public int size() {
+		return events.size();
+	}
+
+	/**
+	 * Write all of the queued events, then update the modified date of the
+	 * {@link Project}s and {@link Sample}s they touched.
+	 */
+	public synchronized void flush() {
+		Set<Long> sampleIds = drain(modifiedSamples);
+
+		List<ProjectEvent> batch = new ArrayList<>();
+		ProjectEvent event;
+		while ((event = events.poll()) != null) {
+			batch.add(event);
+			if (batch.size() == FLUSH_BATCH_SIZE) {
+				write(batch, ImmutableSet.of());
+				batch = new ArrayList<>();
+			}
+		}
+
+		if (!batch.isEmpty() || !sampleIds.isEmpty()) {
+			write(batch, sampleIds);
+		}
+	}
+
+	/**
+	 * Write a batch of events in one transaction. If the batch can't be
+	 * written (for example one of the projects has since been deleted) the
+	 * events are written one at a time so only the broken ones are lost.
+	 *
+	 * @param batch
+	 *            the events to write
+	 * @param sampleIds
+	 *            the ids of {@link Sample}s whose modified date should be
+	 *            updated
+	 */
+	private void write(List<ProjectEvent> batch, Set<Long> sampleIds) {
+		try {
+			writeInTransaction(batch, sampleIds);
+			logger.trace("Wrote " + batch.size() + " project events");
+		} catch (RuntimeException e) {
+			logger.warn("Could not write " + batch.size() + " project events together, writing them one at a time",
+					e);
+			for (ProjectEvent event : batch) {
+				try {
+					writeInTransaction(ImmutableList.of(event), ImmutableSet.of());
+				} catch (RuntimeException ex) {
+					logger.error("Could not write project event " + event, ex);
+				}
+			}
+			try {
+				writeInTransaction(ImmutableList.of(), sampleIds);
+			} catch (RuntimeException ex) {
+				logger.error("Could not update the modified date of samples " + sampleIds, ex);
+			}
+		}
+	}
+
+	/**
+	 * Save events and set the modified date of everything they touched in a
+	 * single transaction. The events are dated when they're saved instead of
+	 * when they were queued, so anything reading events since a date doesn't
+	 * miss events that were queued before it but saved after.
+	 *
+	 * @param batch
+	 *            the events to write
+	 * @param sampleIds
+	 *            the ids of {@link Sample}s whose modified date should be
+	 *            updated
+	 */
+	private void writeInTransaction(List<ProjectEvent> batch, Set<Long> sampleIds) {
+		final Date modifiedDate = new Date();
+
+		transactionTemplate.execute(status -> {
+			batch.forEach(e -> e.setCreatedDate(modifiedDate));
+			eventRepository.save(batch);
+
+			Set<Long> projectIds = batch.stream()
+					.map(e -> e.getProject().getId())
+					.collect(Collectors.toSet());
+			if (!projectIds.isEmpty()) {
+				projectRepository.updateModifiedDate(projectIds, modifiedDate);
+			}
+
+			// samples are audited, so they're saved through the entity manager
+			// instead of a bulk update
+			if (!sampleIds.isEmpty()) {
+				for (Sample sample : sampleRepository.findAll(sampleIds)) {
+					sample.setModifiedDate(modifiedDate);
+				}
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Remove everything from a concurrently updated set.
+	 *
+	 * @param ids
+	 *            the set to empty
+	 * @return the removed ids
+	 */
+	private static Set<Long> drain(Set<Long> ids) {
+		Set<Long> drained = new HashSet<>();
+		Iterator<Long> iterator = ids.iterator();
+		while (iterator.hasNext()) {
+			drained.add(iterator.next());
+			iterator.remove();
+		}
+		return drained;
+	}
+}
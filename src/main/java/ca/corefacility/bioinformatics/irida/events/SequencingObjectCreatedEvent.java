@@ -0,0 +1,26 @@
+package ca.corefacility.bioinformatics.irida.events;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+
+/**
+ * Application event published when a new {@link SequencingObject} is created.
+ * Listeners that need the {@link SequencingObject} to be visible in the
+ * database should listen for this event after the creating transaction
+ * commits.
+ */
+public class SequencingObjectCreatedEvent {
+	private final Long sequencingObjectId;
+
+	public SequencingObjectCreatedEvent(final Long sequencingObjectId) {
+		this.sequencingObjectId = sequencingObjectId;
+	}
+
+	/**
+	 * Get the identifier of the created {@link SequencingObject}
+	 * 
+	 * @return the identifier of the {@link SequencingObject}
+	 */
+	public Long getSequencingObjectId() {
+		return sequencingObjectId;
+	}
+}
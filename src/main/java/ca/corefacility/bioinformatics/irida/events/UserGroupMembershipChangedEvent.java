@@ -0,0 +1,25 @@
+package ca.corefacility.bioinformatics.irida.events;
+
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroup;
+
+/**
+ * Application event published when the members of a {@link UserGroup} or
+ * their roles change, or the group is deleted. These changes can change which
+ * projects the members can read, but don't create a project event.
+ */
+public class UserGroupMembershipChangedEvent {
+	private final Long userGroupId;
+
+	public UserGroupMembershipChangedEvent(final Long userGroupId) {
+		this.userGroupId = userGroupId;
+	}
+
+	/**
+	 * Get the identifier of the changed {@link UserGroup}
+	 * 
+	 * @return the identifier of the {@link UserGroup}
+	 */
+	public Long getUserGroupId() {
+		return userGroupId;
+	}
+}
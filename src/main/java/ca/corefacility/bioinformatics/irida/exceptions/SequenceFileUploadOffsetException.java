@@ -0,0 +1,36 @@
+package ca.corefacility.bioinformatics.irida.exceptions;
+
+/**
+ * Thrown when a chunk of a resumable sequence file upload doesn't start at the
+ * number of bytes already committed for the upload, or when an upload is
+ * completed before all of its bytes have been received.
+ */
+public class SequenceFileUploadOffsetException extends RuntimeException {
+
+	private static final long serialVersionUID = -3318524513532785394L;
+
+	private final long committedOffset;
+
+	/**
+	 * Construct a new {@link SequenceFileUploadOffsetException}.
+	 * 
+	 * @param message
+	 *            the message explaining the exception.
+	 * @param committedOffset
+	 *            the number of bytes already committed for the upload
+	 */
+	public SequenceFileUploadOffsetException(String message, long committedOffset) {
+		super(message);
+		this.committedOffset = committedOffset;
+	}
+
+	/**
+	 * Get the number of bytes that were committed for the upload when the
+	 * exception was thrown.
+	 * 
+	 * @return the committed offset
+	 */
+	public long getCommittedOffset() {
+		return committedOffset;
+	}
+}
@@ -59,6 +59,17 @@ public abstract class ProjectEvent implements IridaThing {
 		return createdDate;
 	}
 
+	/**
+	 * Set when the event happened. Events are written some time after
+	 * they're created, so this is set again when the event is saved.
+	 *
+	 * @param createdDate
+	 *            the date of the event
+	 */
+	public void setCreatedDate(Date createdDate) {
+		this.createdDate = createdDate;
+	}
+
 	@Override
 	public Long getId() {
 		return id;
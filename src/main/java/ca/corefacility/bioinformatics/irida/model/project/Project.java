@@ -92,6 +92,10 @@ public class Project extends IridaResourceSupport
 	@OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.REMOVE, mappedBy = "project")
 	private List<UserGroupProjectJoin> groups;
 
+	@NotAudited
+	@OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.REMOVE, mappedBy = "project")
+	private List<ProjectUserAccess> userAccess;
+
 	@OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.REMOVE, mappedBy = "project")
 	private List<ProjectSampleJoin> samples;
 
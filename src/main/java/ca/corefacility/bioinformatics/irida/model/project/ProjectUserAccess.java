@@ -0,0 +1,133 @@
+package ca.corefacility.bioinformatics.irida.model.project;
+
+import java.util.Objects;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.validation.constraints.NotNull;
+
+import ca.corefacility.bioinformatics.irida.model.enums.ProjectRole;
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupProjectJoin;
+
+/**
+ * The effective access that a {@link User} has to a {@link Project}, either
+ * from a {@link ProjectUserJoin} or from membership in a group with a
+ * {@link UserGroupProjectJoin}. This is an index derived from the membership
+ * tables so that checking whether a user can read a project is a single
+ * lookup. It isn't audited since it can always be rebuilt from the audited
+ * membership tables.
+ */
+@Entity
+@Table(name = "project_user_access", uniqueConstraints = @UniqueConstraint(columnNames = { "user_id",
+		"project_id" }))
+public class ProjectUserAccess {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.AUTO)
+	private Long id;
+
+	@NotNull
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "user_id")
+	private User user;
+
+	@NotNull
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "project_id")
+	private Project project;
+
+	@NotNull
+	@Enumerated(EnumType.STRING)
+	@Column(name = "project_role")
+	private ProjectRole projectRole;
+
+	@Column(name = "via_group")
+	private boolean viaGroup;
+
+	/**
+	 * For hibernate
+	 */
+	@SuppressWarnings("unused")
+	private ProjectUserAccess() {
+	}
+
+	/**
+	 * Create a new {@link ProjectUserAccess}
+	 *
+	 * @param user
+	 *            the {@link User} that has access
+	 * @param project
+	 *            the {@link Project} the user can access
+	 * @param projectRole
+	 *            the highest {@link ProjectRole} the user has on the project
+	 * @param viaGroup
+	 *            whether the user only has access through a group
+	 */
+	public ProjectUserAccess(User user, Project project, ProjectRole projectRole, boolean viaGroup) {
+		this.user = user;
+		this.project = project;
+		this.projectRole = projectRole;
+		this.viaGroup = viaGroup;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+		ProjectUserAccess that = (ProjectUserAccess) o;
+		return viaGroup == that.viaGroup && Objects.equals(user, that.user) && Objects.equals(project, that.project)
+				&& projectRole == that.projectRole;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(user, project, projectRole, viaGroup);
+	}
+
+	@Override
+	public String toString() {
+		return "ProjectUserAccess{" + "id=" + id + ", projectRole=" + projectRole + ", viaGroup=" + viaGroup + '}';
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public User getUser() {
+		return user;
+	}
+
+	public Project getProject() {
+		return project;
+	}
+
+	public ProjectRole getProjectRole() {
+		return projectRole;
+	}
+
+	public void setProjectRole(ProjectRole projectRole) {
+		this.projectRole = projectRole;
+	}
+
+	public boolean isViaGroup() {
+		return viaGroup;
+	}
+
+	public void setViaGroup(boolean viaGroup) {
+		this.viaGroup = viaGroup;
+	}
+}
@@ -8,6 +8,7 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 import javax.validation.constraints.NotNull;
 
 import org.hibernate.envers.Audited;
@@ -17,7 +18,7 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
  * Describes an individual field in a {@link MetadataTemplate}.
  */
 @Entity
-@Table(name = "metadata_field")
+@Table(name = "metadata_field", uniqueConstraints = @UniqueConstraint(columnNames = "label", name = "UK_METADATA_FIELD_LABEL"))
 @Audited
 @EntityListeners(AuditingEntityListener.class)
 public class MetadataTemplateField {
@@ -45,6 +45,14 @@ public abstract class QCEntry {
 	@NotNull
 	private SequencingObject sequencingObject;
 
+	/**
+	 * Read-only copy of the {@link SequencingObject} foreign key so that
+	 * entries can be grouped by object without loading the object.
+	 */
+	@Column(name = "sequencingObject_id", insertable = false, updatable = false)
+	@JsonIgnore
+	private Long sequencingObjectId;
+
 	@CreatedDate
 	@Temporal(TemporalType.TIMESTAMP)
 	@Column(name = "created_date")
@@ -70,6 +78,18 @@ public abstract class QCEntry {
 		return sequencingObject;
 	}
 
+	/**
+	 * Get the id of the {@link SequencingObject} for this entry without
+	 * loading the {@link SequencingObject}. Only set for entries that have
+	 * been read from the database.
+	 * 
+	 * @return the id of the {@link SequencingObject}
+	 */
+	@JsonIgnore
+	public Long getSequencingObjectId() {
+		return sequencingObjectId;
+	}
+
 	/**
 	 * Get the message for the qc entry
 	 *
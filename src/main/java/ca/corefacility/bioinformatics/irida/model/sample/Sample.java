@@ -334,7 +334,8 @@ public class Sample extends IridaResourceSupport
 	
 	/**
 	 * Merge {@link MetadataEntry} into the sample's existing metadata collection.
-	 * Duplicate keys will be overwritten.
+	 * Duplicate keys will be overwritten. The modified date is updated, as
+	 * entries merged in place don't otherwise mark the sample as modified.
 	 * 
 	 * @param inputMetadata the metadata to merge into the sample
 	 */
@@ -359,5 +360,9 @@ public class Sample extends IridaResourceSupport
 				metadata.put(entry.getKey(), newMetadataEntry);
 			}
 		}
+
+		if (!inputMetadata.isEmpty()) {
+			modifiedDate = new Date();
+		}
 	}
 }
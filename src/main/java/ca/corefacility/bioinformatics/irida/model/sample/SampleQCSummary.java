@@ -0,0 +1,62 @@
+package ca.corefacility.bioinformatics.irida.model.sample;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The total bases and {@link QCEntry}s for all of the sequencing data in a
+ * {@link Sample}. Used to display coverage and QC results for many
+ * {@link Sample}s at once without loading each {@link Sample}'s files.
+ */
+public class SampleQCSummary {
+	private final Long sampleId;
+	private final Long totalBases;
+	private final List<QCEntry> qcEntries;
+
+	/**
+	 * Create a new {@link SampleQCSummary}
+	 *
+	 * @param sampleId
+	 *            the id of the {@link Sample}
+	 * @param totalBases
+	 *            the total bases in all files in the {@link Sample}, or
+	 *            <code>null</code> if any file is missing a FastQC analysis
+	 * @param qcEntries
+	 *            the {@link QCEntry}s for the {@link Sample}
+	 */
+	public SampleQCSummary(Long sampleId, Long totalBases, List<QCEntry> qcEntries) {
+		this.sampleId = sampleId;
+		this.totalBases = totalBases;
+		this.qcEntries = ImmutableList.copyOf(qcEntries);
+	}
+
+	/**
+	 * Estimate the coverage of the {@link Sample} for a given reference
+	 * length.
+	 *
+	 * @param referenceFileLength
+	 *            the length of the reference in bases
+	 * @return the estimated coverage, or <code>null</code> if the total bases
+	 *         for the {@link Sample} aren't known.
+	 */
+	public Double estimateCoverage(long referenceFileLength) {
+		if (totalBases == null) {
+			return null;
+		}
+
+		return totalBases / (double) referenceFileLength;
+	}
+
+	public Long getSampleId() {
+		return sampleId;
+	}
+
+	public Long getTotalBases() {
+		return totalBases;
+	}
+
+	public List<QCEntry> getQcEntries() {
+		return qcEntries;
+	}
+}
@@ -0,0 +1,61 @@
+package ca.corefacility.bioinformatics.irida.model.sample;
+
+import java.util.Objects;
+
+/**
+ * The total number of bases in a single
+ * {@link ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile}
+ * in a {@link Sample}, loaded with a projection query. The total will be
+ * <code>null</code> if the file doesn't have a FastQC analysis yet.
+ */
+public class SampleSequenceFileBases {
+	private final Long sampleId;
+	private final Long sequencingObjectId;
+	private final Long sequenceFileId;
+	private final Long totalBases;
+
+	public SampleSequenceFileBases(Long sampleId, Long sequencingObjectId, Long sequenceFileId, Long totalBases) {
+		this.sampleId = sampleId;
+		this.sequencingObjectId = sequencingObjectId;
+		this.sequenceFileId = sequenceFileId;
+		this.totalBases = totalBases;
+	}
+
+	@Override
+	public String toString() {
+		return "SampleSequenceFileBases{" + "sampleId=" + sampleId + ", sequencingObjectId=" + sequencingObjectId
+				+ ", sequenceFileId=" + sequenceFileId + ", totalBases=" + totalBases + '}';
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+		SampleSequenceFileBases that = (SampleSequenceFileBases) o;
+		return Objects.equals(sampleId, that.sampleId) && Objects.equals(sequencingObjectId, that.sequencingObjectId)
+				&& Objects.equals(sequenceFileId, that.sequenceFileId) && Objects.equals(totalBases, that.totalBases);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(sampleId, sequencingObjectId, sequenceFileId, totalBases);
+	}
+
+	public Long getSampleId() {
+		return sampleId;
+	}
+
+	public Long getSequencingObjectId() {
+		return sequencingObjectId;
+	}
+
+	public Long getSequenceFileId() {
+		return sequenceFileId;
+	}
+
+	public Long getTotalBases() {
+		return totalBases;
+	}
+}
@@ -0,0 +1,134 @@
+package ca.corefacility.bioinformatics.irida.model.sample.metadata;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+
+/**
+ * The progress of importing a spreadsheet of {@link MetadataEntry}s into the {@link Sample}s of a {@link Project} in
+ * the background.
+ */
+public class SampleMetadataImport {
+
+	/**
+	 * The state of an import.
+	 */
+	public enum State {
+		RUNNING,
+		COMPLETE,
+		ERROR
+	}
+
+	private final String id = UUID.randomUUID()
+			.toString();
+	private final Long projectId;
+	private final String username;
+	private final int rows;
+
+	private final AtomicInteger total = new AtomicInteger();
+	private final AtomicInteger saved = new AtomicInteger();
+	private final List<String> missingSamples = Collections.synchronizedList(new ArrayList<>());
+
+	private volatile State state = State.RUNNING;
+	private volatile String errorMessage;
+
+	/**
+	 * Create an import of rows of metadata into a project
+	 *
+	 * @param projectId the id of the {@link Project} the metadata is imported into
+	 * @param username  the name of the user that started the import
+	 * @param rows      the number of rows being imported
+	 */
+	public SampleMetadataImport(Long projectId, String username, int rows) {
+		this.projectId = projectId;
+		this.username = username;
+		this.rows = rows;
+	}
+
+	/**
+	 * Record the number of {@link Sample}s the rows matched, before any are saved.
+	 *
+	 * @param total the number of {@link Sample}s to save
+	 */
+	public void setTotal(int total) {
+		this.total.set(total);
+	}
+
+	/**
+	 * Record the number of {@link Sample}s that have had their metadata written so far.
+	 *
+	 * @param saved the number of saved {@link Sample}s
+	 */
+	public void setSaved(int saved) {
+		this.saved.set(saved);
+	}
+
+	/**
+	 * Record a row whose sample name doesn't match a {@link Sample} in the project.
+	 *
+	 * @param sampleName the name in the row
+	 */
+	public void sampleMissing(String sampleName) {
+		missingSamples.add(sampleName);
+	}
+
+	/**
+	 * Mark the import as finished.
+	 */
+	public void complete() {
+		state = State.COMPLETE;
+	}
+
+	/**
+	 * Mark the import as failed.  Nothing from a failed import is saved.
+	 *
+	 * @param errorMessage why the import failed
+	 */
+	public void fail(String errorMessage) {
+		this.errorMessage = errorMessage;
+		state = State.ERROR;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public Long getProjectId() {
+		return projectId;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getTotal() {
+		return total.get();
+	}
+
+	public int getSaved() {
+		return saved.get();
+	}
+
+	public List<String> getMissingSamples() {
+		synchronized (missingSamples) {
+			return new ArrayList<>(missingSamples);
+		}
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	public String getErrorMessage() {
+		return errorMessage;
+	}
+}
@@ -0,0 +1,175 @@
+package ca.corefacility.bioinformatics.irida.model.sample.metadata;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.data.domain.Sort.Direction;
+
+import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+
+/**
+ * A window of the {@link Sample}s in a project, filtered and sorted by {@link Sample} properties or
+ * {@link MetadataEntry} values. Used to page through sample metadata in the database instead of loading every
+ * {@link Sample} in a project.
+ */
+public class SampleMetadataQuery {
+
+	/**
+	 * {@link Sample} properties that can be filtered and sorted on.
+	 */
+	public enum SampleProperty {
+		SAMPLE_NAME("sampleName"),
+		CREATED_DATE("createdDate"),
+		MODIFIED_DATE("modifiedDate");
+
+		private final String column;
+
+		SampleProperty(String column) {
+			this.column = column;
+		}
+
+		/**
+		 * Get the name of the sample table column for the property
+		 *
+		 * @return the column name
+		 */
+		public String getColumn() {
+			return column;
+		}
+	}
+
+	private final int offset;
+	private final int limit;
+
+	private final Map<SampleProperty, String> propertyFilters = new LinkedHashMap<>();
+	private final Map<Long, String> metadataFilters = new LinkedHashMap<>();
+	private String search;
+
+	private SampleProperty sortProperty = SampleProperty.MODIFIED_DATE;
+	private Long sortFieldId;
+	private Direction sortDirection = Direction.ASC;
+
+	/**
+	 * Create a query for a window of {@link Sample}s
+	 *
+	 * @param offset the number of samples to skip
+	 * @param limit  the maximum number of samples to return
+	 */
+	public SampleMetadataQuery(int offset, int limit) {
+		this.offset = offset;
+		this.limit = limit;
+	}
+
+	/**
+	 * Only include {@link Sample}s where a property contains some text
+	 *
+	 * @param property the {@link SampleProperty} to filter on
+	 * @param text     the text the property must contain
+	 * @return this query
+	 */
+	public SampleMetadataQuery filterProperty(SampleProperty property, String text) {
+		propertyFilters.put(property, text);
+		return this;
+	}
+
+	/**
+	 * Only include {@link Sample}s where the value of a metadata field contains some text
+	 *
+	 * @param fieldId the id of the {@link MetadataTemplateField} to filter on
+	 * @param text    the text the value must contain
+	 * @return this query
+	 */
+	public SampleMetadataQuery filterMetadata(Long fieldId, String text) {
+		metadataFilters.put(fieldId, text);
+		return this;
+	}
+
+	/**
+	 * Only include {@link Sample}s where the sample name or the value of any metadata field contains some text
+	 *
+	 * @param text the text to search for
+	 * @return this query
+	 */
+	public SampleMetadataQuery search(String text) {
+		this.search = text;
+		return this;
+	}
+
+	/**
+	 * Sort the {@link Sample}s by a property
+	 *
+	 * @param property  the {@link SampleProperty} to sort on
+	 * @param direction the {@link Direction} to sort in
+	 * @return this query
+	 */
+	public SampleMetadataQuery sortByProperty(SampleProperty property, Direction direction) {
+		this.sortProperty = property;
+		this.sortFieldId = null;
+		this.sortDirection = direction;
+		return this;
+	}
+
+	/**
+	 * Sort the {@link Sample}s by the value of a metadata field.  Samples without a value for the field are sorted
+	 * first.
+	 *
+	 * @param fieldId   the id of the {@link MetadataTemplateField} to sort on
+	 * @param direction the {@link Direction} to sort in
+	 * @return this query
+	 */
+	public SampleMetadataQuery sortByMetadata(Long fieldId, Direction direction) {
+		this.sortProperty = null;
+		this.sortFieldId = fieldId;
+		this.sortDirection = direction;
+		return this;
+	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	public Map<SampleProperty, String> getPropertyFilters() {
+		return Collections.unmodifiableMap(propertyFilters);
+	}
+
+	public Map<Long, String> getMetadataFilters() {
+		return Collections.unmodifiableMap(metadataFilters);
+	}
+
+	/**
+	 * Get the text to search for in the sample name and metadata values
+	 *
+	 * @return the text, or null if not searching
+	 */
+	public String getSearch() {
+		return search;
+	}
+
+	/**
+	 * Get the property to sort on
+	 *
+	 * @return the {@link SampleProperty}, or null if sorting on a metadata field
+	 */
+	public SampleProperty getSortProperty() {
+		return sortProperty;
+	}
+
+	/**
+	 * Get the metadata field to sort on
+	 *
+	 * @return the {@link MetadataTemplateField} id, or null if sorting on a property
+	 */
+	public Long getSortFieldId() {
+		return sortFieldId;
+	}
+
+	public Direction getSortDirection() {
+		return sortDirection;
+	}
+}
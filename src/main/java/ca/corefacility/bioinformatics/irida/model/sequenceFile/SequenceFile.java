@@ -86,6 +86,13 @@ public class SequenceFile extends IridaResourceSupport implements MutableIridaTh
 	@Column(name = "upload_sha256")
 	private String uploadSha256;
 
+	// whether uploadSha256 was calculated by the server while the file was
+	// uploaded. This can't be set from JSON so that a client-supplied
+	// checksum is never trusted.
+	@JsonIgnore
+	@Column(name = "upload_sha256_calculated", nullable = false)
+	private boolean uploadSha256Calculated = false;
+
 	@Column(name = "file_revision_number")
 	private Long fileRevisionNumber; // the filesystem file revision number
 
@@ -306,4 +313,29 @@ public class SequenceFile extends IridaResourceSupport implements MutableIridaTh
 	public void setUploadSha256(String uploadSha256) {
 		this.uploadSha256 = uploadSha256;
 	}
+
+	/**
+	 * Record the sha256 checksum that the server calculated while the file was
+	 * being uploaded, so that file processing doesn't have to calculate it
+	 * again.
+	 * 
+	 * @param uploadSha256
+	 *            the sha256 of the uploaded bytes
+	 */
+	public void recordCalculatedUploadSha256(String uploadSha256) {
+		this.uploadSha256 = uploadSha256;
+		this.uploadSha256Calculated = true;
+	}
+
+	/**
+	 * Whether the upload sha256 was calculated by the server while the file was
+	 * uploaded. A checksum set any other way (e.g. supplied by a client or
+	 * copied from a remote IRIDA) isn't trusted and is calculated again.
+	 * 
+	 * @return true if the server calculated the checksum on upload
+	 */
+	@JsonIgnore
+	public boolean isUploadSha256Calculated() {
+		return uploadSha256Calculated;
+	}
 }
@@ -0,0 +1,125 @@
+package ca.corefacility.bioinformatics.irida.model.sequenceFile;
+
+import java.util.Date;
+import java.util.Objects;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+
+/**
+ * A resumable upload of a single {@link SequenceFile} to a {@link Sample}. The
+ * bytes of the file are staged on disk as they arrive, and the upload is
+ * replaced by a {@link SequencingObject} when it is completed. It isn't
+ * audited since it only exists until the upload is completed or expires.
+ */
+@Entity
+@Table(name = "sequence_file_upload")
+public class SequenceFileUpload {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.AUTO)
+	private Long id;
+
+	@NotNull
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "sample_id")
+	private Sample sample;
+
+	@NotNull
+	@Size(min = 1, max = 255)
+	@Pattern(regexp = "^(?!\\.{1,2}$)[^/\\\\]+$", message = "{sequencefile.upload.file.name.invalid}")
+	@Column(name = "file_name")
+	private String fileName;
+
+	@Column(name = "file_size")
+	private Long fileSize;
+
+	@NotNull
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "created_date")
+	private Date createdDate;
+
+	/**
+	 * For hibernate
+	 */
+	@SuppressWarnings("unused")
+	private SequenceFileUpload() {
+	}
+
+	/**
+	 * Create a new {@link SequenceFileUpload}
+	 * 
+	 * @param sample
+	 *            the {@link Sample} the file is being uploaded to
+	 * @param fileName
+	 *            the name of the file being uploaded
+	 * @param fileSize
+	 *            the total size of the file in bytes, or <code>null</code> if
+	 *            the size isn't known in advance
+	 */
+	public SequenceFileUpload(Sample sample, String fileName, Long fileSize) {
+		this.sample = sample;
+		this.fileName = fileName;
+		this.fileSize = fileSize;
+		this.createdDate = new Date();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+		SequenceFileUpload that = (SequenceFileUpload) o;
+		return Objects.equals(sample, that.sample) && Objects.equals(fileName, that.fileName)
+				&& Objects.equals(fileSize, that.fileSize) && Objects.equals(createdDate, that.createdDate);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(sample, fileName, fileSize, createdDate);
+	}
+
+	@Override
+	public String toString() {
+		return "SequenceFileUpload{" + "id=" + id + ", fileName=" + fileName + ", fileSize=" + fileSize + '}';
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Sample getSample() {
+		return sample;
+	}
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	public Long getFileSize() {
+		return fileSize;
+	}
+
+	public Date getCreatedDate() {
+		return createdDate;
+	}
+}
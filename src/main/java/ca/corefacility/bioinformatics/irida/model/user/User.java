@@ -27,6 +27,7 @@ import ca.corefacility.bioinformatics.irida.model.IridaResourceSupport;
 import ca.corefacility.bioinformatics.irida.model.MutableIridaThing;
 import ca.corefacility.bioinformatics.irida.model.RemoteAPIToken;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
+import ca.corefacility.bioinformatics.irida.model.project.ProjectUserAccess;
 import ca.corefacility.bioinformatics.irida.model.announcements.AnnouncementUserJoin;
 
 /**
@@ -111,6 +112,10 @@ public class User extends IridaResourceSupport implements MutableIridaThing, Com
 	@OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.REMOVE, mappedBy = "user")
 	private List<ProjectUserJoin> projects;
 
+	@NotAudited
+	@OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.REMOVE, mappedBy = "user")
+	private List<ProjectUserAccess> projectAccess;
+
 	@OneToMany(mappedBy = "user")
 	private Collection<RemoteAPIToken> tokens;
 
@@ -0,0 +1,78 @@
+package ca.corefacility.bioinformatics.irida.model.workflow.analysis;
+
+import java.util.Objects;
+
+/**
+ * Summary totals from an {@link AnalysisFastQC} for a single
+ * {@link ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile}.
+ * This is loaded with a projection query so that the chart images and
+ * overrepresented sequences stored with the {@link AnalysisFastQC} are not read
+ * when only the totals are needed.
+ */
+public class FastQCSummary {
+	private final Long sequenceFileId;
+	private final Integer totalSequences;
+	private final Long totalBases;
+	private final Integer minLength;
+	private final Integer maxLength;
+	private final Short gcContent;
+
+	public FastQCSummary(Long sequenceFileId, Integer totalSequences, Long totalBases, Integer minLength,
+			Integer maxLength, Short gcContent) {
+		this.sequenceFileId = sequenceFileId;
+		this.totalSequences = totalSequences;
+		this.totalBases = totalBases;
+		this.minLength = minLength;
+		this.maxLength = maxLength;
+		this.gcContent = gcContent;
+	}
+
+	@Override
+	public String toString() {
+		return "FastQCSummary{" + "sequenceFileId=" + sequenceFileId + ", totalSequences=" + totalSequences
+				+ ", totalBases=" + totalBases + ", minLength=" + minLength + ", maxLength=" + maxLength
+				+ ", gcContent=" + gcContent + '}';
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+		FastQCSummary that = (FastQCSummary) o;
+		return Objects.equals(sequenceFileId, that.sequenceFileId)
+				&& Objects.equals(totalSequences, that.totalSequences) && Objects.equals(totalBases, that.totalBases)
+				&& Objects.equals(minLength, that.minLength) && Objects.equals(maxLength, that.maxLength)
+				&& Objects.equals(gcContent, that.gcContent);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(sequenceFileId, totalSequences, totalBases, minLength, maxLength, gcContent);
+	}
+
+	public Long getSequenceFileId() {
+		return sequenceFileId;
+	}
+
+	public Integer getTotalSequences() {
+		return totalSequences;
+	}
+
+	public Long getTotalBases() {
+		return totalBases;
+	}
+
+	public Integer getMinLength() {
+		return minLength;
+	}
+
+	public Integer getMaxLength() {
+		return maxLength;
+	}
+
+	public Short getGcContent() {
+		return gcContent;
+	}
+}
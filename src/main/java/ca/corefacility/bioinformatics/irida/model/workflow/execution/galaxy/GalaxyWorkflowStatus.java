@@ -6,6 +6,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 import org.slf4j.Logger;
@@ -93,6 +94,45 @@ public class GalaxyWorkflowStatus {
 		return countHistoryItemsInState(GalaxyWorkflowState.OK) / (float) countTotalWorkflowItems();
 	}
 
+	/**
+	 * Gets the number of workflow tasks that have completed.
+	 * 
+	 * @return The number of workflow tasks in the {@link GalaxyWorkflowState#OK} state.
+	 */
+	public int getCompleteWorkflowItems() {
+		return countHistoryItemsInState(GalaxyWorkflowState.OK);
+	}
+
+	/**
+	 * Gets the total number of workflow tasks.
+	 * 
+	 * @return The number of workflow tasks in all states.
+	 */
+	public int getTotalWorkflowItems() {
+		return countTotalWorkflowItems();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(Object other) {
+		if (other instanceof GalaxyWorkflowStatus) {
+			GalaxyWorkflowStatus status = (GalaxyWorkflowStatus) other;
+			return Objects.equals(state, status.state) && Objects.equals(stateIds, status.stateIds);
+		}
+
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(state, stateIds);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
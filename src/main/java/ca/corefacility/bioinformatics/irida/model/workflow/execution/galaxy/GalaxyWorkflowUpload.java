@@ -0,0 +1,116 @@
+package ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy;
+
+import java.util.Date;
+import java.util.UUID;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.persistence.UniqueConstraint;
+import javax.validation.constraints.NotNull;
+
+import org.hibernate.annotations.Type;
+
+/**
+ * A workflow file that was imported into Galaxy for an IRIDA workflow. Every
+ * submission of the same IRIDA workflow with the same workflow file runs the
+ * same Galaxy workflow, so it must not be deleted when a submission is cleaned
+ * up. It isn't audited since it only mirrors what is in Galaxy.
+ */
+@Entity
+@Table(name = "galaxy_workflow_upload", uniqueConstraints = @UniqueConstraint(columnNames = { "irida_workflow_id",
+		"workflow_hash" }))
+public class GalaxyWorkflowUpload {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.AUTO)
+	private Long id;
+
+	@NotNull
+	@Column(name = "irida_workflow_id")
+	@Type(type = "uuid-char")
+	private UUID iridaWorkflowId;
+
+	/**
+	 * SHA-256 of the workflow file.
+	 */
+	@NotNull
+	@Column(name = "workflow_hash")
+	private String workflowHash;
+
+	@NotNull
+	@Column(name = "galaxy_workflow_id")
+	private String galaxyWorkflowId;
+
+	@NotNull
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "upload_date")
+	private Date uploadDate;
+
+	/**
+	 * For hibernate
+	 */
+	@SuppressWarnings("unused")
+	private GalaxyWorkflowUpload() {
+	}
+
+	/**
+	 * Create a new {@link GalaxyWorkflowUpload}
+	 *
+	 * @param iridaWorkflowId
+	 *            the id of the IRIDA workflow the file belongs to
+	 * @param workflowHash
+	 *            SHA-256 of the workflow file
+	 * @param galaxyWorkflowId
+	 *            the id of the workflow in Galaxy
+	 */
+	public GalaxyWorkflowUpload(UUID iridaWorkflowId, String workflowHash, String galaxyWorkflowId) {
+		this.iridaWorkflowId = iridaWorkflowId;
+		this.workflowHash = workflowHash;
+		this.galaxyWorkflowId = galaxyWorkflowId;
+		this.uploadDate = new Date();
+	}
+
+	@Override
+	public String toString() {
+		return "GalaxyWorkflowUpload{" + "id=" + id + ", iridaWorkflowId=" + iridaWorkflowId + ", galaxyWorkflowId="
+				+ galaxyWorkflowId + '}';
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public UUID getIridaWorkflowId() {
+		return iridaWorkflowId;
+	}
+
+	public String getWorkflowHash() {
+		return workflowHash;
+	}
+
+	public String getGalaxyWorkflowId() {
+		return galaxyWorkflowId;
+	}
+
+	/**
+	 * Point at a new copy of the workflow in Galaxy, after the previous copy
+	 * was deleted.
+	 *
+	 * @param galaxyWorkflowId
+	 *            the id of the new workflow in Galaxy
+	 */
+	public void setGalaxyWorkflowId(String galaxyWorkflowId) {
+		this.galaxyWorkflowId = galaxyWorkflowId;
+		this.uploadDate = new Date();
+	}
+
+	public Date getUploadDate() {
+		return uploadDate;
+	}
+}
@@ -145,6 +145,40 @@ public class AnalysisSubmission extends IridaResourceSupport implements MutableI
 	@Column(name = "update_samples")
 	private boolean updateSamples;
 
+	/**
+	 * The progress of the workflow in the execution manager the last time it
+	 * was checked by the analysis scheduler. These are written by a bulk update
+	 * on every scheduler pass, so they're not audited and don't change the
+	 * modified date.
+	 */
+	@NotAudited
+	@Column(name = "complete_workflow_items")
+	private Integer completeWorkflowItems;
+
+	@NotAudited
+	@Column(name = "total_workflow_items")
+	private Integer totalWorkflowItems;
+
+	@NotAudited
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "progress_updated_date")
+	private Date progressUpdatedDate;
+
+	/**
+	 * The analysis scheduler node that has claimed this submission and when
+	 * its claim runs out. These are only ever written by bulk updates in the
+	 * repository, so saving the submission never overwrites another node's
+	 * claim.
+	 */
+	@NotAudited
+	@Column(name = "lease_owner", insertable = false, updatable = false)
+	private String leaseOwner;
+
+	@NotAudited
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "lease_expiry", insertable = false, updatable = false)
+	private Date leaseExpiry;
+
 	protected AnalysisSubmission() {
 		this.createdDate = new Date();
 		this.analysisState = AnalysisState.NEW;
@@ -695,6 +729,90 @@ public class AnalysisSubmission extends IridaResourceSupport implements MutableI
 		return updateSamples;
 	}
 
+	/**
+	 * Record the progress of the workflow in the execution manager.
+	 * 
+	 * @param completeWorkflowItems
+	 *            The number of workflow items that have completed.
+	 * @param totalWorkflowItems
+	 *            The total number of workflow items.
+	 * @param progressUpdatedDate
+	 *            When the progress was checked.
+	 */
+	public void setProgress(int completeWorkflowItems, int totalWorkflowItems, Date progressUpdatedDate) {
+		this.completeWorkflowItems = completeWorkflowItems;
+		this.totalWorkflowItems = totalWorkflowItems;
+		this.progressUpdatedDate = progressUpdatedDate;
+	}
+
+	/**
+	 * Get the number of workflow items that had completed when the progress was
+	 * last checked.
+	 * 
+	 * @return The number of complete workflow items, or null if the progress
+	 *         hasn't been checked.
+	 */
+	public Integer getCompleteWorkflowItems() {
+		return completeWorkflowItems;
+	}
+
+	/**
+	 * Get the total number of workflow items when the progress was last
+	 * checked.
+	 * 
+	 * @return The total number of workflow items, or null if the progress
+	 *         hasn't been checked.
+	 */
+	public Integer getTotalWorkflowItems() {
+		return totalWorkflowItems;
+	}
+
+	/**
+	 * Get when the progress of the workflow was last checked.
+	 * 
+	 * @return The date the progress was checked, or null if it hasn't been
+	 *         checked.
+	 */
+	public Date getProgressUpdatedDate() {
+		return progressUpdatedDate;
+	}
+
+	/**
+	 * Get the analysis scheduler node that has claimed this submission.
+	 * 
+	 * @return The owner of the lease, or null if no node holds it.
+	 */
+	@JsonIgnore
+	public String getLeaseOwner() {
+		return leaseOwner;
+	}
+
+	/**
+	 * Get when the lease on this submission runs out. This is kept after the
+	 * lease is released, as the time the submission was last claimed.
+	 * 
+	 * @return The expiry of the lease, or null if it has never been leased.
+	 */
+	@JsonIgnore
+	public Date getLeaseExpiry() {
+		return leaseExpiry;
+	}
+
+	/**
+	 * Get the proportion of workflow items that had completed when the progress
+	 * was last checked.
+	 * 
+	 * @return The proportion of complete workflow items, or 0 if the progress
+	 *         hasn't been checked.
+	 */
+	@JsonIgnore
+	public float getProportionComplete() {
+		if (completeWorkflowItems == null || totalWorkflowItems == null || totalWorkflowItems == 0) {
+			return 0.0f;
+		}
+		return completeWorkflowItems / (float) totalWorkflowItems;
+	}
+
 	@Override
 	public int hashCode() {
 		return Objects.hash(name, workflowId, remoteAnalysisId, remoteInputDataId, remoteWorkflowId, createdDate,
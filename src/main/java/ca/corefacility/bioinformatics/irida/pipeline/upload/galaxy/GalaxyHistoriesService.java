@@ -261,7 +261,54 @@ public class GalaxyHistoriesService {
 				
 		List<HistoryContents> historyContentsList =
 				historiesClient.showHistoryContents(historyId);
-		
+
+		return getDatasetForFileInHistoryContents(filename, historyId, historyContentsList);
+	}
+
+	/**
+	 * Gets Dataset objects for several files in the given history, listing the
+	 * contents of the history only once.
+	 * 
+	 * @param filenames
+	 *            The names of the files to get Dataset objects for.
+	 * @param historyId
+	 *            The history id to look for the datasets.
+	 * @return A {@link Map} of file name to the corresponding dataset.
+	 * @throws GalaxyDatasetException
+	 *             If there was an issue when searching for any of the
+	 *             datasets.
+	 */
+	public Map<String, Dataset> getDatasetsForFilesInHistory(Set<String> filenames, String historyId)
+			throws GalaxyDatasetException {
+		checkNotNull(filenames, "filenames is null");
+		checkNotNull(historyId, "historyId is null");
+
+		List<HistoryContents> historyContentsList = historiesClient.showHistoryContents(historyId);
+
+		Map<String, Dataset> datasets = new HashMap<>();
+		for (String filename : filenames) {
+			datasets.put(filename, getDatasetForFileInHistoryContents(filename, historyId, historyContentsList));
+		}
+
+		return datasets;
+	}
+
+	/**
+	 * Finds the Dataset object for a file with the given name in an already
+	 * listed set of history contents.
+	 * 
+	 * @param filename
+	 *            The name of the file to get a Dataset object for.
+	 * @param historyId
+	 *            The history id the contents were listed from.
+	 * @param historyContentsList
+	 *            The contents of the history.
+	 * @return The corresponding dataset for the given file name.
+	 * @throws GalaxyDatasetException
+	 *             If there was an issue when searching for a dataset.
+	 */
+	private Dataset getDatasetForFileInHistoryContents(String filename, String historyId,
+			List<HistoryContents> historyContentsList) throws GalaxyDatasetException {
 		List<HistoryContents> matchingHistoryContents = historyContentsList.stream()
 				.filter((historyContents) -> filename.equals(historyContents.getName())
 						&& !COLLECTION.equals(historyContents.getHistoryContentType()))
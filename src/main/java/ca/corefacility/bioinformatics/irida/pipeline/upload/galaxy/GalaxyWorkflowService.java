@@ -8,17 +8,28 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import ca.corefacility.bioinformatics.irida.exceptions.WorkflowException;
 import ca.corefacility.bioinformatics.irida.exceptions.galaxy.DeleteGalaxyObjectFailedException;
 import ca.corefacility.bioinformatics.irida.exceptions.galaxy.WorkflowUploadException;
+import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowUpload;
 import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.WorkflowInputsGalaxy;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.GalaxyWorkflowUploadRepository;
 
 import com.github.jmchilton.blend4j.galaxy.WorkflowsClient;
 import com.github.jmchilton.blend4j.galaxy.beans.Workflow;
 import com.github.jmchilton.blend4j.galaxy.beans.WorkflowDetails;
 import com.github.jmchilton.blend4j.galaxy.beans.WorkflowInputDefinition;
 import com.github.jmchilton.blend4j.galaxy.beans.WorkflowOutputs;
+import com.google.common.hash.Hashing;
 import com.sun.jersey.api.client.ClientResponse;
 
 /**
@@ -26,22 +37,45 @@ import com.sun.jersey.api.client.ClientResponse;
  *
  */
 public class GalaxyWorkflowService {
+	private static final Logger logger = LoggerFactory.getLogger(GalaxyWorkflowService.class);
+
 	private WorkflowsClient workflowsClient;
 	
 	private final Charset workflowCharset;
+
+	/**
+	 * Workflows already imported into Galaxy, keyed by the IRIDA workflow id
+	 * and a hash of the workflow file. Shared by every IRIDA node using the
+	 * same Galaxy.
+	 */
+	private final GalaxyWorkflowUploadRepository galaxyWorkflowUploadRepository;
+
+	/**
+	 * Reads and records uploads in their own transaction, so that losing a
+	 * race with another node doesn't roll back the submission being prepared.
+	 */
+	private final TransactionTemplate transactionTemplate;
 	
 	/**
 	 * Constructs a new GalaxyWorkflowSubmitter with the given information.
 	 * @param workflowsClient  The WorkflowsClient used to connect to Galaxy workflows.
 	 * @param workflowCharset  The {@link Charset} to use for reading in workflows from files.
+	 * @param galaxyWorkflowUploadRepository  The repository of workflows already uploaded to Galaxy.
+	 * @param transactionManager  The transaction manager used to record uploads.
 	 */
-	public GalaxyWorkflowService(
-			WorkflowsClient workflowsClient, Charset workflowCharset) {
+	public GalaxyWorkflowService(WorkflowsClient workflowsClient, Charset workflowCharset,
+			GalaxyWorkflowUploadRepository galaxyWorkflowUploadRepository,
+			PlatformTransactionManager transactionManager) {
 		checkNotNull(workflowsClient, "workflowsClient is null");
 		checkNotNull(workflowCharset, "workflowCharset is null");
+		checkNotNull(galaxyWorkflowUploadRepository, "galaxyWorkflowUploadRepository is null");
+		checkNotNull(transactionManager, "transactionManager is null");
 		
 		this.workflowsClient = workflowsClient;
 		this.workflowCharset = workflowCharset;
+		this.galaxyWorkflowUploadRepository = galaxyWorkflowUploadRepository;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
 	}
 
 	/**
@@ -54,9 +88,121 @@ public class GalaxyWorkflowService {
 	public String uploadGalaxyWorkflow(Path workflowFile) throws IOException, WorkflowUploadException {
 		checkNotNull(workflowFile, "workflowFile is null");
 		
+		return importWorkflow(readWorkflow(workflowFile), workflowFile);
+	}
+
+	/**
+	 * Gets the id of a workflow in Galaxy for the given file, uploading it
+	 * only if the same file hasn't already been uploaded for this IRIDA
+	 * workflow or the uploaded copy can no longer be found in Galaxy.
+	 * 
+	 * @param iridaWorkflowId
+	 *            The id of the IRIDA workflow the file belongs to.
+	 * @param workflowFile
+	 *            The file to upload.
+	 * @return The id of the workflow in Galaxy.
+	 * @throws IOException
+	 *             If there was an issue reading the file.
+	 * @throws WorkflowUploadException
+	 *             If there was an issue uploading the workflow to Galaxy.
+	 */
+	public String getOrUploadGalaxyWorkflow(UUID iridaWorkflowId, Path workflowFile) throws IOException,
+			WorkflowUploadException {
+		checkNotNull(iridaWorkflowId, "iridaWorkflowId is null");
+		checkNotNull(workflowFile, "workflowFile is null");
+
+		String workflowString = readWorkflow(workflowFile);
+		String workflowHash = Hashing.sha256().hashString(workflowString, workflowCharset).toString();
+
+		GalaxyWorkflowUpload upload = findUpload(iridaWorkflowId, workflowHash);
+		String checkedWorkflowId = null;
+		if (upload != null) {
+			checkedWorkflowId = upload.getGalaxyWorkflowId();
+			if (workflowExists(checkedWorkflowId)) {
+				return checkedWorkflowId;
+			}
+		}
+
+		synchronized (this) {
+			upload = findUpload(iridaWorkflowId, workflowHash);
+			if (upload != null && !upload.getGalaxyWorkflowId().equals(checkedWorkflowId)) {
+				// uploaded by another thread or node while this one was checking
+				return upload.getGalaxyWorkflowId();
+			}
+
+			String workflowId = importWorkflow(workflowString, workflowFile);
+			logger.debug("Uploaded " + workflowFile + " for IRIDA workflow " + iridaWorkflowId
+					+ " to Galaxy workflow " + workflowId);
+
+			GalaxyWorkflowUpload uploaded = (upload != null) ? upload : new GalaxyWorkflowUpload(iridaWorkflowId,
+					workflowHash, workflowId);
+			uploaded.setGalaxyWorkflowId(workflowId);
+			try {
+				transactionTemplate.execute(status -> galaxyWorkflowUploadRepository.save(uploaded));
+			} catch (DataIntegrityViolationException e) {
+				// Another node registered the same file first. This copy isn't
+				// shared, so it's deleted with the submission as before.
+				logger.debug("Galaxy workflow for " + workflowFile + " was registered by another node, using "
+						+ workflowId + " only for this submission", e);
+			}
+			return workflowId;
+		}
+	}
+
+	/**
+	 * Whether a Galaxy workflow was uploaded by
+	 * {@link #getOrUploadGalaxyWorkflow(UUID, Path)} and may be used by more
+	 * than one analysis, so it shouldn't be deleted.
+	 * 
+	 * @param workflowId
+	 *            The id of the workflow in Galaxy.
+	 * @return True if the workflow is shared, false otherwise.
+	 */
+	public boolean isSharedWorkflow(String workflowId) {
+		return galaxyWorkflowUploadRepository.countByGalaxyWorkflowId(workflowId) > 0;
+	}
+
+	/**
+	 * Reads the recorded upload of a workflow file. This is read in its own
+	 * transaction so that an upload recorded by another node is seen.
+	 * 
+	 * @param iridaWorkflowId
+	 *            The id of the IRIDA workflow the file belongs to.
+	 * @param workflowHash
+	 *            SHA-256 of the workflow file.
+	 * @return The upload, or null if the file hasn't been uploaded.
+	 */
+	private GalaxyWorkflowUpload findUpload(UUID iridaWorkflowId, String workflowHash) {
+		return transactionTemplate.execute(status -> galaxyWorkflowUploadRepository.findUpload(iridaWorkflowId,
+				workflowHash));
+	}
+
+	/**
+	 * Reads the contents of a workflow file.
+	 * 
+	 * @param workflowFile
+	 *            The file to read.
+	 * @return The workflow.
+	 * @throws IOException
+	 *             If there was an issue reading the file.
+	 */
+	private String readWorkflow(Path workflowFile) throws IOException {
 		byte[] fileBytes = Files.readAllBytes(workflowFile);
-		String workflowString = new String(fileBytes, workflowCharset);
-		
+		return new String(fileBytes, workflowCharset);
+	}
+
+	/**
+	 * Imports a workflow into Galaxy.
+	 * 
+	 * @param workflowString
+	 *            The workflow to import.
+	 * @param workflowFile
+	 *            The file the workflow was read from.
+	 * @return The id of the workflow in Galaxy.
+	 * @throws WorkflowUploadException
+	 *             If there was an issue uploading the workflow to Galaxy.
+	 */
+	private String importWorkflow(String workflowString, Path workflowFile) throws WorkflowUploadException {
 		try {
 			Workflow workflow = workflowsClient.importWorkflow(workflowString);
 			return workflow.getId();
@@ -64,6 +210,26 @@ public class GalaxyWorkflowService {
 			throw new WorkflowUploadException("Could not upload workflow from " + workflowFile,e);
 		}
 	}
+
+	/**
+	 * Checks that a previously uploaded workflow can still be found in Galaxy
+	 * and hasn't been deleted. Galaxy still shows a deleted workflow when asked
+	 * for it by id, but leaves it out of the list of workflows.
+	 * 
+	 * @param workflowId
+	 *            The id of the workflow in Galaxy.
+	 * @return True if the workflow can be found, false otherwise.
+	 */
+	private boolean workflowExists(String workflowId) {
+		try {
+			return workflowsClient.getWorkflows()
+					.stream()
+					.anyMatch(workflow -> workflowId.equals(workflow.getId()));
+		} catch (RuntimeException e) {
+			logger.debug("Could not find uploaded Galaxy workflow " + workflowId + ", uploading again", e);
+			return false;
+		}
+	}
 	
 	/**
 	 * Given a WorkflowDetails an a workflowInputLabel find the corresponding id for this input.
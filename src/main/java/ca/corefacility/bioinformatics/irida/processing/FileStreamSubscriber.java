@@ -0,0 +1,86 @@
+package ca.corefacility.bioinformatics.irida.processing;
+
+import java.io.IOException;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import uk.ac.babraham.FastQC.Sequence.Sequence;
+
+/**
+ * Receives the contents of a single {@link SequenceFile} while it is being read
+ * by a shared, single-pass scan of the file. A subscriber is created by a
+ * {@link StreamingFileProcessor} for each file that is scanned and is discarded
+ * after {@link #complete()} or {@link #abort()} is called.
+ */
+public interface FileStreamSubscriber {
+
+	/**
+	 * Receive a block of bytes exactly as they are stored on disk (i.e., before
+	 * any decompression).
+	 *
+	 * @param buffer
+	 *            the buffer containing the bytes
+	 * @param offset
+	 *            the offset of the first byte in the buffer
+	 * @param length
+	 *            the number of bytes to read from the buffer
+	 * @throws IOException
+	 *             if the subscriber fails to handle the bytes
+	 */
+	public default void onBytes(byte[] buffer, int offset, int length) throws IOException {
+	}
+
+	/**
+	 * Receive a block of decompressed bytes. This is only called when the
+	 * file being scanned is compressed.
+	 *
+	 * @param buffer
+	 *            the buffer containing the bytes
+	 * @param offset
+	 *            the offset of the first byte in the buffer
+	 * @param length
+	 *            the number of bytes to read from the buffer
+	 * @throws IOException
+	 *             if the subscriber fails to handle the bytes
+	 */
+	public default void onDecompressedBytes(byte[] buffer, int offset, int length) throws IOException {
+	}
+
+	/**
+	 * Receive a single parsed sequencing record. Only called if
+	 * {@link #needsSequences()} returns <code>true</code>.
+	 *
+	 * @param sequence
+	 *            the parsed record
+	 */
+	public default void onSequence(Sequence sequence) {
+	}
+
+	/**
+	 * Whether or not this subscriber needs the file to be parsed into
+	 * individual records. The file is only parsed if at least one subscriber
+	 * requires records.
+	 *
+	 * @return true if the subscriber requires parsed records.
+	 */
+	public default boolean needsSequences() {
+		return false;
+	}
+
+	/**
+	 * Called once the entire file has been read. Subscribers should persist
+	 * any modifications to the {@link SequenceFile} here.
+	 *
+	 * @throws IOException
+	 *             if the subscriber fails to finish processing
+	 * @throws FileProcessorException
+	 *             if the subscriber fails to finish processing
+	 */
+	public void complete() throws IOException;
+
+	/**
+	 * Called instead of {@link #complete()} when the scan of the file fails.
+	 * Subscribers should clean up any temporary state.
+	 */
+	public default void abort() {
+	}
+}
@@ -0,0 +1,27 @@
+package ca.corefacility.bioinformatics.irida.processing;
+
+import java.io.IOException;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+
+/**
+ * A {@link FileProcessor} that can also subscribe to a shared scan of a
+ * {@link SequenceFile} instead of reading the file itself. This allows several
+ * processors to run during a single pass over the file.
+ */
+public interface StreamingFileProcessor extends FileProcessor {
+
+	/**
+	 * Create a {@link FileStreamSubscriber} that will receive the contents of
+	 * the given {@link SequenceFile} as it is being read.
+	 *
+	 * @param sequenceFile
+	 *            the {@link SequenceFile} that is about to be read
+	 * @param compressed
+	 *            whether or not the file on disk is gzip compressed
+	 * @return a subscriber for the contents of the file
+	 * @throws IOException
+	 *             if the subscriber could not be set up
+	 */
+	public FileStreamSubscriber subscribe(SequenceFile sequenceFile, boolean compressed) throws IOException;
+}
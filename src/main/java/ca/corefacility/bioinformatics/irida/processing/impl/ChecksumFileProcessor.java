@@ -3,8 +3,11 @@ package ca.corefacility.bioinformatics.irida.processing.impl;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Set;
 
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +18,8 @@ import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessor;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.FileStreamSubscriber;
+import ca.corefacility.bioinformatics.irida.processing.StreamingFileProcessor;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
 
 /**
@@ -22,7 +27,9 @@ import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFi
  * {@link SequenceFile}s
  */
 @Component
-public class ChecksumFileProcessor implements FileProcessor {
+public class ChecksumFileProcessor implements StreamingFileProcessor {
+	private static final String SHA_256 = "SHA-256";
+
 	private static final Logger logger = LoggerFactory.getLogger(ChecksumFileProcessor.class);
 
 	private SequenceFileRepository fileRepository;
@@ -35,7 +42,9 @@ public class ChecksumFileProcessor implements FileProcessor {
 
 	/**
 	 * Create an sha256sum for the files in a {@link SequencingObject} and save
-	 * it with the file.
+	 * it with the file. Files that the server checksummed while they were
+	 * uploaded are skipped. Any other checksum on the file (e.g. one supplied
+	 * by a client) is replaced.
 	 * 
 	 * @param sequencingObject
 	 *            the {@link SequencingObject} to modify
@@ -48,6 +57,10 @@ public class ChecksumFileProcessor implements FileProcessor {
 		Set<SequenceFile> files = sequencingObject.getFiles();
 
 		for (SequenceFile file : files) {
+			if (file.isUploadSha256Calculated()) {
+				logger.trace("Checksum already calculated for file " + file.getId());
+				continue;
+			}
 
 			try (InputStream is = Files.newInputStream(file.getFile())) {
 				String shaDigest = DigestUtils.sha256Hex(is);
@@ -62,6 +75,51 @@ public class ChecksumFileProcessor implements FileProcessor {
 		}
 	}
 
+	/**
+	 * Create a subscriber that computes the sha256sum of the bytes of the file
+	 * as they are stored on disk, and saves it with the file once the file has
+	 * been completely read. If the server already checksummed the file while it
+	 * was uploaded, the subscriber ignores the contents of the file.
+	 * 
+	 * @param sequenceFile
+	 *            the {@link SequenceFile} to calculate a checksum for
+	 * @param compressed
+	 *            whether or not the file is compressed (ignored, the checksum
+	 *            is always calculated on the uploaded bytes)
+	 * @return a {@link FileStreamSubscriber} calculating the checksum
+	 */
+	@Override
+	public FileStreamSubscriber subscribe(SequenceFile sequenceFile, boolean compressed) {
+		if (sequenceFile.isUploadSha256Calculated()) {
+			logger.trace("Checksum already calculated for file " + sequenceFile.getId());
+			return () -> {
+			};
+		}
+
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(SHA_256);
+		} catch (NoSuchAlgorithmException e) {
+			throw new FileProcessorException("could not calculate checksum", e);
+		}
+
+		return new FileStreamSubscriber() {
+			@Override
+			public void onBytes(byte[] buffer, int offset, int length) {
+				digest.update(buffer, offset, length);
+			}
+
+			@Override
+			public void complete() {
+				String shaDigest = Hex.encodeHexString(digest.digest());
+				logger.trace("Checksum generated for file " + sequenceFile.getId() + ": " + shaDigest);
+				sequenceFile.setUploadSha256(shaDigest);
+
+				fileRepository.saveMetadata(sequenceFile);
+			}
+		};
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
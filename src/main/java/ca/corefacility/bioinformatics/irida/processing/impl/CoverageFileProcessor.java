@@ -1,5 +1,9 @@
 package ca.corefacility.bioinformatics.irida.processing.impl;
 
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,9 +11,11 @@ import org.springframework.stereotype.Component;
 
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.sample.CoverageQCEntry;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
-import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCSummary;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessor;
+import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.AnalysisRepository;
 import ca.corefacility.bioinformatics.irida.repositories.sample.QCEntryRepository;
 
@@ -50,10 +56,15 @@ public class CoverageFileProcessor implements FileProcessor {
 		}
 
 		// count the total bases
-		long totalBases = sequencingObject.getFiles().stream().mapToLong(f -> {
-			AnalysisFastQC fastqc = analysisRepository.findFastqcAnalysisForSequenceFile(f);
-			return fastqc.getTotalBases();
-		}).sum();
+		// only the totals are needed, so don't load the full FastQC analysis
+		Set<Long> fileIds = sequencingObject.getFiles().stream().map(SequenceFile::getId)
+				.collect(Collectors.toSet());
+		List<FastQCSummary> summaries = analysisRepository.findFastqcSummariesForSequenceFiles(fileIds);
+		if (summaries.size() != fileIds.size()) {
+			throw new FileProcessorException("Missing FastQC analysis for files in " + sequencingObject);
+		}
+
+		long totalBases = summaries.stream().mapToLong(FastQCSummary::getTotalBases).sum();
 
 		// save the entry
 		CoverageQCEntry coverageQCEntry = new CoverageQCEntry(sequencingObject, totalBases);
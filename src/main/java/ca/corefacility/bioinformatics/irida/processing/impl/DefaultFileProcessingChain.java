@@ -155,13 +155,13 @@ public class DefaultFileProcessingChain implements FileProcessingChain {
 	 *             if the files don't settle in the configured timeout
 	 */
 	private SequencingObject getSettledSequencingObject(Long sequencingObjectId) throws FileProcessorTimeoutException {
-		boolean filesNotSettled = true;
-
 		Integer waiting = 0;
 
-		SequencingObject sequencingObject;
+		SequencingObject sequencingObject = sequencingObjectRepository.findOne(sequencingObjectId);
 
-		do {
+		// files are normally settled by the time the chain is launched after
+		// the upload commits, so only sleep if they're not there yet.
+		while (!filesSettled(sequencingObject)) {
 			if (waiting > timeout) {
 				throw new FileProcessorTimeoutException("Waiting for longer than " + sleepDuration * timeout
 						+ "ms, bailing out.  File id " + sequencingObjectId);
@@ -175,15 +175,26 @@ public class DefaultFileProcessingChain implements FileProcessingChain {
 			}
 
 			sequencingObject = sequencingObjectRepository.findOne(sequencingObjectId);
-
-			if(sequencingObject != null) {
-				Set<SequenceFile> files = sequencingObject.getFiles();
-				filesNotSettled = files.stream().anyMatch(f -> {
-					return !Files.exists(f.getFile());
-				});
-			}
-		} while (filesNotSettled);
+		}
 
 		return sequencingObject;
 	}
+
+	/**
+	 * Check whether all of the files for a {@link SequencingObject} exist on
+	 * disk.
+	 * 
+	 * @param sequencingObject
+	 *            the {@link SequencingObject} to check
+	 * @return true if the {@link SequencingObject} exists and all of its files
+	 *         exist.
+	 */
+	private boolean filesSettled(SequencingObject sequencingObject) {
+		if (sequencingObject == null) {
+			return false;
+		}
+
+		Set<SequenceFile> files = sequencingObject.getFiles();
+		return files.stream().allMatch(f -> Files.exists(f.getFile()));
+	}
 }
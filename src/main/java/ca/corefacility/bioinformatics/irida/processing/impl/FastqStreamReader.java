@@ -0,0 +1,143 @@
+package ca.corefacility.bioinformatics.irida.processing.impl;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import uk.ac.babraham.FastQC.Sequence.Sequence;
+import uk.ac.babraham.FastQC.Sequence.SequenceFile;
+import uk.ac.babraham.FastQC.Sequence.SequenceFormatException;
+
+/**
+ * A FastQC {@link SequenceFile} that reads FASTQ records from an already open
+ * (and already decompressed) {@link InputStream}. FastQC's own readers can
+ * only open files by name, which means that the file has to be read again for
+ * every consumer; this reader allows FastQC modules to be fed from a stream
+ * that is shared with other consumers.
+ *
+ * Colorspace and CASAVA filtering are not supported, IRIDA does not accept
+ * either.
+ */
+public class FastqStreamReader implements SequenceFile {
+
+	private final File file;
+	private final BufferedReader reader;
+
+	private Sequence nextSequence = null;
+
+	/**
+	 * Create a new {@link FastqStreamReader}.
+	 *
+	 * @param file
+	 *            the file that the stream was opened on (used for naming only)
+	 * @param inputStream
+	 *            the decompressed contents of the file. The stream is
+	 *            <b>not</b> closed by this reader.
+	 * @throws SequenceFormatException
+	 *             if the first record in the stream is malformed
+	 */
+	public FastqStreamReader(final Path file, final InputStream inputStream) throws SequenceFormatException {
+		this.file = file.toFile();
+		this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.US_ASCII));
+		readNext();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasNext() {
+		return nextSequence != null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Sequence next() throws SequenceFormatException {
+		final Sequence sequence = nextSequence;
+		readNext();
+		return sequence;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isColorspace() {
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String name() {
+		return file.getName();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPercentComplete() {
+		return hasNext() ? 0 : 100;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Read the next 4-line FASTQ record from the stream.
+	 *
+	 * @throws SequenceFormatException
+	 *             if the record is malformed or truncated
+	 */
+	private void readNext() throws SequenceFormatException {
+		try {
+			String id;
+			// skip any blank lines between (or after) records
+			do {
+				id = reader.readLine();
+				if (id == null) {
+					nextSequence = null;
+					return;
+				}
+			} while (id.isEmpty());
+
+			if (!id.startsWith("@")) {
+				nextSequence = null;
+				throw new SequenceFormatException("ID line didn't start with '@'");
+			}
+
+			final String sequence = reader.readLine();
+			final String midLine = reader.readLine();
+			final String quality = reader.readLine();
+
+			if (sequence == null || midLine == null || quality == null) {
+				nextSequence = null;
+				throw new SequenceFormatException(
+						"Ran out of data in the middle of a fastq entry.  Your file is probably truncated");
+			}
+
+			if (!midLine.startsWith("+")) {
+				nextSequence = null;
+				throw new SequenceFormatException("Midline '" + midLine + "' didn't start with '+'");
+			}
+
+			nextSequence = new Sequence(this, sequence, quality, id);
+		} catch (IOException e) {
+			nextSequence = null;
+			throw new SequenceFormatException(e.getMessage());
+		}
+	}
+}
@@ -5,12 +5,14 @@ import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC.AnalysisFastQCBuilder;
-import ca.corefacility.bioinformatics.irida.processing.FileProcessor;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.FileStreamSubscriber;
+import ca.corefacility.bioinformatics.irida.processing.StreamingFileProcessor;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.stereotype.Component;
@@ -31,9 +33,16 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Executes FastQC on a {@link SequenceFile} and stores the report in the
@@ -44,13 +53,33 @@ import java.util.Set;
  * 
  */
 @Component
-public class FastqcFileProcessor implements FileProcessor {
+public class FastqcFileProcessor implements StreamingFileProcessor {
 	private static final Logger logger = LoggerFactory.getLogger(FastqcFileProcessor.class);
 
 	private static final String EXECUTION_MANAGER_ANALYSIS_ID = "internal-fastqc";
 
+	/**
+	 * The number of records handed to the FastQC modules at a time.
+	 */
+	private static final int BATCH_SIZE = 10000;
+
 	private final SequenceFileRepository sequenceFileRepository;
 	private final MessageSource messageSource;
+	private final ForkJoinPool forkJoinPool;
+
+	/**
+	 * Create a new {@link FastqcFileProcessor} that runs on the common
+	 * {@link ForkJoinPool}.
+	 * 
+	 * @param messageSource
+	 *            the message source for i18n (used to add an internationalized
+	 *            description for the analysis).
+	 * @param sequenceFileRepository
+	 *            the sequence file repository.
+	 */
+	public FastqcFileProcessor(final MessageSource messageSource, final SequenceFileRepository sequenceFileRepository) {
+		this(messageSource, sequenceFileRepository, ForkJoinPool.commonPool());
+	}
 
 	/**
 	 * Create a new {@link FastqcFileProcessor}
@@ -60,18 +89,53 @@ public class FastqcFileProcessor implements FileProcessor {
 	 *            description for the analysis).
 	 * @param sequenceFileRepository
 	 *            the sequence file repository.
+	 * @param forkJoinPool
+	 *            the pool used to run the files of a
+	 *            {@link SequencingObject}, the FastQC modules and the chart
+	 *            rendering in parallel.
 	 */
 	@Autowired
-	public FastqcFileProcessor(final MessageSource messageSource, final SequenceFileRepository sequenceFileRepository) {
+	public FastqcFileProcessor(final MessageSource messageSource, final SequenceFileRepository sequenceFileRepository,
+			@Qualifier("fastqcForkJoinPool") final ForkJoinPool forkJoinPool) {
 		this.messageSource = messageSource;
 		this.sequenceFileRepository = sequenceFileRepository;
+		this.forkJoinPool = forkJoinPool;
 	}
 
+	/**
+	 * Run FastQC on all files in the {@link SequencingObject}. The files
+	 * (i.e., the forward and reverse reads of a pair) are processed
+	 * concurrently, but the results are saved in the calling thread.
+	 * 
+	 * @param sequencingObject
+	 *            the {@link SequencingObject} to process
+	 */
 	@Override
 	@Transactional
 	public void process(SequencingObject sequencingObject) {
+		final String description = getDescription();
+		final Map<SequenceFile, ForkJoinTask<AnalysisFastQC>> analyses = new LinkedHashMap<>();
+
 		for (SequenceFile file : sequencingObject.getFiles()) {
-			processSingleFile(file);
+			analyses.put(file, forkJoinPool.submit(() -> processSingleFile(file, description)));
+		}
+
+		for (Map.Entry<SequenceFile, ForkJoinTask<AnalysisFastQC>> entry : analyses.entrySet()) {
+			final SequenceFile sequenceFile = entry.getKey();
+			try {
+				sequenceFile.setFastQCAnalysis(entry.getValue().get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new FileProcessorException("Interrupted while waiting for FastQC.", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof FileProcessorException) {
+					throw (FileProcessorException) e.getCause();
+				}
+				throw new FileProcessorException("FastQC failed to parse the sequence file.", e.getCause());
+			}
+
+			logger.trace("Saving FastQC analysis.");
+			sequenceFileRepository.saveMetadata(sequenceFile);
 		}
 	}
 
@@ -80,48 +144,169 @@ public class FastqcFileProcessor implements FileProcessor {
 	 * 
 	 * @param sequenceFile
 	 *            file to process
+	 * @param description
+	 *            the description for the analysis
+	 * @return the FastQC results for the file
 	 * @throws FileProcessorException
 	 *             if an error occurs while processing
 	 */
-	private void processSingleFile(SequenceFile sequenceFile) throws FileProcessorException {
+	private AnalysisFastQC processSingleFile(SequenceFile sequenceFile, String description)
+			throws FileProcessorException {
 		Path fileToProcess = sequenceFile.getFile();
-		AnalysisFastQC.AnalysisFastQCBuilder analysis = AnalysisFastQC.builder()
-				.fastqcVersion(FastQCApplication.VERSION).executionManagerAnalysisId(EXECUTION_MANAGER_ANALYSIS_ID)
-				.description(messageSource.getMessage("fastqc.file.processor.analysis.description",
-						new Object[] { FastQCApplication.VERSION }, LocaleContextHolder.getLocale()));
 		try {
 			uk.ac.babraham.FastQC.Sequence.SequenceFile fastQCSequenceFile = SequenceFactory
 					.getSequenceFile(fileToProcess.toFile());
-			BasicStats basicStats = new BasicStats();
-			PerBaseQualityScores pbqs = new PerBaseQualityScores();
-			PerSequenceQualityScores psqs = new PerSequenceQualityScores();
-			OverRepresentedSeqs overRep = new OverRepresentedSeqs();
-			QCModule[] moduleList = new QCModule[] { basicStats, pbqs, psqs, overRep };
+			FastqcSubscriber subscriber = new FastqcSubscriber(sequenceFile);
 
 			logger.debug("Launching FastQC analysis modules on all sequences.");
 			while (fastQCSequenceFile.hasNext()) {
-				Sequence sequence = fastQCSequenceFile.next();
-				for (QCModule module : moduleList) {
-					module.processSequence(sequence);
-				}
+				subscriber.onSequence(fastQCSequenceFile.next());
+			}
+
+			return subscriber.buildAnalysis(description);
+		} catch (Exception e) {
+			logger.error("FastQC failed to process the sequence file. Stack trace follows.", e);
+			throw new FileProcessorException("FastQC failed to parse the sequence file.", e);
+		}
+	}
+
+	/**
+	 * Create a subscriber that runs the FastQC modules on the records of the
+	 * file as they are read, and stores the report once the file has been
+	 * completely read.
+	 * 
+	 * @param sequenceFile
+	 *            the {@link SequenceFile} to run FastQC on
+	 * @param compressed
+	 *            whether or not the file is compressed (ignored, the records
+	 *            are always parsed from the decompressed stream)
+	 * @return a {@link FileStreamSubscriber} running FastQC
+	 */
+	@Override
+	public FileStreamSubscriber subscribe(SequenceFile sequenceFile, boolean compressed) {
+		return new FastqcSubscriber(sequenceFile);
+	}
+
+	/**
+	 * Get the internationalized description for the analysis. This must be
+	 * called from the thread handling the request so that the locale is
+	 * available.
+	 * 
+	 * @return the description of the analysis
+	 */
+	private String getDescription() {
+		return messageSource.getMessage("fastqc.file.processor.analysis.description",
+				new Object[] { FastQCApplication.VERSION }, LocaleContextHolder.getLocale());
+	}
+
+	/**
+	 * Runs the FastQC modules over the records of a single
+	 * {@link SequenceFile}, and saves the resulting {@link AnalysisFastQC}
+	 * when the file has been completely read.
+	 * 
+	 * Records are collected into batches. Each batch is handed to every module
+	 * in parallel while the next batch is being read; a module only starts on
+	 * a batch once it has finished the previous one, so every module still
+	 * sees the records in file order.
+	 */
+	private class FastqcSubscriber implements FileStreamSubscriber {
+		private final SequenceFile sequenceFile;
+		private final BasicStats basicStats = new BasicStats();
+		private final PerBaseQualityScores pbqs = new PerBaseQualityScores();
+		private final PerSequenceQualityScores psqs = new PerSequenceQualityScores();
+		private final OverRepresentedSeqs overRep = new OverRepresentedSeqs();
+		private final QCModule[] moduleList = new QCModule[] { basicStats, pbqs, psqs, overRep };
+
+		private List<Sequence> batch = new ArrayList<>(BATCH_SIZE);
+		private List<ForkJoinTask<?>> runningModules = Collections.emptyList();
+
+		public FastqcSubscriber(SequenceFile sequenceFile) {
+			this.sequenceFile = sequenceFile;
+		}
+
+		@Override
+		public boolean needsSequences() {
+			return true;
+		}
+
+		@Override
+		public void onSequence(Sequence sequence) {
+			batch.add(sequence);
+			if (batch.size() >= BATCH_SIZE) {
+				dispatchBatch();
+			}
+		}
+
+		@Override
+		public void complete() throws IOException {
+			sequenceFile.setFastQCAnalysis(buildAnalysis(getDescription()));
+
+			logger.trace("Saving FastQC analysis.");
+			sequenceFileRepository.saveMetadata(sequenceFile);
+		}
+
+		/**
+		 * Hand the current batch of records to every module, once the modules
+		 * have finished with the previous batch.
+		 */
+		private void dispatchBatch() {
+			awaitModules();
+
+			final List<Sequence> sequences = batch;
+			batch = new ArrayList<>(BATCH_SIZE);
+
+			runningModules = new ArrayList<>(moduleList.length);
+			for (QCModule module : moduleList) {
+				runningModules.add(forkJoinPool.submit(() -> sequences.forEach(module::processSequence)));
 			}
+		}
+
+		/**
+		 * Wait for the modules to finish with the last dispatched batch.
+		 */
+		private void awaitModules() {
+			runningModules.forEach(ForkJoinTask::join);
+		}
 
+		/**
+		 * Finish processing any remaining records, and collect the results of
+		 * the modules. The charts are rendered in parallel.
+		 * 
+		 * @param description
+		 *            the description for the analysis
+		 * @return the FastQC results
+		 */
+		private AnalysisFastQC buildAnalysis(String description) {
+			if (!batch.isEmpty()) {
+				dispatchBatch();
+			}
+			awaitModules();
 			logger.debug("Finished FastQC analysis modules.");
-			handleBasicStats(basicStats, analysis);
-			handlePerBaseQualityScores(pbqs, analysis);
-			handlePerSequenceQualityScores(psqs, analysis);
-			handleDuplicationLevel(overRep.duplicationLevelModule(), analysis);
+
+			// collecting the overrepresented sequences also calculates (and
+			// then discards the data used for) the duplication levels, so
+			// this has to happen before the duplication chart is rendered.
 			Set<OverrepresentedSequence> overrepresentedSequences = handleOverRepresentedSequences(overRep);
 
-			logger.trace("Saving FastQC analysis.");
+			ForkJoinTask<byte[]> perBaseQualityScoreChart = forkJoinPool
+					.submit(() -> renderQualityBoxPlot((QualityBoxPlot) pbqs.getResultsPanel()));
+			ForkJoinTask<byte[]> perSequenceQualityScoreChart = forkJoinPool
+					.submit(() -> renderLineGraph((LineGraph) psqs.getResultsPanel()));
+			ForkJoinTask<byte[]> duplicationLevelChart = forkJoinPool.submit(
+					() -> renderLineGraph((LineGraph) overRep.duplicationLevelModule().getResultsPanel()));
+
+			AnalysisFastQC.AnalysisFastQCBuilder analysis = AnalysisFastQC.builder()
+					.fastqcVersion(FastQCApplication.VERSION).executionManagerAnalysisId(EXECUTION_MANAGER_ANALYSIS_ID)
+					.description(description);
+
+			handleBasicStats(basicStats, analysis);
 			analysis.overrepresentedSequences(overrepresentedSequences);
 
-			sequenceFile.setFastQCAnalysis(analysis.build());
+			analysis.perBaseQualityScoreChart(perBaseQualityScoreChart.join());
+			analysis.perSequenceQualityScoreChart(perSequenceQualityScoreChart.join());
+			analysis.duplicationLevelChart(duplicationLevelChart.join());
 
-			sequenceFileRepository.saveMetadata(sequenceFile);
-		} catch (Exception e) {
-			logger.error("FastQC failed to process the sequence file. Stack trace follows.", e);
-			throw new FileProcessorException("FastQC failed to parse the sequence file.", e);
+			return analysis.build();
 		}
 	}
 
@@ -146,66 +331,38 @@ public class FastqcFileProcessor implements FileProcessor {
 	}
 
 	/**
-	 * Handle writing the {@link PerBaseQualityScores} to the database.
-	 * 
-	 * @param scores
-	 *            the {@link PerBaseQualityScores} computed by fastqc.
-	 * @param analysis
-	 *            the {@link AnalysisFastQCBuilder} to update.
-	 */
-	private void handlePerBaseQualityScores(PerBaseQualityScores scores, AnalysisFastQCBuilder analysis)
-			throws IOException {
-		ByteArrayOutputStream os = new ByteArrayOutputStream();
-		QualityBoxPlot bp = (QualityBoxPlot) scores.getResultsPanel();
-		BufferedImage b = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
-		Graphics g = b.getGraphics();
-		bp.paint(g, b.getWidth(), b.getHeight());
-
-		ImageIO.write(b, "PNG", os);
-		byte[] image = os.toByteArray();
-		analysis.perBaseQualityScoreChart(image);
-	}
-
-	/**
-	 * Handle writing the {@link PerSequenceQualityScores} to the database.
+	 * Render the {@link PerBaseQualityScores} chart computed by fastqc.
 	 * 
-	 * @param scores
-	 *            the {@link PerSequenceQualityScores} computed by fastqc.
-	 * @param analysis
-	 *            the {@link AnalysisFastQCBuilder} to update.
+	 * @param boxPlot
+	 *            the {@link QualityBoxPlot} to render.
+	 * @return the chart as a PNG
 	 */
-	private void handlePerSequenceQualityScores(PerSequenceQualityScores scores, AnalysisFastQCBuilder analysis)
-			throws IOException {
+	private byte[] renderQualityBoxPlot(QualityBoxPlot boxPlot) throws IOException {
 		ByteArrayOutputStream os = new ByteArrayOutputStream();
-		LineGraph lg = (LineGraph) scores.getResultsPanel();
 		BufferedImage b = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
 		Graphics g = b.getGraphics();
-		lg.paint(g, b.getWidth(), b.getHeight());
+		boxPlot.paint(g, b.getWidth(), b.getHeight());
 
 		ImageIO.write(b, "PNG", os);
-		byte[] image = os.toByteArray();
-		analysis.perSequenceQualityScoreChart(image);
+		return os.toByteArray();
 	}
 
 	/**
-	 * Handle writing the {@link DuplicationLevel} to the database.
+	 * Render a {@link PerSequenceQualityScores} or {@link DuplicationLevel}
+	 * chart computed by fastqc.
 	 * 
-	 * @param duplicationLevel
-	 *            the {@link DuplicationLevel} calculated by fastqc.
-	 * @param analysis
-	 *            the {@link AnalysisFastQCBuilder} to update.
+	 * @param lineGraph
+	 *            the {@link LineGraph} to render.
+	 * @return the chart as a PNG
 	 */
-	private void handleDuplicationLevel(DuplicationLevel duplicationLevel, AnalysisFastQCBuilder analysis)
-			throws IOException {
+	private byte[] renderLineGraph(LineGraph lineGraph) throws IOException {
 		ByteArrayOutputStream os = new ByteArrayOutputStream();
-		LineGraph lg = (LineGraph) duplicationLevel.getResultsPanel();
 		BufferedImage b = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
 		Graphics g = b.getGraphics();
-		lg.paint(g, b.getWidth(), b.getHeight());
+		lineGraph.paint(g, b.getWidth(), b.getHeight());
 
 		ImageIO.write(b, "PNG", os);
-		byte[] image = os.toByteArray();
-		analysis.duplicationLevelChart(image);
+		return os.toByteArray();
 	}
 
 	/**
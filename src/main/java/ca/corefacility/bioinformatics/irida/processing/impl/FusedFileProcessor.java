@@ -0,0 +1,443 @@
+package ca.corefacility.bioinformatics.irida.processing.impl;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+
+import ca.corefacility.bioinformatics.irida.model.sample.FileProcessorErrorQCEntry;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+import ca.corefacility.bioinformatics.irida.processing.FileProcessingChain;
+import ca.corefacility.bioinformatics.irida.processing.FileProcessor;
+import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.FileStreamSubscriber;
+import ca.corefacility.bioinformatics.irida.processing.StreamingFileProcessor;
+import ca.corefacility.bioinformatics.irida.repositories.sample.QCEntryRepository;
+import uk.ac.babraham.FastQC.Sequence.Sequence;
+import uk.ac.babraham.FastQC.Sequence.SequenceFormatException;
+
+/**
+ * A {@link FileProcessor} that runs a collection of
+ * {@link StreamingFileProcessor} during a single pass over each
+ * {@link SequenceFile}. The file is read from disk once, and the stored bytes,
+ * the decompressed bytes and the parsed records are handed to each processor
+ * as they are read.
+ *
+ * Failures in processors that modify the file stop processing. Failures in
+ * processors that don't modify the file are recorded as a
+ * {@link FileProcessorErrorQCEntry} and the remaining processors continue, the
+ * same way that the {@link FileProcessingChain} handles them.
+ *
+ * Only FASTQ files are parsed during the shared read. If any file of a
+ * {@link SequencingObject} holds something else (like FASTA), the processors
+ * are run one after another on their own instead, as they would be without
+ * this processor.
+ */
+public class FusedFileProcessor implements FileProcessor {
+	private static final Logger logger = LoggerFactory.getLogger(FusedFileProcessor.class);
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final QCEntryRepository qcRepository;
+	private final List<StreamingFileProcessor> fileProcessors;
+
+	/**
+	 * Create a new {@link FusedFileProcessor}
+	 *
+	 * @param qcRepository
+	 *            repository to record processor failures in
+	 * @param fileProcessors
+	 *            the processors to run during the scan, in the order they
+	 *            should be completed.
+	 */
+	public FusedFileProcessor(QCEntryRepository qcRepository, List<StreamingFileProcessor> fileProcessors) {
+		this.qcRepository = qcRepository;
+		this.fileProcessors = ImmutableList.copyOf(fileProcessors);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void process(SequencingObject sequencingObject) {
+		List<StreamingFileProcessor> processors = fileProcessors.stream()
+				.filter(p -> p.shouldProcessFile(sequencingObject.getId())).collect(Collectors.toList());
+
+		List<Exception> ignoredExceptions = new ArrayList<>();
+		if (allFastq(sequencingObject)) {
+			for (SequenceFile file : sequencingObject.getFiles()) {
+				ignoredExceptions.addAll(processSingleFile(file, processors));
+			}
+		} else {
+			logger.debug("Sequencing object [" + sequencingObject
+					+ "] has files that aren't FASTQ, running the file processors one at a time");
+			ignoredExceptions.addAll(processUnfused(sequencingObject, processors));
+		}
+
+		if (!ignoredExceptions.isEmpty()) {
+			qcRepository.save(new FileProcessorErrorQCEntry(sequencingObject));
+		}
+	}
+
+	/**
+	 * Get the processors that are run by this {@link FusedFileProcessor}.
+	 *
+	 * @return the {@link StreamingFileProcessor}s
+	 */
+	public List<StreamingFileProcessor> getFileProcessors() {
+		return fileProcessors;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Boolean modifiesFile() {
+		return fileProcessors.stream().anyMatch(StreamingFileProcessor::modifiesFile);
+	}
+
+	/**
+	 * Run each processor on its own, in order, the way the
+	 * {@link FileProcessingChain} would.
+	 *
+	 * @param sequencingObject
+	 *            the {@link SequencingObject} to process
+	 * @param processors
+	 *            the processors to run
+	 * @return any exceptions thrown by processors that don't modify the file
+	 * @throws FileProcessorException
+	 *             if a processor that modifies the file fails
+	 */
+	private List<Exception> processUnfused(SequencingObject sequencingObject,
+			List<StreamingFileProcessor> processors) throws FileProcessorException {
+		List<Exception> ignoredExceptions = new ArrayList<>();
+		for (StreamingFileProcessor processor : processors) {
+			try {
+				processor.process(sequencingObject);
+			} catch (FileProcessorException e) {
+				if (processor.modifiesFile()) {
+					throw e;
+				}
+				ignoredExceptions.add(e);
+				logger.error("File processor [" + processor.getClass() + "] failed to process [" + sequencingObject
+						+ "], but proceeding with the remaining processors because the "
+						+ "file would not be modified by the processor. Stack trace follows.", e);
+			}
+		}
+		return ignoredExceptions;
+	}
+
+	/**
+	 * Check whether every file of a {@link SequencingObject} looks like FASTQ,
+	 * so its records can be parsed during the shared read.
+	 *
+	 * @param sequencingObject
+	 *            the {@link SequencingObject} to check
+	 * @return <code>true</code> if the first record of every file starts with
+	 *         '@', or the file is empty
+	 * @throws FileProcessorException
+	 *             if a file can't be read
+	 */
+	private static boolean allFastq(SequencingObject sequencingObject) throws FileProcessorException {
+		for (SequenceFile file : sequencingObject.getFiles()) {
+			try {
+				if (!isFastq(file.getFile())) {
+					return false;
+				}
+			} catch (IOException e) {
+				throw new FileProcessorException("Failed to read sequence file [" + file + "].", e);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Check whether the first record of a (possibly compressed) file starts
+	 * with '@'.
+	 *
+	 * @param file
+	 *            the file to check
+	 * @return <code>true</code> if the file looks like FASTQ, or is empty
+	 * @throws IOException
+	 *             if the file can't be read
+	 */
+	private static boolean isFastq(Path file) throws IOException {
+		boolean compressed = isCompressed(file);
+		try (InputStream raw = new BufferedInputStream(Files.newInputStream(file, StandardOpenOption.READ));
+				InputStream in = compressed ? new GZIPInputStream(raw) : raw) {
+			int b;
+			while ((b = in.read()) != -1) {
+				if (!Character.isWhitespace(b)) {
+					return b == '@';
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Scan a single {@link SequenceFile} and run all the processors on it.
+	 *
+	 * @param sequenceFile
+	 *            the file to process
+	 * @param processors
+	 *            the processors to run
+	 * @return any exceptions thrown by processors that don't modify the file
+	 * @throws FileProcessorException
+	 *             if the file can't be read, or if a processor that modifies
+	 *             the file fails
+	 */
+	private List<Exception> processSingleFile(SequenceFile sequenceFile, List<StreamingFileProcessor> processors)
+			throws FileProcessorException {
+		final Path path = sequenceFile.getFile();
+		final Map<FileStreamSubscriber, StreamingFileProcessor> subscribers = new LinkedHashMap<>();
+		final Set<FileStreamSubscriber> failed = new HashSet<>();
+		final List<Exception> ignoredExceptions = new ArrayList<>();
+
+		SequenceFormatException formatException;
+		try {
+			boolean compressed = isCompressed(path);
+			for (StreamingFileProcessor processor : processors) {
+				subscribers.put(processor.subscribe(sequenceFile, compressed), processor);
+			}
+
+			formatException = scan(path, compressed, subscribers, failed, ignoredExceptions);
+		} catch (IOException | RuntimeException e) {
+			subscribers.keySet().forEach(FileStreamSubscriber::abort);
+			logger.error("Failed to read the sequence file [" + sequenceFile + "]; stack trace follows.", e);
+			throw new FileProcessorException("Failed to read sequence file [" + sequenceFile + "].", e);
+		}
+
+		if (formatException != null) {
+			logger.error("Could not parse records from sequence file [" + sequenceFile + "]", formatException);
+		}
+
+		for (Map.Entry<FileStreamSubscriber, StreamingFileProcessor> entry : subscribers.entrySet()) {
+			FileStreamSubscriber subscriber = entry.getKey();
+			StreamingFileProcessor processor = entry.getValue();
+
+			if (failed.contains(subscriber) || (formatException != null && subscriber.needsSequences())) {
+				subscriber.abort();
+				if (formatException != null && subscriber.needsSequences()) {
+					ignoredExceptions.add(new FileProcessorException("Failed to parse the sequence file.",
+							formatException));
+				}
+				continue;
+			}
+
+			try {
+				subscriber.complete();
+			} catch (IOException | RuntimeException e) {
+				if (processor.modifiesFile()) {
+					throw new FileProcessorException("File processor [" + processor.getClass()
+							+ "] failed to process [" + sequenceFile + "]", e);
+				}
+				ignoredExceptions.add(e);
+				logger.error("File processor [" + processor.getClass() + "] failed to process [" + sequenceFile
+						+ "], but proceeding with the remaining processors because the "
+						+ "file would not be modified by the processor. Stack trace follows.", e);
+			}
+		}
+
+		return ignoredExceptions;
+	}
+
+	/**
+	 * Read the file once, passing the contents to every subscriber.
+	 *
+	 * @param path
+	 *            the file to read
+	 * @param compressed
+	 *            whether or not the file is gzip compressed
+	 * @param subscribers
+	 *            the subscribers to pass the contents of the file to
+	 * @param failed
+	 *            collection to add subscribers to if they fail while
+	 *            receiving records
+	 * @param ignoredExceptions
+	 *            collection to add exceptions to from subscribers that failed
+	 *            while receiving records
+	 * @return the exception raised when parsing records from the file (if the
+	 *         file was malformed), or <code>null</code>.
+	 * @throws IOException
+	 *             if the file could not be read
+	 */
+	private SequenceFormatException scan(Path path, boolean compressed,
+			Map<FileStreamSubscriber, StreamingFileProcessor> subscribers, Set<FileStreamSubscriber> failed,
+			List<Exception> ignoredExceptions) throws IOException {
+		SequenceFormatException formatException = null;
+
+		try (InputStream raw = new BufferedInputStream(new ObservedInputStream(Files.newInputStream(path),
+				(b, off, len) -> {
+					for (FileStreamSubscriber s : subscribers.keySet()) {
+						s.onBytes(b, off, len);
+					}
+				}), BUFFER_SIZE)) {
+			InputStream decompressed = raw;
+			if (compressed) {
+				decompressed = new ObservedInputStream(new GZIPInputStream(raw, BUFFER_SIZE), (b, off, len) -> {
+					for (FileStreamSubscriber s : subscribers.keySet()) {
+						s.onDecompressedBytes(b, off, len);
+					}
+				});
+			}
+
+			List<FileStreamSubscriber> sequenceSubscribers = subscribers.keySet().stream()
+					.filter(FileStreamSubscriber::needsSequences).collect(Collectors.toList());
+
+			if (!sequenceSubscribers.isEmpty()) {
+				try {
+					FastqStreamReader reader = new FastqStreamReader(path, decompressed);
+					while (reader.hasNext()) {
+						Sequence sequence = reader.next();
+						for (FileStreamSubscriber subscriber : sequenceSubscribers) {
+							if (!failed.contains(subscriber)) {
+								deliver(subscriber, subscribers.get(subscriber), sequence, failed, ignoredExceptions);
+							}
+						}
+					}
+				} catch (SequenceFormatException e) {
+					formatException = e;
+				}
+			}
+
+			// make sure every byte of the file is seen by the subscribers, even
+			// if there were no records to parse, or the parser gave up early.
+			drain(decompressed);
+			drain(raw);
+
+			// release the inflater used by the decompressing stream
+			decompressed.close();
+		}
+
+		return formatException;
+	}
+
+	/**
+	 * Pass a single record to a subscriber, recording any failure.
+	 *
+	 * @param subscriber
+	 *            the subscriber to pass the record to
+	 * @param processor
+	 *            the processor that created the subscriber
+	 * @param sequence
+	 *            the record
+	 * @param failed
+	 *            collection to add the subscriber to if it fails
+	 * @param ignoredExceptions
+	 *            collection to add the exception to if the subscriber fails
+	 */
+	private void deliver(FileStreamSubscriber subscriber, StreamingFileProcessor processor, Sequence sequence,
+			Set<FileStreamSubscriber> failed, List<Exception> ignoredExceptions) {
+		try {
+			subscriber.onSequence(sequence);
+		} catch (RuntimeException e) {
+			if (processor.modifiesFile()) {
+				throw e;
+			}
+			logger.error("File processor [" + processor.getClass() + "] failed while reading records.", e);
+			failed.add(subscriber);
+			ignoredExceptions.add(e);
+		}
+	}
+
+	/**
+	 * Read the remainder of a stream.
+	 *
+	 * @param stream
+	 *            the stream to read
+	 * @throws IOException
+	 *             if the stream could not be read
+	 */
+	private static void drain(InputStream stream) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		while (stream.read(buffer) != -1) {
+			// nothing to do, the observers have already seen the bytes
+		}
+	}
+
+	/**
+	 * Determines if a file is gzip compressed by checking for the gzip magic
+	 * number.
+	 *
+	 * @param file
+	 *            the file to check
+	 * @return true if the file is compressed
+	 * @throws IOException
+	 *             if the file couldn't be read
+	 */
+	private static boolean isCompressed(Path file) throws IOException {
+		try (InputStream is = Files.newInputStream(file, StandardOpenOption.READ)) {
+			byte[] bytes = new byte[2];
+			return is.read(bytes) == 2 && (bytes[0] == (byte) (GZIPInputStream.GZIP_MAGIC))
+					&& (bytes[1] == (byte) (GZIPInputStream.GZIP_MAGIC >> 8));
+		}
+	}
+
+	/**
+	 * Receives blocks of bytes read from an {@link ObservedInputStream}.
+	 */
+	@FunctionalInterface
+	private interface ByteObserver {
+		void observe(byte[] buffer, int offset, int length) throws IOException;
+	}
+
+	/**
+	 * An {@link InputStream} that passes every byte that is read through it to
+	 * a {@link ByteObserver}.
+	 */
+	private static class ObservedInputStream extends FilterInputStream {
+		private final ByteObserver observer;
+		private final byte[] single = new byte[1];
+
+		public ObservedInputStream(InputStream in, ByteObserver observer) {
+			super(in);
+			this.observer = observer;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int read = read(single, 0, 1);
+			return read == -1 ? -1 : single[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = in.read(b, off, len);
+			if (read > 0) {
+				observer.observe(b, off, read);
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			// skipped bytes must still be observed
+			byte[] buffer = new byte[(int) Math.min(n, BUFFER_SIZE)];
+			int read = read(buffer, 0, buffer.length);
+			return read == -1 ? 0 : read;
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+	}
+}
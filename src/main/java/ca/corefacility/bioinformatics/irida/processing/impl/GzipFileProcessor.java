@@ -2,6 +2,7 @@ package ca.corefacility.bioinformatics.irida.processing.impl;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -16,8 +17,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
-import ca.corefacility.bioinformatics.irida.processing.FileProcessor;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.FileStreamSubscriber;
+import ca.corefacility.bioinformatics.irida.processing.StreamingFileProcessor;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
 
 /**
@@ -31,7 +33,7 @@ import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFi
  * 
  */
 @Component
-public class GzipFileProcessor implements FileProcessor {
+public class GzipFileProcessor implements StreamingFileProcessor {
 	private static final Logger logger = LoggerFactory.getLogger(GzipFileProcessor.class);
 	private static final String GZIP_EXTENSION = ".gz";
 
@@ -82,12 +84,7 @@ public class GzipFileProcessor implements FileProcessor {
 	 */
 	public void processSingleFile(SequenceFile sequenceFile) throws FileProcessorException {
 		Path file = sequenceFile.getFile();
-		String nameWithoutExtension = file.getFileName().toString();
-
-		// strip the extension from the filename (if necessary)
-		if (nameWithoutExtension.endsWith(GZIP_EXTENSION)) {
-			nameWithoutExtension = nameWithoutExtension.substring(0, nameWithoutExtension.lastIndexOf(GZIP_EXTENSION));
-		}
+		String nameWithoutExtension = decompressedFileName(file);
 
 		try {
 			logger.trace("About to try handling a gzip file.");
@@ -104,21 +101,7 @@ public class GzipFileProcessor implements FileProcessor {
 
 					Files.copy(zippedInputStream, target);
 
-					sequenceFile.setFile(target);
-					sequenceFile = sequenceFileRepository.save(sequenceFile);
-
-					if (removeCompressedFile) {
-						logger.debug(
-								"Removing original compressed files [file.processing.decompress.remove.compressed.file=true]");
-						try {
-							Files.delete(file);
-						} catch (final Exception e) {
-							logger.error("Failed to remove the original compressed file.", e);
-							// throw the exception again to be caught by the
-							// outer try/catch block:
-							throw e;
-						}
-					}
+					saveDecompressedFile(sequenceFile, file, target);
 				}
 			}
 		} catch (Exception e) {
@@ -127,6 +110,109 @@ public class GzipFileProcessor implements FileProcessor {
 		}
 	}
 
+	/**
+	 * Create a subscriber that writes the decompressed bytes of a compressed
+	 * {@link SequenceFile} to a new file as they are read, and replaces the
+	 * compressed file with the decompressed file once the file has been
+	 * completely read. Uncompressed files are left untouched.
+	 * 
+	 * @param sequenceFile
+	 *            the {@link SequenceFile} that is about to be read
+	 * @param compressed
+	 *            whether or not the file is compressed
+	 * @return a {@link FileStreamSubscriber} decompressing the file
+	 * @throws IOException
+	 *             if the decompressed file could not be created
+	 */
+	@Override
+	public FileStreamSubscriber subscribe(SequenceFile sequenceFile, boolean compressed) throws IOException {
+		if (!compressed) {
+			return () -> logger.trace("File [" + sequenceFile + "] is not compressed, skipping.");
+		}
+
+		final Path targetDirectory = Files.createTempDirectory(null);
+		final Path target = targetDirectory.resolve(decompressedFileName(sequenceFile.getFile()));
+		logger.debug("Writing uncompressed file to [" + target + "]");
+		final OutputStream targetStream = Files.newOutputStream(target);
+
+		return new FileStreamSubscriber() {
+			@Override
+			public void onDecompressedBytes(byte[] buffer, int offset, int length) throws IOException {
+				targetStream.write(buffer, offset, length);
+			}
+
+			@Override
+			public void complete() throws IOException {
+				targetStream.close();
+				try {
+					Path file = addExtensionToFilename(sequenceFile.getFile(), GZIP_EXTENSION);
+					saveDecompressedFile(sequenceFile, file, target);
+				} catch (Exception e) {
+					logger.error("Failed to process the input file [" + sequenceFile + "]; stack trace follows.", e);
+					throw new FileProcessorException("Failed to process input file [" + sequenceFile + "].", e);
+				}
+			}
+
+			@Override
+			public void abort() {
+				try {
+					targetStream.close();
+					Files.deleteIfExists(target);
+					Files.deleteIfExists(targetDirectory);
+				} catch (IOException e) {
+					logger.warn("Failed to clean up decompressed file [" + target + "]", e);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Replace the compressed file in a {@link SequenceFile} with its
+	 * decompressed copy, and (optionally) remove the compressed file.
+	 * 
+	 * @param sequenceFile
+	 *            the {@link SequenceFile} to update
+	 * @param compressedFile
+	 *            the location of the compressed file
+	 * @param decompressedFile
+	 *            the location of the decompressed file
+	 * @throws IOException
+	 *             if the compressed file could not be removed
+	 */
+	private void saveDecompressedFile(SequenceFile sequenceFile, Path compressedFile, Path decompressedFile)
+			throws IOException {
+		sequenceFile.setFile(decompressedFile);
+		sequenceFileRepository.save(sequenceFile);
+
+		if (removeCompressedFile) {
+			logger.debug("Removing original compressed files [file.processing.decompress.remove.compressed.file=true]");
+			try {
+				Files.delete(compressedFile);
+			} catch (final IOException e) {
+				logger.error("Failed to remove the original compressed file.", e);
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Get the name that the decompressed copy of a file should have.
+	 * 
+	 * @param file
+	 *            the compressed file
+	 * @return the file name with any gzip extension removed
+	 */
+	private String decompressedFileName(Path file) {
+		String nameWithoutExtension = file.getFileName().toString();
+
+		// strip the extension from the filename (if necessary)
+		if (nameWithoutExtension.endsWith(GZIP_EXTENSION)) {
+			nameWithoutExtension = nameWithoutExtension.substring(0, nameWithoutExtension.lastIndexOf(GZIP_EXTENSION));
+		}
+
+		return nameWithoutExtension;
+	}
+
 	/**
 	 * Ensures that the supplied file ends with a specific extension.
 	 * 
@@ -1,7 +1,9 @@
 package ca.corefacility.bioinformatics.irida.repositories;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.Query;
 
+import ca.corefacility.bioinformatics.irida.config.repository.IridaApiCacheConfig;
 import ca.corefacility.bioinformatics.irida.model.IridaClientDetails;
 
 /**
@@ -18,5 +20,6 @@ public interface IridaClientDetailsRepository extends IridaJpaRepository<IridaCl
 	 * @return the found {@link IridaClientDetails}
 	 */
 	@Query("from IridaClientDetails d where d.clientId = ?1")
+	@Cacheable(cacheNames = IridaApiCacheConfig.CLIENT_DETAILS, key = "#p0", unless = "#result == null")
 	public IridaClientDetails loadClientDetailsByClientId(String clientId);
 }
@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 
 import ca.corefacility.bioinformatics.irida.model.event.ProjectEvent;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.project.ProjectUserAccess;
 import ca.corefacility.bioinformatics.irida.model.user.User;
 
 /**
@@ -20,10 +21,11 @@ import ca.corefacility.bioinformatics.irida.model.user.User;
 public interface ProjectEventRepository extends IridaJpaRepository<ProjectEvent, Long> {
 
 	/**
-	 * Query to get events for the specified user
+	 * Query to get events for the specified user on projects they can read
+	 * according to the {@link ProjectUserAccess} index
 	 */
-	static final String GET_EVENTS_FOR_USER = "SELECT e FROM ProjectEvent e INNER JOIN e.project as p WHERE ("
-			+ ProjectRepository.USER_ON_PROJECT + " or " + ProjectRepository.USER_IN_GROUP + ")";
+	static final String GET_EVENTS_FOR_USER = "SELECT e FROM ProjectEvent e WHERE e.project IN"
+			+ " (SELECT a.project FROM ProjectUserAccess a WHERE a.user = :forUser)";
 
 	/**
 	 * Get the events for a given project
@@ -1,9 +1,12 @@
 package ca.corefacility.bioinformatics.irida.repositories;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -85,4 +88,19 @@ public interface ProjectRepository extends IridaJpaRepository<Project, Long> {
 	 */
 	@Query("FROM Project p WHERE p.remoteStatus != NULL")
 	public List<Project> getRemoteProjects();
+
+	/**
+	 * Set the modified date of a set of {@link Project}s in a single update.
+	 * The modified date isn't audited, so no revisions are written.
+	 * 
+	 * @param projectIds
+	 *            the ids of the {@link Project}s to update
+	 * @param modifiedDate
+	 *            the new modified date
+	 * @return the number of {@link Project}s updated
+	 */
+	@Modifying
+	@Query("UPDATE Project p SET p.modifiedDate = :modifiedDate WHERE p.id IN :projectIds")
+	public int updateModifiedDate(@Param("projectIds") Collection<Long> projectIds,
+			@Param("modifiedDate") Date modifiedDate);
 }
@@ -1,7 +1,9 @@
 package ca.corefacility.bioinformatics.irida.repositories;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.Query;
 
+import ca.corefacility.bioinformatics.irida.config.repository.IridaApiCacheConfig;
 import ca.corefacility.bioinformatics.irida.model.RemoteAPI;
 
 /**
@@ -20,5 +22,6 @@ public interface RemoteAPIRepository extends IridaJpaRepository<RemoteAPI, Long>
 	 * @return The {@link RemoteAPI} matching the given URL
 	 */
 	@Query("FROM RemoteAPI api WHERE locate(api.serviceURI, ?1) = 1")
+	@Cacheable(cacheNames = IridaApiCacheConfig.REMOTE_APIS, key = "#p0", unless = "#result == null")
 	public RemoteAPI getRemoteAPIForUrl(String url);
 }
@@ -1,8 +1,12 @@
 package ca.corefacility.bioinformatics.irida.repositories.analysis;
 
+import java.util.Collection;
+import java.util.List;
+
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.Analysis;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCSummary;
 import ca.corefacility.bioinformatics.irida.repositories.IridaJpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
@@ -22,4 +26,16 @@ public interface AnalysisRepository extends IridaJpaRepository<Analysis, Long> {
 	 */
 	@Query("select f.fastqcAnalysis from SequenceFile f where f = ?1")
 	public AnalysisFastQC findFastqcAnalysisForSequenceFile(final SequenceFile sequenceFile);
+
+	/**
+	 * Get the {@link FastQCSummary} for a collection of files. Only the summary
+	 * columns of the fastqc analysis are read, the charts and overrepresented
+	 * sequences are not loaded.
+	 * 
+	 * @param sequenceFileIds
+	 *            the ids of the files to load summaries for. Must not be empty.
+	 * @return the summaries for the files that have a fastqc analysis.
+	 */
+	@Query("select new ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCSummary(f.id, a.totalSequences, a.totalBases, a.minLength, a.maxLength, a.gcContent) from SequenceFile f join f.fastqcAnalysis a where f.id in ?1")
+	public List<FastQCSummary> findFastqcSummariesForSequenceFiles(final Collection<Long> sequenceFileIds);
 }
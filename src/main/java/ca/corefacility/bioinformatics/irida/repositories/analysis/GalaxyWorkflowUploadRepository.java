@@ -0,0 +1,37 @@
+package ca.corefacility.bioinformatics.irida.repositories.analysis;
+
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowUpload;
+
+/**
+ * A repository for the workflow files imported into Galaxy.
+ */
+public interface GalaxyWorkflowUploadRepository extends CrudRepository<GalaxyWorkflowUpload, Long> {
+
+	/**
+	 * Get the upload of a workflow file for an IRIDA workflow.
+	 *
+	 * @param iridaWorkflowId
+	 *            the id of the IRIDA workflow
+	 * @param workflowHash
+	 *            SHA-256 of the workflow file
+	 * @return the {@link GalaxyWorkflowUpload}, or null if the file hasn't been
+	 *         uploaded
+	 */
+	@Query("from GalaxyWorkflowUpload u where u.iridaWorkflowId = ?1 and u.workflowHash = ?2")
+	public GalaxyWorkflowUpload findUpload(UUID iridaWorkflowId, String workflowHash);
+
+	/**
+	 * Count the uploads that point at a Galaxy workflow.
+	 *
+	 * @param galaxyWorkflowId
+	 *            the id of the workflow in Galaxy
+	 * @return the number of {@link GalaxyWorkflowUpload}s for the workflow
+	 */
+	@Query("select count(u) from GalaxyWorkflowUpload u where u.galaxyWorkflowId = ?1")
+	public long countByGalaxyWorkflowId(String galaxyWorkflowId);
+}
@@ -1,11 +1,15 @@
 package ca.corefacility.bioinformatics.irida.repositories.analysis.submission;
 
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import ca.corefacility.bioinformatics.irida.model.enums.AnalysisCleanedState;
 import ca.corefacility.bioinformatics.irida.model.enums.AnalysisState;
@@ -16,6 +20,7 @@ import ca.corefacility.bioinformatics.irida.model.user.User;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.Analysis;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.ProjectSampleAnalysisOutputInfo;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission.Priority;
 import ca.corefacility.bioinformatics.irida.repositories.IridaJpaRepository;
 
 /**
@@ -35,6 +40,16 @@ public interface AnalysisSubmissionRepository extends IridaJpaRepository<Analysi
 	 */
 	@Query("select s from AnalysisSubmission s where s.analysisState = ?1")
 	public List<AnalysisSubmission> findByAnalysisState(AnalysisState state);
+
+	/**
+	 * Find the ids of all {@link AnalysisSubmission}s with the given state.
+	 * 
+	 * @param state
+	 *            The state of the analyses to search for.
+	 * @return The ids of the {@link AnalysisSubmission}s with the given state.
+	 */
+	@Query("select s.id from AnalysisSubmission s where s.analysisState = ?1")
+	public List<Long> findIdsByAnalysisState(AnalysisState state);
 	
 	/**
 	 * Loads up a list of {@link AnalysisSubmission}s with the given state.
@@ -74,6 +89,29 @@ public interface AnalysisSubmissionRepository extends IridaJpaRepository<Analysi
 	@Query("select s from AnalysisSubmission s where s.workflowId in ?1")
 	public List<AnalysisSubmission> findByWorkflowIds(Collection<UUID> workflowIds);
 
+	/**
+	 * Finds the {@link AnalysisSubmission}s corresponding to the given workflow
+	 * ids that a {@link User} can read: those they submitted, those shared with
+	 * a project they can read, and automated submissions for sequencing objects
+	 * in a project they can read. Project access is checked against the
+	 * {@link ca.corefacility.bioinformatics.irida.model.project.ProjectUserAccess}
+	 * index.
+	 * 
+	 * @param workflowIds
+	 *            The workflow ids to match.
+	 * @param user
+	 *            The {@link User} reading the submissions.
+	 * @return A list of {@link AnalysisSubmission}s matching one of the
+	 *         workflow ids that the user can read.
+	 */
+	@Query("select s from AnalysisSubmission s where s.workflowId in ?1 and (s.submitter = ?2"
+			+ " or exists (select j.id from ProjectAnalysisSubmissionJoin j, ProjectUserAccess a"
+			+ " where j.analysisSubmission = s and a.project = j.project and a.user = ?2)"
+			+ " or exists (select o.id from SequencingObject o, SampleSequencingObjectJoin sso, ProjectSampleJoin psj,"
+			+ " ProjectUserAccess a where (o.automatedAssembly = s or o.sistrTyping = s) and sso.sequencingObject = o"
+			+ " and psj.sample = sso.sample and a.project = psj.project and a.user = ?2))")
+	public List<AnalysisSubmission> findByWorkflowIdsAccessibleByUser(Collection<UUID> workflowIds, User user);
+
 	/**
 	 * Loads up all {@link AnalysisSubmission}s by the submitted {@link User}.
 	 * 
@@ -144,4 +182,150 @@ public interface AnalysisSubmissionRepository extends IridaJpaRepository<Analysi
 	 */
 	List<ProjectSampleAnalysisOutputInfo> getAllAutomatedAnalysisOutputInfoForAProject(Long projectId,
 			Set<UUID> workflowIds);
+
+	/**
+	 * Record the progress of an {@link AnalysisSubmission}'s workflow. The
+	 * progress isn't audited, so this writes no revisions and leaves the
+	 * modified date alone.
+	 * 
+	 * @param id
+	 *            The id of the {@link AnalysisSubmission}.
+	 * @param completeWorkflowItems
+	 *            The number of workflow items that have completed.
+	 * @param totalWorkflowItems
+	 *            The total number of workflow items.
+	 * @param progressUpdatedDate
+	 *            When the progress was checked.
+	 * @return The number of {@link AnalysisSubmission}s updated.
+	 */
+	@Transactional
+	@Modifying
+	@Query("UPDATE AnalysisSubmission s SET s.completeWorkflowItems = ?2, s.totalWorkflowItems = ?3, s.progressUpdatedDate = ?4 WHERE s.id = ?1")
+	public int updateProgress(Long id, int completeWorkflowItems, int totalWorkflowItems, Date progressUpdatedDate);
+
+	/**
+	 * Find the ids of {@link AnalysisSubmission}s in the given state that no
+	 * other analysis scheduler node holds a lease on. Submissions that have
+	 * gone longest without being leased come first.
+	 * 
+	 * @param analysisState
+	 *            The {@link AnalysisState} of the analyses to search for.
+	 * @param priority
+	 *            The {@link Priority} of the analyses to search for.
+	 * @param leaseOwner
+	 *            The node looking for submissions.
+	 * @param now
+	 *            The current time. Leases that ran out before this are free.
+	 * @param page
+	 *            The number of ids to find.
+	 * @return The ids of the submissions that can be leased.
+	 */
+	@Query("SELECT s.id FROM AnalysisSubmission s WHERE s.analysisState = ?1 AND s.priority = ?2 AND (s.leaseOwner IS NULL OR s.leaseOwner = ?3 OR s.leaseExpiry < ?4) ORDER BY s.leaseExpiry, s.id")
+	public List<Long> findLeasableIds(AnalysisState analysisState, Priority priority, String leaseOwner, Date now,
+			Pageable page);
+
+	/**
+	 * Find the ids of {@link AnalysisSubmission}s in the given states that no
+	 * other analysis scheduler node holds a lease on. Submissions that have
+	 * gone longest without being leased come first.
+	 * 
+	 * @param analysisState
+	 *            The {@link AnalysisState} of the analyses to search for.
+	 * @param analysisCleanedState
+	 *            The {@link AnalysisCleanedState} of the analyses to search
+	 *            for.
+	 * @param leaseOwner
+	 *            The node looking for submissions.
+	 * @param now
+	 *            The current time. Leases that ran out before this are free.
+	 * @param page
+	 *            The number of ids to find.
+	 * @return The ids of the submissions that can be leased.
+	 */
+	@Query("SELECT s.id FROM AnalysisSubmission s WHERE s.analysisState = ?1 AND s.analysisCleanedState = ?2 AND (s.leaseOwner IS NULL OR s.leaseOwner = ?3 OR s.leaseExpiry < ?4) ORDER BY s.leaseExpiry, s.id")
+	public List<Long> findLeasableIds(AnalysisState analysisState, AnalysisCleanedState analysisCleanedState,
+			String leaseOwner, Date now, Pageable page);
+
+	/**
+	 * Find the ids of {@link AnalysisSubmission}s in the given states whose
+	 * lease has run out without being released.
+	 * 
+	 * @param states
+	 *            The states of the analyses to search for.
+	 * @param now
+	 *            The current time.
+	 * @return The ids of the submissions with expired leases.
+	 */
+	@Query("SELECT s.id FROM AnalysisSubmission s WHERE s.analysisState IN ?1 AND s.leaseOwner IS NOT NULL AND s.leaseExpiry < ?2")
+	public List<Long> findIdsWithExpiredLease(Collection<AnalysisState> states, Date now);
+
+	/**
+	 * Lease {@link AnalysisSubmission}s to an analysis scheduler node. Only
+	 * submissions whose lease is free, already held by the node, or has run
+	 * out are leased, so when nodes race for the same submission only one of
+	 * them gets it.
+	 * 
+	 * @param ids
+	 *            The ids of the {@link AnalysisSubmission}s to lease.
+	 * @param leaseOwner
+	 *            The node taking the lease.
+	 * @param leaseExpiry
+	 *            When the lease runs out.
+	 * @param now
+	 *            The current time.
+	 * @return The number of {@link AnalysisSubmission}s leased.
+	 */
+	@Transactional
+	@Modifying
+	@Query("UPDATE AnalysisSubmission s SET s.leaseOwner = ?2, s.leaseExpiry = ?3 WHERE s.id IN ?1 AND (s.leaseOwner IS NULL OR s.leaseOwner = ?2 OR s.leaseExpiry < ?4)")
+	public int claimLeases(Collection<Long> ids, String leaseOwner, Date leaseExpiry, Date now);
+
+	/**
+	 * Load the {@link AnalysisSubmission}s leased to an analysis scheduler
+	 * node.
+	 * 
+	 * @param ids
+	 *            The ids of the {@link AnalysisSubmission}s to load.
+	 * @param leaseOwner
+	 *            The node holding the lease.
+	 * @return The {@link AnalysisSubmission}s from the ids that are leased to
+	 *         the node.
+	 */
+	@Query("SELECT s FROM AnalysisSubmission s WHERE s.id IN ?1 AND s.leaseOwner = ?2")
+	public List<AnalysisSubmission> findByIdsAndLeaseOwner(Collection<Long> ids, String leaseOwner);
+
+	/**
+	 * Extend the leases an analysis scheduler node holds on
+	 * {@link AnalysisSubmission}s.
+	 * 
+	 * @param ids
+	 *            The ids of the {@link AnalysisSubmission}s to renew.
+	 * @param leaseOwner
+	 *            The node holding the leases.
+	 * @param leaseExpiry
+	 *            When the leases now run out.
+	 * @return The number of leases renewed. This is less than the number of
+	 *         ids if the node has lost some of its leases.
+	 */
+	@Transactional
+	@Modifying
+	@Query("UPDATE AnalysisSubmission s SET s.leaseExpiry = ?3 WHERE s.id IN ?1 AND s.leaseOwner = ?2")
+	public int renewLeases(Collection<Long> ids, String leaseOwner, Date leaseExpiry);
+
+	/**
+	 * Release the leases an analysis scheduler node holds on
+	 * {@link AnalysisSubmission}s. The expiry is kept as the time the
+	 * submission was last leased, so the submissions go to the back of the
+	 * queue for the next node.
+	 * 
+	 * @param ids
+	 *            The ids of the {@link AnalysisSubmission}s to release.
+	 * @param leaseOwner
+	 *            The node holding the leases.
+	 * @return The number of leases released.
+	 */
+	@Transactional
+	@Modifying
+	@Query("UPDATE AnalysisSubmission s SET s.leaseOwner = NULL WHERE s.id IN ?1 AND s.leaseOwner = ?2")
+	public int releaseLeases(Collection<Long> ids, String leaseOwner);
 }
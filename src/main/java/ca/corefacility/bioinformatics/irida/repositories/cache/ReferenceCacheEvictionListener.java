@@ -0,0 +1,106 @@
+package ca.corefacility.bioinformatics.irida.repositories.cache;
+
+import java.util.Map;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.collect.ImmutableMap;
+
+import ca.corefacility.bioinformatics.irida.config.repository.IridaApiCacheConfig;
+import ca.corefacility.bioinformatics.irida.model.IridaClientDetails;
+import ca.corefacility.bioinformatics.irida.model.RemoteAPI;
+import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+
+/**
+ * Hibernate listener that clears a reference data cache region whenever an entity cached in that region is inserted,
+ * updated or deleted.  This catches every write made through the entity manager, whichever repository or service
+ * made it.  Inside a transaction the region is cleared again after the transaction commits, so a read made before
+ * the commit can't put the old entity back into the cache.
+ */
+public class ReferenceCacheEvictionListener
+		implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+	private static final long serialVersionUID = 3318006394640734911L;
+
+	private static final Logger logger = LoggerFactory.getLogger(ReferenceCacheEvictionListener.class);
+
+	private static final Map<Class<?>, String> REGIONS = ImmutableMap.of(User.class, IridaApiCacheConfig.USERS,
+			MetadataTemplateField.class, IridaApiCacheConfig.METADATA_FIELDS, RemoteAPI.class,
+			IridaApiCacheConfig.REMOTE_APIS, IridaClientDetails.class, IridaApiCacheConfig.CLIENT_DETAILS);
+
+	private final transient CacheManager cacheManager;
+
+	/**
+	 * Create a listener clearing the regions of a {@link CacheManager}
+	 *
+	 * @param cacheManager the {@link CacheManager} holding the cache regions
+	 */
+	public ReferenceCacheEvictionListener(CacheManager cacheManager) {
+		this.cacheManager = cacheManager;
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		evict(event.getEntity());
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		evict(event.getEntity());
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		evict(event.getEntity());
+	}
+
+	/**
+	 * Evictions are made when the entity is written so they can join the transaction.
+	 *
+	 * @param persister the {@link EntityPersister} of the written entity
+	 * @return false
+	 */
+	public boolean requiresPostCommitHanding(EntityPersister persister) {
+		return false;
+	}
+
+	/**
+	 * Clear the cache region holding an entity, if it's cached.
+	 *
+	 * @param entity the written entity
+	 */
+	private void evict(Object entity) {
+		for (Map.Entry<Class<?>, String> region : REGIONS.entrySet()) {
+			if (region.getKey()
+					.isInstance(entity)) {
+				Cache cache = cacheManager.getCache(region.getValue());
+				if (cache != null) {
+					logger.trace("Clearing " + region.getValue() + " after writing " + entity);
+					cache.clear();
+					if (TransactionSynchronizationManager.isSynchronizationActive()) {
+						TransactionSynchronizationManager.registerSynchronization(
+								new TransactionSynchronizationAdapter() {
+									@Override
+									public void afterCommit() {
+										cache.clear();
+									}
+								});
+					}
+				}
+				return;
+			}
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package ca.corefacility.bioinformatics.irida.repositories.cache;
+
+import java.util.Collection;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedOperationParameter;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import com.google.common.cache.CacheStats;
+
+/**
+ * Reports the hit ratio and other statistics of the reference data cache regions.  Exported over JMX so the caches
+ * can be watched and cleared while IRIDA is running.
+ */
+@ManagedResource(description = "IRIDA reference data cache statistics")
+public class ReferenceCacheStatistics {
+	/**
+	 * The JMX object name the statistics are exported as.
+	 */
+	public static final String OBJECT_NAME = "ca.corefacility.bioinformatics.irida:type=ReferenceCache";
+
+	private final CacheManager cacheManager;
+
+	/**
+	 * Create statistics for the caches of a {@link CacheManager}
+	 *
+	 * @param cacheManager the {@link CacheManager} holding the cache regions
+	 */
+	public ReferenceCacheStatistics(CacheManager cacheManager) {
+		this.cacheManager = cacheManager;
+	}
+
+	/**
+	 * Get the names of the cache regions
+	 *
+	 * @return the region names
+	 */
+	@ManagedAttribute(description = "The names of the cache regions")
+	public String[] getRegionNames() {
+		Collection<String> names = cacheManager.getCacheNames();
+		return names.toArray(new String[names.size()]);
+	}
+
+	/**
+	 * Get the fraction of reads from a region that were found in the cache
+	 *
+	 * @param region the name of the region
+	 * @return the hit ratio, or 1.0 if the region hasn't been read or isn't recording statistics
+	 */
+	@ManagedOperation(description = "The fraction of reads from a region that were found in the cache")
+	@ManagedOperationParameter(name = "region", description = "The name of the cache region")
+	public double getHitRatio(String region) {
+		CacheStats stats = getStats(region);
+		return stats == null ? 1.0 : stats.hitRate();
+	}
+
+	/**
+	 * Get a summary of the hits, misses and evictions of a region
+	 *
+	 * @param region the name of the region
+	 * @return the summary
+	 */
+	@ManagedOperation(description = "The hits, misses and evictions of a region")
+	@ManagedOperationParameter(name = "region", description = "The name of the cache region")
+	public String getStatistics(String region) {
+		CacheStats stats = getStats(region);
+		return stats == null ? "No statistics recorded for " + region : stats.toString();
+	}
+
+	/**
+	 * Remove every entry from a region
+	 *
+	 * @param region the name of the region
+	 */
+	@ManagedOperation(description = "Remove every entry from a region")
+	@ManagedOperationParameter(name = "region", description = "The name of the cache region")
+	public void clear(String region) {
+		Cache cache = cacheManager.getCache(region);
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Get the Guava statistics for a region
+	 *
+	 * @param region the name of the region
+	 * @return the {@link CacheStats}, or null if the region isn't a Guava cache
+	 */
+	private CacheStats getStats(String region) {
+		Cache cache = cacheManager.getCache(region);
+		if (cache != null && cache.getNativeCache() instanceof com.google.common.cache.Cache) {
+			return ((com.google.common.cache.Cache<?, ?>) cache.getNativeCache()).stats();
+		}
+		return null;
+	}
+}
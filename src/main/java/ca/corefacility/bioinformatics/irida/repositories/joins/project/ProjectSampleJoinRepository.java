@@ -1,15 +1,19 @@
 package ca.corefacility.bioinformatics.irida.repositories.joins.project;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
+import ca.corefacility.bioinformatics.irida.model.enums.ProjectRole;
 import ca.corefacility.bioinformatics.irida.model.joins.Join;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.project.ProjectUserAccess;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 
 /**
@@ -62,6 +66,18 @@ public interface ProjectSampleJoinRepository extends PagingAndSortingRepository<
 	@Query("select j.sample from ProjectSampleJoin j where j.project = ?1 and j.sample.id in ?2")
 	List<Sample> getSamplesInProject(Project project, List<Long> sampleIds);
 
+	/**
+	 * Get the {@link Sample}s in a {@link Project} that were added to the
+	 * project, modified, or had sequencing data added to them since a given
+	 * date.
+	 *
+	 * @param project {@link Project} to get samples for.
+	 * @param since   the date to get changes since
+	 * @return List of {@link Sample}
+	 */
+	@Query("select j.sample from ProjectSampleJoin j where j.project = ?1 and (j.createdDate >= ?2 or j.sample.modifiedDate >= ?2 or exists (select s.id from SampleSequencingObjectJoin s where s.sample = j.sample and s.createdDate >= ?2))")
+	List<Sample> getSamplesForProjectChangedSince(Project project, Date since);
+
 	/**
 	 * Get a list of the organism fields stored for all {@link Sample}s in a
 	 * {@link Project}
@@ -83,4 +99,37 @@ public interface ProjectSampleJoinRepository extends PagingAndSortingRepository<
 	@Query("select count(j.id) from ProjectSampleJoin j where j.project = ?1")
 	public Long countSamplesForProject(Project project);
 
+	/**
+	 * Get the ids of the {@link Sample}s in a collection that a user can read.
+	 * A user can read a {@link Sample} if the {@link ProjectUserAccess} index
+	 * has an entry for them on a {@link Project} that contains the
+	 * {@link Sample}.
+	 * 
+	 * @param sampleIds
+	 *            the ids of the {@link Sample}s to check
+	 * @param username
+	 *            the username of the user
+	 * @return the ids of the {@link Sample}s the user can read
+	 */
+	@Query("select distinct j.sample.id from ProjectSampleJoin j, ProjectUserAccess a where a.project = j.project and j.sample.id in ?1 and a.user.username = ?2")
+	public List<Long> getReadableSampleIds(Collection<Long> sampleIds, String username);
+
+	/**
+	 * Get the ids of the {@link Sample}s in a collection that a user can
+	 * update. A user can update a {@link Sample} if the
+	 * {@link ProjectUserAccess} index gives them the given {@link ProjectRole}
+	 * on a local {@link Project} that owns the {@link Sample}.
+	 * 
+	 * @param sampleIds
+	 *            the ids of the {@link Sample}s to check
+	 * @param username
+	 *            the username of the user
+	 * @param projectRole
+	 *            the {@link ProjectRole} the user must have on the
+	 *            {@link Project}
+	 * @return the ids of the {@link Sample}s the user can update
+	 */
+	@Query("select distinct j.sample.id from ProjectSampleJoin j, ProjectUserAccess a where a.project = j.project and j.sample.id in ?1 and j.owner = true and j.project.remoteStatus is null and a.user.username = ?2 and a.projectRole = ?3")
+	public List<Long> getUpdatableSampleIds(Collection<Long> sampleIds, String username, ProjectRole projectRole);
+
 }
@@ -0,0 +1,73 @@
+package ca.corefacility.bioinformatics.irida.repositories.joins.project;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.project.ProjectUserAccess;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+
+/**
+ * A repository for the {@link ProjectUserAccess} index.
+ */
+public interface ProjectUserAccessRepository extends CrudRepository<ProjectUserAccess, Long> {
+
+	/**
+	 * Get the indexed access for all users on a {@link Project}.
+	 * 
+	 * @param project
+	 *            the {@link Project}
+	 * @return the {@link ProjectUserAccess} entries for the project
+	 */
+	@Query("from ProjectUserAccess a where a.project = ?1")
+	public List<ProjectUserAccess> getAccessForProject(Project project);
+
+	/**
+	 * Get the indexed access for a {@link User} on all projects.
+	 * 
+	 * @param user
+	 *            the {@link User}
+	 * @return the {@link ProjectUserAccess} entries for the user
+	 */
+	@Query("from ProjectUserAccess a where a.user = ?1")
+	public List<ProjectUserAccess> getAccessForUser(User user);
+
+	/**
+	 * Delete the indexed access for all users on a {@link Project}.
+	 * 
+	 * @param project
+	 *            the {@link Project}
+	 * @return the number of entries deleted
+	 */
+	@Modifying
+	@Query("delete from ProjectUserAccess a where a.project = ?1")
+	public int deleteAccessForProject(Project project);
+
+	/**
+	 * Delete the indexed access for a {@link User} on all projects.
+	 * 
+	 * @param user
+	 *            the {@link User}
+	 * @return the number of entries deleted
+	 */
+	@Modifying
+	@Query("delete from ProjectUserAccess a where a.user = ?1")
+	public int deleteAccessForUser(User user);
+
+	/**
+	 * Count the index entries for a user on a {@link Project}. This will be 1
+	 * if the user can read the project, or 0 if the index has no entry for the
+	 * user.
+	 * 
+	 * @param project
+	 *            the {@link Project}
+	 * @param username
+	 *            the username of the user
+	 * @return the number of index entries
+	 */
+	@Query("select count(a.id) from ProjectUserAccess a where a.project = ?1 and a.user.username = ?2")
+	public Long countAccessForUsername(Project project, String username);
+}
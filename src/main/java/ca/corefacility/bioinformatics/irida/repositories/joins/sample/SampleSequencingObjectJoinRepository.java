@@ -1,13 +1,18 @@
 package ca.corefacility.bioinformatics.irida.repositories.joins.sample;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.Query;
 
+import ca.corefacility.bioinformatics.irida.model.project.ProjectUserAccess;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.SampleSequenceFileBases;
 import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFilePair;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
 import ca.corefacility.bioinformatics.irida.repositories.IridaJpaRepository;
 
 /**
@@ -47,4 +52,41 @@ public interface SampleSequencingObjectJoinRepository extends IridaJpaRepository
 	 */
 	@Query("from SampleSequencingObjectJoin j where j.sequencingObject = ?1")
 	public SampleSequencingObjectJoin getSampleForSequencingObject(SequencingObject seqObject);
+
+	/**
+	 * Get the total bases of every file in the {@link SingleEndSequenceFile}s
+	 * in a collection of {@link Sample}s. Only the ids and totals are read.
+	 * 
+	 * @param sampleIds
+	 *            the ids of the {@link Sample}s. Must not be empty.
+	 * @return a {@link SampleSequenceFileBases} for each file
+	 */
+	@Query("select new ca.corefacility.bioinformatics.irida.model.sample.SampleSequenceFileBases(j.sample.id, o.id, f.id, a.totalBases) from SampleSequencingObjectJoin j, SingleEndSequenceFile o join o.file f left join f.fastqcAnalysis a where j.sequencingObject = o and j.sample.id in ?1")
+	public List<SampleSequenceFileBases> getSingleEndFileBasesForSamples(Collection<Long> sampleIds);
+
+	/**
+	 * Get the total bases of every file in the {@link SequenceFilePair}s in a
+	 * collection of {@link Sample}s. Only the ids and totals are read.
+	 * 
+	 * @param sampleIds
+	 *            the ids of the {@link Sample}s. Must not be empty.
+	 * @return a {@link SampleSequenceFileBases} for each file
+	 */
+	@Query("select new ca.corefacility.bioinformatics.irida.model.sample.SampleSequenceFileBases(j.sample.id, o.id, f.id, a.totalBases) from SampleSequencingObjectJoin j, SequenceFilePair o join o.files f left join f.fastqcAnalysis a where j.sequencingObject = o and j.sample.id in ?1")
+	public List<SampleSequenceFileBases> getPairedFileBasesForSamples(Collection<Long> sampleIds);
+
+	/**
+	 * Get the ids of the {@link SequencingObject}s in a collection that a user
+	 * can read. A user can read a {@link SequencingObject} if the
+	 * {@link ProjectUserAccess} index has an entry for them on a project that
+	 * contains the {@link Sample} the {@link SequencingObject} belongs to.
+	 * 
+	 * @param sequencingObjectIds
+	 *            the ids of the {@link SequencingObject}s to check
+	 * @param username
+	 *            the username of the user
+	 * @return the ids of the {@link SequencingObject}s the user can read
+	 */
+	@Query("select distinct j.sequencingObject.id from SampleSequencingObjectJoin j, ProjectSampleJoin psj, ProjectUserAccess a where psj.sample = j.sample and a.project = psj.project and j.sequencingObject.id in ?1 and a.user.username = ?2")
+	public List<Long> getReadableSequencingObjectIds(Collection<Long> sequencingObjectIds, String username);
 }
@@ -1,8 +1,10 @@
 package ca.corefacility.bioinformatics.irida.repositories.remote;
 
+import java.util.Date;
 import java.util.Map;
 
 import ca.corefacility.bioinformatics.irida.model.RemoteAPI;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
@@ -24,4 +26,17 @@ public interface SampleRemoteRepository extends RemoteRepository<Sample> {
 	 *         {@link MetadataTemplateField}
 	 */
 	public Map<String, MetadataEntry> getSampleMetadata(Sample sample);
+
+	/**
+	 * Get the metadata for the {@link Sample}s in a remote {@link Project}
+	 * with a single request
+	 * 
+	 * @param project
+	 *            the remote {@link Project} to get sample metadata for
+	 * @param since
+	 *            only get metadata for samples that changed since this date.
+	 *            null to get metadata for all samples.
+	 * @return a map of sample URL to the sample's metadata
+	 */
+	public Map<String, Map<String, MetadataEntry>> getProjectSampleMetadata(Project project, Date since);
 }
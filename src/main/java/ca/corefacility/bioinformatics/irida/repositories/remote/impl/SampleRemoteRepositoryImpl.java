@@ -1,5 +1,7 @@
 package ca.corefacility.bioinformatics.irida.repositories.remote.impl;
 
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -12,11 +14,13 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Repository;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import ca.corefacility.bioinformatics.irida.model.IridaResourceSupport;
 import ca.corefacility.bioinformatics.irida.model.RemoteAPI;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.remote.resource.ListResourceWrapper;
 import ca.corefacility.bioinformatics.irida.model.remote.resource.ResourceWrapper;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
@@ -44,7 +48,13 @@ public class SampleRemoteRepositoryImpl extends RemoteRepositoryImpl<Sample> imp
 	private static final ParameterizedTypeReference<ResourceWrapper<SampleMetadataWrapper>> metadataTypeReference = new ParameterizedTypeReference<ResourceWrapper<SampleMetadataWrapper>>() {
 	};
 
+	// type reference for the project sample metadata responses
+	private static final ParameterizedTypeReference<ListResourceWrapper<SampleMetadataWrapper>> metadataListTypeReference = new ParameterizedTypeReference<ListResourceWrapper<SampleMetadataWrapper>>() {
+	};
+
 	private final static String METADATA_REL = RESTSampleMetadataController.METADATA_REL;
+	private final static String PROJECT_SAMPLES_METADATA_REL = RESTSampleMetadataController.PROJECT_SAMPLES_METADATA_REL;
+	private final static String SAMPLE_REL = RESTSampleMetadataController.SAMPLE_REL;
 
 	private RemoteAPITokenService tokenService;
 
@@ -85,6 +95,33 @@ public class SampleRemoteRepositoryImpl extends RemoteRepositoryImpl<Sample> imp
 		return resource;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public Map<String, Map<String, MetadataEntry>> getProjectSampleMetadata(Project project, Date since) {
+		logger.trace("Requesting sample metadata for project " + project.getSelfHref());
+		RemoteAPI remoteAPI = project.getRemoteStatus().getApi();
+
+		OAuthTokenRestTemplate restTemplate = new OAuthTokenRestTemplate(tokenService, remoteAPI);
+
+		UriComponentsBuilder metadataUri = UriComponentsBuilder
+				.fromHttpUrl(project.getLink(PROJECT_SAMPLES_METADATA_REL).getHref());
+		if (since != null) {
+			metadataUri.queryParam("since", since.getTime());
+		}
+
+		ResponseEntity<ListResourceWrapper<SampleMetadataWrapper>> exchange = restTemplate.exchange(
+				metadataUri.toUriString(), HttpMethod.GET, HttpEntity.EMPTY, metadataListTypeReference);
+
+		// key each sample's metadata by the sample's URL
+		Map<String, Map<String, MetadataEntry>> metadata = new HashMap<>();
+		for (SampleMetadataWrapper sampleMetadata : exchange.getBody().getResource().getResources()) {
+			metadata.put(sampleMetadata.getLink(SAMPLE_REL).getHref(), sampleMetadata.getMetadata());
+		}
+
+		return metadata;
+	}
+
 	/**
 	 * Class to capture the response from a sample metadata request
 	 */
@@ -1,11 +1,14 @@
 package ca.corefacility.bioinformatics.irida.repositories.sample;
 
+import ca.corefacility.bioinformatics.irida.config.repository.IridaApiCacheConfig;
 import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
 import ca.corefacility.bioinformatics.irida.model.sample.StaticMetadataTemplateField;
 import ca.corefacility.bioinformatics.irida.repositories.IridaJpaRepository;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -21,8 +24,18 @@ public interface MetadataFieldRepository
 	 * @return {@link MetadataTemplateField}
 	 */
 	@Query("from MetadataTemplateField m where m.label = ?1")
+	@Cacheable(cacheNames = IridaApiCacheConfig.METADATA_FIELDS, key = "'label:' + #p0", unless = "#result == null")
 	public MetadataTemplateField findMetadataFieldByLabel(String label);
 
+	/**
+	 * Get the {@link MetadataTemplateField}s with any of some labels.
+	 *
+	 * @param labels the {@link String} field labels
+	 * @return the {@link MetadataTemplateField}s with the labels
+	 */
+	@Query("from MetadataTemplateField m where m.label in ?1")
+	public List<MetadataTemplateField> findMetadataFieldsByLabels(Collection<String> labels);
+
 	/**
 	 * Get a {@link List} of {@link MetadataTemplateField} with a label that partially matches the query
 	 *
@@ -39,6 +52,7 @@ public interface MetadataFieldRepository
 	 * @return the read field
 	 */
 	@Query("from StaticMetadataTemplateField m where m.staticId = ?1")
+	@Cacheable(cacheNames = IridaApiCacheConfig.METADATA_FIELDS, key = "'staticId:' + #p0", unless = "#result == null")
 	public StaticMetadataTemplateField findMetadataFieldByStaticId(String staticId);
 
 	/**
@@ -47,5 +61,6 @@ public interface MetadataFieldRepository
 	 * @return the list of {@link StaticMetadataTemplateField}s
 	 */
 	@Query("from StaticMetadataTemplateField m where TYPE(m) = StaticMetadataTemplateField")
+	@Cacheable(cacheNames = IridaApiCacheConfig.METADATA_FIELDS, key = "'static'")
 	public List<StaticMetadataTemplateField> findStaticMetadataFields();
 }
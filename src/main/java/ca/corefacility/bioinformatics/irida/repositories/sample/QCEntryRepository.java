@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.repositories.sample;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.Query;
@@ -23,4 +24,16 @@ public interface QCEntryRepository extends IridaJpaRepository<QCEntry, Long> {
 	 */
 	@Query("FROM QCEntry e WHERE e.sequencingObject.sample.sample = ?1")
 	public List<QCEntry> getQCEntriesForSample(Sample sample);
-}
\ No newline at end of file
+
+	/**
+	 * find all the {@link QCEntry} for a collection of
+	 * {@link SequencingObject}s. The {@link SequencingObject}s are not loaded.
+	 * 
+	 * @param sequencingObjectIds
+	 *            the ids of the {@link SequencingObject}s to get
+	 *            {@link QCEntry} for. Must not be empty.
+	 * @return a list of {@link QCEntry}
+	 */
+	@Query("FROM QCEntry e WHERE e.sequencingObjectId in ?1")
+	public List<QCEntry> getQCEntriesForSequencingObjects(Collection<Long> sequencingObjectIds);
+}
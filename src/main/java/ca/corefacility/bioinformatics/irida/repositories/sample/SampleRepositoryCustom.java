@@ -1,9 +1,15 @@
 package ca.corefacility.bioinformatics.irida.repositories.sample;
 
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.SampleMetadataQuery;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Custom methods for getting {@link Sample}s.  This can be used to create custom, higher speed methods for specific
@@ -18,4 +24,54 @@ public interface SampleRepositoryCustom {
 	 * @return a list of {@link Sample}
 	 */
 	public List<Sample> getSamplesForProjectShallow(Project project);
+
+	/**
+	 * Get a filtered and sorted window of the {@link Sample}s in a {@link Project} without extending into related
+	 * objects.  Note: The {@link Sample}s will not have metadata, use
+	 * {@link #getMetadataValuesForProjectSamples(Project, Collection)} to read it for the window.
+	 *
+	 * @param project the {@link Project} to get samples for
+	 * @param query   the {@link SampleMetadataQuery} describing the window
+	 * @return a list of {@link ProjectSampleJoin} in the window
+	 */
+	public List<ProjectSampleJoin> getSamplesForProjectShallow(Project project, SampleMetadataQuery query);
+
+	/**
+	 * Count the {@link Sample}s in a {@link Project} that match the filters of a {@link SampleMetadataQuery}.
+	 *
+	 * @param project the {@link Project} to count samples in
+	 * @param query   the {@link SampleMetadataQuery} to filter with
+	 * @return the number of matching {@link Sample}s
+	 */
+	public long countSamplesForProject(Project project, SampleMetadataQuery query);
+
+	/**
+	 * Get the metadata values of some {@link Sample}s in a {@link Project} with a single query.
+	 *
+	 * @param project   the {@link Project} the samples are in
+	 * @param sampleIds the ids of the {@link Sample}s
+	 * @return a map of {@link Sample} id to a map of {@link MetadataTemplateField} id to value
+	 */
+	public Map<Long, Map<Long, String>> getMetadataValuesForProjectSamples(Project project,
+			Collection<Long> sampleIds);
+
+	/**
+	 * Get the ids of the {@link Sample}s in a {@link Project} with some names.  Names are matched without case, like
+	 * the database compares them.
+	 *
+	 * @param project     the {@link Project} the samples are in
+	 * @param sampleNames the names of the {@link Sample}s
+	 * @return a map of {@link Sample} name to id, looked up without case
+	 */
+	public Map<String, Long> getSampleIdsBySampleName(Project project, Collection<String> sampleNames);
+
+	/**
+	 * Merge new metadata into some {@link Sample}s, reading the samples and their current metadata with a single
+	 * query.  The changes are flushed to the database and the persistence context is cleared afterwards, so this must
+	 * be called inside a transaction and any entities read earlier in the transaction become detached.
+	 *
+	 * @param metadata a map of {@link Sample} id to the metadata to merge into the sample
+	 * @return the number of {@link Sample}s merged
+	 */
+	public int mergeMetadata(Map<Long, Map<MetadataTemplateField, MetadataEntry>> metadata);
 }
@@ -1,27 +1,77 @@
 package ca.corefacility.bioinformatics.irida.repositories.sample;
 
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.SampleMetadataQuery;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.SampleMetadataQuery.SampleProperty;
+import com.google.common.base.Strings;
+import com.google.common.collect.Iterables;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort.Direction;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
+import javax.persistence.EntityManager;
 import javax.sql.DataSource;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Impl of custom methods for {@link SampleRepository}.  This class can be used for speed improvements for sample
  * listing methods.
  */
 public class SampleRepositoryImpl implements SampleRepositoryCustom {
+	private static final String SHALLOW_SAMPLE_COLUMNS = "s.id, s.createdDate, s.modifiedDate, s.description, s.sampleName, s.collectedBy, s.geographicLocationName, s.isolate, s.isolationSource, s.latitude, s.longitude, s.organism, s.strain, s.collectionDate, null as remote_status";
+
+	/**
+	 * Reads a {@link Sample} from the columns in {@link #SHALLOW_SAMPLE_COLUMNS}.
+	 */
+	private static final RowMapper<Sample> SHALLOW_SAMPLE_MAPPER = new RowMapper<Sample>() {
+
+		@Override
+		public Sample mapRow(ResultSet rs, int rowNum) throws SQLException {
+			Sample s = new Sample();
+
+			s.setId(rs.getLong("s.id"));
+			s.setCreatedDate(rs.getTimestamp("s.createdDate"));
+			s.setModifiedDate(rs.getTimestamp("s.modifiedDate"));
+			s.setDescription(rs.getString("s.description"));
+			s.setSampleName(rs.getString("s.sampleName"));
+			s.setCollectedBy(rs.getString("s.collectedBy"));
+			s.setGeographicLocationName(rs.getString("s.geographicLocationName"));
+			s.setIsolate(rs.getString("s.isolate"));
+			s.setIsolationSource(rs.getString("s.isolationSource"));
+			s.setLatitude(rs.getString("s.latitude"));
+			s.setLongitude(rs.getString("s.longitude"));
+			s.setOrganism(rs.getString("s.organism"));
+			s.setStrain(rs.getString("s.strain"));
+			s.setCollectionDate(rs.getDate("s.collectionDate"));
+
+			return s;
+		}
+	};
+
+	/**
+	 * The number of sample names to look up in a single query.
+	 */
+	private static final int SAMPLE_NAME_BATCH_SIZE = 1000;
+
 	private final DataSource dataSource;
+	private final EntityManager entityManager;
 
 	@Autowired
-	public SampleRepositoryImpl(DataSource dataSource) {
+	public SampleRepositoryImpl(DataSource dataSource, EntityManager entityManager) {
 		this.dataSource = dataSource;
+		this.entityManager = entityManager;
 	}
 
 	/**
@@ -32,35 +82,196 @@ public class SampleRepositoryImpl implements SampleRepositoryCustom {
 		MapSqlParameterSource parameters = new MapSqlParameterSource();
 
 		//query to read samples for a project
-		String queryString = "select s.id, s.createdDate, s.modifiedDate, s.description, s.sampleName, s.collectedBy, s.geographicLocationName, s.isolate, s.isolationSource, s.latitude, s.longitude, s.organism, s.strain, s.collectionDate, null as remote_status FROM sample s INNER JOIN project_sample p ON p.sample_id=s.id WHERE p.project_id=:project";
+		String queryString = "select " + SHALLOW_SAMPLE_COLUMNS + " FROM sample s INNER JOIN project_sample p ON p.sample_id=s.id WHERE p.project_id=:project";
 
 		parameters.addValue("project", project.getId());
 
-		List<Sample> results = tmpl.query(queryString, parameters, new RowMapper<Sample>() {
-
-			@Override
-			public Sample mapRow(ResultSet rs, int rowNum) throws SQLException {
-				Sample s = new Sample();
-
-				s.setId(rs.getLong("s.id"));
-				s.setCreatedDate(rs.getTimestamp("s.createdDate"));
-				s.setModifiedDate(rs.getTimestamp("s.modifiedDate"));
-				s.setDescription(rs.getString("s.description"));
-				s.setSampleName(rs.getString("s.sampleName"));
-				s.setCollectedBy(rs.getString("s.collectedBy"));
-				s.setGeographicLocationName(rs.getString("s.geographicLocationName"));
-				s.setIsolate(rs.getString("s.isolate"));
-				s.setIsolationSource(rs.getString("s.isolationSource"));
-				s.setLatitude(rs.getString("s.latitude"));
-				s.setLongitude(rs.getString("s.longitude"));
-				s.setOrganism(rs.getString("s.organism"));
-				s.setStrain(rs.getString("s.strain"));
-				s.setCollectionDate(rs.getDate("s.collectionDate"));
-
-				return s;
-			}
-		});
+		List<Sample> results = tmpl.query(queryString, parameters, SHALLOW_SAMPLE_MAPPER);
 
 		return results;
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public List<ProjectSampleJoin> getSamplesForProjectShallow(Project project, SampleMetadataQuery query) {
+		NamedParameterJdbcTemplate tmpl = new NamedParameterJdbcTemplate(dataSource);
+		MapSqlParameterSource parameters = new MapSqlParameterSource();
+
+		StringBuilder queryString = new StringBuilder("select ").append(SHALLOW_SAMPLE_COLUMNS)
+				.append(", p.owner FROM sample s INNER JOIN project_sample p ON p.sample_id=s.id");
+
+		// join the metadata value to sort on, keeping samples that don't have a value for the field
+		String sortColumn;
+		if (query.getSortFieldId() != null) {
+			queryString.append(
+					" LEFT JOIN sample_metadata_entry sort_sm ON sort_sm.sample_id=s.id AND sort_sm.metadata_KEY=:sortField LEFT JOIN metadata_entry sort_me ON sort_me.id=sort_sm.metadata_id");
+			parameters.addValue("sortField", query.getSortFieldId());
+			sortColumn = "sort_me.value";
+		} else {
+			sortColumn = "s." + query.getSortProperty()
+					.getColumn();
+		}
+
+		appendFilters(queryString, parameters, project, query);
+
+		String direction = query.getSortDirection() == Direction.DESC ? " DESC" : " ASC";
+		queryString.append(" ORDER BY ")
+				.append(sortColumn)
+				.append(direction)
+				.append(", s.id")
+				.append(direction)
+				.append(" LIMIT :limit OFFSET :offset");
+		parameters.addValue("limit", query.getLimit());
+		parameters.addValue("offset", query.getOffset());
+
+		return tmpl.query(queryString.toString(), parameters,
+				(rs, rowNum) -> new ProjectSampleJoin(project, SHALLOW_SAMPLE_MAPPER.mapRow(rs, rowNum),
+						rs.getBoolean("p.owner")));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long countSamplesForProject(Project project, SampleMetadataQuery query) {
+		NamedParameterJdbcTemplate tmpl = new NamedParameterJdbcTemplate(dataSource);
+		MapSqlParameterSource parameters = new MapSqlParameterSource();
+
+		StringBuilder queryString = new StringBuilder(
+				"select count(s.id) FROM sample s INNER JOIN project_sample p ON p.sample_id=s.id");
+		appendFilters(queryString, parameters, project, query);
+
+		return tmpl.queryForObject(queryString.toString(), parameters, Long.class);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Map<Long, Map<Long, String>> getMetadataValuesForProjectSamples(Project project,
+			Collection<Long> sampleIds) {
+		Map<Long, Map<Long, String>> values = new HashMap<>();
+		if (sampleIds.isEmpty()) {
+			return values;
+		}
+
+		NamedParameterJdbcTemplate tmpl = new NamedParameterJdbcTemplate(dataSource);
+		MapSqlParameterSource parameters = new MapSqlParameterSource();
+
+		String queryString = "select sm.sample_id, sm.metadata_KEY, me.value FROM sample_metadata_entry sm INNER JOIN metadata_entry me ON me.id=sm.metadata_id INNER JOIN project_sample p ON p.sample_id=sm.sample_id WHERE p.project_id=:project AND sm.sample_id IN (:samples)";
+
+		parameters.addValue("project", project.getId());
+		parameters.addValue("samples", sampleIds);
+
+		tmpl.query(queryString, parameters, rs -> {
+			values.computeIfAbsent(rs.getLong("sm.sample_id"), k -> new HashMap<>())
+					.put(rs.getLong("sm.metadata_KEY"), rs.getString("me.value"));
+		});
+
+		return values;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Map<String, Long> getSampleIdsBySampleName(Project project, Collection<String> sampleNames) {
+		Map<String, Long> ids = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+		NamedParameterJdbcTemplate tmpl = new NamedParameterJdbcTemplate(dataSource);
+		String queryString = "select s.id, s.sampleName FROM sample s INNER JOIN project_sample p ON p.sample_id=s.id WHERE p.project_id=:project AND s.sampleName IN (:names)";
+
+		for (List<String> batch : Iterables.partition(sampleNames, SAMPLE_NAME_BATCH_SIZE)) {
+			MapSqlParameterSource parameters = new MapSqlParameterSource();
+			parameters.addValue("project", project.getId());
+			parameters.addValue("names", batch);
+
+			tmpl.query(queryString, parameters, rs -> {
+				ids.put(rs.getString("s.sampleName"), rs.getLong("s.id"));
+			});
+		}
+
+		return ids;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int mergeMetadata(Map<Long, Map<MetadataTemplateField, MetadataEntry>> metadata) {
+		if (metadata.isEmpty()) {
+			return 0;
+		}
+
+		// fetch the current metadata with the samples instead of one query per sample
+		List<Sample> samples = entityManager.createQuery(
+				"select distinct s from Sample s left join fetch s.metadata where s.id in :ids", Sample.class)
+				.setParameter("ids", metadata.keySet())
+				.getResultList();
+
+		for (Sample sample : samples) {
+			sample.mergeMetadata(metadata.get(sample.getId()));
+		}
+
+		// write the batch and let go of the samples so a large import doesn't keep every sample in memory
+		entityManager.flush();
+		entityManager.clear();
+
+		return samples.size();
+	}
+
+	/**
+	 * Add the project and the filters of a {@link SampleMetadataQuery} to the where clause of a query.
+	 *
+	 * @param queryString the query to add to
+	 * @param parameters  the parameters of the query
+	 * @param project     the {@link Project} to read samples from
+	 * @param query       the {@link SampleMetadataQuery} to filter with
+	 */
+	private static void appendFilters(StringBuilder queryString, MapSqlParameterSource parameters, Project project,
+			SampleMetadataQuery query) {
+		queryString.append(" WHERE p.project_id=:project");
+		parameters.addValue("project", project.getId());
+
+		int filterNum = 0;
+		for (Map.Entry<SampleProperty, String> filter : query.getPropertyFilters()
+				.entrySet()) {
+			String param = "filter" + filterNum++;
+			queryString.append(" AND s.")
+					.append(filter.getKey()
+							.getColumn())
+					.append(" LIKE :")
+					.append(param);
+			parameters.addValue(param, containsPattern(filter.getValue()));
+		}
+
+		for (Map.Entry<Long, String> filter : query.getMetadataFilters()
+				.entrySet()) {
+			String field = "field" + filterNum;
+			String param = "filter" + filterNum++;
+			queryString.append(
+					" AND EXISTS (select 1 FROM sample_metadata_entry fsm INNER JOIN metadata_entry fme ON fme.id=fsm.metadata_id WHERE fsm.sample_id=s.id AND fsm.metadata_KEY=:")
+					.append(field)
+					.append(" AND fme.value LIKE :")
+					.append(param)
+					.append(")");
+			parameters.addValue(field, filter.getKey());
+			parameters.addValue(param, containsPattern(filter.getValue()));
+		}
+
+		if (!Strings.isNullOrEmpty(query.getSearch())) {
+			queryString.append(
+					" AND (s.sampleName LIKE :search OR EXISTS (select 1 FROM sample_metadata_entry qsm INNER JOIN metadata_entry qme ON qme.id=qsm.metadata_id WHERE qsm.sample_id=s.id AND qme.value LIKE :search))");
+			parameters.addValue("search", containsPattern(query.getSearch()));
+		}
+	}
+
+	/**
+	 * Build a LIKE pattern matching values that contain some text, escaping any wildcards in the text.
+	 *
+	 * @param text the text to look for
+	 * @return the LIKE pattern
+	 */
+	private static String containsPattern(String text) {
+		return "%" + text.replace("\\", "\\\\")
+				.replace("%", "\\%")
+				.replace("_", "\\_") + "%";
+	}
 }
@@ -0,0 +1,25 @@
+package ca.corefacility.bioinformatics.irida.repositories.sequencefile;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFileUpload;
+
+/**
+ * A repository for resumable {@link SequenceFileUpload}s.
+ */
+public interface SequenceFileUploadRepository extends CrudRepository<SequenceFileUpload, Long> {
+
+	/**
+	 * Get the uploads that were started before a given date.
+	 * 
+	 * @param date
+	 *            the date to get uploads before
+	 * @return the {@link SequenceFileUpload}s created before the date
+	 */
+	@Query("from SequenceFileUpload u where u.createdDate < ?1")
+	public List<SequenceFileUpload> findCreatedBefore(Date date);
+}
@@ -3,6 +3,7 @@ package ca.corefacility.bioinformatics.irida.repositories.sequencefile;
 import java.util.List;
 import java.util.Set;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
@@ -37,14 +38,17 @@ public interface SequencingObjectRepository extends IridaJpaRepository<Sequencin
 	public Set<SequencingObject> findSequencingObjectsForAnalysisSubmission(AnalysisSubmission analysisSubmission);
 
 	/**
-	 * Get all {@link SequencingObject}s with the given {@link ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject.ProcessingState}
+	 * Get the ids of {@link SequencingObject}s with the given
+	 * {@link ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject.ProcessingState},
+	 * oldest first.
 	 *
 	 * @param processingState the state to get files for
-	 * @return a list of {@link SequencingObject}
+	 * @param page            the number of ids to get
+	 * @return a list of {@link SequencingObject} ids
 	 */
-	@Query("FROM SequencingObject f where f.processingState = ?1")
-	public List<SequencingObject> getSequencingObjectsWithProcessingState(
-			SequencingObject.ProcessingState processingState);
+	@Query("SELECT f.id FROM SequencingObject f where f.processingState = ?1 ORDER BY f.id")
+	public List<Long> getSequencingObjectIdsWithProcessingState(SequencingObject.ProcessingState processingState,
+			Pageable page);
 
 	/**
 	 * Get {@link SequencingObject}s with a given processing state and the given processor string
@@ -63,9 +67,10 @@ public interface SequencingObjectRepository extends IridaJpaRepository<Sequencin
 	 * @param objectId        ID of the sequencing object
 	 * @param processor       File processor id string to set
 	 * @param processingState processing state to set
+	 * @return the number of objects marked (0 if another processor already marked the object)
 	 */
 	@Transactional
 	@Modifying(clearAutomatically = true)
 	@Query("UPDATE SequencingObject f SET f.processingState = ?3, f.fileProcessor = ?2 WHERE f.id = ?1 AND f.fileProcessor is NULL")
-	public void markFileProcessor(Long objectId, String processor, SequencingObject.ProcessingState processingState);
+	public int markFileProcessor(Long objectId, String processor, SequencingObject.ProcessingState processingState);
 }
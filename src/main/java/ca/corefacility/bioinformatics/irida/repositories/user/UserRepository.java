@@ -1,8 +1,10 @@
 package ca.corefacility.bioinformatics.irida.repositories.user;
 
+import ca.corefacility.bioinformatics.irida.config.repository.IridaApiCacheConfig;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.user.User;
 import ca.corefacility.bioinformatics.irida.repositories.IridaJpaRepository;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -24,6 +26,7 @@ public interface UserRepository extends IridaJpaRepository<User, Long>, UserDeta
 	 * @throws UsernameNotFoundException
 	 *             If no user can be found with the supplied username.
 	 */
+	@Cacheable(cacheNames = IridaApiCacheConfig.USERS, key = "#p0", unless = "#result == null")
 	public User loadUserByUsername(String username) throws UsernameNotFoundException;
 
 	/**
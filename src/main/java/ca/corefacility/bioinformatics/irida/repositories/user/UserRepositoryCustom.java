@@ -1,7 +1,9 @@
 package ca.corefacility.bioinformatics.irida.repositories.user;
 
+import ca.corefacility.bioinformatics.irida.config.repository.IridaApiCacheConfig;
 import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
 import ca.corefacility.bioinformatics.irida.model.user.User;
+import org.springframework.cache.annotation.CacheEvict;
 
 import java.util.Date;
 
@@ -16,6 +18,7 @@ public interface UserRepositoryCustom {
 	 * @param user the {@link User} to update
 	 * @param date the {@link Date} to set
 	 */
+	@CacheEvict(cacheNames = IridaApiCacheConfig.USERS, key = "#p0.username")
 	public void updateLogin(User user, Date date);
 
 	/**
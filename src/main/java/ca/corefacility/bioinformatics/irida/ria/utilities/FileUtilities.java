@@ -13,10 +13,9 @@ import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.codehaus.jackson.map.ObjectMapper;
@@ -26,6 +25,10 @@ import org.slf4j.LoggerFactory;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisOutputFile;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.ProjectSampleAnalysisOutputInfo;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+import ca.corefacility.bioinformatics.irida.ria.utilities.archive.ArchiveEntry;
+import ca.corefacility.bioinformatics.irida.ria.utilities.archive.ArchiveFormat;
+import ca.corefacility.bioinformatics.irida.ria.utilities.archive.BulkArchiveWriter;
+import ca.corefacility.bioinformatics.irida.web.spring.view.FileResponseWriter;
 
 /**
  * Download a zip archive of all output files within an
@@ -51,9 +54,11 @@ public class FileUtilities {
 	 *            Name fo the file to create
 	 * @param files
 	 *            Set of {@link AnalysisOutputFile}
+	 * @param archiveWriter
+	 *            {@link BulkArchiveWriter} to write the zip file with
 	 */
 	public static void createAnalysisOutputFileZippedResponse(HttpServletResponse response, String fileName,
-			Set<AnalysisOutputFile> files) {
+			Set<AnalysisOutputFile> files, BulkArchiveWriter archiveWriter) {
 		/*
 		 * Replacing spaces and commas as they cause issues with
 		 * Content-disposition response header.
@@ -62,53 +67,25 @@ public class FileUtilities {
 
 		logger.debug("Creating zipped file response. [" + fileName + "]");
 
-		// set the response headers before we do *ANYTHING* so that the filename
-		// actually appears in the download dialog
-		response.setHeader(CONTENT_DISPOSITION, ATTACHMENT_FILENAME + fileName + EXTENSION_ZIP);
-		// for zip file
-		response.setContentType(CONTENT_TYPE_APPLICATION_ZIP);
-
-		try (ServletOutputStream responseStream = response.getOutputStream();
-				ZipOutputStream outputStream = new ZipOutputStream(responseStream)) {
-
+		List<ArchiveEntry> entries = new ArrayList<>();
+		ObjectMapper objectMapper = new ObjectMapper();
+		try {
 			for (AnalysisOutputFile file : files) {
 				if (!Files.exists(file.getFile())) {
 					response.setStatus(404);
 					throw new FileNotFoundException();
 				}
-				// 1) Build a folder/file name
-				StringBuilder zipEntryName = new StringBuilder(fileName);
-				zipEntryName.append("/").append(file.getLabel());
-
-				// 2) Tell the zip stream that we are starting a new entry in
-				// the archive.
-				outputStream.putNextEntry(new ZipEntry(zipEntryName.toString()));
-
-				// 3) COPY all of thy bytes from the file to the output stream.
-				Files.copy(file.getFile(), outputStream);
-
-				// 4) Close the current entry in the archive in preparation for
-				// the next entry.
-				outputStream.closeEntry();
-
-				ObjectMapper objectMapper = new ObjectMapper();
-				byte[] bytes = objectMapper.writeValueAsBytes(file);
-				outputStream.putNextEntry(new ZipEntry(zipEntryName.toString() + "-prov.json"));
-				outputStream.write(bytes);
-				outputStream.closeEntry();
+				// Build a folder/file name
+				String zipEntryName = fileName + "/" + file.getLabel();
+				entries.add(ArchiveEntry.forFile(zipEntryName, file.getFile()));
+				entries.add(ArchiveEntry.forBytes(zipEntryName + "-prov.json", objectMapper.writeValueAsBytes(file)));
 			}
-
-			// Tell the output stream that you are finished downloading.
-			outputStream.finish();
-			outputStream.close();
 		} catch (IOException e) {
-			// this generally means that the user has cancelled the download
-			// from their web browser; we can safely ignore this
-			logger.debug("This *probably* means that the user cancelled the download, "
-					+ "but it might be something else, see the stack trace below for more information.", e);
-		} catch (Exception e) {
 			logger.error("Download failed...", e);
+			return;
 		}
+
+		writeZippedResponse(response, fileName, entries, archiveWriter);
 	}
 
 	/**
@@ -120,9 +97,11 @@ public class FileUtilities {
 	 *            Name fo the file to create
 	 * @param files
  *            Set of {@link AnalysisOutputFile}
+	 * @param archiveWriter
+	 *            {@link BulkArchiveWriter} to write the zip file with
 	 */
 	public static void createBatchAnalysisOutputFileZippedResponse(HttpServletResponse response, String fileName,
-			Map<ProjectSampleAnalysisOutputInfo, AnalysisOutputFile> files) {
+			Map<ProjectSampleAnalysisOutputInfo, AnalysisOutputFile> files, BulkArchiveWriter archiveWriter) {
 		/*
 		 * Replacing spaces and commas as they cause issues with
 		 * Content-disposition response header.
@@ -130,43 +109,52 @@ public class FileUtilities {
 		fileName = formatName(fileName);
 		logger.debug("Creating zipped file response. [" + fileName + "] with " + files.size() + " analysis output files.");
 
+		List<ArchiveEntry> entries = new ArrayList<>();
+		for (Map.Entry<ProjectSampleAnalysisOutputInfo, AnalysisOutputFile> entry : files.entrySet()) {
+			final AnalysisOutputFile file = entry.getValue();
+			final ProjectSampleAnalysisOutputInfo outputInfo = entry.getKey();
+			if (!Files.exists(file.getFile())) {
+				response.setStatus(404);
+				logger.error("Download failed...", new FileNotFoundException(
+						"File '" + file.getFile().toFile().getAbsolutePath() + "' does not exist!"));
+				return;
+			}
+			// Build a folder/file name
+			// building similar filename for each analysis output file as:
+			// resources/js/pages/projects/project-analysis-outputs.js#downloadSelected
+			String outputFilename = file.getFile()
+					.getFileName()
+					.toString();
+			// trying to pack as much useful info into the filename as possible!
+			outputFilename = outputInfo.getSampleName() + "-sampleId-" + outputInfo.getSampleId() + "-analysisSubmissionId-" + outputInfo.getAnalysisSubmissionId() + "-" + outputFilename;
+			entries.add(ArchiveEntry.forFile(fileName + "/" + outputFilename, file.getFile()));
+		}
+
+		writeZippedResponse(response, fileName, entries, archiveWriter);
+	}
+
+	/**
+	 * Write a zip file of entries to the response.
+	 *
+	 * @param response
+	 *            {@link HttpServletResponse}
+	 * @param fileName
+	 *            Name of the zip file, without the extension
+	 * @param entries
+	 *            the entries to write to the zip file
+	 * @param archiveWriter
+	 *            {@link BulkArchiveWriter} to write the zip file with
+	 */
+	private static void writeZippedResponse(HttpServletResponse response, String fileName,
+			List<ArchiveEntry> entries, BulkArchiveWriter archiveWriter) {
 		// set the response headers before we do *ANYTHING* so that the filename
-		// actually appears in the download dialog for zip file
+		// actually appears in the download dialog
 		response.setHeader(CONTENT_DISPOSITION, ATTACHMENT_FILENAME + fileName + EXTENSION_ZIP);
+		// for zip file
 		response.setContentType(CONTENT_TYPE_APPLICATION_ZIP);
 
-		try (ServletOutputStream responseStream = response.getOutputStream();
-				ZipOutputStream outputStream = new ZipOutputStream(responseStream)) {
-			for (Map.Entry<ProjectSampleAnalysisOutputInfo, AnalysisOutputFile> entry : files.entrySet()) {
-				final AnalysisOutputFile file = entry.getValue();
-				final ProjectSampleAnalysisOutputInfo outputInfo = entry.getKey();
-				if (!Files.exists(file.getFile())) {
-					response.setStatus(404);
-					throw new FileNotFoundException("File '" + file.getFile().toFile().getAbsolutePath() + "' does not exist!");
-				}
-				// 1) Build a folder/file name
-				// building similar filename for each analysis output file as:
-				// resources/js/pages/projects/project-analysis-outputs.js#downloadSelected
-				String outputFilename = file.getFile()
-						.getFileName()
-						.toString();
-				// trying to pack as much useful info into the filename as possible!
-				outputFilename = outputInfo.getSampleName() + "-sampleId-" + outputInfo.getSampleId() + "-analysisSubmissionId-" + outputInfo.getAnalysisSubmissionId() + "-" + outputFilename;
-				// 2) Tell the zip stream that we are starting a new entry in
-				// the archive.
-				outputStream.putNextEntry(new ZipEntry(fileName + "/" + outputFilename));
-
-				// 3) COPY all of thy bytes from the file to the output stream.
-				Files.copy(file.getFile(), outputStream);
-
-				// 4) Close the current entry in the archive in preparation for
-				// the next entry.
-				outputStream.closeEntry();
-			}
-
-			// Tell the output stream that you are finished downloading.
-			outputStream.finish();
-			outputStream.close();
+		try (ServletOutputStream responseStream = response.getOutputStream()) {
+			archiveWriter.write(ArchiveFormat.ZIP, entries, responseStream);
 		} catch (IOException e) {
 			// this generally means that the user has cancelled the download
 			// from their web browser; we can safely ignore this
@@ -178,24 +166,27 @@ public class FileUtilities {
 	}
 
 	/**
-	 * Utility method for download single file from an analysis.
+	 * Utility method for download single file from an analysis. Byte range
+	 * requests are supported so interrupted downloads can be resumed.
 	 *
+	 * @param request
+	 *            {@link HttpServletRequest}
 	 * @param response
 	 *            {@link HttpServletResponse}
 	 * @param file
 	 *            Set of {@link AnalysisOutputFile}
 	 * @param fileName Filename
 	 */
-	public static void createSingleFileResponse(HttpServletResponse response, AnalysisOutputFile file, String fileName) {
+	public static void createSingleFileResponse(HttpServletRequest request, HttpServletResponse response,
+			AnalysisOutputFile file, String fileName) {
 		fileName = formatName(fileName);
 
 		// set the response headers before we do *ANYTHING* so that the filename
 		// actually appears in the download dialog
 		response.setHeader(CONTENT_DISPOSITION, ATTACHMENT_FILENAME + fileName);
-		response.setContentType(CONTENT_TYPE_TEXT);
 
-		try (ServletOutputStream outputStream = response.getOutputStream()) {
-			Files.copy(file.getFile(), response.getOutputStream());
+		try {
+			FileResponseWriter.writeFile(file.getFile(), CONTENT_TYPE_TEXT, null, request, response);
 		} catch (IOException e) {
 			// this generally means that the user has cancelled the download
 			// from their web browser; we can safely ignore this
@@ -210,14 +201,17 @@ public class FileUtilities {
 	/**
 	 * Utility method for download single file from an analysis.
 	 *
+	 * @param request
+	 *            {@link HttpServletRequest}
 	 * @param response
 	 *            {@link HttpServletResponse}
 	 * @param file
 	 *            Set of {@link AnalysisOutputFile}
 	 */
-	public static void createSingleFileResponse(HttpServletResponse response, AnalysisOutputFile file) {
+	public static void createSingleFileResponse(HttpServletRequest request, HttpServletResponse response,
+			AnalysisOutputFile file) {
 		String fileName = file.getLabel();
-		FileUtilities.createSingleFileResponse(response, file, fileName);
+		FileUtilities.createSingleFileResponse(request, response, file, fileName);
 	}
 
 
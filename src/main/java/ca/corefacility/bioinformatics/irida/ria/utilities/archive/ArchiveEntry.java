@@ -0,0 +1,61 @@
+package ca.corefacility.bioinformatics.irida.ria.utilities.archive;
+
+import java.nio.file.Path;
+
+/**
+ * An entry to write to a bulk download archive. The contents of the entry are
+ * either a file on disk or a small array of bytes.
+ */
+public class ArchiveEntry {
+	private final String name;
+	private final Path file;
+	private final byte[] content;
+
+	private ArchiveEntry(String name, Path file, byte[] content) {
+		this.name = name;
+		this.file = file;
+		this.content = content;
+	}
+
+	/**
+	 * Create an entry for a file on disk.
+	 *
+	 * @param name
+	 *            the name of the entry in the archive
+	 * @param file
+	 *            the file to write
+	 * @return the {@link ArchiveEntry}
+	 */
+	public static ArchiveEntry forFile(String name, Path file) {
+		return new ArchiveEntry(name, file, null);
+	}
+
+	/**
+	 * Create an entry from bytes in memory.
+	 *
+	 * @param name
+	 *            the name of the entry in the archive
+	 * @param content
+	 *            the contents of the entry
+	 * @return the {@link ArchiveEntry}
+	 */
+	public static ArchiveEntry forBytes(String name, byte[] content) {
+		return new ArchiveEntry(name, null, content);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	public byte[] getContent() {
+		return content;
+	}
+
+	public boolean isFile() {
+		return file != null;
+	}
+}
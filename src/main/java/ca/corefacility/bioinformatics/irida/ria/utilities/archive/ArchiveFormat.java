@@ -0,0 +1,42 @@
+package ca.corefacility.bioinformatics.irida.ria.utilities.archive;
+
+/**
+ * The formats a {@link BulkArchiveWriter} can write.
+ */
+public enum ArchiveFormat {
+	ZIP("application/zip", ".zip"),
+	TAR("application/x-tar", ".tar");
+
+	private final String contentType;
+	private final String extension;
+
+	private ArchiveFormat(String contentType, String extension) {
+		this.contentType = contentType;
+		this.extension = extension;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public String getExtension() {
+		return extension;
+	}
+
+	/**
+	 * Get the format with the given name, ignoring case.
+	 *
+	 * @param format
+	 *            the name of the format
+	 * @return the {@link ArchiveFormat}, or {@link #ZIP} if the name isn't a
+	 *         known format
+	 */
+	public static ArchiveFormat fromString(String format) {
+		for (ArchiveFormat f : values()) {
+			if (f.name().equalsIgnoreCase(format)) {
+				return f;
+			}
+		}
+		return ZIP;
+	}
+}
@@ -0,0 +1,28 @@
+package ca.corefacility.bioinformatics.irida.ria.utilities.archive;
+
+import java.io.IOException;
+
+/**
+ * Writes entries to an archive in a single pass over an output stream.
+ */
+interface ArchiveStream {
+
+	/**
+	 * Write an entry and its contents to the archive.
+	 *
+	 * @param entry
+	 *            the {@link PreparedEntry} to write
+	 * @throws IOException
+	 *             if the entry couldn't be read or written
+	 */
+	void putEntry(PreparedEntry entry) throws IOException;
+
+	/**
+	 * Write the end of the archive. The underlying stream is flushed but not
+	 * closed.
+	 *
+	 * @throws IOException
+	 *             if the end of the archive couldn't be written
+	 */
+	void finish() throws IOException;
+}
@@ -0,0 +1,205 @@
+package ca.corefacility.bioinformatics.irida.ria.utilities.archive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import ca.corefacility.bioinformatics.irida.ria.utilities.FileUtilities;
+
+/**
+ * Streams bulk downloads of files as a ZIP or tar archive. While one entry is
+ * being written, the next entry is read ahead on another thread: for ZIP
+ * entries that are already compressed (like gzipped FASTQ files) its CRC-32 is
+ * calculated so it can be stored instead of compressed again, otherwise the
+ * start of the file is read so it's in the page cache when it's needed. Other
+ * ZIP entries can be deflated on several threads at once.
+ */
+@Component
+public class BulkArchiveWriter {
+	/**
+	 * How much of an entry to read ahead when the whole entry doesn't need to
+	 * be read.
+	 */
+	static final long READ_AHEAD_BYTES = 64 * 1024 * 1024;
+	private static final int READ_BUFFER_SIZE = 1024 * 1024;
+
+	private static final Set<String> COMPRESSED_EXTENSIONS = ImmutableSet.of("gz", "bz2", "xz", "zip", "bam", "png",
+			"jpg", "jpeg", "gif");
+
+	private final int deflateLevel;
+	private final int deflateThreads;
+	private final ExecutorService deflateExecutor;
+	private final ExecutorService readAheadExecutor;
+
+	/**
+	 * Create a {@link BulkArchiveWriter}.
+	 *
+	 * @param deflateThreads
+	 *            the number of threads to deflate ZIP entries on. Entries are
+	 *            deflated on the thread writing the archive if this is 1 or
+	 *            less.
+	 * @param deflateLevel
+	 *            the deflate compression level, from 0 to 9, or -1 for the
+	 *            default level
+	 */
+	@Autowired
+	public BulkArchiveWriter(@Value("${archive.deflate.threads:1}") int deflateThreads,
+			@Value("${archive.deflate.level:-1}") int deflateLevel) {
+		this.deflateThreads = deflateThreads;
+		this.deflateLevel = deflateLevel;
+		this.deflateExecutor = deflateThreads > 1 ? Executors.newFixedThreadPool(deflateThreads,
+				new ThreadFactoryBuilder().setNameFormat("archive-deflate-%d").setDaemon(true).build()) : null;
+		this.readAheadExecutor = Executors.newCachedThreadPool(
+				new ThreadFactoryBuilder().setNameFormat("archive-read-ahead-%d").setDaemon(true).build());
+	}
+
+	/**
+	 * Stop the deflate and read ahead threads when the application is shut
+	 * down.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		if (deflateExecutor != null) {
+			deflateExecutor.shutdownNow();
+		}
+		readAheadExecutor.shutdownNow();
+	}
+
+	/**
+	 * Write an archive of entries to a stream. The stream is flushed but not
+	 * closed.
+	 *
+	 * @param format
+	 *            the {@link ArchiveFormat} to write
+	 * @param entries
+	 *            the entries to write, in order
+	 * @param out
+	 *            the stream to write to
+	 * @throws IOException
+	 *             if an entry couldn't be read or the archive couldn't be
+	 *             written
+	 */
+	public void write(ArchiveFormat format, List<ArchiveEntry> entries, OutputStream out) throws IOException {
+		ArchiveStream archive = format == ArchiveFormat.TAR ? new TarArchiveStream(out)
+				: new ZipArchiveStream(out, deflateLevel, deflateExecutor, deflateThreads);
+
+		Future<PreparedEntry> next = entries.isEmpty() ? null : readAhead(format, entries.get(0));
+		try {
+			for (int i = 0; i < entries.size(); i++) {
+				PreparedEntry current = await(next);
+				next = i + 1 < entries.size() ? readAhead(format, entries.get(i + 1)) : null;
+				archive.putEntry(current);
+			}
+			archive.finish();
+		} finally {
+			if (next != null) {
+				next.cancel(true);
+			}
+		}
+	}
+
+	private Future<PreparedEntry> readAhead(ArchiveFormat format, ArchiveEntry entry) {
+		return readAheadExecutor.submit(() -> prepare(format, entry));
+	}
+
+	/**
+	 * Read ahead an entry and find out what's needed to write its header.
+	 */
+	private static PreparedEntry prepare(ArchiveFormat format, ArchiveEntry entry) throws IOException {
+		if (!entry.isFile()) {
+			return new PreparedEntry(entry, entry.getContent().length, System.currentTimeMillis(), false, -1);
+		}
+
+		Path file = entry.getFile();
+		BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		boolean stored = format == ArchiveFormat.ZIP && isCompressed(entry.getName());
+		long crc = -1;
+		if (stored) {
+			// a stored entry's local header needs its CRC-32 for streaming
+			// readers, so the whole file is read ahead
+			crc = checksum(file);
+		} else {
+			warm(file);
+		}
+
+		return new PreparedEntry(entry, attributes.size(), attributes.lastModifiedTime().toMillis(), stored, crc);
+	}
+
+	private static boolean isCompressed(String name) {
+		return COMPRESSED_EXTENSIONS.contains(FileUtilities.getFileExt(name));
+	}
+
+	private static long checksum(Path file) throws IOException {
+		CRC32 crc = new CRC32();
+		byte[] buffer = new byte[READ_BUFFER_SIZE];
+		try (InputStream in = Files.newInputStream(file)) {
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				crc.update(buffer, 0, n);
+			}
+		}
+		return crc.getValue();
+	}
+
+	/**
+	 * Read the start of a file so that it's in the page cache when it's
+	 * written to the archive.
+	 */
+	private static void warm(Path file) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long read = 0;
+			int n;
+			while (read < READ_AHEAD_BYTES && (n = channel.read(buffer)) != -1) {
+				read += n;
+				buffer.clear();
+			}
+		}
+	}
+
+	/**
+	 * Wait for a task, rethrowing its failure as an {@link IOException}.
+	 *
+	 * @param future
+	 *            the task to wait for
+	 * @return the result of the task
+	 * @throws IOException
+	 *             if the task failed or the wait was interrupted
+	 */
+	static <T> T await(Future<T> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while writing archive");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException("Failed to write archive", e.getCause());
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package ca.corefacility.bioinformatics.irida.ria.utilities.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+/**
+ * An {@link ArchiveEntry} that has been read ahead of being written, along
+ * with what the archive needs to know about it before writing its contents.
+ */
+class PreparedEntry {
+	private final ArchiveEntry entry;
+	private final long size;
+	private final long lastModified;
+	private final boolean stored;
+	private final long crc;
+
+	/**
+	 * Create a prepared entry.
+	 *
+	 * @param entry
+	 *            the {@link ArchiveEntry}
+	 * @param size
+	 *            the size of the entry's contents
+	 * @param lastModified
+	 *            the modification time of the entry in milliseconds
+	 * @param stored
+	 *            whether the contents are already compressed and should be
+	 *            stored without compressing them again
+	 * @param crc
+	 *            the CRC-32 of the contents, or -1 if it wasn't calculated
+	 */
+	PreparedEntry(ArchiveEntry entry, long size, long lastModified, boolean stored, long crc) {
+		this.entry = entry;
+		this.size = size;
+		this.lastModified = lastModified;
+		this.stored = stored;
+		this.crc = crc;
+	}
+
+	/**
+	 * Open the contents of the entry.
+	 *
+	 * @return an {@link InputStream} of the contents
+	 * @throws IOException
+	 *             if the file can't be opened
+	 */
+	InputStream open() throws IOException {
+		if (entry.isFile()) {
+			return Files.newInputStream(entry.getFile());
+		}
+		return new ByteArrayInputStream(entry.getContent());
+	}
+
+	String getName() {
+		return entry.getName();
+	}
+
+	long getSize() {
+		return size;
+	}
+
+	long getLastModified() {
+		return lastModified;
+	}
+
+	boolean isStored() {
+		return stored;
+	}
+
+	long getCrc() {
+		return crc;
+	}
+}
@@ -0,0 +1,142 @@
+package ca.corefacility.bioinformatics.irida.ria.utilities.archive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Writes an uncompressed POSIX tar archive. Names that don't fit in a ustar
+ * header are written in a pax extended header, and sizes of 8 GB or more are
+ * written in the base-256 size encoding.
+ */
+class TarArchiveStream implements ArchiveStream {
+	private static final int RECORD_SIZE = 512;
+	private static final int NAME_LENGTH = 100;
+	private static final long MAX_OCTAL_SIZE = 077777777777L;
+	private static final int FILE_MODE = 0644;
+
+	private static final byte TYPE_FILE = '0';
+	private static final byte TYPE_PAX_HEADER = 'x';
+
+	private final OutputStream out;
+
+	/**
+	 * Create a tar stream.
+	 *
+	 * @param out
+	 *            the stream to write the archive to
+	 */
+	TarArchiveStream(OutputStream out) {
+		this.out = out;
+	}
+
+	@Override
+	public void putEntry(PreparedEntry entry) throws IOException {
+		byte[] name = entry.getName().getBytes(StandardCharsets.UTF_8);
+		long mtime = entry.getLastModified() / 1000;
+
+		if (name.length > NAME_LENGTH) {
+			byte[] pax = paxRecord("path", entry.getName());
+			out.write(header(truncate(("PaxHeaders/" + entry.getName()).getBytes(StandardCharsets.UTF_8)),
+					pax.length, mtime, TYPE_PAX_HEADER));
+			out.write(pax);
+			pad(pax.length);
+		}
+
+		out.write(header(truncate(name), entry.getSize(), mtime, TYPE_FILE));
+		long read;
+		try (InputStream in = entry.open()) {
+			read = ByteStreams.copy(in, out);
+		}
+		if (read != entry.getSize()) {
+			throw new IOException("[" + entry.getName() + "] changed size while it was being archived");
+		}
+		pad(read);
+	}
+
+	@Override
+	public void finish() throws IOException {
+		out.write(new byte[RECORD_SIZE * 2]);
+		out.flush();
+	}
+
+	private static byte[] header(byte[] name, long size, long mtime, byte type) {
+		byte[] header = new byte[RECORD_SIZE];
+		System.arraycopy(name, 0, header, 0, name.length);
+		putOctal(header, 100, 8, FILE_MODE);
+		putOctal(header, 108, 8, 0);
+		putOctal(header, 116, 8, 0);
+		if (size <= MAX_OCTAL_SIZE) {
+			putOctal(header, 124, 12, size);
+		} else {
+			putBase256(header, 124, 12, size);
+		}
+		putOctal(header, 136, 12, mtime);
+		header[156] = type;
+		System.arraycopy("ustar\0".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 6);
+		System.arraycopy("00".getBytes(StandardCharsets.US_ASCII), 0, header, 263, 2);
+
+		// the checksum is calculated with the checksum field filled with spaces
+		Arrays.fill(header, 148, 156, (byte) ' ');
+		long checksum = 0;
+		for (byte b : header) {
+			checksum += b & 0xff;
+		}
+		putOctal(header, 148, 7, checksum);
+		header[155] = ' ';
+		return header;
+	}
+
+	/**
+	 * Build a pax extended header record. The length at the start of the
+	 * record counts the whole record, including the length itself.
+	 */
+	private static byte[] paxRecord(String key, String value) {
+		int length = (" " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8).length;
+		int total = length + String.valueOf(length).length();
+		while (total != length + String.valueOf(total).length()) {
+			total = length + String.valueOf(total).length();
+		}
+		return (total + " " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static byte[] truncate(byte[] name) {
+		return name.length > NAME_LENGTH ? Arrays.copyOf(name, NAME_LENGTH) : name;
+	}
+
+	/**
+	 * Write a zero-padded, NUL-terminated octal number to a header field.
+	 */
+	private static void putOctal(byte[] header, int offset, int length, long value) {
+		String octal = Long.toOctalString(value);
+		int digits = length - 1;
+		for (int i = 0; i < digits; i++) {
+			int index = octal.length() - digits + i;
+			header[offset + i] = (byte) (index < 0 ? '0' : octal.charAt(index));
+		}
+		header[offset + digits] = 0;
+	}
+
+	/**
+	 * Write a number too large for an octal field in the GNU base-256
+	 * encoding.
+	 */
+	private static void putBase256(byte[] header, int offset, int length, long value) {
+		for (int i = offset + length - 1; i > offset; i--) {
+			header[i] = (byte) (value & 0xff);
+			value >>>= 8;
+		}
+		header[offset] = (byte) 0x80;
+	}
+
+	private void pad(long written) throws IOException {
+		int remainder = (int) (written % RECORD_SIZE);
+		if (remainder > 0) {
+			out.write(new byte[RECORD_SIZE - remainder]);
+		}
+	}
+}
@@ -0,0 +1,397 @@
+package ca.corefacility.bioinformatics.irida.ria.utilities.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+
+/**
+ * Writes a ZIP archive in a single pass. Already compressed entries are
+ * stored, using the CRC-32 calculated when they were read ahead, so streaming
+ * readers like {@link java.util.zip.ZipInputStream} can read them. Other
+ * entries are deflated, either on the calling thread or split into blocks that
+ * are deflated in parallel, and are followed by a data descriptor. ZIP64
+ * records are written for entries and archives larger than 4 GB.
+ */
+class ZipArchiveStream implements ArchiveStream {
+	/**
+	 * The size of the blocks deflated in parallel.
+	 */
+	static final int DEFLATE_BLOCK_SIZE = 128 * 1024;
+	private static final int DICTIONARY_SIZE = 32 * 1024;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final long ZIP64_LIMIT = 0xFFFFFFFFL;
+	private static final int ZIP64_ENTRY_LIMIT = 0xFFFF;
+
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+	private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+	private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+	private static final int END_SIGNATURE = 0x06054b50;
+	private static final int ZIP64_EXTRA_ID = 0x0001;
+
+	private static final int VERSION_DEFAULT = 20;
+	private static final int VERSION_ZIP64 = 45;
+	private static final int MADE_BY_UNIX = 3 << 8;
+	private static final int UNIX_FILE_MODE = 0100644;
+	private static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+	private static final int FLAG_UTF8 = 0x0800;
+
+	private final CountingOutputStream out;
+	private final int level;
+	private final ExecutorService deflateExecutor;
+	private final int maxPendingBlocks;
+	private final List<CentralEntry> entries = new ArrayList<>();
+
+	/**
+	 * Create a ZIP stream.
+	 *
+	 * @param out
+	 *            the stream to write the archive to
+	 * @param level
+	 *            the deflate compression level
+	 * @param deflateExecutor
+	 *            executor to deflate blocks on, or <code>null</code> to
+	 *            deflate on the calling thread
+	 * @param deflateThreads
+	 *            the number of threads in the deflate executor
+	 */
+	ZipArchiveStream(OutputStream out, int level, ExecutorService deflateExecutor, int deflateThreads) {
+		this.out = new CountingOutputStream(out);
+		this.level = level;
+		this.deflateExecutor = deflateExecutor;
+		this.maxPendingBlocks = Math.max(2, deflateThreads * 2);
+	}
+
+	@Override
+	public void putEntry(PreparedEntry entry) throws IOException {
+		byte[] name = entry.getName().getBytes(StandardCharsets.UTF_8);
+		long offset = out.getCount();
+		long size = entry.getSize();
+		boolean stored = entry.isStored();
+		// deflate can expand data that doesn't compress, so leave some room
+		boolean zip64 = stored ? size >= ZIP64_LIMIT : size + size / 100 + BUFFER_SIZE >= ZIP64_LIMIT;
+		int flags = FLAG_UTF8 | (stored ? 0 : FLAG_DATA_DESCRIPTOR);
+		int method = stored ? ZipEntry.STORED : ZipEntry.DEFLATED;
+		int version = zip64 ? VERSION_ZIP64 : VERSION_DEFAULT;
+		int dosTime = toDosTime(entry.getLastModified());
+
+		writeInt(LOCAL_HEADER_SIGNATURE);
+		writeShort(version);
+		writeShort(flags);
+		writeShort(method);
+		writeInt(dosTime);
+		writeInt(stored ? entry.getCrc() : 0);
+		long localSize = stored ? size : 0;
+		writeInt(zip64 ? ZIP64_LIMIT : localSize);
+		writeInt(zip64 ? ZIP64_LIMIT : localSize);
+		writeShort(name.length);
+		writeShort(zip64 ? 20 : 0);
+		out.write(name);
+		if (zip64) {
+			writeShort(ZIP64_EXTRA_ID);
+			writeShort(16);
+			writeLong(localSize);
+			writeLong(localSize);
+		}
+
+		long dataStart = out.getCount();
+		CRC32 checksum = new CRC32();
+		long read;
+		try (InputStream in = entry.open()) {
+			if (stored) {
+				read = store(in, checksum);
+			} else {
+				read = deflateExecutor == null ? deflate(in, checksum) : deflateInParallel(in, checksum);
+			}
+		}
+		long crc = checksum.getValue();
+		long compressedSize = out.getCount() - dataStart;
+
+		if (read != size) {
+			throw new IOException("[" + entry.getName() + "] changed size while it was being archived");
+		}
+
+		if (stored) {
+			if (crc != entry.getCrc()) {
+				throw new IOException("[" + entry.getName() + "] changed while it was being archived");
+			}
+		} else {
+			writeInt(DATA_DESCRIPTOR_SIGNATURE);
+			writeInt(crc);
+			if (zip64) {
+				writeLong(compressedSize);
+				writeLong(size);
+			} else {
+				writeInt(compressedSize);
+				writeInt(size);
+			}
+		}
+
+		entries.add(new CentralEntry(name, flags, method, dosTime, crc, compressedSize, size, offset));
+	}
+
+	@Override
+	public void finish() throws IOException {
+		long centralOffset = out.getCount();
+		for (CentralEntry entry : entries) {
+			boolean zip64 = entry.compressedSize >= ZIP64_LIMIT || entry.size >= ZIP64_LIMIT
+					|| entry.offset >= ZIP64_LIMIT;
+			int version = zip64 ? VERSION_ZIP64 : VERSION_DEFAULT;
+
+			writeInt(CENTRAL_HEADER_SIGNATURE);
+			writeShort(MADE_BY_UNIX | version);
+			writeShort(version);
+			writeShort(entry.flags);
+			writeShort(entry.method);
+			writeInt(entry.dosTime);
+			writeInt(entry.crc);
+			writeInt(zip64 ? ZIP64_LIMIT : entry.compressedSize);
+			writeInt(zip64 ? ZIP64_LIMIT : entry.size);
+			writeShort(entry.name.length);
+			writeShort(zip64 ? 28 : 0);
+			// comment length, disk number and internal attributes
+			writeShort(0);
+			writeShort(0);
+			writeShort(0);
+			writeInt((long) UNIX_FILE_MODE << 16);
+			writeInt(zip64 ? ZIP64_LIMIT : entry.offset);
+			out.write(entry.name);
+			if (zip64) {
+				writeShort(ZIP64_EXTRA_ID);
+				writeShort(24);
+				writeLong(entry.size);
+				writeLong(entry.compressedSize);
+				writeLong(entry.offset);
+			}
+		}
+		long centralSize = out.getCount() - centralOffset;
+		long count = entries.size();
+
+		if (count >= ZIP64_ENTRY_LIMIT || centralOffset >= ZIP64_LIMIT || centralSize >= ZIP64_LIMIT) {
+			long zip64EndOffset = out.getCount();
+			writeInt(ZIP64_END_SIGNATURE);
+			writeLong(44);
+			writeShort(MADE_BY_UNIX | VERSION_ZIP64);
+			writeShort(VERSION_ZIP64);
+			writeInt(0);
+			writeInt(0);
+			writeLong(count);
+			writeLong(count);
+			writeLong(centralSize);
+			writeLong(centralOffset);
+
+			writeInt(ZIP64_LOCATOR_SIGNATURE);
+			writeInt(0);
+			writeLong(zip64EndOffset);
+			writeInt(1);
+		}
+
+		writeInt(END_SIGNATURE);
+		writeShort(0);
+		writeShort(0);
+		writeShort((int) Math.min(count, ZIP64_ENTRY_LIMIT));
+		writeShort((int) Math.min(count, ZIP64_ENTRY_LIMIT));
+		writeInt(Math.min(centralSize, ZIP64_LIMIT));
+		writeInt(Math.min(centralOffset, ZIP64_LIMIT));
+		writeShort(0);
+		out.flush();
+	}
+
+	/**
+	 * Copy a stream to the archive without compressing it.
+	 *
+	 * @return the number of bytes read
+	 */
+	private long store(InputStream in, CRC32 checksum) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		long read = 0;
+		int n;
+		while ((n = in.read(buffer)) != -1) {
+			checksum.update(buffer, 0, n);
+			out.write(buffer, 0, n);
+			read += n;
+		}
+		return read;
+	}
+
+	/**
+	 * Deflate a stream to the archive on the calling thread.
+	 *
+	 * @return the number of bytes read
+	 */
+	private long deflate(InputStream in, CRC32 checksum) throws IOException {
+		Deflater deflater = new Deflater(level, true);
+		try {
+			DeflaterOutputStream deflaterStream = new DeflaterOutputStream(out, deflater, BUFFER_SIZE);
+			byte[] buffer = new byte[BUFFER_SIZE];
+			long read = 0;
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				checksum.update(buffer, 0, n);
+				deflaterStream.write(buffer, 0, n);
+				read += n;
+			}
+			deflaterStream.finish();
+			return read;
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Deflate a stream to the archive by splitting it into blocks that are
+	 * deflated in parallel. Each block is primed with the end of the block
+	 * before it, and all but the last block end on a byte boundary, so the
+	 * deflated blocks join into a single deflate stream.
+	 *
+	 * @return the number of bytes read
+	 */
+	private long deflateInParallel(InputStream in, CRC32 checksum) throws IOException {
+		Deque<Future<byte[]>> pending = new ArrayDeque<>();
+		long read = 0;
+		byte[] previous = null;
+		byte[] block = readBlock(in);
+		try {
+			while (true) {
+				byte[] next = block.length == DEFLATE_BLOCK_SIZE ? readBlock(in) : new byte[0];
+				final boolean last = next.length == 0;
+				final byte[] data = block;
+				final byte[] dictionary = previous;
+
+				checksum.update(data);
+				read += data.length;
+				pending.add(deflateExecutor.submit(() -> deflateBlock(data, dictionary, last)));
+
+				while (pending.size() >= maxPendingBlocks || (last && !pending.isEmpty())) {
+					out.write(BulkArchiveWriter.await(pending.poll()));
+				}
+
+				if (last) {
+					return read;
+				}
+				previous = block;
+				block = next;
+			}
+		} finally {
+			pending.forEach(f -> f.cancel(true));
+		}
+	}
+
+	/**
+	 * Deflate one block of a stream.
+	 *
+	 * @param data
+	 *            the block to deflate
+	 * @param dictionary
+	 *            the block before this one, or <code>null</code> for the first
+	 *            block
+	 * @param last
+	 *            whether this is the last block of the stream
+	 * @return the deflated block
+	 */
+	private byte[] deflateBlock(byte[] data, byte[] dictionary, boolean last) {
+		Deflater deflater = new Deflater(level, true);
+		try {
+			if (dictionary != null) {
+				int length = Math.min(DICTIONARY_SIZE, dictionary.length);
+				deflater.setDictionary(dictionary, dictionary.length - length, length);
+			}
+			deflater.setInput(data);
+			if (last) {
+				deflater.finish();
+			}
+
+			ByteArrayOutputStream deflated = new ByteArrayOutputStream(data.length / 2 + 64);
+			byte[] buffer = new byte[BUFFER_SIZE];
+			while (true) {
+				int n = deflater.deflate(buffer, 0, buffer.length, last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+				deflated.write(buffer, 0, n);
+				if (last ? deflater.finished() : n < buffer.length) {
+					return deflated.toByteArray();
+				}
+			}
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private static byte[] readBlock(InputStream in) throws IOException {
+		byte[] block = new byte[DEFLATE_BLOCK_SIZE];
+		int n = ByteStreams.read(in, block, 0, block.length);
+		return n == block.length ? block : Arrays.copyOf(block, n);
+	}
+
+	/**
+	 * Convert a time to the MS-DOS date and time format used by ZIP.
+	 */
+	private static int toDosTime(long time) {
+		LocalDateTime date = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+		if (date.getYear() < 1980) {
+			return (1 << 21) | (1 << 16);
+		}
+		return (date.getYear() - 1980) << 25 | date.getMonthValue() << 21 | date.getDayOfMonth() << 16
+				| date.getHour() << 11 | date.getMinute() << 5 | date.getSecond() >> 1;
+	}
+
+	private void writeShort(int v) throws IOException {
+		out.write(v & 0xff);
+		out.write((v >>> 8) & 0xff);
+	}
+
+	private void writeInt(long v) throws IOException {
+		writeShort((int) (v & 0xffff));
+		writeShort((int) ((v >>> 16) & 0xffff));
+	}
+
+	private void writeLong(long v) throws IOException {
+		writeInt(v & 0xffffffffL);
+		writeInt(v >>> 32);
+	}
+
+	/**
+	 * What the central directory needs to know about a written entry.
+	 */
+	private static class CentralEntry {
+		private final byte[] name;
+		private final int flags;
+		private final int method;
+		private final int dosTime;
+		private final long crc;
+		private final long compressedSize;
+		private final long size;
+		private final long offset;
+
+		CentralEntry(byte[] name, int flags, int method, int dosTime, long crc, long compressedSize, long size,
+				long offset) {
+			this.name = name;
+			this.flags = flags;
+			this.method = method;
+			this.dosTime = dosTime;
+			this.crc = crc;
+			this.compressedSize = compressedSize;
+			this.size = size;
+			this.offset = offset;
+		}
+	}
+}
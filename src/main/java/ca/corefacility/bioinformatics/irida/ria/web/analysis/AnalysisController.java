@@ -7,6 +7,7 @@ import java.security.Principal;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.slf4j.Logger;
@@ -53,6 +54,7 @@ import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSu
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.ProjectAnalysisSubmissionJoin;
 import ca.corefacility.bioinformatics.irida.pipeline.results.AnalysisSubmissionSampleProcessor;
 import ca.corefacility.bioinformatics.irida.ria.utilities.FileUtilities;
+import ca.corefacility.bioinformatics.irida.ria.utilities.archive.BulkArchiveWriter;
 import ca.corefacility.bioinformatics.irida.ria.web.analysis.dto.AnalysisOutputFileInfo;
 import ca.corefacility.bioinformatics.irida.ria.web.analysis.dto.AnalysisProjectShare;
 import ca.corefacility.bioinformatics.irida.ria.web.components.AnalysisOutputFileDownloadManager;
@@ -105,6 +107,7 @@ public class AnalysisController {
 	private AnalysesListingService analysesListingService;
 	private AnalysisSubmissionSampleProcessor analysisSubmissionSampleProcessor;
 	private AnalysisOutputFileDownloadManager analysisOutputFileDownloadManager;
+	private BulkArchiveWriter archiveWriter;
 
 	@Autowired
 	public AnalysisController(AnalysisSubmissionService analysisSubmissionService,
@@ -113,7 +116,8 @@ public class AnalysisController {
 			MetadataTemplateService metadataTemplateService, SequencingObjectService sequencingObjectService,
 			AnalysesListingService analysesListingService,
 			AnalysisSubmissionSampleProcessor analysisSubmissionSampleProcessor,
-			AnalysisOutputFileDownloadManager analysisOutputFileDownloadManager, MessageSource messageSource) {
+			AnalysisOutputFileDownloadManager analysisOutputFileDownloadManager, BulkArchiveWriter archiveWriter,
+			MessageSource messageSource) {
 		this.analysisSubmissionService = analysisSubmissionService;
 		this.workflowsService = iridaWorkflowsService;
 		this.analysisOutputFileDownloadManager = analysisOutputFileDownloadManager;
@@ -126,6 +130,7 @@ public class AnalysisController {
 		this.sequencingObjectService = sequencingObjectService;
 		this.analysesListingService = analysesListingService;
 		this.analysisSubmissionSampleProcessor = analysisSubmissionSampleProcessor;
+		this.archiveWriter = archiveWriter;
 	}
 
 	// ************************************************************************************************
@@ -886,7 +891,8 @@ public class AnalysisController {
 
 		Analysis analysis = analysisSubmission.getAnalysis();
 		Set<AnalysisOutputFile> files = analysis.getAnalysisOutputFiles();
-		FileUtilities.createAnalysisOutputFileZippedResponse(response, analysisSubmission.getName(), files);
+		FileUtilities.createAnalysisOutputFileZippedResponse(response, analysisSubmission.getName(), files,
+				archiveWriter);
 	}
 
 	/**
@@ -914,7 +920,7 @@ public class AnalysisController {
 	@RequestMapping(value = "/ajax/download/selection", produces = MediaType.APPLICATION_JSON_VALUE)
 	public void downloadSelection(@RequestParam(required = false, defaultValue = "analysis-output-files-batch-download") String  filename, HttpServletResponse response) {
 		Map<ProjectSampleAnalysisOutputInfo, AnalysisOutputFile> files = analysisOutputFileDownloadManager.getSelection();
-		FileUtilities.createBatchAnalysisOutputFileZippedResponse(response, filename, files);
+		FileUtilities.createBatchAnalysisOutputFileZippedResponse(response, filename, files, archiveWriter);
 	}
 
 	/**
@@ -923,11 +929,13 @@ public class AnalysisController {
 	 * @param analysisSubmissionId Id for a {@link AnalysisSubmission}
 	 * @param fileId               the id of the file to download
 	 * @param filename             Optional filename for file download.
+	 * @param request              {@link HttpServletRequest}
 	 * @param response             {@link HttpServletResponse}
 	 */
 	@RequestMapping(value = "/ajax/download/{analysisSubmissionId}/file/{fileId}")
 	public void getAjaxDownloadAnalysisSubmissionIndividualFile(@PathVariable Long analysisSubmissionId,
-			@PathVariable Long fileId, @RequestParam(defaultValue = "", required = false) String filename, HttpServletResponse response) {
+			@PathVariable Long fileId, @RequestParam(defaultValue = "", required = false) String filename,
+			HttpServletRequest request, HttpServletResponse response) {
 		AnalysisSubmission analysisSubmission = analysisSubmissionService.read(analysisSubmissionId);
 
 		Analysis analysis = analysisSubmission.getAnalysis();
@@ -942,9 +950,9 @@ public class AnalysisController {
 		}
 
 		if (!Strings.isNullOrEmpty(filename)) {
-			FileUtilities.createSingleFileResponse(response, optFile.get(), filename);
+			FileUtilities.createSingleFileResponse(request, response, optFile.get(), filename);
 		} else {
-			FileUtilities.createSingleFileResponse(response, optFile.get());
+			FileUtilities.createSingleFileResponse(request, response, optFile.get());
 		}
 	}
 
@@ -0,0 +1,176 @@
+package ca.corefacility.bioinformatics.irida.ria.web.components.agGrid;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A request for a block of rows from an AgGrid server-side row model.
+ *
+ * @see <a href="https://www.ag-grid.com/javascript-grid-server-side-model/">Server-side Row Model</a>
+ */
+public class AgGridServerSideRequest {
+	/**
+	 * The index of the first row in the block.
+	 */
+	private int startRow;
+
+	/**
+	 * The index after the last row in the block.
+	 */
+	private int endRow;
+
+	/**
+	 * The columns to sort on, in order.
+	 */
+	private List<SortModel> sortModel = new ArrayList<>();
+
+	/**
+	 * The filters on each column, keyed by column field.
+	 */
+	private Map<String, FilterModel> filterModel = new HashMap<>();
+
+	/**
+	 * Text to search for in every column.  Not sent by AgGrid itself: the grid's quick filter only works on rows it
+	 * has loaded, so pages that use it send the search text along with the block request.
+	 */
+	private String quickFilter;
+
+	public AgGridServerSideRequest() {
+	}
+
+	public AgGridServerSideRequest(int startRow, int endRow) {
+		this.startRow = startRow;
+		this.endRow = endRow;
+	}
+
+	public int getStartRow() {
+		return startRow;
+	}
+
+	public void setStartRow(int startRow) {
+		this.startRow = startRow;
+	}
+
+	public int getEndRow() {
+		return endRow;
+	}
+
+	public void setEndRow(int endRow) {
+		this.endRow = endRow;
+	}
+
+	public List<SortModel> getSortModel() {
+		return sortModel;
+	}
+
+	public void setSortModel(List<SortModel> sortModel) {
+		this.sortModel = sortModel;
+	}
+
+	public Map<String, FilterModel> getFilterModel() {
+		return filterModel;
+	}
+
+	public void setFilterModel(Map<String, FilterModel> filterModel) {
+		this.filterModel = filterModel;
+	}
+
+	public String getQuickFilter() {
+		return quickFilter;
+	}
+
+	public void setQuickFilter(String quickFilter) {
+		this.quickFilter = quickFilter;
+	}
+
+	/**
+	 * The sort on a single column
+	 */
+	public static class SortModel {
+		private String colId;
+		private String sort;
+
+		public SortModel() {
+		}
+
+		public SortModel(String colId, String sort) {
+			this.colId = colId;
+			this.sort = sort;
+		}
+
+		public String getColId() {
+			return colId;
+		}
+
+		public void setColId(String colId) {
+			this.colId = colId;
+		}
+
+		/**
+		 * Get the direction of the sort
+		 *
+		 * @return either 'asc' or 'desc'
+		 */
+		public String getSort() {
+			return sort;
+		}
+
+		public void setSort(String sort) {
+			this.sort = sort;
+		}
+	}
+
+	/**
+	 * The filter on a single column
+	 */
+	public static class FilterModel {
+		private String filterType;
+		private String type;
+		private String filter;
+
+		public FilterModel() {
+		}
+
+		public FilterModel(String filterType, String type, String filter) {
+			this.filterType = filterType;
+			this.type = type;
+			this.filter = filter;
+		}
+
+		/**
+		 * Get the kind of filter (text, number, date, etc...)
+		 *
+		 * @return the kind of filter
+		 */
+		public String getFilterType() {
+			return filterType;
+		}
+
+		public void setFilterType(String filterType) {
+			this.filterType = filterType;
+		}
+
+		/**
+		 * Get how the filter is applied (contains, equals, etc...)
+		 *
+		 * @return how the filter is applied
+		 */
+		public String getType() {
+			return type;
+		}
+
+		public void setType(String type) {
+			this.type = type;
+		}
+
+		public String getFilter() {
+			return filter;
+		}
+
+		public void setFilter(String filter) {
+			this.filter = filter;
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package ca.corefacility.bioinformatics.irida.ria.web.components.datatables;
+
+import java.util.List;
+
+/**
+ * Supplies the rows of an exported datatable one page at a time so that large tables can be written to a file without
+ * holding every row in memory.
+ */
+@FunctionalInterface
+public interface DataTablesExportPages {
+	/**
+	 * Get a page of rows to export.  Pages are requested in order starting from 0 until a page has fewer rows than the
+	 * page size.
+	 *
+	 * @param page     the page number, starting at 0
+	 * @param pageSize the number of rows to get
+	 * @return the rows on the page
+	 */
+	List<? extends DataTablesExportable> getPage(int page, int pageSize);
+}
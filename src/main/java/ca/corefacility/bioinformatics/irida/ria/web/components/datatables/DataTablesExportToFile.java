@@ -2,22 +2,32 @@ package ca.corefacility.bioinformatics.irida.ria.web.components.datatables;
 
 import java.io.IOException;
 import java.io.OutputStreamWriter;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
 import liquibase.util.csv.CSVWriter;
 
 /**
- * Used to export datatables to either excel or csv formatted files.
+ * Used to export datatables to either excel or csv formatted files.  Rows are read a page at a time and written as
+ * they're read, so exporting a large table doesn't need the whole table in memory.
  */
 public class DataTablesExportToFile {
+	/**
+	 * The number of rows to read from a {@link DataTablesExportPages} at a time.
+	 */
+	public static final int EXPORT_PAGE_SIZE = 500;
+
+	/**
+	 * The number of excel rows to keep in memory before they're flushed to a temporary file.
+	 */
+	private static final int EXCEL_ROW_WINDOW = 100;
 
 	/**
 	 * Write data within datatable to an excel formatted file.
@@ -29,76 +39,105 @@ public class DataTablesExportToFile {
 	 * @throws IOException thrown if file cannot be written
 	 */
 	public static void writeFile(DataTablesExportTypes type, HttpServletResponse response, String filename, List<? extends DataTablesExportable> models, List<String> headers) throws IOException {
+		writeFile(type, response, filename, (page, pageSize) -> page == 0 ? models : Collections.emptyList(), headers);
+	}
+
+	/**
+	 * Write data within datatable to an excel or csv formatted file, reading the rows a page at a time.
+	 * @param type {@link DataTablesExportTypes} type of file to create (either excel or csv)
+	 * @param response {@link HttpServletResponse}
+	 * @param filename {@link String} name of the file to download.
+	 * @param pages {@link DataTablesExportPages} to read the rows of the table from
+	 * @param headers for the table
+	 * @throws IOException thrown if file cannot be written
+	 */
+	public static void writeFile(DataTablesExportTypes type, HttpServletResponse response, String filename, DataTablesExportPages pages, List<String> headers) throws IOException {
 		if(type.equals(DataTablesExportTypes.excel)) {
-			writeToExcel(response, filename, models, headers);
+			writeToExcel(response, filename, pages, headers);
 		} else if(type.equals(DataTablesExportTypes.csv)) {
-			writeToCSV(response, filename, models, headers);
+			writeToCSV(response, filename, pages, headers);
 		} else {
 			throw new  IllegalArgumentException("Trying to export and unknown table format: " + type);
 		}
 	}
 
 	/**
-	 * Write data within datatable to an excel formatted file.
+	 * Write data within datatable to an excel formatted file.  Only a window of rows is kept in memory, the rest are
+	 * flushed to a temporary file until the workbook is written.
 	 * @param response {@link HttpServletResponse}
 	 * @param filename {@link String} name of the file to download.
-	 * @param models Data to download in the table
+	 * @param pages Data to download in the table
 	 * @param headers for the table
 	 * @throws IOException thrown if file cannot be written
 	 */
 	private static void writeToExcel(HttpServletResponse response, String filename,
-			List<? extends DataTablesExportable> models, List<String> headers) throws IOException {
-		XSSFWorkbook workbook = new XSSFWorkbook();
-		XSSFSheet sheet = workbook.createSheet();
-
-		// Create the header row
-		Row row = sheet.createRow(0);
-		int cellNum = 0;
-		for (String header : headers) {
-			Cell cell = row.createCell(cellNum++);
-			cell.setCellValue(header);
-		}
+			DataTablesExportPages pages, List<String> headers) throws IOException {
+		SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_WINDOW);
+		workbook.setCompressTempFiles(true);
+		try {
+			Sheet sheet = workbook.createSheet();
 
-		// Add the data to the workbook
-		int rowNum = 1;
-		for (DataTablesExportable model : models) {
-			row = sheet.createRow(rowNum++);
-			int cellCount = 0;
-			for (String content : model.getExportableTableRow()) {
-				Cell cell = row.createCell(cellCount++);
-				cell.setCellValue(content);
+			// Create the header row
+			Row row = sheet.createRow(0);
+			int cellNum = 0;
+			for (String header : headers) {
+				Cell cell = row.createCell(cellNum++);
+				cell.setCellValue(header);
 			}
-		}
 
-		response.setContentType("application/vnd.ms-excel");
-		response.setHeader("Content-disposition",
-				"attachment; filename=" + filename + ".xlsx");
-		workbook.write(response.getOutputStream());
+			// Add the data to the workbook
+			int rowNum = 1;
+			List<? extends DataTablesExportable> models;
+			int page = 0;
+			do {
+				models = pages.getPage(page++, EXPORT_PAGE_SIZE);
+				for (DataTablesExportable model : models) {
+					row = sheet.createRow(rowNum++);
+					int cellCount = 0;
+					for (String content : model.getExportableTableRow()) {
+						Cell cell = row.createCell(cellCount++);
+						cell.setCellValue(content);
+					}
+				}
+			} while (models.size() >= EXPORT_PAGE_SIZE);
+
+			response.setContentType("application/vnd.ms-excel");
+			response.setHeader("Content-disposition",
+					"attachment; filename=" + filename + ".xlsx");
+			workbook.write(response.getOutputStream());
+		} finally {
+			// remove the temporary files holding the flushed rows
+			workbook.dispose();
+		}
 	}
 
 	/**
 	 * Write data within datatable to a csv formatted file.
 	 * @param response {@link HttpServletResponse}
 	 * @param filename {@link String} name of the file to download.
-	 * @param models Data to download in the table
+	 * @param pages Data to download in the table
 	 * @param headers for the table
 	 * @throws IOException thrown if file cannot be written
 	 */
-	private static void writeToCSV(HttpServletResponse response, String filename, List<? extends DataTablesExportable> models,
+	private static void writeToCSV(HttpServletResponse response, String filename, DataTablesExportPages pages,
 			List<String> headers) throws IOException {
-		List<String[]> results = new ArrayList<>();
-		results.add(headers.toArray(new String[0]));
-		for (DataTablesExportable model : models) {
-			results.add(model.getExportableTableRow()
-					.toArray(new String[0]));
-		}
-
 		response.setHeader("Content-Disposition", "attachment; filename=\"" + filename + ".csv\"");
 		response.setContentType("text/csv");
 		OutputStreamWriter outputStreamWriter = new OutputStreamWriter(response.getOutputStream());
 		CSVWriter csvWriter = new CSVWriter(outputStreamWriter, ',');
-		csvWriter.writeAll(results);
-		csvWriter.flush();
+		csvWriter.writeNext(headers.toArray(new String[0]));
+
+		List<? extends DataTablesExportable> models;
+		int page = 0;
+		do {
+			models = pages.getPage(page++, EXPORT_PAGE_SIZE);
+			for (DataTablesExportable model : models) {
+				csvWriter.writeNext(model.getExportableTableRow()
+						.toArray(new String[0]));
+			}
+			csvWriter.flush();
+		} while (models.size() >= EXPORT_PAGE_SIZE);
+
 		csvWriter.close();
 	}
 }
@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.slf4j.Logger;
@@ -17,6 +18,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
 import org.springframework.format.Formatter;
 import org.springframework.format.datetime.DateFormatter;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -33,6 +35,7 @@ import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.project.ReferenceFile;
 import ca.corefacility.bioinformatics.irida.service.ProjectService;
 import ca.corefacility.bioinformatics.irida.service.ReferenceFileService;
+import ca.corefacility.bioinformatics.irida.web.spring.view.FileResponseWriter;
 
 /**
  * Controller for all {@link ReferenceFile} related views
@@ -62,6 +65,8 @@ public class ReferenceFileController {
 	 *
 	 * @param fileId
 	 *            The id of the file to download
+	 * @param request
+	 *            {@link HttpServletRequest}
 	 * @param response
 	 *            {@link HttpServletResponse} to write to file to
 	 *
@@ -69,13 +74,12 @@ public class ReferenceFileController {
 	 *             if we fail to read the file from disk.
 	 */
 	@RequestMapping(value = "/download/{fileId}")
-	public void downloadReferenceFile(@PathVariable Long fileId,
+	public void downloadReferenceFile(@PathVariable Long fileId, HttpServletRequest request,
 			HttpServletResponse response) throws IOException {
 		ReferenceFile file = referenceFileService.read(fileId);
 		Path path = file.getFile();
 		response.setHeader("Content-Disposition", "attachment; filename=\"" + file.getLabel() + "\"");
-		Files.copy(path, response.getOutputStream());
-		response.flushBuffer();
+		FileResponseWriter.writeFile(path, MediaType.APPLICATION_OCTET_STREAM_VALUE, null, request, response);
 	}
 
 	/**
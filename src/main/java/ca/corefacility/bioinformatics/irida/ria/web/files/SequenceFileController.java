@@ -3,11 +3,11 @@ package ca.corefacility.bioinformatics.irida.ria.web.files;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Date;
 
 import javax.imageio.ImageIO;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.imgscalr.Scalr;
@@ -31,6 +31,8 @@ import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFast
 import ca.corefacility.bioinformatics.irida.service.AnalysisService;
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
 import ca.corefacility.bioinformatics.irida.service.SequencingRunService;
+import ca.corefacility.bioinformatics.irida.web.spring.view.FileResponseWriter;
+import ca.corefacility.bioinformatics.irida.web.spring.view.SequenceFileView;
 
 /**
  * Controller for all {@link SequenceFile} related views
@@ -116,22 +118,24 @@ public class SequenceFileController {
 	}
 
 	/**
-	 * Downloads a sequence file.
+	 * Downloads a sequence file. A HEAD request only gets the headers, without
+	 * reading the file, and byte range requests are supported.
 	 *
 	 * @param sequencingObjectId ID for the {@link SequencingObject}
 	 * @param sequenceFileId     Id for the {@link SequenceFile}
+	 * @param request            {@link HttpServletRequest}
 	 * @param response           {@link HttpServletResponse}
 	 * @throws IOException if we can't write the file to the response.
 	 */
 	@RequestMapping("/sequenceFiles/download/{sequencingObjectId}/file/{sequenceFileId}")
 	public void downloadSequenceFile(@PathVariable Long sequencingObjectId, @PathVariable Long sequenceFileId,
-			HttpServletResponse response) throws IOException {
+			HttpServletRequest request, HttpServletResponse response) throws IOException {
 		SequencingObject sequencingObject = sequencingObjectService.read(sequencingObjectId);
 		SequenceFile sequenceFile = sequencingObject.getFileWithId(sequenceFileId);
 		Path path = sequenceFile.getFile();
 		response.setHeader("Content-Disposition", "attachment; filename=\"" + sequenceFile.getLabel() + "\"");
-		Files.copy(path, response.getOutputStream());
-		response.flushBuffer();
+		FileResponseWriter.writeFile(path, MediaType.APPLICATION_OCTET_STREAM_VALUE,
+				SequenceFileView.getSequenceFileETag(sequenceFile), request, response);
 	}
 
 	/**
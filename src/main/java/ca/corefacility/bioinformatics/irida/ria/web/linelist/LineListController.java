@@ -8,6 +8,8 @@ import javax.validation.ConstraintViolationException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort.Direction;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
@@ -16,7 +18,6 @@ import org.springframework.web.bind.annotation.*;
 import ca.corefacility.bioinformatics.irida.exceptions.EntityExistsException;
 import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
 import ca.corefacility.bioinformatics.irida.exceptions.InvalidPropertyException;
-import ca.corefacility.bioinformatics.irida.model.joins.Join;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectMetadataTemplateJoin;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
@@ -25,23 +26,34 @@ import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sample.StaticMetadataTemplateField;
 import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.SampleMetadataQuery;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.SampleMetadataQuery.SampleProperty;
 import ca.corefacility.bioinformatics.irida.ria.web.components.agGrid.AgGridColumn;
+import ca.corefacility.bioinformatics.irida.ria.web.components.agGrid.AgGridServerSideRequest;
 import ca.corefacility.bioinformatics.irida.ria.web.linelist.dto.UIMetadataField;
 import ca.corefacility.bioinformatics.irida.ria.web.linelist.dto.UIMetadataFieldDefault;
 import ca.corefacility.bioinformatics.irida.ria.web.linelist.dto.UIMetadataTemplate;
 import ca.corefacility.bioinformatics.irida.ria.web.linelist.dto.UISampleMetadata;
+import ca.corefacility.bioinformatics.irida.ria.web.linelist.dto.UISampleMetadataPage;
 import ca.corefacility.bioinformatics.irida.security.permissions.project.ProjectOwnerPermission;
 import ca.corefacility.bioinformatics.irida.security.permissions.sample.UpdateSamplePermission;
 import ca.corefacility.bioinformatics.irida.service.ProjectService;
 import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateService;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 
+import com.google.common.base.Strings;
+
 /**
  * This controller is responsible for AJAX handling for the line list page, which displays sample metadata.
  */
 @Controller
 @RequestMapping("/linelist")
 public class LineListController {
+	/**
+	 * The largest block of rows that can be requested at once.
+	 */
+	private static final int MAX_PAGE_SIZE = 1000;
+
 	private ProjectService projectService;
 	private SampleService sampleService;
 	private MetadataTemplateService metadataTemplateService;
@@ -62,26 +74,104 @@ public class LineListController {
 	}
 
 	/**
-	 * Get a {@link List} of {@link Map} containing information from {@link MetadataEntry} for all
-	 * {@link  Sample}s in a {@link Project}
+	 * Get a block of the line list for a {@link Project}, filtered and sorted in the database.  Used by an AgGrid
+	 * infinite or server-side row model so that only the rows being displayed are loaded.  Text filters on the sample
+	 * name and metadata fields are supported, as is a quick filter searching the sample name and every metadata
+	 * field.
+	 * <p>
+	 * Edit permission is checked once for the project: rows are editable if the user manages the project and the
+	 * project owns the sample.
 	 *
 	 * @param projectId {@link Long} identifier for a {@link Project}
-	 * @return {@link List} of {@link UISampleMetadata}s of all {@link Sample} metadata in a {@link Project}
+	 * @param request   {@link AgGridServerSideRequest} for the block of rows
+	 * @return {@link UISampleMetadataPage} with the rows in the block and the total number of rows
 	 */
-	@RequestMapping(value = "/entries", method = RequestMethod.GET)
+	@RequestMapping(value = "/entries/page", method = RequestMethod.POST)
 	@ResponseBody
-	public List<UISampleMetadata> getProjectSamplesMetadataEntries(@RequestParam long projectId) {
-		Authentication authentication = SecurityContextHolder.getContext()
-				.getAuthentication();
+	public UISampleMetadataPage getProjectSamplesMetadataPage(@RequestParam long projectId,
+			@RequestBody AgGridServerSideRequest request) {
 		Project project = projectService.read(projectId);
+		boolean canEdit = canUserEdit(project);
+
+		int limit = Math.max(0, Math.min(request.getEndRow() - request.getStartRow(), MAX_PAGE_SIZE));
+		SampleMetadataQuery query = new SampleMetadataQuery(Math.max(0, request.getStartRow()), limit);
+
+		for (Map.Entry<String, AgGridServerSideRequest.FilterModel> filter : request.getFilterModel()
+				.entrySet()) {
+			AgGridServerSideRequest.FilterModel model = filter.getValue();
+			if (model == null || !"text".equals(model.getFilterType()) || Strings.isNullOrEmpty(model.getFilter())) {
+				continue;
+			}
+
+			Long fieldId = getMetadataFieldId(filter.getKey());
+			if (UISampleMetadata.SAMPLE_NAME.equals(filter.getKey())) {
+				query.filterProperty(SampleProperty.SAMPLE_NAME, model.getFilter());
+			} else if (fieldId != null) {
+				query.filterMetadata(fieldId, model.getFilter());
+			}
+		}
+
+		if (!Strings.isNullOrEmpty(request.getQuickFilter())) {
+			query.search(request.getQuickFilter());
+		}
 
-		List<Join<Project, Sample>> projectSamples = sampleService.getSamplesForProject(project);
-		return projectSamples.stream()
+		if (!request.getSortModel()
+				.isEmpty()) {
+			AgGridServerSideRequest.SortModel sort = request.getSortModel()
+					.get(0);
+			Direction direction = "desc".equals(sort.getSort()) ? Direction.DESC : Direction.ASC;
+			Long fieldId = getMetadataFieldId(sort.getColId());
+			if (UISampleMetadata.SAMPLE_NAME.equals(sort.getColId())) {
+				query.sortByProperty(SampleProperty.SAMPLE_NAME, direction);
+			} else if (UISampleMetadata.CREATED_DATE.equals(sort.getColId())) {
+				query.sortByProperty(SampleProperty.CREATED_DATE, direction);
+			} else if (UISampleMetadata.MODIFIED_DATE.equals(sort.getColId())) {
+				query.sortByProperty(SampleProperty.MODIFIED_DATE, direction);
+			} else if (fieldId != null) {
+				query.sortByMetadata(fieldId, direction);
+			}
+		}
+
+		Page<ProjectSampleJoin> page = sampleService.getSamplesForProjectShallow(project, query);
+		List<Long> sampleIds = page.getContent()
+				.stream()
+				.map(join -> join.getObject()
+						.getId())
+				.collect(Collectors.toList());
+		Map<Long, Map<Long, String>> metadata = sampleService.getMetadataValuesForProjectSamples(project, sampleIds);
+
+		List<UISampleMetadata> rows = page.getContent()
+				.stream()
 				.map(join -> {
-					ProjectSampleJoin psj = (ProjectSampleJoin)join;
-					return new UISampleMetadata(psj, updateSamplePermission.isAllowed(authentication, psj.getObject()));
+					Map<String, String> values = new HashMap<>();
+					metadata.getOrDefault(join.getObject()
+							.getId(), Collections.emptyMap())
+							.forEach((fieldId, value) -> values.put(MetadataTemplateField.DYNAMIC_FIELD_PREFIX + fieldId,
+									value));
+					return new UISampleMetadata(join, values, canEdit && join.isOwner());
 				})
 				.collect(Collectors.toList());
+
+		return new UISampleMetadataPage(rows, page.getTotalElements());
+	}
+
+	/**
+	 * Get the {@link MetadataTemplateField} identifier from the key of a line list column.
+	 *
+	 * @param fieldKey the key of the column
+	 * @return the identifier, or null if the column isn't a {@link MetadataTemplateField}
+	 */
+	private Long getMetadataFieldId(String fieldKey) {
+		if (fieldKey == null || fieldKey.startsWith(StaticMetadataTemplateField.STATIC_FIELD_PREFIX)
+				|| !fieldKey.startsWith(MetadataTemplateField.DYNAMIC_FIELD_PREFIX)) {
+			return null;
+		}
+
+		try {
+			return Long.valueOf(fieldKey.substring(MetadataTemplateField.DYNAMIC_FIELD_PREFIX.length()));
+		} catch (NumberFormatException e) {
+			return null;
+		}
 	}
 
 	/**
@@ -350,7 +440,6 @@ public class LineListController {
 		iconField.setLockPinned(true);
 		iconField.setLockPosition(true);
 		iconField.setCheckboxSelection(true);
-		iconField.setHeaderCheckboxSelection(true);
 		iconField.setFilter(false);
 		iconField.setResizable(false);
 		fields.add(0, iconField);
@@ -25,6 +25,17 @@ public class UISampleMetadata extends HashMap<String, String> {
 	public static final String OWNER = "owner";
 
 	public UISampleMetadata(ProjectSampleJoin join, boolean editable) {
+		this(join, getAllMetadataForSample(join.getObject()), editable);
+	}
+
+	/**
+	 * Create the line list row for a {@link Sample} with metadata that was read separately from the {@link Sample}.
+	 *
+	 * @param join     the {@link ProjectSampleJoin} for the row
+	 * @param metadata {@link Map} of field key to value for the {@link Sample}
+	 * @param editable whether the current user can edit the {@link Sample}
+	 */
+	public UISampleMetadata(ProjectSampleJoin join, Map<String, String> metadata, boolean editable) {
 		Project project = join.getSubject();
 		Sample sample = join.getObject();
 
@@ -36,7 +47,7 @@ public class UISampleMetadata extends HashMap<String, String> {
 				.toString());
 		this.put(MODIFIED_DATE, sample.getModifiedDate()
 				.toString());
-		this.putAll(getAllMetadataForSample(sample));
+		this.putAll(metadata);
 		this.put(EDITABLE, String.valueOf(editable));
 		this.put(OWNER, String.valueOf(join.isOwner()));
 	}
@@ -47,7 +58,7 @@ public class UISampleMetadata extends HashMap<String, String> {
 	 * @param sample {@link Sample}
 	 * @return {@link Map} of {@link String} field and {@link String} value
 	 */
-	private Map<String, String> getAllMetadataForSample(Sample sample) {
+	private static Map<String, String> getAllMetadataForSample(Sample sample) {
 		Map<String, String> entries = new HashMap<>();
 		Map<MetadataTemplateField, MetadataEntry> sampleMetadata = sample.getMetadata();
 		for (MetadataTemplateField field : sampleMetadata.keySet()) {
@@ -0,0 +1,29 @@
+package ca.corefacility.bioinformatics.irida.ria.web.linelist.dto;
+
+import java.util.List;
+
+/**
+ * A block of line list rows for an AgGrid server-side row model.
+ */
+public class UISampleMetadataPage {
+	private List<UISampleMetadata> rows;
+	private long lastRow;
+
+	public UISampleMetadataPage(List<UISampleMetadata> rows, long lastRow) {
+		this.rows = rows;
+		this.lastRow = lastRow;
+	}
+
+	public List<UISampleMetadata> getRows() {
+		return rows;
+	}
+
+	/**
+	 * Get the total number of rows matching the filters, so the grid knows when it has reached the end.
+	 *
+	 * @return the total number of rows
+	 */
+	public long getLastRow() {
+		return lastRow;
+	}
+}
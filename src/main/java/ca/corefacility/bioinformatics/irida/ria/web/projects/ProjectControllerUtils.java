@@ -7,6 +7,7 @@ import ca.corefacility.bioinformatics.irida.model.user.Role;
 import ca.corefacility.bioinformatics.irida.model.user.User;
 import ca.corefacility.bioinformatics.irida.security.permissions.project.ManageLocalProjectSettingsPermission;
 import ca.corefacility.bioinformatics.irida.security.permissions.project.ProjectOwnerPermission;
+import ca.corefacility.bioinformatics.irida.service.remote.ProjectSynchronizationService;
 import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateService;
 import ca.corefacility.bioinformatics.irida.service.user.UserService;
 import com.google.common.collect.ImmutableMap;
@@ -35,16 +36,19 @@ public class ProjectControllerUtils {
 	private final ProjectOwnerPermission projectOwnerPermission;
 	private final ManageLocalProjectSettingsPermission projectMembersPermission;
 	private final MetadataTemplateService metadataTemplateService;
+	private final ProjectSynchronizationService projectSynchronizationService;
 
 	@Autowired
 	public ProjectControllerUtils(final UserService userService,
 			MetadataTemplateService metadataTemplateService,
 			final ProjectOwnerPermission projectOwnerPermission,
-			final ManageLocalProjectSettingsPermission projectMembersPermission) {
+			final ManageLocalProjectSettingsPermission projectMembersPermission,
+			final ProjectSynchronizationService projectSynchronizationService) {
 		this.userService = userService;
 		this.metadataTemplateService = metadataTemplateService;
 		this.projectOwnerPermission = projectOwnerPermission;
 		this.projectMembersPermission = projectMembersPermission;
+		this.projectSynchronizationService = projectSynchronizationService;
 	}
 
 	/**
@@ -52,6 +56,7 @@ public class ProjectControllerUtils {
 	 * <ul>
 	 * <li>Sidebar Information</li>
 	 * <li>If the current user is an admin</li>
+	 * <li>Synchronization progress for remote projects</li>
 	 * </ul>
 	 *
 	 * @param model     {@link Model} for the current view.
@@ -76,6 +81,10 @@ public class ProjectControllerUtils {
 
 		boolean manageMembers = projectMembersPermission.isAllowed(authentication, project);
 		model.addAttribute("manageMembers", manageMembers);
+
+		if (project.isRemote()) {
+			model.addAttribute("syncProgress", projectSynchronizationService.getSyncProgress(project.getId()));
+		}
 	}
 
 	/**
@@ -1,14 +1,10 @@
 package ca.corefacility.bioinformatics.irida.ria.web.projects;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.security.Principal;
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -36,15 +32,18 @@ import com.google.common.collect.Lists;
 
 import ca.corefacility.bioinformatics.irida.exceptions.EntityExistsException;
 import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
-import ca.corefacility.bioinformatics.irida.exceptions.SequenceFileAnalysisException;
 import ca.corefacility.bioinformatics.irida.model.joins.Join;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.RelatedProjectJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.sample.QCEntry;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.SampleQCSummary;
 import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.ria.utilities.archive.ArchiveEntry;
+import ca.corefacility.bioinformatics.irida.ria.utilities.archive.ArchiveFormat;
+import ca.corefacility.bioinformatics.irida.ria.utilities.archive.BulkArchiveWriter;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesExportToFile;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesExportTypes;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesParams;
@@ -84,12 +83,14 @@ public class ProjectSamplesController {
 	private final SampleService sampleService;
 	private final ProjectControllerUtils projectControllerUtils;
 	private final SequencingObjectService sequencingObjectService;
+	private final BulkArchiveWriter archiveWriter;
 	private MessageSource messageSource;
 
 	@Autowired
 	public ProjectSamplesController(ProjectService projectService, SampleService sampleService, SequencingObjectService sequencingObjectService, ProjectControllerUtils projectControllerUtils,
-			MessageSource messageSource) {
+			BulkArchiveWriter archiveWriter, MessageSource messageSource) {
 		this.projectService = projectService;
+		this.archiveWriter = archiveWriter;
 		this.sampleService = sampleService;
 		this.sequencingObjectService = sequencingObjectService;
 		this.projectControllerUtils = projectControllerUtils;
@@ -451,10 +452,13 @@ public class ProjectSamplesController {
 				filter.getName(), params.getSearchValue(), filter.getOrganism(), filter.getStartDate(),
 				filter.getEndDate(), params.getCurrentPage(), params.getLength(), params.getSort());
 
+		// Load the coverage and QC for the whole page at once
+		Map<Long, SampleQCSummary> qcSummaries = sampleService.getQCSummariesForProjectSamples(page);
+
 		// Create DataTables representation of the page.
 		List<DataTablesResponseModel> models = new ArrayList<>();
 		for (ProjectSampleJoin psj : page.getContent()) {
-			models.add(buildProjectSampleDataTablesModel(psj, locale));
+			models.add(buildProjectSampleDataTablesModel(psj, qcSummaries.get(psj.getObject().getId()), locale));
 		}
 		return new DataTablesResponse(params, page, models);
 	}
@@ -462,26 +466,22 @@ public class ProjectSamplesController {
 	/**
 	 * Build a {@link ProjectSampleModel} object for a given {@link Sample}
 	 *
-	 * @param sso    a {@link ProjectSampleJoin} to build the {@link ProjectSampleModel} from
-	 * @param locale of the current user.
+	 * @param sso       a {@link ProjectSampleJoin} to build the {@link ProjectSampleModel} from
+	 * @param qcSummary the {@link SampleQCSummary} for the {@link Sample} in the join
+	 * @param locale    of the current user.
 	 * @return a newly constructed {@link ProjectSampleModel}
 	 */
-	private DTProjectSamples buildProjectSampleDataTablesModel(ProjectSampleJoin sso, Locale locale) {
+	private DTProjectSamples buildProjectSampleDataTablesModel(ProjectSampleJoin sso, SampleQCSummary qcSummary,
+			Locale locale) {
 		Project project = sso.getSubject();
 		Long genomeSize = project.getGenomeSize();
-		Sample sample = sso.getObject();
 		Double coverage = null;
 
 		if (genomeSize != null) {
-			try {
-				coverage = sampleService.estimateCoverageForSample(sample, genomeSize);
-			} catch (SequenceFileAnalysisException e) {
-				// Don't need to do anything here.
-			}
+			coverage = qcSummary.estimateCoverage(genomeSize);
 		}
-		List<QCEntry> qcEntriesForSample = sampleService.getQCEntriesForSample(sample);
 		List<String> list = new ArrayList<>();
-		for (QCEntry q : qcEntriesForSample) {
+		for (QCEntry q : qcSummary.getQcEntries()) {
 			q.addProjectSettings(project);
 			String status = q.getStatus()
 					.toString();
@@ -788,56 +788,49 @@ public class ProjectSamplesController {
 	 *
 	 * @param projectId Id for a {@link Project}
 	 * @param ids       List of ids ofr {@link Sample} within the project
+	 * @param format    the {@link ArchiveFormat} to download, either zip or tar
 	 * @param response  {@link HttpServletResponse}
 	 * @throws IOException if we fail to read a file from the filesystem.
 	 */
 	@RequestMapping(value = "/projects/{projectId}/download/files")
 	public void downloadSamples(@PathVariable Long projectId, @RequestParam(value = "ids[]") List<Long> ids,
-			HttpServletResponse response)
+			@RequestParam(value = "format", defaultValue = "zip") String format, HttpServletResponse response)
 			throws IOException {
 		Project project = projectService.read(projectId);
 		List<Sample> samples = (List<Sample>) sampleService.readMultiple(ids);
-
-		// Add the appropriate headers
-		response.setContentType("application/zip");
-		response.setHeader("Content-Disposition", "attachment; filename=\"" + project.getName() + ".zip\"");
-		response.setHeader("Transfer-Encoding", "chunked");
+		ArchiveFormat archiveFormat = ArchiveFormat.fromString(format);
 
 		// storing used file names to ensure we don't have a conflict
 		Set<String> usedFileNames = new HashSet<>();
+		List<ArchiveEntry> entries = new ArrayList<>();
 
-		try (ZipOutputStream outputStream = new ZipOutputStream(response.getOutputStream())) {
-			for (Sample sample : samples) {
-				Collection<SampleSequencingObjectJoin> sequencingObjectsForSample = sequencingObjectService
-						.getSequencingObjectsForSample(sample);
-
-				for (SampleSequencingObjectJoin join : sequencingObjectsForSample) {
-					for (SequenceFile file : join.getObject().getFiles()) {
-						Path path = file.getFile();
+		for (Sample sample : samples) {
+			Collection<SampleSequencingObjectJoin> sequencingObjectsForSample = sequencingObjectService
+					.getSequencingObjectsForSample(sample);
 
-						String fileName = project.getName() + "/" + sample.getSampleName() + "/" + path.getFileName()
-								.toString();
-						if (usedFileNames.contains(fileName)) {
-							fileName = handleDuplicate(fileName, usedFileNames);
-						}
-						final ZipEntry entry = new ZipEntry(fileName);
-						// set the file creation time on the zip entry to be
-						// whatever the creation time is on the filesystem
-						final BasicFileAttributes attr = Files.readAttributes(path, BasicFileAttributes.class);
-						entry.setCreationTime(attr.creationTime());
-						entry.setLastModifiedTime(attr.creationTime());
+			for (SampleSequencingObjectJoin join : sequencingObjectsForSample) {
+				for (SequenceFile file : join.getObject().getFiles()) {
+					Path path = file.getFile();
 
-						outputStream.putNextEntry(entry);
-
-						usedFileNames.add(fileName);
-
-						Files.copy(path, outputStream);
-
-						outputStream.closeEntry();
+					String fileName = project.getName() + "/" + sample.getSampleName() + "/" + path.getFileName()
+							.toString();
+					if (usedFileNames.contains(fileName)) {
+						fileName = handleDuplicate(fileName, usedFileNames);
 					}
+					usedFileNames.add(fileName);
+					entries.add(ArchiveEntry.forFile(fileName, path));
 				}
 			}
-			outputStream.finish();
+		}
+
+		// Add the appropriate headers
+		response.setContentType(archiveFormat.getContentType());
+		response.setHeader("Content-Disposition",
+				"attachment; filename=\"" + project.getName() + archiveFormat.getExtension() + "\"");
+		response.setHeader("Transfer-Encoding", "chunked");
+
+		try {
+			archiveWriter.write(archiveFormat, entries, response.getOutputStream());
 		} catch (IOException e) {
 			// this generally means that the user has cancelled the download
 			// from their web browser; we can safely ignore this
@@ -907,19 +900,50 @@ public class ProjectSamplesController {
 		}
 		projects.add(project);
 
-		final Page<ProjectSampleJoin> page = sampleService
-				.getFilteredSamplesForProjects(projects, sampleNames, filter.getName(), params.getSearchValue(), filter.getOrganism(), filter.getStartDate(),
-						filter.getEndDate(), 0, Integer.MAX_VALUE, params.getSort());
+		// Break ties on the join id so rows don't move between pages while they're read
+		final List<Project> exportProjects = projects;
+		final Sort sort = params.getSort().and(new Sort("id"));
+
+		// Read the first page up front to get the table headers from it
+		List<DTProjectSamples> firstPage = getProjectSamplesExportPage(exportProjects, sampleNames, filter,
+				params.getSearchValue(), sort, 0, DataTablesExportToFile.EXPORT_PAGE_SIZE, locale);
+		List<String> headers = firstPage.isEmpty() ?
+				new ArrayList<>() :
+				firstPage.get(0).getExportableTableHeaders(messageSource, locale);
+		DataTablesExportToFile.writeFile(type, response, project.getLabel()
+				.replace(" ", "_"), (page, pageSize) -> page == 0 ?
+				firstPage :
+				getProjectSamplesExportPage(exportProjects, sampleNames, filter, params.getSearchValue(), sort, page,
+						pageSize, locale), headers);
+	}
+
+	/**
+	 * Get one page of the project samples table for an export.
+	 *
+	 * @param projects    the {@link Project}s to get samples from
+	 * @param sampleNames the sample names to filter by
+	 * @param filter      the {@link UISampleFilter} for the table
+	 * @param searchValue the table search value
+	 * @param sort        the {@link Sort} for the table
+	 * @param page        the page to get
+	 * @param pageSize    the number of samples on the page
+	 * @param locale      the {@link Locale} of the current user
+	 * @return the {@link DTProjectSamples} on the page
+	 */
+	private List<DTProjectSamples> getProjectSamplesExportPage(List<Project> projects, List<String> sampleNames,
+			UISampleFilter filter, String searchValue, Sort sort, int page, int pageSize, Locale locale) {
+		final Page<ProjectSampleJoin> samples = sampleService
+				.getFilteredSamplesForProjects(projects, sampleNames, filter.getName(), searchValue, filter.getOrganism(),
+						filter.getStartDate(), filter.getEndDate(), page, pageSize, sort);
+
+		// Load the coverage and QC for all the samples on the page at once
+		Map<Long, SampleQCSummary> qcSummaries = sampleService.getQCSummariesForProjectSamples(samples);
 
-		// Create DataTables representation of the page.
 		List<DTProjectSamples> models = new ArrayList<>();
-		for (ProjectSampleJoin psj : page.getContent()) {
-			models.add(buildProjectSampleDataTablesModel(psj, locale));
+		for (ProjectSampleJoin psj : samples.getContent()) {
+			models.add(buildProjectSampleDataTablesModel(psj, qcSummaries.get(psj.getObject().getId()), locale));
 		}
-		List<String> headers = models.get(0)
-				.getExportableTableHeaders(messageSource, locale);
-		DataTablesExportToFile.writeFile(type, response, project.getLabel()
-				.replace(" ", "_"), models, headers);
+		return models;
 	}
 
 	/**
@@ -2,7 +2,6 @@ package ca.corefacility.bioinformatics.irida.ria.web.projects;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.PrintWriter;
 import java.security.Principal;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
@@ -15,12 +14,6 @@ import javax.servlet.http.HttpSession;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,6 +21,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Scope;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
 import org.springframework.format.Formatter;
 import org.springframework.format.datetime.DateFormatter;
 import org.springframework.http.HttpStatus;
@@ -57,7 +51,6 @@ import ca.corefacility.bioinformatics.irida.exceptions.ProjectWithoutOwnerExcept
 import ca.corefacility.bioinformatics.irida.model.RemoteAPI;
 import ca.corefacility.bioinformatics.irida.model.enums.AnalysisState;
 import ca.corefacility.bioinformatics.irida.model.enums.ProjectRole;
-import ca.corefacility.bioinformatics.irida.model.joins.Join;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.project.ProjectSyncFrequency;
 import ca.corefacility.bioinformatics.irida.model.remote.RemoteStatus;
@@ -67,6 +60,10 @@ import ca.corefacility.bioinformatics.irida.model.user.Role;
 import ca.corefacility.bioinformatics.irida.model.user.User;
 import ca.corefacility.bioinformatics.irida.ria.utilities.converters.FileSizeConverter;
 import ca.corefacility.bioinformatics.irida.ria.web.analysis.CartController;
+import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesExportPages;
+import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesExportToFile;
+import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesExportTypes;
+import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesExportable;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesParams;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesResponse;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.config.DataTablesRequest;
@@ -621,7 +618,8 @@ public class ProjectsController {
 	}
 
 	/**
-	 * Export Projects table as either an excel file or CSV
+	 * Export Projects table as either an excel file or CSV.  The projects are read a page at a time, so exporting
+	 * every project doesn't need them all in memory.
 	 *
 	 * @param type
 	 * 		of file to export (csv or excel)
@@ -629,8 +627,6 @@ public class ProjectsController {
 	 * 		if the currently logged in user is an administrator
 	 * @param response
 	 * 		{@link HttpServletResponse}
-	 * @param principal
-	 * 		{@link Principal}
 	 * @param locale
 	 * 		{@link Locale}
 	 *
@@ -640,29 +636,34 @@ public class ProjectsController {
 	@RequestMapping("/projects/ajax/export")
 	public void exportProjectsToFile(@RequestParam(value = "dtf") String type,
 			@RequestParam(required = false, defaultValue = "false", value = "admin") Boolean isAdmin,
-			HttpServletResponse response, Principal principal, Locale locale) throws IOException {
+			HttpServletResponse response, Locale locale) throws IOException {
 		// Let's make sure the export type is set properly
-		if (!(type.equalsIgnoreCase("xlsx") || type.equalsIgnoreCase("csv"))) {
+		DataTablesExportTypes exportType;
+		if (type.equalsIgnoreCase("xlsx")) {
+			exportType = DataTablesExportTypes.excel;
+		} else if (type.equalsIgnoreCase("csv")) {
+			exportType = DataTablesExportTypes.csv;
+		} else {
 			throw new IllegalArgumentException(
 					"No file type sent for downloading all projects.  Expecting parameter 'dtf=' xlsx or csv");
 		}
 
-		List<Project> projects;
-		// If viewing the admin projects page give the user all the projects.
-		if (isAdmin) {
-			projects = (List<Project>) projectService.findAll();
-		}
-		// If on the users projects page, give the user their projects.
-		else {
-			User user = userService.getUserByUsername(principal.getName());
-			projects = projectService.getProjectsForUser(user).stream().map(Join::getSubject)
-					.collect(Collectors.toList());
-		}
-
-		List<DTProject> dtProjects = projects.stream().map(this::createDataTablesProject).collect(Collectors.toList());
 		List<String> headers = ImmutableList.of("id", "name", "organism", "samples", "created", "modified").stream()
 				.map(h -> messageSource.getMessage("projects.table." + h, new Object[] {}, locale))
 				.collect(Collectors.toList());
+		DateFormat dateFormat = new SimpleDateFormat(messageSource.getMessage("locale.date.long", null, locale));
+
+		// Sort on the id so projects don't move between pages while they're read
+		final Sort sort = new Sort("id");
+		DataTablesExportPages pages = (page, pageSize) -> {
+			// If viewing the admin projects page give the user all the projects, otherwise give the user their projects.
+			Page<Project> projects = isAdmin ?
+					projectService.findAllProjects("", page, pageSize, sort) :
+					projectService.findProjectsForUser("", page, pageSize, sort);
+			return projects.getContent().stream()
+					.map(p -> new ExportableProject(createDataTablesProject(p), headers, dateFormat))
+					.collect(Collectors.toList());
+		};
 
 		// Create the filename
 		Date date = new Date();
@@ -670,96 +671,7 @@ public class ProjectsController {
 				messageSource.getMessage("date.iso-8601", null, locale));
 		String filename = "IRIDA_projects_" + fileDateFormat.format(date);
 
-		response.setHeader("Content-Disposition", "attachment; filename=\"" + filename + "." + type + "\"");
-		if (type.equals("xlsx")) {
-			writeProjectsToExcelFile(headers, dtProjects, locale, response);
-		} else {
-			writeProjectsToCsvFile(headers, dtProjects, locale, response);
-		}
-	}
-
-	/**
-	 * Write the projects as a CSV file
-	 *
-	 * @param headers
-	 * 		{@link List} for {@link String} headers for the information.
-	 * @param projects
-	 * 		{@link List} of {@link DTProject} to export
-	 * @param locale
-	 * 		{@link Locale}
-	 * @param response
-	 * 		{@link HttpServletResponse}
-	 *
-	 * @throws IOException
-	 * 		Thrown if cannot get the {@link PrintWriter} for the response
-	 */
-	private void writeProjectsToCsvFile(List<String> headers, List<DTProject> projects, Locale locale,
-			HttpServletResponse response) throws IOException {
-		PrintWriter writer = response.getWriter();
-		try(CSVPrinter printer = new CSVPrinter(writer, CSVFormat.DEFAULT.withRecordSeparator(System.lineSeparator()))) {
-			printer.printRecord(headers);
-
-			DateFormat dateFormat = new SimpleDateFormat(messageSource.getMessage("locale.date.long", null, locale));
-			for (DTProject p : projects) {
-				List<String> record = new ArrayList<>();
-				record.add(String.valueOf(p.getId()));
-				record.add(p.getName());
-				record.add(p.getOrganism());
-				record.add(String.valueOf(p.getSamples()));
-				record.add(dateFormat.format(p.getCreatedDate()));
-				record.add(dateFormat.format(p.getModifiedDate()));
-				printer.printRecord(record);
-			}
-			printer.flush();
-		}
-	}
-
-	/**
-	 * Write the projects as a Excel file
-	 *
-	 * @param headers
-	 * 		{@link List} for {@link String} headers for the information.
-	 * @param projects
-	 * 		{@link List} of {@link DTProject} to export
-	 * @param locale
-	 * 		{@link Locale}
-	 * @param response
-	 * 		{@link HttpServletResponse}
-	 *
-	 * @throws IOException
-	 * 		Thrown if cannot get the {@link OutputStream} for the response
-	 */
-	private void writeProjectsToExcelFile(List<String> headers, List<DTProject> projects, Locale locale,
-			HttpServletResponse response) throws IOException {
-		XSSFWorkbook workbook = new XSSFWorkbook();
-		XSSFSheet sheet = workbook.createSheet();
-		int rowCount = 0;
-
-		// Create the headers
-		Row headerRow = sheet.createRow(rowCount++);
-		for (int cellCount = 0; cellCount < headers.size(); cellCount++) {
-			Cell cell = headerRow.createCell(cellCount);
-			cell.setCellValue(headers.get(cellCount));
-		}
-
-		// Create the rest of the sheet
-		DateFormat dateFormat = new SimpleDateFormat(messageSource.getMessage("locale.date.long", null, locale));
-		for (DTProject p : projects) {
-			Row row = sheet.createRow(rowCount++);
-			int cellCount = 0;
-			row.createCell(cellCount++).setCellValue(String.valueOf(p.getId()));
-			row.createCell(cellCount++).setCellValue(p.getName());
-			row.createCell(cellCount++).setCellValue(p.getOrganism());
-			row.createCell(cellCount++).setCellValue(String.valueOf(p.getSamples()));
-			row.createCell(cellCount++).setCellValue(dateFormat.format(p.getCreatedDate()));
-			row.createCell(cellCount).setCellValue(dateFormat.format(p.getModifiedDate()));
-		}
-
-		// Write the file
-		try(OutputStream stream = response.getOutputStream()) {
-			workbook.write(stream);
-			stream.flush();
-		}
+		DataTablesExportToFile.writeFile(exportType, response, filename, pages, headers);
 	}
 
 	/**
@@ -851,6 +763,38 @@ public class ProjectsController {
 		return new DTProject(project, sampleService.getNumberOfSamplesForProject(project));
 	}
 
+	/**
+	 * A row of the exported projects table
+	 */
+	private static class ExportableProject implements DataTablesExportable {
+		private final DTProject project;
+		private final List<String> headers;
+		private final DateFormat dateFormat;
+
+		ExportableProject(DTProject project, List<String> headers, DateFormat dateFormat) {
+			this.project = project;
+			this.headers = headers;
+			this.dateFormat = dateFormat;
+		}
+
+		@Override
+		public List<String> getExportableTableRow() {
+			List<String> record = new ArrayList<>();
+			record.add(String.valueOf(project.getId()));
+			record.add(project.getName());
+			record.add(project.getOrganism());
+			record.add(String.valueOf(project.getSamples()));
+			record.add(dateFormat.format(project.getCreatedDate()));
+			record.add(dateFormat.format(project.getModifiedDate()));
+			return record;
+		}
+
+		@Override
+		public List<String> getExportableTableHeaders(MessageSource messageSource, Locale locale) {
+			return headers;
+		}
+	}
+
 	/**
 	 * Response class for a {@link Project} and its {@link RemoteStatus}
 	 */
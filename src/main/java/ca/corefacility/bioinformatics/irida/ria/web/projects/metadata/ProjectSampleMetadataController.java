@@ -5,7 +5,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
-import java.util.Map.Entry;
+import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpSession;
 
@@ -24,15 +24,14 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
 import ca.corefacility.bioinformatics.irida.exceptions.MetadataImportFileTypeNotSupportedError;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
-import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.SampleMetadataImport;
 import ca.corefacility.bioinformatics.irida.ria.utilities.SampleMetadataStorage;
 import ca.corefacility.bioinformatics.irida.service.ProjectService;
-import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateService;
+import ca.corefacility.bioinformatics.irida.service.sample.SampleMetadataImportService;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 
 import com.google.common.base.Strings;
@@ -50,16 +49,16 @@ public class ProjectSampleMetadataController {
 	private final MessageSource messageSource;
 	private final ProjectService projectService;
 	private final SampleService sampleService;
-	private final MetadataTemplateService metadataTemplateService;
+	private final SampleMetadataImportService sampleMetadataImportService;
 
 	@Autowired
 	public ProjectSampleMetadataController(MessageSource messageSource,
 			ProjectService projectService, SampleService sampleService,
-										   MetadataTemplateService metadataTemplateService) {
+										   SampleMetadataImportService sampleMetadataImportService) {
 		this.messageSource = messageSource;
 		this.projectService = projectService;
 		this.sampleService = sampleService;
-		this.metadataTemplateService = metadataTemplateService;
+		this.sampleMetadataImportService = sampleMetadataImportService;
 	}
 
 	/**
@@ -213,13 +212,17 @@ public class ProjectSampleMetadataController {
 			List<Map<String, String>> found = new ArrayList<>();
 			List<Map<String, String>> missing = new ArrayList<>();
 
-			// Get the metadata out of the table.
+			// Look up every sample name at once rather than a row at a time.
+			Set<String> names = rows.stream()
+					.map(row -> row.get(sampleNameColumn))
+					.filter(Objects::nonNull)
+					.collect(Collectors.toSet());
+			Map<String, Long> sampleIds = sampleService.getSampleIdsBySampleName(project, names);
 			for (Map<String, String> row : rows) {
-				try {
-					// If this throws an error than the sample does not exist.
-					sampleService.getSampleBySampleName(project, row.get(sampleNameColumn));
+				String name = row.get(sampleNameColumn);
+				if (name != null && sampleIds.containsKey(name)) {
 					found.add(row);
-				} catch (EntityNotFoundException e) {
+				} else {
 					missing.add(row);
 				}
 			}
@@ -232,7 +235,8 @@ public class ProjectSampleMetadataController {
 	}
 
 	/**
-	 * Save uploaded metadata to the
+	 * Start saving the uploaded metadata to the {@link Sample}s found in the {@link Project}.  The metadata is saved
+	 * in the background; follow its progress with {@link #getProjectSampleMetadataImportStatus(Locale, String)}.
 	 *
 	 * @param locale
 	 * 		{@link Locale} of the current user.
@@ -241,75 +245,62 @@ public class ProjectSampleMetadataController {
 	 * @param projectId
 	 * 		{@link Long} identifier for the current project
 	 *
-	 * @return {@link Map} of potential errors.
+	 * @return {@link Map} containing the id of the import, or potential errors.
 	 */
 	@RequestMapping(value = "/upload/save", method = RequestMethod.POST)
 	@ResponseBody
 	public Map<String, Object> saveProjectSampleMetadata(Locale locale, HttpSession session,
 			@PathVariable long projectId) {
-		Map<String, Object> errors = new HashMap<>();
-		Project project = projectService.read(projectId);
-
 		SampleMetadataStorage stored = (SampleMetadataStorage) session.getAttribute("pm-" + projectId);
 		if (stored == null) {
-			errors.put("stored-error", true);
+			return ImmutableMap.of("stored-error", true);
 		}
 
-		List<Sample> samplesToUpdate = new ArrayList<>();
-
 		List<Map<String, String>> found = stored.getFound();
-		if (found != null) {
-			// Lets try to get a sample
-			String sampleNameColumn = stored.getSampleNameColumn();
-			List<String> errorList = new ArrayList<>();
-			try {
-				for (Map<String, String> row : found) {
-
-					String name = row.get(sampleNameColumn);
-					Sample sample = sampleService.getSampleBySampleName(project, name);
-					row.remove(sampleNameColumn);
-
-					Map<MetadataTemplateField, MetadataEntry> newData = new HashMap<>();
-
-					// Need to overwrite duplicate keys
-					for (Entry<String, String> entry : row.entrySet()) {
-						MetadataTemplateField key = metadataTemplateService.readMetadataFieldByLabel(entry.getKey());
-
-						if (key == null) {
-							key = metadataTemplateService
-									.saveMetadataField(new MetadataTemplateField(entry.getKey(), "text"));
-						}
-
-						newData.put(key, new MetadataEntry(entry.getValue(), "text"));
-					}
-
-					sample.mergeMetadata(newData);
-
-					// Save metadata back to the sample
-
-					samplesToUpdate.add(sample);
+		if (found == null) {
+			return ImmutableMap.of("found-error",
+					messageSource.getMessage("metadata.results.save.found-error", new Object[] {}, locale));
+		}
 
-				}
+		Project project = projectService.read(projectId);
+		SampleMetadataImport metadataImport = sampleMetadataImportService.startImport(project,
+				stored.getSampleNameColumn(), found);
+		return ImmutableMap.of("importId", metadataImport.getId());
+	}
 
-				sampleService.updateMultiple(samplesToUpdate);
-			} catch (EntityNotFoundException e) {
-				// This really should not happen, but hey, you never know!
+	/**
+	 * Get the progress of saving uploaded metadata.
+	 *
+	 * @param locale
+	 * 		{@link Locale} of the current user.
+	 * @param id
+	 * 		the id of the import returned when saving started.
+	 *
+	 * @return {@link Map} containing the progress of the import, the success message once it's complete, or potential
+	 * errors.
+	 */
+	@RequestMapping(value = "/upload/status", method = RequestMethod.GET)
+	@ResponseBody
+	public Map<String, Object> getProjectSampleMetadataImportStatus(Locale locale, @RequestParam String id) {
+		SampleMetadataImport metadataImport = sampleMetadataImportService.getImport(id);
+
+		switch (metadataImport.getState()) {
+		case COMPLETE:
+			return ImmutableMap.of("success", messageSource.getMessage("metadata.results.save.success",
+					new Object[] { metadataImport.getSaved() }, locale));
+		case ERROR:
+			List<String> errorList = new ArrayList<>();
+			errorList.add(messageSource.getMessage("metadata.results.save.error",
+					new Object[] { metadataImport.getErrorMessage() }, locale));
+			for (String name : metadataImport.getMissingSamples()) {
 				errorList.add(messageSource.getMessage("metadata.results.save.sample-not-found",
-						new Object[] { e.getMessage() }, locale));
+						new Object[] { name }, locale));
 			}
-
-			if (errorList.size() > 0) {
-				errors.put("save-errors", errorList);
-			}
-		} else {
-			errors.put("found-error",
-					messageSource.getMessage("metadata.results.save.found-error", new Object[] {}, locale));
-		}
-		if (errors.size() == 0) {
-			return ImmutableMap.of("success",
-					messageSource.getMessage("metadata.results.save.success", new Object[] { found.size() }, locale));
+			return ImmutableMap.of("save-errors", errorList);
+		default:
+			return ImmutableMap.of("progress", messageSource.getMessage("metadata.results.save.progress",
+					new Object[] { metadataImport.getSaved(), metadataImport.getTotal() }, locale));
 		}
-		return errors;
 	}
 
 	/**
@@ -15,6 +15,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
@@ -47,6 +48,7 @@ import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
 import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateService;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 import ca.corefacility.bioinformatics.irida.web.controller.api.projects.RESTProjectSamplesController;
+import ca.corefacility.bioinformatics.irida.web.spring.view.FileResponseWriter;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -315,6 +317,8 @@ public class SamplesController extends BaseController {
 	 *            Id for the sample containing the assembly to download.
 	 * @param assemblyId
 	 *            The id for the assembly.
+	 * @param request
+	 *            {@link HttpServletRequest}
 	 * @param response
 	 *            {@link HttpServletResponse}
 	 * @throws IOException
@@ -322,15 +326,14 @@ public class SamplesController extends BaseController {
 	 */
 	@RequestMapping("/samples/download/{sampleId}/assembly/{assemblyId}")
 	public void downloadAssembly(@PathVariable Long sampleId, @PathVariable Long assemblyId,
-			HttpServletResponse response) throws IOException {
+			HttpServletRequest request, HttpServletResponse response) throws IOException {
 		Sample sample = sampleService.read(sampleId);
 		GenomeAssembly genomeAssembly = sampleService.getGenomeAssemblyForSample(sample, assemblyId);
 
 		Path path = genomeAssembly.getFile();
 		response.setHeader("Content-Disposition",
 				"attachment; filename=\"" + genomeAssembly.getLabel() + "\"");
-		Files.copy(path, response.getOutputStream());
-		response.flushBuffer();
+		FileResponseWriter.writeFile(path, MediaType.APPLICATION_OCTET_STREAM_VALUE, null, request, response);
 	}
 
 	/**
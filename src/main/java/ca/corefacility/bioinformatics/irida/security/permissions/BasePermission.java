@@ -2,14 +2,25 @@ package ca.corefacility.bioinformatics.irida.security.permissions;
 
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.Authentication;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+
 import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
+import ca.corefacility.bioinformatics.irida.model.Timestamped;
 import ca.corefacility.bioinformatics.irida.model.user.Role;
 
 /**
@@ -24,6 +35,11 @@ public abstract class BasePermission<DomainObjectType, IdentifierType extends Se
 
 	private static final String ADMIN_AUTHORITY = Role.ROLE_ADMIN.getAuthority();
 
+	/**
+	 * The maximum number of identifiers to check in a single bulk query.
+	 */
+	private static final int BULK_BATCH_SIZE = 1000;
+
 	/**
 	 * Get the implementation-specific permission provided.
 	 * 
@@ -59,6 +75,11 @@ public abstract class BasePermission<DomainObjectType, IdentifierType extends Se
 	 */
 	private CrudRepository<DomainObjectType, IdentifierType> repository;
 
+	/**
+	 * Cache for decisions made by this permission.
+	 */
+	private PermissionDecisionCache decisionCache;
+
 	/**
 	 * Constructor with handles on the type of repository and type of domain
 	 * object.
@@ -90,8 +111,42 @@ public abstract class BasePermission<DomainObjectType, IdentifierType extends Se
 	 * @throws EntityNotFoundException
 	 *             If the object does not exist.
 	 */
-	@SuppressWarnings("unchecked")
 	private boolean customPermissionAllowedSingleObject(Authentication authentication, Object targetDomainObject) {
+		Serializable id = null;
+		if (decisionCache != null && isDecisionCacheable()) {
+			id = getIdentifier(targetDomainObject);
+		}
+
+		if (id == null) {
+			return evaluateSingleObject(authentication, targetDomainObject);
+		}
+
+		Boolean cached = decisionCache.get(authentication, getPermissionProvided(), domainObjectType, id);
+		if (cached != null) {
+			return cached;
+		}
+
+		boolean allowed = evaluateSingleObject(authentication, targetDomainObject);
+		decisionCache.put(authentication, getPermissionProvided(), domainObjectType, id, allowed);
+
+		return allowed;
+	}
+
+	/**
+	 * Evaluates the permission of a single object without checking the
+	 * {@link PermissionDecisionCache}.
+	 * 
+	 * @param authentication
+	 *            The Authentication object.
+	 * @param targetDomainObject
+	 *            The target domain object to evaluate permission (assumes this
+	 *            is not a collection).
+	 * @return True if permission is allowed on this object, false otherwise.
+	 * @throws EntityNotFoundException
+	 *             If the object does not exist.
+	 */
+	@SuppressWarnings("unchecked")
+	private boolean evaluateSingleObject(Authentication authentication, Object targetDomainObject) {
 		DomainObjectType domainObject;
 
 		if (identifierType.isAssignableFrom(targetDomainObject.getClass())) {
@@ -118,6 +173,27 @@ public abstract class BasePermission<DomainObjectType, IdentifierType extends Se
 		return customPermissionAllowed(authentication, domainObject);
 	}
 
+	/**
+	 * Get the identifier of the object being checked so that the decision can
+	 * be cached or evaluated in bulk.
+	 * 
+	 * @param targetDomainObject
+	 *            an identifier or a domain object
+	 * @return the identifier, or <code>null</code> if it can't be determined
+	 */
+	private IdentifierType getIdentifier(Object targetDomainObject) {
+		if (identifierType.isInstance(targetDomainObject)) {
+			return identifierType.cast(targetDomainObject);
+		} else if (domainObjectType.isInstance(targetDomainObject) && targetDomainObject instanceof Timestamped) {
+			Object id = ((Timestamped<?>) targetDomainObject).getId();
+			if (identifierType.isInstance(id)) {
+				return identifierType.cast(id);
+			}
+		}
+
+		return null;
+	}
+
 	/**
 	 * Tests permission for a collection of objects.
 	 * 
@@ -131,14 +207,76 @@ public abstract class BasePermission<DomainObjectType, IdentifierType extends Se
 	 *             If one of the objects in the collection does not exist.
 	 */
 	private boolean customPermissionAllowedCollection(Authentication authentication, Collection<?> targetDomainObjects) {
+		final Set<IdentifierType> allowedInBulk = bulkPermissionAllowedIdentifiers(authentication,
+				targetDomainObjects);
+
 		boolean permitted = true;
 		for (Object domainObjectInCollection : targetDomainObjects) {
-			permitted &= customPermissionAllowedSingleObject(authentication, domainObjectInCollection);
+			// objects that weren't granted in bulk are checked one at a time
+			// so that fast passes and missing objects are handled as usual
+			if (!allowedInBulk.contains(getIdentifier(domainObjectInCollection))) {
+				permitted &= customPermissionAllowedSingleObject(authentication, domainObjectInCollection);
+			}
 		}
 
 		return permitted;
 	}
 
+	/**
+	 * Find the objects in a collection that can be granted with
+	 * {@link #customPermissionAllowedIdentifiers(Authentication, Collection)}
+	 * instead of being checked one at a time.
+	 * 
+	 * @param authentication
+	 *            The Authentication object.
+	 * @param targetDomainObjects
+	 *            The collection of domain objects to check for permission.
+	 * @return the identifiers of the objects that are allowed. Objects that
+	 *         aren't in this set still need to be checked individually.
+	 */
+	private Set<IdentifierType> bulkPermissionAllowedIdentifiers(Authentication authentication,
+			Collection<?> targetDomainObjects) {
+		// administrators are fast-passed for each object, so there's nothing to
+		// gain from a bulk query
+		if (!supportsBulkEvaluation()
+				|| authentication.getAuthorities().stream().anyMatch(g -> g.getAuthority().equals(ADMIN_AUTHORITY))) {
+			return ImmutableSet.of();
+		}
+
+		final boolean cacheable = decisionCache != null && isDecisionCacheable();
+		final Set<IdentifierType> allowed = new HashSet<>();
+		final Set<IdentifierType> toCheck = new HashSet<>();
+
+		for (IdentifierType id : targetDomainObjects.stream().map(this::getIdentifier).filter(Objects::nonNull)
+				.collect(Collectors.toSet())) {
+			Boolean cached = cacheable ? decisionCache.get(authentication, getPermissionProvided(), domainObjectType,
+					id) : null;
+			if (cached == null) {
+				toCheck.add(id);
+			} else if (cached) {
+				allowed.add(id);
+			}
+		}
+
+		if (toCheck.isEmpty()) {
+			return allowed;
+		}
+
+		logger.trace("Checking [" + getPermissionProvided() + "] for " + toCheck.size() + " objects in bulk.");
+		for (List<IdentifierType> batch : Iterables.partition(toCheck, BULK_BATCH_SIZE)) {
+			final Collection<IdentifierType> allowedInBatch = customPermissionAllowedIdentifiers(authentication,
+					ImmutableList.copyOf(batch));
+			allowed.addAll(allowedInBatch);
+
+			if (cacheable) {
+				allowedInBatch.forEach(id -> decisionCache.put(authentication, getPermissionProvided(),
+						domainObjectType, id, true));
+			}
+		}
+
+		return allowed;
+	}
+
 	/**
 	 * Is the authenticated user allowed to perform some action on the target
 	 * domain object?
@@ -163,6 +301,60 @@ public abstract class BasePermission<DomainObjectType, IdentifierType extends Se
 		}
 	}
 	
+	/**
+	 * Set the {@link PermissionDecisionCache} used to cache decisions for
+	 * permissions that allow caching.
+	 * 
+	 * @param decisionCache
+	 *            the {@link PermissionDecisionCache}
+	 */
+	@Autowired(required = false)
+	public void setDecisionCache(PermissionDecisionCache decisionCache) {
+		this.decisionCache = decisionCache;
+	}
+
+	/**
+	 * Check whether decisions made by this permission can be cached by the
+	 * identifier of the object. Permissions should only allow caching when the
+	 * decision depends on the user and on persisted state, and not on fields
+	 * of the object that may have been changed in memory.
+	 * 
+	 * @return true if decisions can be cached
+	 */
+	protected boolean isDecisionCacheable() {
+		return false;
+	}
+
+	/**
+	 * Check whether this permission can evaluate a collection of identifiers
+	 * with {@link #customPermissionAllowedIdentifiers(Authentication, Collection)}.
+	 * 
+	 * @return true if bulk evaluation is supported
+	 */
+	protected boolean supportsBulkEvaluation() {
+		return false;
+	}
+
+	/**
+	 * Find which objects in a collection the user is allowed to act on, using
+	 * as few database queries as possible. This is only called when
+	 * {@link #supportsBulkEvaluation()} returns true. Implementations may only
+	 * grant permission here; any identifier that isn't returned is checked
+	 * individually with
+	 * {@link #customPermissionAllowed(Authentication, Object)}.
+	 * 
+	 * @param authentication
+	 *            the authenticated user.
+	 * @param identifiers
+	 *            the identifiers of the objects the user is attempting to
+	 *            access.
+	 * @return the identifiers of the objects that are permitted.
+	 */
+	protected Collection<IdentifierType> customPermissionAllowedIdentifiers(Authentication authentication,
+			Collection<IdentifierType> identifiers) {
+		return ImmutableSet.of();
+	}
+
 	/**
 	 * Check whether admins should be quick-approved for this permission. This
 	 * may be overridden for special cases
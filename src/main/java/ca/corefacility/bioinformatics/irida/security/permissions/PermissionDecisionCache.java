@@ -0,0 +1,317 @@
+package ca.corefacility.bioinformatics.irida.security.permissions;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import ca.corefacility.bioinformatics.irida.events.UserGroupMembershipChangedEvent;
+import ca.corefacility.bioinformatics.irida.model.event.DataAddedToSampleProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.event.ProjectEvent;
+
+/**
+ * Caches the decisions made by {@link BasePermission}s so that the same
+ * permission isn't evaluated against the database over and over for the same
+ * user and object.
+ *
+ * Decisions are always cached for the lifetime of the current web request.
+ * Decisions can also be cached across requests for a short time by setting
+ * <code>security.permission.cache.ttl</code> to a number of seconds. Both
+ * tiers are cleared whenever a {@link ProjectEvent} that can change project
+ * membership or project contents is committed, and when user group membership
+ * changes. The hit and miss counts are exported over JMX.
+ */
+@Component
+@ManagedResource(description = "IRIDA permission decision cache statistics")
+public class PermissionDecisionCache {
+	/**
+	 * The JMX object name the statistics are exported as.
+	 */
+	public static final String OBJECT_NAME = "ca.corefacility.bioinformatics.irida:type=PermissionDecisionCache";
+
+	private static final Logger logger = LoggerFactory.getLogger(PermissionDecisionCache.class);
+
+	private static final String REQUEST_ATTRIBUTE = PermissionDecisionCache.class.getName() + ".DECISIONS";
+
+	private final Cache<DecisionKey, Boolean> sharedDecisions;
+
+	private final AtomicLong requestHits = new AtomicLong();
+	private final AtomicLong sharedHits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Create a new {@link PermissionDecisionCache}
+	 *
+	 * @param ttlSeconds
+	 *            how long to keep decisions between requests. 0 to only cache
+	 *            decisions for the current request.
+	 * @param maximumSize
+	 *            the maximum number of decisions to keep between requests
+	 */
+	@Autowired
+	public PermissionDecisionCache(@Value("${security.permission.cache.ttl:0}") long ttlSeconds,
+			@Value("${security.permission.cache.size:10000}") long maximumSize) {
+		if (ttlSeconds > 0) {
+			logger.debug("Caching permission decisions for " + ttlSeconds + " seconds.");
+			sharedDecisions = CacheBuilder.newBuilder().expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+					.maximumSize(maximumSize).build();
+		} else {
+			sharedDecisions = null;
+		}
+	}
+
+	/**
+	 * Get a cached permission decision.
+	 *
+	 * @param authentication
+	 *            the user the decision was made for
+	 * @param permission
+	 *            the name of the permission
+	 * @param domainObjectType
+	 *            the type of object the decision was made for
+	 * @param id
+	 *            the identifier of the object the decision was made for
+	 * @return the cached decision, or <code>null</code> if there is no cached
+	 *         decision
+	 */
+	public Boolean get(Authentication authentication, String permission, Class<?> domainObjectType,
+			Serializable id) {
+		DecisionKey key = new DecisionKey(authentication, permission, domainObjectType, id);
+
+		Map<DecisionKey, Boolean> requestDecisions = getRequestDecisions();
+		if (requestDecisions != null) {
+			Boolean decision = requestDecisions.get(key);
+			if (decision != null) {
+				requestHits.incrementAndGet();
+				return decision;
+			}
+		}
+
+		if (sharedDecisions != null) {
+			Boolean decision = sharedDecisions.getIfPresent(key);
+			if (decision != null) {
+				sharedHits.incrementAndGet();
+				if (requestDecisions != null) {
+					requestDecisions.put(key, decision);
+				}
+				return decision;
+			}
+		}
+
+		misses.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Cache a permission decision.
+	 *
+	 * @param authentication
+	 *            the user the decision was made for
+	 * @param permission
+	 *            the name of the permission
+	 * @param domainObjectType
+	 *            the type of object the decision was made for
+	 * @param id
+	 *            the identifier of the object the decision was made for
+	 * @param allowed
+	 *            the decision
+	 */
+	public void put(Authentication authentication, String permission, Class<?> domainObjectType, Serializable id,
+			boolean allowed) {
+		DecisionKey key = new DecisionKey(authentication, permission, domainObjectType, id);
+
+		Map<DecisionKey, Boolean> requestDecisions = getRequestDecisions();
+		if (requestDecisions != null) {
+			requestDecisions.put(key, allowed);
+		}
+
+		if (sharedDecisions != null) {
+			sharedDecisions.put(key, allowed);
+		}
+	}
+
+	/**
+	 * Clear all cached decisions for the current request and all decisions
+	 * cached between requests.
+	 */
+	@ManagedOperation(description = "Remove every cached permission decision")
+	public void invalidateAll() {
+		Map<DecisionKey, Boolean> requestDecisions = getRequestDecisions();
+		if (requestDecisions != null) {
+			requestDecisions.clear();
+		}
+
+		if (sharedDecisions != null) {
+			sharedDecisions.invalidateAll();
+		}
+
+		logger.debug("Cleared permission decisions. Request hits: " + getRequestHitCount() + ", shared hits: "
+				+ getSharedHitCount() + ", misses: " + getMissCount());
+	}
+
+	/**
+	 * Clear cached decisions once a {@link ProjectEvent} has been committed.
+	 * Clearing before the commit would let a concurrent request cache the old
+	 * decision again. Adding data to a sample doesn't change who can read
+	 * what, so those events are ignored.
+	 *
+	 * @param event
+	 *            the {@link ProjectEvent}
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void handleProjectEvent(ProjectEvent event) {
+		if (!(event instanceof DataAddedToSampleProjectEvent)) {
+			invalidateAll();
+		}
+	}
+
+	/**
+	 * Clear cached decisions once a change to a user group's members has been
+	 * committed, as it can change which projects the members can read.
+	 *
+	 * @param event
+	 *            the {@link UserGroupMembershipChangedEvent}
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void handleUserGroupMembershipChanged(UserGroupMembershipChangedEvent event) {
+		invalidateAll();
+	}
+
+	/**
+	 * Get the number of decisions that were found in the cache for the current
+	 * request.
+	 *
+	 * @return the number of request cache hits
+	 */
+	@ManagedAttribute(description = "Decisions found in the cache for the current request")
+	public long getRequestHitCount() {
+		return requestHits.get();
+	}
+
+	/**
+	 * Get the number of decisions that were found in the cache shared between
+	 * requests.
+	 *
+	 * @return the number of shared cache hits
+	 */
+	@ManagedAttribute(description = "Decisions found in the cache shared between requests")
+	public long getSharedHitCount() {
+		return sharedHits.get();
+	}
+
+	/**
+	 * Get the number of decisions that weren't in either cache.
+	 *
+	 * @return the number of cache misses
+	 */
+	@ManagedAttribute(description = "Decisions that weren't in either cache")
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * Get the fraction of decisions that were found in either cache.
+	 *
+	 * @return the hit ratio, or 1.0 if no decisions have been looked up
+	 */
+	@ManagedAttribute(description = "The fraction of decisions found in either cache")
+	public double getHitRatio() {
+		long hits = requestHits.get() + sharedHits.get();
+		long total = hits + misses.get();
+		return total == 0 ? 1.0 : hits / (double) total;
+	}
+
+	/**
+	 * Get the number of decisions currently cached between requests.
+	 *
+	 * @return the number of shared decisions, 0 if decisions aren't cached
+	 *         between requests
+	 */
+	@ManagedAttribute(description = "The number of decisions cached between requests")
+	public long getSharedSize() {
+		return sharedDecisions == null ? 0 : sharedDecisions.size();
+	}
+
+	/**
+	 * Get the decisions for the current request, if there is one.
+	 *
+	 * @return the decisions for the current request, or <code>null</code> if
+	 *         this isn't running in a request
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<DecisionKey, Boolean> getRequestDecisions() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes == null) {
+			return null;
+		}
+
+		Map<DecisionKey, Boolean> decisions = (Map<DecisionKey, Boolean>) attributes.getAttribute(REQUEST_ATTRIBUTE,
+				RequestAttributes.SCOPE_REQUEST);
+		if (decisions == null) {
+			decisions = new ConcurrentHashMap<>();
+			attributes.setAttribute(REQUEST_ATTRIBUTE, decisions, RequestAttributes.SCOPE_REQUEST);
+		}
+
+		return decisions;
+	}
+
+	/**
+	 * Key for a single permission decision. The user's authorities are part of
+	 * the key because some permissions have fast passes for certain roles.
+	 */
+	private static class DecisionKey {
+		private final String principal;
+		private final Set<String> authorities;
+		private final String permission;
+		private final Class<?> domainObjectType;
+		private final Serializable id;
+
+		public DecisionKey(Authentication authentication, String permission, Class<?> domainObjectType,
+				Serializable id) {
+			this.principal = authentication.getName();
+			this.authorities = authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority)
+					.collect(Collectors.toSet());
+			this.permission = permission;
+			this.domainObjectType = domainObjectType;
+			this.id = id;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o)
+				return true;
+			if (o == null || getClass() != o.getClass())
+				return false;
+			DecisionKey that = (DecisionKey) o;
+			return Objects.equals(principal, that.principal) && Objects.equals(authorities, that.authorities)
+					&& Objects.equals(permission, that.permission)
+					&& Objects.equals(domainObjectType, that.domainObjectType) && Objects.equals(id, that.id);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(principal, authorities, permission, domainObjectType, id);
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package ca.corefacility.bioinformatics.irida.security.permissions.files;
 
+import java.util.Collection;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -68,4 +70,29 @@ public class ReadSequencingObjectPermission extends BasePermission<SequencingObj
 	public String getPermissionProvided() {
 		return PERMISSION_PROVIDED;
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean isDecisionCacheable() {
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean supportsBulkEvaluation() {
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected Collection<Long> customPermissionAllowedIdentifiers(Authentication authentication,
+			Collection<Long> identifiers) {
+		return ssoRepository.getReadableSequencingObjectIds(identifiers, authentication.getName());
+	}
 }
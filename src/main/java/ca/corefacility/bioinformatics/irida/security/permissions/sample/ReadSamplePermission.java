@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.security.permissions.sample;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -68,4 +69,29 @@ public class ReadSamplePermission extends BasePermission<Sample, Long> {
 		return PERMISSION_PROVIDED;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean isDecisionCacheable() {
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean supportsBulkEvaluation() {
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected Collection<Long> customPermissionAllowedIdentifiers(Authentication authentication,
+			Collection<Long> identifiers) {
+		return psjRepository.getReadableSampleIds(identifiers, authentication.getName());
+	}
+
 }
@@ -1,11 +1,13 @@
 package ca.corefacility.bioinformatics.irida.security.permissions.sample;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
+import ca.corefacility.bioinformatics.irida.model.enums.ProjectRole;
 import ca.corefacility.bioinformatics.irida.model.joins.Join;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
@@ -81,4 +83,26 @@ public class UpdateSamplePermission extends BasePermission<Sample, Long> {
 			return projectOwnerPermission.isAllowed(authentication, j.getSubject()) && j.isOwner();
 		});
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean supportsBulkEvaluation() {
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Only local projects are checked in bulk. Samples owned by remote projects
+	 * are checked individually so the synchronization rules in
+	 * {@link ProjectOwnerPermission} still apply.
+	 */
+	@Override
+	protected Collection<Long> customPermissionAllowedIdentifiers(Authentication authentication,
+			Collection<Long> identifiers) {
+		return projectSampleJoinRepository.getUpdatableSampleIds(identifiers, authentication.getName(),
+				ProjectRole.PROJECT_OWNER);
+	}
 }
@@ -1,9 +1,13 @@
 package ca.corefacility.bioinformatics.irida.service;
 
+import java.util.Collection;
+import java.util.Map;
+
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.Analysis;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCSummary;
 
 /**
  * Service for managing objects of type {@link Analysis}.
@@ -24,4 +28,16 @@ public interface AnalysisService extends CRUDService<Long, Analysis> {
 	 * @return the {@link AnalysisFastQC} for the given {@link SequenceFile}
 	 */
 	public AnalysisFastQC getFastQCAnalysisForSequenceFile(SequencingObject object, Long fileId);
+
+	/**
+	 * Get the {@link FastQCSummary} for every {@link SequenceFile} in a
+	 * collection of {@link SequencingObject}s in a single query. The FastQC
+	 * charts are not loaded.
+	 * 
+	 * @param objects
+	 *            the {@link SequencingObject}s to get summaries for
+	 * @return a map of {@link SequenceFile} id to {@link FastQCSummary}. Files
+	 *         that don't have a FastQC analysis yet are not included.
+	 */
+	public Map<Long, FastQCSummary> getFastQCSummariesForSequencingObjects(Collection<SequencingObject> objects);
 }
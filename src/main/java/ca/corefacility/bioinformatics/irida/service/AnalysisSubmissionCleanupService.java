@@ -13,7 +13,8 @@ public interface AnalysisSubmissionCleanupService {
 	 * This examines all possible analysis submissions and moves any submissions
 	 * not in a valid state to {@link AnalysisState#ERROR}. This is used on
 	 * start up to clean up inconsistent submissions that weren't properly
-	 * executed.
+	 * executed. Submissions another node still holds an unexpired lease on are
+	 * left alone.
 	 * 
 	 * @return The number of submissions switched over to {@link AnalysisState#ERROR}.
 	 */
@@ -0,0 +1,93 @@
+package ca.corefacility.bioinformatics.irida.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import ca.corefacility.bioinformatics.irida.model.enums.AnalysisCleanedState;
+import ca.corefacility.bioinformatics.irida.model.enums.AnalysisState;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+
+/**
+ * A service for claiming {@link AnalysisSubmission}s for the analysis
+ * scheduler, so more than one IRIDA node can run the scheduler without two
+ * nodes working on the same submission.
+ * 
+ * A claimed submission is held until it's released, or until the work passed
+ * to {@link #hold(AnalysisSubmission, Future)} finishes. If the claim is lost
+ * the work is cancelled, since another node may now be working on the
+ * submission.
+ */
+public interface AnalysisSubmissionLeaseService {
+
+	/**
+	 * Claim {@link AnalysisSubmission}s in the given state.
+	 * 
+	 * @param analysisState
+	 *            The {@link AnalysisState} of the submissions to claim.
+	 * @return The claimed {@link AnalysisSubmission}s.
+	 */
+	public List<AnalysisSubmission> claim(AnalysisState analysisState);
+
+	/**
+	 * Claim up to a number of {@link AnalysisSubmission}s in the given state,
+	 * highest priority first.
+	 * 
+	 * @param analysisState
+	 *            The {@link AnalysisState} of the submissions to claim.
+	 * @param limit
+	 *            The most submissions to claim.
+	 * @return The claimed {@link AnalysisSubmission}s.
+	 */
+	public List<AnalysisSubmission> claim(AnalysisState analysisState, int limit);
+
+	/**
+	 * Claim {@link AnalysisSubmission}s in the given states.
+	 * 
+	 * @param analysisState
+	 *            The {@link AnalysisState} of the submissions to claim.
+	 * @param analysisCleanedState
+	 *            The {@link AnalysisCleanedState} of the submissions to claim.
+	 * @return The claimed {@link AnalysisSubmission}s.
+	 */
+	public List<AnalysisSubmission> claim(AnalysisState analysisState, AnalysisCleanedState analysisCleanedState);
+
+	/**
+	 * Keep the claim on an {@link AnalysisSubmission} until some work on it has
+	 * finished. The work is cancelled if the claim has been or is later lost.
+	 * 
+	 * @param analysisSubmission
+	 *            The claimed {@link AnalysisSubmission}.
+	 * @param work
+	 *            The work being done on the submission.
+	 */
+	public void hold(AnalysisSubmission analysisSubmission, Future<AnalysisSubmission> work);
+
+	/**
+	 * Release the claim on {@link AnalysisSubmission}s, except those being held
+	 * for work that's still running.
+	 * 
+	 * @param analysisSubmissions
+	 *            The claimed {@link AnalysisSubmission}s.
+	 */
+	public void release(Collection<AnalysisSubmission> analysisSubmissions);
+
+	/**
+	 * Extend the claim on every {@link AnalysisSubmission} still being worked
+	 * on, and release the claims whose work has finished. Work on a
+	 * submission whose claim couldn't be extended is cancelled.
+	 * 
+	 * @return The number of claims that were lost.
+	 */
+	public int renewLeases();
+
+	/**
+	 * Switch {@link AnalysisSubmission}s to {@link AnalysisState#ERROR} that
+	 * were claimed part way through a stage by a node that has stopped renewing
+	 * its claims.
+	 * 
+	 * @return The number of submissions switched to
+	 *         {@link AnalysisState#ERROR}.
+	 */
+	public int recoverExpiredLeases();
+}
@@ -139,7 +139,9 @@ public interface AnalysisSubmissionService extends CRUDService<Long, AnalysisSub
 
 	/**
 	 * Given the id of an {@link AnalysisSubmission} gets the percentage
-	 * complete.
+	 * complete. For a running submission this uses the progress recorded the
+	 * last time the analysis scheduler checked on it, not the current state in
+	 * the execution manager.
 	 * 
 	 * @param id
 	 *            The id of an {@link AnalysisSubmission}.
@@ -0,0 +1,38 @@
+package ca.corefacility.bioinformatics.irida.service;
+
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.project.ProjectUserAccess;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+
+/**
+ * Service for maintaining the {@link ProjectUserAccess} index of which users
+ * can access which projects. The index should be updated whenever a user or
+ * group is added to or removed from a project, or a user is added to or
+ * removed from a group.
+ */
+public interface ProjectAccessIndexService {
+
+	/**
+	 * Update the index entries for all users on a {@link Project}.
+	 * 
+	 * @param project
+	 *            the {@link Project} whose members changed
+	 */
+	public void reindexProject(Project project);
+
+	/**
+	 * Update the index entries for a {@link User} on all projects.
+	 * 
+	 * @param user
+	 *            the {@link User} whose memberships changed
+	 */
+	public void reindexUser(User user);
+
+	/**
+	 * Check every project against the membership tables and correct any index
+	 * entries that are missing or out of date.
+	 * 
+	 * @return the number of index entries that were corrected
+	 */
+	public int rebuild();
+}
@@ -0,0 +1,137 @@
+package ca.corefacility.bioinformatics.irida.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
+import ca.corefacility.bioinformatics.irida.exceptions.InvalidPropertyException;
+import ca.corefacility.bioinformatics.irida.exceptions.SequenceFileUploadOffsetException;
+import ca.corefacility.bioinformatics.irida.exceptions.StorageException;
+import ca.corefacility.bioinformatics.irida.model.run.SequencingRun;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFileUpload;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+
+/**
+ * Service for resumable, chunked uploads of sequence files to a
+ * {@link Sample}. An upload is started, its bytes are written in one or more
+ * chunks that each start at the number of bytes already committed, and the
+ * upload is then completed into a {@link SequencingObject}. The sha256 checksum
+ * of the file is calculated while the chunks are written.
+ */
+public interface SequenceFileUploadService {
+
+	/**
+	 * Start a new upload of a file to a {@link Sample}.
+	 *
+	 * @param sample
+	 *            the {@link Sample} to upload to
+	 * @param fileName
+	 *            the name of the file being uploaded
+	 * @param fileSize
+	 *            the total size of the file in bytes, or <code>null</code> if
+	 *            it isn't known
+	 * @return the new {@link SequenceFileUpload}
+	 * @throws StorageException
+	 *             if the upload couldn't be staged on disk
+	 */
+	public SequenceFileUpload createUpload(Sample sample, String fileName, Long fileSize) throws StorageException;
+
+	/**
+	 * Read an upload to a {@link Sample}.
+	 *
+	 * @param sample
+	 *            the {@link Sample} the file is being uploaded to
+	 * @param uploadId
+	 *            the id of the {@link SequenceFileUpload}
+	 * @return the {@link SequenceFileUpload}
+	 * @throws EntityNotFoundException
+	 *             if the upload doesn't exist or isn't for the sample
+	 */
+	public SequenceFileUpload readUploadForSample(Sample sample, Long uploadId) throws EntityNotFoundException;
+
+	/**
+	 * Get the number of bytes that have been committed for an upload. The
+	 * next chunk of the upload must start at this offset.
+	 *
+	 * @param sample
+	 *            the {@link Sample} the file is being uploaded to
+	 * @param uploadId
+	 *            the id of the {@link SequenceFileUpload}
+	 * @return the number of bytes committed
+	 * @throws IOException
+	 *             if the staged file can't be read
+	 */
+	public long getCommittedOffset(Sample sample, Long uploadId) throws IOException;
+
+	/**
+	 * Write a chunk of an upload. Bytes are committed as they're written, so
+	 * if the stream fails part way through the chunk, the bytes that were
+	 * received are kept and the upload can resume from the new committed
+	 * offset. If the stream ends cleanly but doesn't contain exactly the
+	 * expected number of bytes, the whole chunk is rolled back.
+	 *
+	 * @param sample
+	 *            the {@link Sample} the file is being uploaded to
+	 * @param uploadId
+	 *            the id of the {@link SequenceFileUpload}
+	 * @param offset
+	 *            the offset of the first byte of the chunk in the file
+	 * @param length
+	 *            the number of bytes in the chunk, or null if not known
+	 * @param chunk
+	 *            the bytes of the chunk
+	 * @return the number of bytes committed after writing the chunk
+	 * @throws IOException
+	 *             if the chunk couldn't be read or written
+	 * @throws SequenceFileUploadOffsetException
+	 *             if the chunk doesn't start at the committed offset, or
+	 *             would make the file larger than its declared size
+	 * @throws InvalidPropertyException
+	 *             if the chunk isn't the expected length
+	 */
+	public long writeChunk(Sample sample, Long uploadId, long offset, Long length, InputStream chunk)
+			throws IOException, SequenceFileUploadOffsetException, InvalidPropertyException;
+
+	/**
+	 * Complete one or two uploads into a {@link SequencingObject} in the
+	 * {@link Sample}. One upload creates a single end file, two uploads create
+	 * a pair.
+	 *
+	 * @param sample
+	 *            the {@link Sample} the files were uploaded to
+	 * @param uploadIds
+	 *            the ids of the {@link SequenceFileUpload}s to complete
+	 * @param sequencingRun
+	 *            the {@link SequencingRun} the files are from, or
+	 *            <code>null</code>
+	 * @return the join between the sample and the new
+	 *         {@link SequencingObject}
+	 * @throws IOException
+	 *             if the staged files couldn't be read
+	 * @throws SequenceFileUploadOffsetException
+	 *             if an upload hasn't received all of its declared bytes
+	 */
+	public SampleSequencingObjectJoin completeUploads(Sample sample, List<Long> uploadIds,
+			SequencingRun sequencingRun) throws IOException, SequenceFileUploadOffsetException;
+
+	/**
+	 * Cancel an upload and remove its staged bytes.
+	 *
+	 * @param sample
+	 *            the {@link Sample} the file was being uploaded to
+	 * @param uploadId
+	 *            the id of the {@link SequenceFileUpload}
+	 */
+	public void cancelUpload(Sample sample, Long uploadId);
+
+	/**
+	 * Remove uploads that were started longer ago than the configured expiry
+	 * and never completed.
+	 *
+	 * @return the number of uploads removed
+	 */
+	public int removeExpiredUploads();
+}
@@ -10,12 +10,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Scope;
 import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.lang.management.ManagementFactory;
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -45,7 +46,9 @@ public class SequencingObjectProcessingService {
 	}
 
 	/**
-	 * Process new {@link SequencingObject}s uploaded and find new sequences to process next time around
+	 * Process new {@link SequencingObject}s uploaded and find new sequences to process next time around.  New
+	 * {@link SequencingObject}s are normally launched by {@link #processSequencingObject(Long)} as soon as they're
+	 * created, so this only needs to run occasionally to recover anything that was missed.
 	 */
 	public synchronized void runProcessingJob() {
 		processFiles();
@@ -53,43 +56,62 @@ public class SequencingObjectProcessingService {
 		findFilesToProcess();
 	}
 
+	/**
+	 * Immediately process a newly created {@link SequencingObject} if this processor has room for it.  If there's no
+	 * room, or another processor has already claimed it, it's left for {@link #runProcessingJob()}.
+	 *
+	 * @param sequencingObjectId the id of the {@link SequencingObject} to process.  The {@link SequencingObject}
+	 *                           must be committed to the database.
+	 */
+	public synchronized void processSequencingObject(Long sequencingObjectId) {
+		if (getQueueSpace() <= 0) {
+			logger.trace("Processor " + machineString + " has no queuespace for file " + sequencingObjectId
+					+ ", leaving it for the next processing job.");
+			return;
+		}
+
+		if (markFileProcessor(sequencingObjectId)) {
+			processFiles();
+		}
+	}
+
 	/**
 	 * Find new {@link SequencingObject}s to process and mark that this process is going to handle them
 	 */
 	public synchronized void findFilesToProcess() {
 		//check our queue space
-		int queueSpace = fileProcessingChainExecutor.getCorePoolSize() - fileProcessingChainExecutor.getActiveCount();
+		int queueSpace = getQueueSpace();
 
 		logger.trace("Processor " + machineString + " + has queuespace: " + queueSpace);
 
-		//check for any unprocessed files
-		List<SequencingObject> toProcess = sequencingObjectRepository
-				.getSequencingObjectsWithProcessingState(SequencingObject.ProcessingState.UNPROCESSED);
-
-		// individually loop through and mark the ones we're going to process.  Looping individually so 2 processes are less likely to write at the same time.
-		Iterator<SequencingObject> iterator = toProcess.iterator();
-
-		while (queueSpace > 0 && iterator.hasNext()) {
-			SequencingObject sequencingObject = iterator.next();
-
-			logger.trace("File processor " + machineString + " is processing file " + sequencingObject.getId());
+		markFilesToProcess(queueSpace);
+	}
 
-			try {
-				sequencingObjectRepository.markFileProcessor(sequencingObject.getId(), machineString,
-						SequencingObject.ProcessingState.QUEUED);
+	/**
+	 * Process {@link SequencingObject}s that have been locked for processing
+	 */
+	public synchronized void processFiles() {
+		launchMarkedFiles(SecurityContextHolder.getContext());
+	}
 
-				queueSpace--;
-			} catch (CannotAcquireLockException ex) {
-				//If we can't get the lock, another processor is trying to pick up this file.  Let them have it.
-				logger.debug("Couldn't get transaction lock to mark file " + sequencingObject.getId());
-			}
+	/**
+	 * Once a {@link FileProcessingChain} has finished and freed up its thread, pick up the next waiting
+	 * {@link SequencingObject} rather than waiting for the next processing job.
+	 *
+	 * @param securityContext the {@link SecurityContext} to run the next chain with
+	 */
+	private synchronized void processNextFile(SecurityContext securityContext) {
+		if (markFilesToProcess(1) > 0) {
+			launchMarkedFiles(securityContext);
 		}
 	}
 
 	/**
-	 * Process {@link SequencingObject}s that have been locked for processing
+	 * Launch the {@link FileProcessingChain} on every {@link SequencingObject} marked by this processor.
+	 *
+	 * @param securityContext the {@link SecurityContext} to run the chains with
 	 */
-	public synchronized void processFiles() {
+	private void launchMarkedFiles(SecurityContext securityContext) {
 		//get sequences previously locked
 		List<SequencingObject> toProcess = sequencingObjectRepository
 				.getSequencingObjectsWithProcessingStateAndProcessor(SequencingObject.ProcessingState.QUEUED,
@@ -101,9 +123,70 @@ public class SequencingObjectProcessingService {
 
 		//launch the file processing chain
 		for (SequencingObject sequencingObject : toProcess) {
-			fileProcessingChainExecutor.execute(
-					new SequenceFileProcessorLauncher(fileProcessingChain, sequencingObject.getId(),
-							SecurityContextHolder.getContext()));
+			SequenceFileProcessorLauncher launcher = new SequenceFileProcessorLauncher(fileProcessingChain,
+					sequencingObject.getId(), securityContext);
+			fileProcessingChainExecutor.execute(() -> {
+				try {
+					launcher.run();
+				} finally {
+					processNextFile(securityContext);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Mark up to the given number of unprocessed {@link SequencingObject}s to be processed by this processor.
+	 *
+	 * @param count the maximum number of {@link SequencingObject}s to mark
+	 * @return the number of {@link SequencingObject}s that were marked
+	 */
+	private int markFilesToProcess(int count) {
+		if (count <= 0) {
+			return 0;
+		}
+
+		//check for unprocessed files, only loading as many as we have room for
+		List<Long> toProcess = sequencingObjectRepository
+				.getSequencingObjectIdsWithProcessingState(SequencingObject.ProcessingState.UNPROCESSED,
+						new PageRequest(0, count));
+
+		// individually loop through and mark the ones we're going to process.  Looping individually so 2 processes are less likely to write at the same time.
+		int marked = 0;
+		for (Long sequencingObjectId : toProcess) {
+			if (markFileProcessor(sequencingObjectId)) {
+				marked++;
+			}
 		}
+
+		return marked;
+	}
+
+	/**
+	 * Mark that this processor is going to handle a {@link SequencingObject}.
+	 *
+	 * @param sequencingObjectId the id of the {@link SequencingObject}
+	 * @return true if this processor marked the {@link SequencingObject}, false if another processor got it first.
+	 */
+	private boolean markFileProcessor(Long sequencingObjectId) {
+		logger.trace("File processor " + machineString + " is processing file " + sequencingObjectId);
+
+		try {
+			return sequencingObjectRepository.markFileProcessor(sequencingObjectId, machineString,
+					SequencingObject.ProcessingState.QUEUED) > 0;
+		} catch (CannotAcquireLockException ex) {
+			//If we can't get the lock, another processor is trying to pick up this file.  Let them have it.
+			logger.debug("Couldn't get transaction lock to mark file " + sequencingObjectId);
+			return false;
+		}
+	}
+
+	/**
+	 * Get the number of {@link SequencingObject}s this processor has room to start processing.
+	 *
+	 * @return the available queue space
+	 */
+	private int getQueueSpace() {
+		return fileProcessingChainExecutor.getCorePoolSize() - fileProcessingChainExecutor.getActiveCount();
 	}
 }
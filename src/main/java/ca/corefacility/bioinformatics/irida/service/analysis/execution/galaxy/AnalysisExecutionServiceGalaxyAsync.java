@@ -23,7 +23,10 @@ import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
 import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -104,9 +107,10 @@ public class AnalysisExecutionServiceGalaxyAsync {
 
 		logger.debug("Preparing submission for " + analysisSubmission);
 
-		String workflowId = galaxyWorkflowService.uploadGalaxyWorkflow(workflowStructure.getWorkflowFile());
+		String workflowId = galaxyWorkflowService.getOrUploadGalaxyWorkflow(analysisSubmission.getWorkflowId(),
+				workflowStructure.getWorkflowFile());
 		analysisSubmission.setRemoteWorkflowId(workflowId);
-		logger.trace("Uploaded workflow for " + analysisSubmission + " to workflow with id=" + workflowId);
+		logger.trace("Using workflow with id=" + workflowId + " for " + analysisSubmission);
 
 		String analysisId = workspaceService.prepareAnalysisWorkspace(analysisSubmission);
 
@@ -189,8 +193,18 @@ public class AnalysisExecutionServiceGalaxyAsync {
 		logger.debug("Getting results for " + submittedAnalysis);
 		Analysis analysisResults = workspaceService.getAnalysisResults(submittedAnalysis);
 
+		// saving the results moves the output files out of the directories
+		// they were downloaded to, so remember the directories first
+		Set<Path> outputDirectories = analysisResults.getAnalysisOutputFiles().stream()
+				.map(f -> f.getFile().getParent()).collect(Collectors.toSet());
+
 		logger.trace("Saving results for " + submittedAnalysis);
-		Analysis savedAnalysis = analysisService.create(analysisResults);
+		Analysis savedAnalysis;
+		try {
+			savedAnalysis = analysisService.create(analysisResults);
+		} finally {
+			outputDirectories.forEach(workspaceService::deleteOutputDirectory);
+		}
 
 		// if samples should be updated, set to TRANSFERRED.  Otherwise just complete.
 		if (submittedAnalysis.getUpdateSamples()) {
@@ -93,8 +93,13 @@ public class AnalysisExecutionServiceGalaxyCleanupAsync {
 		}
 
 		if (analysisSubmission.hasRemoteWorkflowId()) {
-			logger.trace("remoteWorkflowId=" + analysisSubmission.getRemoteWorkflowId() + " exists, cleaning");
-			galaxyWorkflowService.deleteWorkflow(analysisSubmission.getRemoteWorkflowId());
+			if (galaxyWorkflowService.isSharedWorkflow(analysisSubmission.getRemoteWorkflowId())) {
+				// other submissions of the same workflow are still using it
+				logger.trace("remoteWorkflowId=" + analysisSubmission.getRemoteWorkflowId() + " is shared, keeping");
+			} else {
+				logger.trace("remoteWorkflowId=" + analysisSubmission.getRemoteWorkflowId() + " exists, cleaning");
+				galaxyWorkflowService.deleteWorkflow(analysisSubmission.getRemoteWorkflowId());
+			}
 		}
 		
 		analysisSubmission.setAnalysisCleanedState(AnalysisCleanedState.CLEANED);
@@ -1,16 +1,25 @@
 package ca.corefacility.bioinformatics.irida.service.analysis.workspace.galaxy;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.task.SyncTaskExecutor;
 
 import ca.corefacility.bioinformatics.irida.exceptions.ExecutionManagerException;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.ToolExecution;
@@ -21,6 +30,7 @@ import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.jmchilton.blend4j.galaxy.JobsClient;
 import com.github.jmchilton.blend4j.galaxy.ToolsClient;
+import com.github.jmchilton.blend4j.galaxy.beans.Dataset;
 import com.github.jmchilton.blend4j.galaxy.beans.HistoryContents;
 import com.github.jmchilton.blend4j.galaxy.beans.HistoryContentsProvenance;
 import com.github.jmchilton.blend4j.galaxy.beans.JobDetails;
@@ -50,12 +60,32 @@ public class AnalysisProvenanceServiceGalaxy {
 	private final GalaxyHistoriesService galaxyHistoriesService;
 	private final ToolsClient toolsClient;
 	private final JobsClient jobsClient;
+	private final Executor provenanceExecutor;
 
 	public AnalysisProvenanceServiceGalaxy(final GalaxyHistoriesService galaxyHistoriesService,
 			final ToolsClient toolsClient, final JobsClient jobsClient) {
+		this(galaxyHistoriesService, toolsClient, jobsClient, new SyncTaskExecutor());
+	}
+
+	/**
+	 * Create an {@link AnalysisProvenanceServiceGalaxy} that loads
+	 * independent branches of a history's provenance on the given executor.
+	 *
+	 * @param galaxyHistoriesService
+	 *            the service for reading Galaxy histories.
+	 * @param toolsClient
+	 *            the client for reading Galaxy tools.
+	 * @param jobsClient
+	 *            the client for reading Galaxy jobs.
+	 * @param provenanceExecutor
+	 *            the executor to load history steps from Galaxy on.
+	 */
+	public AnalysisProvenanceServiceGalaxy(final GalaxyHistoriesService galaxyHistoriesService,
+			final ToolsClient toolsClient, final JobsClient jobsClient, final Executor provenanceExecutor) {
 		this.galaxyHistoriesService = galaxyHistoriesService;
 		this.toolsClient = toolsClient;
 		this.jobsClient = jobsClient;
+		this.provenanceExecutor = provenanceExecutor;
 	}
 
 	/**
@@ -85,6 +115,33 @@ public class AnalysisProvenanceServiceGalaxy {
 	 */
 	public ToolExecution buildToolExecutionForOutputFile(final String remoteAnalysisId,
 			final String analysisOutputFilename) throws ExecutionManagerException {
+		return buildToolExecutionsForOutputFiles(remoteAnalysisId, Sets.newHashSet(analysisOutputFilename))
+				.get(analysisOutputFilename);
+	}
+
+	/**
+	 * Build up provenance reports for all of the output files of an analysis
+	 * submission at once. Each step in the history is loaded from Galaxy only
+	 * once, no matter how many output files it led to, and independent
+	 * branches are loaded in parallel. Steps that are shared between output
+	 * files (or run by the same Galaxy job) are the same
+	 * {@link ToolExecution}, so they're only stored once.
+	 * 
+	 * @param remoteAnalysisId
+	 *            the identifier of the submission history that the output
+	 *            files are attached to on the execution manager (i.e.,
+	 *            Galaxy's history id).
+	 * @param analysisOutputFilenames
+	 *            the filenames to build the reports for. These should be the
+	 *            raw basenames of the files (i.e., only the filename +
+	 *            extension part).
+	 * @return the complete report for each file, keyed by filename.
+	 * @throws ExecutionManagerException
+	 *             if the history contents could not be shown for the specified
+	 *             files.
+	 */
+	public Map<String, ToolExecution> buildToolExecutionsForOutputFiles(final String remoteAnalysisId,
+			final Set<String> analysisOutputFilenames) throws ExecutionManagerException {
 		final List<HistoryContents> historyContents = galaxyHistoriesService.showHistoryContents(remoteAnalysisId);
 		// group the history contents by name. The names that we're interested
 		// in starting from should match the filename of the output file.
@@ -92,45 +149,158 @@ public class AnalysisProvenanceServiceGalaxy {
 				filter(content -> !COLLECTION.equals(content.getHistoryContentType())).
 				collect(Collectors.groupingBy(HistoryContents::getName));
 
-		final List<HistoryContents> currentContents = historyContentsByName.get(analysisOutputFilename);
-		if (currentContents == null || currentContents.isEmpty() || currentContents.size() > 1) {
-			throw new ExecutionManagerException("Could not load a unique history contents for the specified filename ["
-					+ analysisOutputFilename + "] in history with id [" + remoteAnalysisId + "]");
+		final Map<String, String> historyContentsIds = new HashMap<>();
+		for (final String analysisOutputFilename : analysisOutputFilenames) {
+			final List<HistoryContents> currentContents = historyContentsByName.get(analysisOutputFilename);
+			if (currentContents == null || currentContents.isEmpty() || currentContents.size() > 1) {
+				throw new ExecutionManagerException(
+						"Could not load a unique history contents for the specified filename ["
+								+ analysisOutputFilename + "] in history with id [" + remoteAnalysisId + "]");
+			}
+			historyContentsIds.put(analysisOutputFilename, currentContents.get(0).getId());
+		}
+
+		return buildToolExecutionsForHistoryContents(remoteAnalysisId, historyContentsIds);
+	}
+
+	/**
+	 * Build up provenance reports for all of the output files of an analysis
+	 * submission from their already loaded datasets, so the history doesn't
+	 * have to be listed again. See
+	 * {@link #buildToolExecutionsForOutputFiles(String, Set)}.
+	 * 
+	 * @param remoteAnalysisId
+	 *            the identifier of the submission history that the output
+	 *            files are attached to on the execution manager (i.e.,
+	 *            Galaxy's history id).
+	 * @param outputDatasets
+	 *            the datasets of the output files to build the reports for,
+	 *            keyed by filename.
+	 * @return the complete report for each file, keyed by filename.
+	 * @throws ExecutionManagerException
+	 *             if the provenance could not be loaded for the files.
+	 */
+	public Map<String, ToolExecution> buildToolExecutionsForOutputFiles(final String remoteAnalysisId,
+			final Map<String, Dataset> outputDatasets) throws ExecutionManagerException {
+		final Map<String, String> historyContentsIds = new HashMap<>();
+		for (final Map.Entry<String, Dataset> outputDataset : outputDatasets.entrySet()) {
+			historyContentsIds.put(outputDataset.getKey(), outputDataset.getValue().getId());
+		}
+
+		return buildToolExecutionsForHistoryContents(remoteAnalysisId, historyContentsIds);
+	}
+
+	/**
+	 * Build up provenance reports starting from the given history contents.
+	 * 
+	 * @param remoteAnalysisId
+	 *            the Galaxy history id.
+	 * @param historyContentsIds
+	 *            the ids of the history contents to build the reports for,
+	 *            keyed by filename.
+	 * @return the complete report for each file, keyed by filename.
+	 * @throws ExecutionManagerException
+	 *             if the provenance could not be loaded for the files.
+	 */
+	private Map<String, ToolExecution> buildToolExecutionsForHistoryContents(final String remoteAnalysisId,
+			final Map<String, String> historyContentsIds) throws ExecutionManagerException {
+		final ProvenanceGraph graph = new ProvenanceGraph(remoteAnalysisId);
+		final Map<String, CompletableFuture<ToolExecution>> outputToolExecutions = new HashMap<>();
+		for (final Map.Entry<String, String> historyContentsId : historyContentsIds.entrySet()) {
+			outputToolExecutions.put(historyContentsId.getKey(),
+					buildToolExecutionForHistoryStep(graph, historyContentsId.getValue()));
 		}
-		final HistoryContentsProvenance currentProvenance = galaxyHistoriesService.showProvenance(
-				remoteAnalysisId, currentContents.get(0).getId());
 
+		final Map<String, ToolExecution> toolExecutions = new HashMap<>();
 		try {
-			final Tool toolDetails = toolsClient.showTool(currentProvenance.getToolId());
-	
-			return buildToolExecutionForHistoryStep(toolDetails, currentProvenance, remoteAnalysisId);
-		} catch (final RuntimeException e) {
-			throw new ExecutionManagerException("Failed to build tool execution provenance.", e);
+			for (final Map.Entry<String, CompletableFuture<ToolExecution>> output : outputToolExecutions.entrySet()) {
+				toolExecutions.put(output.getKey(), output.getValue().join());
+			}
+		} catch (final CompletionException e) {
+			if (e.getCause() instanceof ExecutionManagerException) {
+				throw (ExecutionManagerException) e.getCause();
+			}
+			throw new ExecutionManagerException("Failed to build tool execution provenance.", e.getCause());
 		}
+
+		logger.trace("Loaded " + graph.steps.size() + " history steps for " + historyContentsIds.size()
+				+ " output files in history [" + remoteAnalysisId + "]");
+		return toolExecutions;
 	}
 
 	/**
-	 * Build up a complete *tree* of ToolExecution from Galaxy's history
-	 * contents provenance objects. Recursively follows predecessors from the
-	 * current history.
+	 * Build up a complete graph of ToolExecution from Galaxy's history
+	 * contents provenance objects, following predecessors from the current
+	 * history contents. A history contents that has already been visited in
+	 * the graph isn't loaded from Galaxy again.
 	 * 
-	 * @param toolDetails
-	 *            the details of the current tool to build up tool execution
+	 * @param graph
+	 *            the steps of the history that have been visited so far.
+	 * @param historyContentsId
+	 *            the id of the history contents to build tool execution
 	 *            details for.
-	 * @param currentProvenance
-	 *            the provenance that corresponds to the tool details.
+	 * @return the ToolExecution for the history contents, completed once all
+	 *         of its predecessors have been loaded.
+	 */
+	private CompletableFuture<ToolExecution> buildToolExecutionForHistoryStep(final ProvenanceGraph graph,
+			final String historyContentsId) {
+		final CompletableFuture<ToolExecution> step = new CompletableFuture<>();
+		final CompletableFuture<ToolExecution> visited = graph.steps.putIfAbsent(historyContentsId, step);
+		if (visited != null) {
+			return visited;
+		}
+
+		CompletableFuture.supplyAsync(() -> loadHistoryStep(graph.historyId, historyContentsId), provenanceExecutor)
+				.thenCompose(historyStep -> {
+					final List<CompletableFuture<ToolExecution>> prevSteps = new ArrayList<>();
+					for (final String predecessor : historyStep.predecessors) {
+						// a step waiting on one of its own descendants would
+						// never complete, so cycles are found before waiting
+						if (!graph.addPredecessor(historyContentsId, predecessor)) {
+							throw new CompletionException(new ExecutionManagerException(
+									"History contents [" + predecessor + "] in history with id [" + graph.historyId
+											+ "] is its own predecessor"));
+						}
+						prevSteps.add(buildToolExecutionForHistoryStep(graph, predecessor));
+					}
+
+					return CompletableFuture.allOf(prevSteps.toArray(new CompletableFuture<?>[prevSteps.size()]))
+							.thenApply(v -> graph.toolExecutionForJob(historyStep,
+									prevSteps.stream().map(CompletableFuture::join).collect(Collectors.toSet())));
+				}).whenComplete((toolExecution, e) -> {
+					if (e == null) {
+						step.complete(toolExecution);
+					} else {
+						step.completeExceptionally(e);
+					}
+				});
+
+		return step;
+	}
+
+	/**
+	 * Load the provenance, tool and job details for a single history contents
+	 * from Galaxy.
+	 * 
 	 * @param historyId
 	 *            the Galaxy ID we should use to extract tool execution
 	 *            information.
-	 * @return the entire tree of ToolExecutions for the tool and its
-	 *         provenance.
-	 * @throws ExecutionManagerException
-	 *             if we could not get the history contents provenance or the
-	 *             tool details for a predecessor of the current tool details or
-	 *             provenance.
+	 * @param historyContentsId
+	 *            the id of the history contents to load.
+	 * @return the details of the step that created the history contents.
+	 * @throws CompletionException
+	 *             wrapping an {@link ExecutionManagerException} if we could
+	 *             not get the history contents provenance.
 	 */
-	private ToolExecution buildToolExecutionForHistoryStep(final Tool toolDetails,
-			final HistoryContentsProvenance currentProvenance, final String historyId) throws ExecutionManagerException {
+	private HistoryStep loadHistoryStep(final String historyId, final String historyContentsId) {
+		final HistoryContentsProvenance currentProvenance;
+		try {
+			currentProvenance = galaxyHistoriesService.showProvenance(historyId, historyContentsId);
+		} catch (final ExecutionManagerException e) {
+			throw new CompletionException(e);
+		}
+
+		final Tool toolDetails = toolsClient.showTool(currentProvenance.getToolId());
 		final Map<String, Set<String>> predecessors = getPredecessors(currentProvenance);
 		final Map<String, Object> parameters = currentProvenance.getParameters();
 		// remove keys from parameters that are Galaxy-related (and thus
@@ -150,27 +320,15 @@ public class AnalysisProvenanceServiceGalaxy {
 			paramValues.put(parameterKey, parameters.get(parameterKey));
 		}
 
-		final Set<ToolExecution> prevSteps = new HashSet<>();
-		final String toolName = toolDetails.getName();
-		final String toolVersion = toolDetails.getVersion();
 		final String jobId = currentProvenance.getJobId();
 		final JobDetails jobDetails = jobsClient.showJob(jobId);
-		final String commandLine = jobDetails.getCommandLine();
-		final Map<String, String> paramStrings = buildParamMap(paramValues);
-
-		for (final String predecessorKey : predecessors.keySet()) {
-			// arbitrarily select one of the predecessors from the set, then
-			// recurse on that predecessor:
-			final String predecessor = predecessors.get(predecessorKey).iterator().next();
-			final HistoryContentsProvenance previousProvenance = galaxyHistoriesService.showProvenance(historyId,
-					predecessor);
-			final Tool previousToolDetails = toolsClient.showTool(previousProvenance.getToolId());
-
-			final ToolExecution toolExecution = buildToolExecutionForHistoryStep(previousToolDetails,
-					previousProvenance, historyId);
-			prevSteps.add(toolExecution);
-		}
-		return new ToolExecution(prevSteps, toolName, toolVersion, jobId, paramStrings, commandLine);
+
+		// arbitrarily select one of the predecessors from each set
+		final Set<String> predecessorIds = predecessors.values().stream().map(p -> p.iterator().next())
+				.collect(Collectors.toSet());
+
+		return new HistoryStep(toolDetails.getName(), toolDetails.getVersion(), jobId, buildParamMap(paramValues),
+				jobDetails.getCommandLine(), predecessorIds);
 	}
 
 	/**
@@ -311,4 +469,115 @@ public class AnalysisProvenanceServiceGalaxy {
 		}
 		return paramStrings;
 	}
+
+	/**
+	 * The steps of a single Galaxy history visited while building provenance
+	 * for its output files.
+	 */
+	private static class ProvenanceGraph {
+		private final String historyId;
+		// synchronized instead of concurrent since Galaxy ids may be null
+		private final Map<String, CompletableFuture<ToolExecution>> steps = Collections
+				.synchronizedMap(new HashMap<>());
+		private final Map<String, ToolExecution> jobs = Collections.synchronizedMap(new HashMap<>());
+		// the predecessors of each step found so far, guarded by steps
+		private final Map<String, Set<String>> predecessors = new HashMap<>();
+
+		private ProvenanceGraph(final String historyId) {
+			this.historyId = historyId;
+		}
+
+		/**
+		 * Record that a history step was built from a predecessor, unless the
+		 * predecessor was itself built from the step. Every edge of a cycle
+		 * is recorded under the same lock, so whichever branch closes the
+		 * cycle finds it, even if the rest of the cycle was found by other
+		 * branches.
+		 * 
+		 * @param historyContentsId
+		 *            the id of the history step.
+		 * @param predecessor
+		 *            the id of the history step it was built from.
+		 * @return true if the predecessor was recorded, false if it would
+		 *         make a cycle.
+		 */
+		private boolean addPredecessor(final String historyContentsId, final String predecessor) {
+			synchronized (steps) {
+				if (isBuiltFrom(predecessor, historyContentsId)) {
+					return false;
+				}
+				predecessors.computeIfAbsent(historyContentsId, k -> new HashSet<>()).add(predecessor);
+				return true;
+			}
+		}
+
+		/**
+		 * Check whether a history step was built from another, directly or
+		 * through other steps, using the predecessors recorded so far.
+		 * 
+		 * @param historyContentsId
+		 *            the id of the history step.
+		 * @param ancestor
+		 *            the id of the possible ancestor.
+		 * @return true if the step is the ancestor or was built from it.
+		 */
+		private boolean isBuiltFrom(final String historyContentsId, final String ancestor) {
+			final Set<String> visited = new HashSet<>();
+			final Deque<String> toVisit = new LinkedList<>();
+			toVisit.add(historyContentsId);
+			while (!toVisit.isEmpty()) {
+				final String current = toVisit.pop();
+				if (Objects.equals(current, ancestor)) {
+					return true;
+				}
+				if (visited.add(current)) {
+					toVisit.addAll(predecessors.getOrDefault(current, Collections.emptySet()));
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Get the {@link ToolExecution} for a history step. History contents
+		 * created by the same Galaxy job share a single {@link ToolExecution}.
+		 * 
+		 * @param historyStep
+		 *            the step to get the {@link ToolExecution} for.
+		 * @param prevSteps
+		 *            the {@link ToolExecution}s that led to the step.
+		 * @return the {@link ToolExecution} for the step.
+		 */
+		private ToolExecution toolExecutionForJob(final HistoryStep historyStep, final Set<ToolExecution> prevSteps) {
+			if (historyStep.jobId == null) {
+				return historyStep.toToolExecution(prevSteps);
+			}
+			return jobs.computeIfAbsent(historyStep.jobId, j -> historyStep.toToolExecution(prevSteps));
+		}
+	}
+
+	/**
+	 * The details of the Galaxy job that created a single history contents.
+	 */
+	private static class HistoryStep {
+		private final String toolName;
+		private final String toolVersion;
+		private final String jobId;
+		private final Map<String, String> paramStrings;
+		private final String commandLine;
+		private final Set<String> predecessors;
+
+		private HistoryStep(final String toolName, final String toolVersion, final String jobId,
+				final Map<String, String> paramStrings, final String commandLine, final Set<String> predecessors) {
+			this.toolName = toolName;
+			this.toolVersion = toolVersion;
+			this.jobId = jobId;
+			this.paramStrings = paramStrings;
+			this.commandLine = commandLine;
+			this.predecessors = predecessors;
+		}
+
+		private ToolExecution toToolExecution(final Set<ToolExecution> prevSteps) {
+			return new ToolExecution(prevSteps, toolName, toolVersion, jobId, paramStrings, commandLine);
+		}
+	}
 }
@@ -25,12 +25,15 @@ import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyWorkflo
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
 import ca.corefacility.bioinformatics.irida.service.analysis.workspace.AnalysisWorkspaceService;
 import ca.corefacility.bioinformatics.irida.service.workflow.IridaWorkflowsService;
+import ca.corefacility.bioinformatics.irida.util.RecursiveDeleteVisitor;
 import com.github.jmchilton.blend4j.galaxy.beans.*;
 import com.github.jmchilton.blend4j.galaxy.beans.collection.response.CollectionResponse;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -38,6 +41,9 @@ import java.nio.file.Path;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -67,6 +73,10 @@ public class AnalysisWorkspaceServiceGalaxy implements AnalysisWorkspaceService
 
 	private SequencingObjectService sequencingObjectService;
 
+	private Executor resultsExecutor;
+
+	private Path outputStagingDirectory;
+
 	/**
 	 * Builds a new {@link AnalysisWorkspaceServiceGalaxy} with the given
 	 * information.
@@ -88,6 +98,38 @@ public class AnalysisWorkspaceServiceGalaxy implements AnalysisWorkspaceService
 			AnalysisProvenanceServiceGalaxy analysisProvenanceServiceGalaxy,
 			AnalysisParameterServiceGalaxy analysisParameterServiceGalaxy,
 			SequencingObjectService sequencingObjectService) {
+		this(galaxyHistoriesService, galaxyWorkflowService, galaxyLibrariesService, iridaWorkflowsService,
+				analysisCollectionServiceGalaxy, analysisProvenanceServiceGalaxy, analysisParameterServiceGalaxy,
+				sequencingObjectService, new SyncTaskExecutor(), null);
+	}
+
+	/**
+	 * Builds a new {@link AnalysisWorkspaceServiceGalaxy} which downloads
+	 * analysis results on the given {@link Executor}.
+	 *
+	 * @param galaxyHistoriesService          A GalaxyHistoriesService for interacting with Galaxy
+	 *                                        Histories.
+	 * @param galaxyWorkflowService           A GalaxyWorkflowService for interacting with Galaxy workflows.
+	 * @param galaxyLibrariesService          An object for building libraries in Galaxy.
+	 * @param iridaWorkflowsService           A service used for loading workflows from IRIDA.
+	 * @param analysisCollectionServiceGalaxy A service for constructing dataset collections of input files.
+	 * @param analysisProvenanceServiceGalaxy The service for provenance information.
+	 * @param analysisParameterServiceGalaxy  A service for setting up parameters in Galaxy.
+	 * @param sequencingObjectService         A service for reading {@link SequencingObject}s
+	 * @param resultsExecutor                 An {@link Executor} for downloading the output files of an analysis.
+	 * @param outputStagingDirectory          A directory to download output files into before they're moved to
+	 *                                        their final location.  This should be on the same file system as the
+	 *                                        analysis output files so the move is a rename.  If null, output files
+	 *                                        are downloaded to the system temporary directory.
+	 */
+	public AnalysisWorkspaceServiceGalaxy(GalaxyHistoriesService galaxyHistoriesService,
+			GalaxyWorkflowService galaxyWorkflowService, GalaxyLibrariesService galaxyLibrariesService,
+			IridaWorkflowsService iridaWorkflowsService,
+			AnalysisCollectionServiceGalaxy analysisCollectionServiceGalaxy,
+			AnalysisProvenanceServiceGalaxy analysisProvenanceServiceGalaxy,
+			AnalysisParameterServiceGalaxy analysisParameterServiceGalaxy,
+			SequencingObjectService sequencingObjectService, Executor resultsExecutor,
+			Path outputStagingDirectory) {
 		this.galaxyHistoriesService = galaxyHistoriesService;
 		this.galaxyWorkflowService = galaxyWorkflowService;
 		this.galaxyLibrariesService = galaxyLibrariesService;
@@ -96,6 +138,8 @@ public class AnalysisWorkspaceServiceGalaxy implements AnalysisWorkspaceService
 		this.analysisProvenanceServiceGalaxy = analysisProvenanceServiceGalaxy;
 		this.analysisParameterServiceGalaxy = analysisParameterServiceGalaxy;
 		this.sequencingObjectService = sequencingObjectService;
+		this.resultsExecutor = resultsExecutor;
+		this.outputStagingDirectory = outputStagingDirectory;
 	}
 
 	/**
@@ -112,39 +156,57 @@ public class AnalysisWorkspaceServiceGalaxy implements AnalysisWorkspaceService
 	}
 
 	/**
-	 * Builds a new AnalysisOutputFile from the given file in Galaxy.
+	 * Downloads the given file from Galaxy.
 	 * 
 	 * @param analysisId
 	 *            The id of the analysis performed in Galaxy.
-	 * @param labelPrefix
-	 *            The prefix to add to the label of this file.
 	 * @param dataset
 	 *            The dataset containing the data for the AnalysisOutputFile.
 	 * @param outputDirectory
 	 *            A directory to download the resulting output files.
-	 * @return An AnalysisOutputFile storing a local copy of the Galaxy file.
+	 * @return A local copy of the Galaxy file.
 	 * @throws IOException
 	 *             If there was an issue creating a local file.
 	 * @throws ExecutionManagerDownloadException
-	 *             If there was an issue downloading the data from Galaxy.
-	 * @throws ExecutionManagerException
-	 *             If there was an issue extracting tool execution provenance
-	 *             from Galaxy.
+	 *             If there was an issue downloading the data from Galaxy, or
+	 *             the downloaded file isn't the size Galaxy reports.
 	 */
-	private AnalysisOutputFile buildOutputFile(String analysisId, String labelPrefix, Dataset dataset,
-			Path outputDirectory) throws IOException, ExecutionManagerDownloadException, ExecutionManagerException {
-		String datasetId = dataset.getId();
-		String fileName = dataset.getName();
+	private Path downloadOutputFile(String analysisId, Dataset dataset, Path outputDirectory)
+			throws IOException, ExecutionManagerDownloadException {
+		Path outputFile = outputDirectory.resolve(dataset.getName());
+		galaxyHistoriesService.downloadDatasetTo(analysisId, dataset.getId(), outputFile);
+		verifyDownloadedFileSize(dataset, outputFile);
 
-		Path outputFile = outputDirectory.resolve(fileName);
-		galaxyHistoriesService.downloadDatasetTo(analysisId, datasetId, outputFile);
-		final ToolExecution toolExecution = analysisProvenanceServiceGalaxy.buildToolExecutionForOutputFile(analysisId,
-				fileName);
+		return outputFile;
+	}
 
-		AnalysisOutputFile analysisOutputFile = new AnalysisOutputFile(outputFile, labelPrefix, datasetId,
-				toolExecution);
+	/**
+	 * Checks that a downloaded file is the size Galaxy reports for its
+	 * dataset. Datasets without a size from Galaxy aren't checked.
+	 * 
+	 * @param dataset
+	 *            The dataset the file was downloaded from.
+	 * @param downloadedFile
+	 *            The downloaded file.
+	 * @throws IOException
+	 *             If the size of the downloaded file couldn't be read.
+	 * @throws ExecutionManagerDownloadException
+	 *             If the downloaded file is a different size.
+	 */
+	private void verifyDownloadedFileSize(Dataset dataset, Path downloadedFile)
+			throws IOException, ExecutionManagerDownloadException {
+		Object reportedSize = dataset.getFileSize();
+		if (reportedSize == null) {
+			return;
+		}
 
-		return analysisOutputFile;
+		long expectedSize = Long.parseLong(reportedSize.toString());
+		long actualSize = Files.size(downloadedFile);
+		if (expectedSize > 0 && expectedSize != actualSize) {
+			throw new ExecutionManagerDownloadException("Downloaded dataset " + dataset.getId() + " to "
+					+ downloadedFile + " with size " + actualSize + " bytes, but Galaxy reports " + expectedSize
+					+ " bytes");
+		}
 	}
 
 	/**
@@ -363,28 +425,130 @@ public class AnalysisWorkspaceServiceGalaxy implements AnalysisWorkspaceService
 		checkNotNull(analysisSubmission.getWorkflowId(), "workflowId is null");
 		checkNotNull(analysisSubmission.getRemoteWorkflowId(), "remoteWorkflowId is null");
 
-		Path outputDirectory = Files.createTempDirectory("analysis-output");
+		Path outputDirectory = createOutputDirectory();
 		logger.trace("Created temporary directory " + outputDirectory + " for analysis output files");
 
-		IridaWorkflow iridaWorkflow = iridaWorkflowsService.getIridaWorkflow(analysisSubmission.getWorkflowId());
-		String analysisId = analysisSubmission.getRemoteAnalysisId();
+		boolean downloaded = false;
+		try {
+			IridaWorkflow iridaWorkflow = iridaWorkflowsService.getIridaWorkflow(analysisSubmission.getWorkflowId());
+			String analysisId = analysisSubmission.getRemoteAnalysisId();
+
+			Map<String, IridaWorkflowOutput> outputsMap = iridaWorkflow.getWorkflowDescription().getOutputsMap();
+
+			String labelPrefix = getLabelPrefix(analysisSubmission, iridaWorkflow);
+
+			// list the history once instead of once for each output
+			Set<String> outputFileNames = outputsMap.values().stream().map(IridaWorkflowOutput::getFileName)
+					.collect(Collectors.toSet());
+			Map<String, Dataset> outputDatasets = galaxyHistoriesService
+					.getDatasetsForFilesInHistory(outputFileNames, analysisId);
+
+			Executor executor = new DelegatingSecurityContextExecutor(resultsExecutor);
+			Map<String, CompletableFuture<Path>> downloads = Maps.newHashMap();
+			for (String analysisOutputName : outputsMap.keySet()) {
+				Dataset outputDataset = outputDatasets.get(outputsMap.get(analysisOutputName).getFileName());
+
+				downloads.put(analysisOutputName, CompletableFuture.supplyAsync(() -> {
+					try {
+						return downloadOutputFile(analysisId, outputDataset, outputDirectory);
+					} catch (IOException | ExecutionManagerException e) {
+						throw new CompletionException(e);
+					}
+				}, executor));
+			}
+
+			// provenance for all of the outputs is built together while they
+			// download so shared steps are only loaded and stored once
+			Map<String, ToolExecution> toolExecutions = null;
+			Throwable failure = null;
+			try {
+				toolExecutions = analysisProvenanceServiceGalaxy.buildToolExecutionsForOutputFiles(analysisId,
+						outputDatasets);
+			} catch (ExecutionManagerException | RuntimeException e) {
+				failure = e;
+			}
 
-		Map<String, IridaWorkflowOutput> outputsMap = iridaWorkflow.getWorkflowDescription().getOutputsMap();
+			// wait for every download to finish before reporting a failure so
+			// nothing is still writing to the output directory
+			Map<String, Path> outputFiles = Maps.newHashMap();
+			for (Map.Entry<String, CompletableFuture<Path>> download : downloads.entrySet()) {
+				try {
+					outputFiles.put(download.getKey(), download.getValue().join());
+				} catch (CompletionException e) {
+					if (failure == null) {
+						failure = e.getCause();
+					} else {
+						logger.error("Could not download output " + download.getKey() + " for analysis "
+								+ analysisId, e.getCause());
+					}
+				}
+			}
 
-		String labelPrefix = getLabelPrefix(analysisSubmission, iridaWorkflow);
+			if (failure instanceof IOException) {
+				throw (IOException) failure;
+			} else if (failure instanceof ExecutionManagerException) {
+				throw (ExecutionManagerException) failure;
+			} else if (failure instanceof RuntimeException) {
+				throw (RuntimeException) failure;
+			} else if (failure != null) {
+				throw new ExecutionManagerException("Could not download output files for analysis " + analysisId,
+						failure);
+			}
 
-		Map<String, AnalysisOutputFile> analysisOutputFiles = Maps.newHashMap();
-		for (String analysisOutputName : outputsMap.keySet()) {
-			String outputFileName = outputsMap.get(analysisOutputName).getFileName();
-			Dataset outputDataset = galaxyHistoriesService.getDatasetForFileInHistory(outputFileName, analysisId);
+			Map<String, AnalysisOutputFile> analysisOutputFiles = Maps.newHashMap();
+			for (String analysisOutputName : outputsMap.keySet()) {
+				String outputFileName = outputsMap.get(analysisOutputName).getFileName();
+				analysisOutputFiles.put(analysisOutputName,
+						new AnalysisOutputFile(outputFiles.get(analysisOutputName), labelPrefix,
+								outputDatasets.get(outputFileName).getId(), toolExecutions.get(outputFileName)));
+			}
 
-			AnalysisOutputFile analysisOutput = buildOutputFile(analysisId, labelPrefix, outputDataset,
-					outputDirectory);
-			analysisOutputFiles.put(analysisOutputName, analysisOutput);
+			AnalysisType analysisType = iridaWorkflow.getWorkflowDescription().getAnalysisType();
+			Analysis analysis = new Analysis(analysisId, analysisOutputFiles, analysisType);
+			downloaded = true;
+			return analysis;
+		} finally {
+			// the output files are moved out of the directory when the analysis
+			// is saved, but nothing will move them if they couldn't be downloaded
+			if (!downloaded) {
+				deleteOutputDirectory(outputDirectory);
+			}
 		}
+	}
 
-		AnalysisType analysisType = iridaWorkflow.getWorkflowDescription().getAnalysisType();
-		
-		return new Analysis(analysisId, analysisOutputFiles, analysisType);
+	/**
+	 * Creates a new directory to download the output files of an analysis
+	 * into.
+	 * 
+	 * @return The new directory.
+	 * @throws IOException
+	 *             If the directory couldn't be created.
+	 */
+	private Path createOutputDirectory() throws IOException {
+		if (outputStagingDirectory == null) {
+			return Files.createTempDirectory("analysis-output");
+		}
+
+		Files.createDirectories(outputStagingDirectory);
+		return Files.createTempDirectory(outputStagingDirectory, "analysis-output");
+	}
+
+	/**
+	 * Deletes a directory that the output files of an analysis were
+	 * downloaded into by {@link #getAnalysisResults(AnalysisSubmission)}, and
+	 * any output files left in it. Saving the {@link Analysis} moves the
+	 * output files out of the directory, so this is called once it's been
+	 * saved or couldn't be saved.
+	 * 
+	 * @param outputDirectory
+	 *            The directory to delete.
+	 */
+	public void deleteOutputDirectory(Path outputDirectory) {
+		try {
+			Files.walkFileTree(outputDirectory, new RecursiveDeleteVisitor());
+			logger.trace("Deleted temporary directory " + outputDirectory + " for analysis output files");
+		} catch (IOException e) {
+			logger.error("Could not delete temporary directory " + outputDirectory + " for analysis output files", e);
+		}
 	}
-}
\ No newline at end of file
+}
@@ -1,14 +1,25 @@
 package ca.corefacility.bioinformatics.irida.service.impl;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.scheduling.annotation.AsyncResult;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
 
 import ca.corefacility.bioinformatics.irida.exceptions.ExecutionManagerException;
 import ca.corefacility.bioinformatics.irida.exceptions.IridaWorkflowException;
@@ -23,15 +34,19 @@ import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyJobErro
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.AnalysisSubmissionRepository;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.JobErrorRepository;
 import ca.corefacility.bioinformatics.irida.service.AnalysisExecutionScheduledTask;
+import ca.corefacility.bioinformatics.irida.service.AnalysisSubmissionLeaseService;
 import ca.corefacility.bioinformatics.irida.service.CleanupAnalysisSubmissionCondition;
 import ca.corefacility.bioinformatics.irida.service.analysis.execution.AnalysisExecutionService;
+import ca.corefacility.bioinformatics.irida.service.impl.analysis.submission.SingleNodeAnalysisSubmissionLeaseService;
 
 import com.google.common.collect.Sets;
 
 /**
  * Implementation of analysis execution tasks. This will scan for
  * {@link AnalysisSubmission}s and execute the {@link Analysis} defined by the
- * submissions.
+ * submissions. Each stage only works on the submissions it claims from the
+ * {@link AnalysisSubmissionLeaseService}, so the tasks can run on more than
+ * one node.
  */
 public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionScheduledTask {
 
@@ -49,6 +64,12 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 	private final CleanupAnalysisSubmissionCondition cleanupCondition;
 	private GalaxyJobErrorsService galaxyJobErrorsService;
 	private JobErrorRepository jobErrorRepository;
+	private final Executor monitorExecutor;
+	private final int maxSkippedChecks;
+	private final AnalysisSubmissionLeaseService leaseService;
+
+	// how often to check each running submission, only used while holding monitorRunningAnalysesLock
+	private final Map<Long, MonitorState> monitorStates = new HashMap<>();
 
 	/**
 	 * Builds a new AnalysisExecutionScheduledTaskImpl with the given service
@@ -67,11 +88,63 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 			CleanupAnalysisSubmissionCondition cleanupCondition,
 			GalaxyJobErrorsService galaxyJobErrorsService,
 			JobErrorRepository jobErrorRepository) {
+		this(analysisSubmissionRepository, analysisExecutionServiceGalaxy, cleanupCondition, galaxyJobErrorsService,
+				jobErrorRepository, new SyncTaskExecutor(), 0);
+	}
+
+	/**
+	 * Builds a new AnalysisExecutionScheduledTaskImpl that checks on running
+	 * workflows in parallel.
+	 *
+	 * @param analysisSubmissionRepository   A repository for {@link AnalysisSubmission}s.
+	 * @param analysisExecutionServiceGalaxy A service for executing {@link AnalysisSubmission}s.
+	 * @param cleanupCondition               The condition defining when an {@link AnalysisSubmission}
+	 *                                       should be cleaned up.
+	 * @param galaxyJobErrorsService         {@link GalaxyJobErrorsService} for getting {@link JobError} objects
+	 * @param jobErrorRepository             {@link JobErrorRepository} for {@link JobError} objects
+	 * @param monitorExecutor                The {@link Executor} to check the status of running workflows on.
+	 * @param maxSkippedChecks               The most monitoring passes to skip for a workflow whose status
+	 *                                       hasn't changed.
+	 */
+	public AnalysisExecutionScheduledTaskImpl(AnalysisSubmissionRepository analysisSubmissionRepository,
+			AnalysisExecutionService analysisExecutionServiceGalaxy,
+			CleanupAnalysisSubmissionCondition cleanupCondition,
+			GalaxyJobErrorsService galaxyJobErrorsService,
+			JobErrorRepository jobErrorRepository, Executor monitorExecutor, int maxSkippedChecks) {
+		this(analysisSubmissionRepository, analysisExecutionServiceGalaxy, cleanupCondition, galaxyJobErrorsService,
+				jobErrorRepository, monitorExecutor, maxSkippedChecks,
+				new SingleNodeAnalysisSubmissionLeaseService(analysisSubmissionRepository));
+	}
+
+	/**
+	 * Builds a new AnalysisExecutionScheduledTaskImpl that claims the
+	 * submissions it works on from an {@link AnalysisSubmissionLeaseService}.
+	 *
+	 * @param analysisSubmissionRepository   A repository for {@link AnalysisSubmission}s.
+	 * @param analysisExecutionServiceGalaxy A service for executing {@link AnalysisSubmission}s.
+	 * @param cleanupCondition               The condition defining when an {@link AnalysisSubmission}
+	 *                                       should be cleaned up.
+	 * @param galaxyJobErrorsService         {@link GalaxyJobErrorsService} for getting {@link JobError} objects
+	 * @param jobErrorRepository             {@link JobErrorRepository} for {@link JobError} objects
+	 * @param monitorExecutor                The {@link Executor} to check the status of running workflows on.
+	 * @param maxSkippedChecks               The most monitoring passes to skip for a workflow whose status
+	 *                                       hasn't changed.
+	 * @param leaseService                   The {@link AnalysisSubmissionLeaseService} to claim submissions from.
+	 */
+	public AnalysisExecutionScheduledTaskImpl(AnalysisSubmissionRepository analysisSubmissionRepository,
+			AnalysisExecutionService analysisExecutionServiceGalaxy,
+			CleanupAnalysisSubmissionCondition cleanupCondition,
+			GalaxyJobErrorsService galaxyJobErrorsService,
+			JobErrorRepository jobErrorRepository, Executor monitorExecutor, int maxSkippedChecks,
+			AnalysisSubmissionLeaseService leaseService) {
 		this.analysisSubmissionRepository = analysisSubmissionRepository;
 		this.analysisExecutionService = analysisExecutionServiceGalaxy;
 		this.cleanupCondition = cleanupCondition;
 		this.galaxyJobErrorsService = galaxyJobErrorsService;
 		this.jobErrorRepository = jobErrorRepository;
+		this.monitorExecutor = monitorExecutor;
+		this.maxSkippedChecks = maxSkippedChecks;
+		this.leaseService = leaseService;
 	}
 
 	/**
@@ -82,36 +155,27 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 		synchronized (prepareAnalysesLock) {
 			logger.trace("Running prepareAnalyses");
 
-			List<AnalysisSubmission> analysisSubmissions = analysisSubmissionRepository.findByAnalysisState(
-					AnalysisState.NEW);
-
-			// Sort submissions by priority high to low
-			analysisSubmissions.sort((a1, a2) -> {
-				return a2.getPriority()
-						.compareTo(a1.getPriority());
-			});
-
 			Set<Future<AnalysisSubmission>> submissions = Sets.newHashSet();
 
 			// check to see if execution service wants any more jobs
 			int capacity = analysisExecutionService.getCapacity();
 			if (capacity > 0) {
+				// only submit up to capacity, highest priority first
+				List<AnalysisSubmission> analysisSubmissions = leaseService.claim(AnalysisState.NEW, capacity);
 
-				if (capacity < analysisSubmissions.size()) {
-					logger.debug("Attempting to submit more jobs than capacity, list will be trimmed: "
-							+ analysisSubmissions.size() + "=>" + capacity);
-					// only submit up to capacity
-					analysisSubmissions = analysisSubmissions.subList(0, capacity);
-				}
-
-				for (AnalysisSubmission analysisSubmission : analysisSubmissions) {
-					logger.debug("Preparing " + analysisSubmission);
-
-					try {
-						submissions.add(analysisExecutionService.prepareSubmission(analysisSubmission));
-					} catch (ExecutionManagerException | IridaWorkflowNotFoundException | IOException e) {
-						logger.error("Error preparing submission " + analysisSubmission, e);
+				try {
+					for (AnalysisSubmission analysisSubmission : analysisSubmissions) {
+						logger.debug("Preparing " + analysisSubmission);
+
+						try {
+							submissions.add(hold(analysisSubmission,
+									analysisExecutionService.prepareSubmission(analysisSubmission)));
+						} catch (ExecutionManagerException | IridaWorkflowNotFoundException | IOException e) {
+							logger.error("Error preparing submission " + analysisSubmission, e);
+						}
 					}
+				} finally {
+					leaseService.release(analysisSubmissions);
 				}
 			} else {
 				logger.trace("AnalysisExecutionService at max capacity.  No jobs updated.");
@@ -129,19 +193,23 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 		synchronized (executeAnalysesLock) {
 			logger.trace("Running executeAnalyses");
 
-			List<AnalysisSubmission> analysisSubmissions = analysisSubmissionRepository.findByAnalysisState(
-					AnalysisState.PREPARED);
+			List<AnalysisSubmission> analysisSubmissions = leaseService.claim(AnalysisState.PREPARED);
 
 			Set<Future<AnalysisSubmission>> submissions = Sets.newHashSet();
 
-			for (AnalysisSubmission analysisSubmission : analysisSubmissions) {
-				logger.debug("Executing " + analysisSubmission);
+			try {
+				for (AnalysisSubmission analysisSubmission : analysisSubmissions) {
+					logger.debug("Executing " + analysisSubmission);
 
-				try {
-					submissions.add(analysisExecutionService.executeAnalysis(analysisSubmission));
-				} catch (ExecutionManagerException | IridaWorkflowException e) {
-					logger.error("Error executing submission " + analysisSubmission, e);
+					try {
+						submissions.add(hold(analysisSubmission,
+								analysisExecutionService.executeAnalysis(analysisSubmission)));
+					} catch (ExecutionManagerException | IridaWorkflowException e) {
+						logger.error("Error executing submission " + analysisSubmission, e);
+					}
 				}
+			} finally {
+				leaseService.release(analysisSubmissions);
 			}
 
 			return submissions;
@@ -158,26 +226,123 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 		synchronized (monitorRunningAnalysesLock) {
 			logger.trace("Running monitorRunningAnalyses");
 
-			List<AnalysisSubmission> analysisSubmissions = analysisSubmissionRepository.findByAnalysisState(
-					AnalysisState.RUNNING);
+			List<AnalysisSubmission> analysisSubmissions = leaseService.claim(AnalysisState.RUNNING);
+			try {
+				return monitorRunningAnalyses(analysisSubmissions);
+			} finally {
+				leaseService.release(analysisSubmissions);
+			}
+		}
+	}
 
-			Set<Future<AnalysisSubmission>> submissions = Sets.newHashSet();
+	/**
+	 * Check on the status of claimed running {@link AnalysisSubmission}s.
+	 *
+	 * @param analysisSubmissions The claimed {@link AnalysisSubmission}s.
+	 * @return A {@link Set} of {@link Future} {@link AnalysisSubmission}s for
+	 * the checked submissions.
+	 */
+	private Set<Future<AnalysisSubmission>> monitorRunningAnalyses(List<AnalysisSubmission> analysisSubmissions) {
+		// forget about anything that's stopped running since the last pass, on any node
+		monitorStates.keySet()
+				.retainAll(new HashSet<>(analysisSubmissionRepository.findIdsByAnalysisState(AnalysisState.RUNNING)));
+
+		// ask for the status of every workflow that's due to be checked at once
+		Executor executor = new DelegatingSecurityContextExecutor(monitorExecutor);
+		Map<Long, CompletableFuture<GalaxyWorkflowStatus>> workflowStatuses = new HashMap<>();
+		for (AnalysisSubmission analysisSubmission : analysisSubmissions) {
+			MonitorState monitorState = monitorStates.get(analysisSubmission.getId());
+			if (monitorState != null && monitorState.skip()) {
+				logger.trace("Skipping unchanged " + analysisSubmission);
+				continue;
+			}
 
-			for (AnalysisSubmission analysisSubmission : analysisSubmissions) {
-				logger.trace("Checking state of " + analysisSubmission);
+			logger.trace("Checking state of " + analysisSubmission);
+			workflowStatuses.put(analysisSubmission.getId(),
+					CompletableFuture.supplyAsync(() -> getWorkflowStatus(analysisSubmission), executor));
+		}
 
-				try {
-					GalaxyWorkflowStatus workflowStatus = analysisExecutionService.getWorkflowStatus(
-							analysisSubmission);
-					submissions.add(handleWorkflowStatus(workflowStatus, analysisSubmission));
-				} catch (ExecutionManagerException | RuntimeException e) {
-					logger.error("Error checking state for " + analysisSubmission, e);
-					analysisSubmission.setAnalysisState(AnalysisState.ERROR);
-					submissions.add(new AsyncResult<>(analysisSubmissionRepository.save(analysisSubmission)));
+		Set<Future<AnalysisSubmission>> submissions = Sets.newHashSet();
+		List<AnalysisSubmission> stateChanged = new ArrayList<>();
+		List<AnalysisSubmission> withJobErrors = new ArrayList<>();
+
+		for (AnalysisSubmission analysisSubmission : analysisSubmissions) {
+			CompletableFuture<GalaxyWorkflowStatus> workflowStatusFuture = workflowStatuses.get(
+					analysisSubmission.getId());
+			if (workflowStatusFuture == null) {
+				continue;
+			}
+
+			try {
+				GalaxyWorkflowStatus workflowStatus = workflowStatusFuture.join();
+				if (handleWorkflowStatus(workflowStatus, analysisSubmission)) {
+					stateChanged.add(analysisSubmission);
+					if (AnalysisState.ERROR.equals(analysisSubmission.getAnalysisState())) {
+						withJobErrors.add(analysisSubmission);
+					}
+				} else {
+					submissions.add(new AsyncResult<>(analysisSubmission));
 				}
+			} catch (CompletionException e) {
+				logger.error("Error checking state for " + analysisSubmission, e.getCause());
+				analysisSubmission.setAnalysisState(AnalysisState.ERROR);
+				stateChanged.add(analysisSubmission);
 			}
+		}
 
-			return submissions;
+		// write all of the state changes together
+		stateChanged.forEach(s -> monitorStates.remove(s.getId()));
+		for (AnalysisSubmission savedSubmission : saveStateChanges(stateChanged)) {
+			submissions.add(new AsyncResult<>(savedSubmission));
+		}
+		withJobErrors.forEach(this::handleJobErrors);
+
+		return submissions;
+	}
+
+	/**
+	 * Get the status of an {@link AnalysisSubmission}'s workflow, wrapping any
+	 * checked exception so it can be run as a {@link CompletableFuture}.
+	 *
+	 * @param analysisSubmission The {@link AnalysisSubmission} to check.
+	 * @return The {@link GalaxyWorkflowStatus} of the submission's workflow.
+	 */
+	private GalaxyWorkflowStatus getWorkflowStatus(AnalysisSubmission analysisSubmission) {
+		try {
+			return analysisExecutionService.getWorkflowStatus(analysisSubmission);
+		} catch (ExecutionManagerException e) {
+			throw new CompletionException(e);
+		}
+	}
+
+	/**
+	 * Save {@link AnalysisSubmission}s that changed state while being
+	 * monitored in a single batch. If the batch can't be saved, the
+	 * submissions are saved one at a time so one bad submission doesn't stop
+	 * the others from moving on.
+	 *
+	 * @param analysisSubmissions The {@link AnalysisSubmission}s to save.
+	 * @return The saved {@link AnalysisSubmission}s.
+	 */
+	private Iterable<AnalysisSubmission> saveStateChanges(List<AnalysisSubmission> analysisSubmissions) {
+		if (analysisSubmissions.isEmpty()) {
+			return analysisSubmissions;
+		}
+
+		try {
+			return analysisSubmissionRepository.save(analysisSubmissions);
+		} catch (RuntimeException e) {
+			logger.warn("Could not save " + analysisSubmissions.size()
+					+ " analysis submission states together, saving them one at a time", e);
+			List<AnalysisSubmission> saved = new ArrayList<>();
+			for (AnalysisSubmission analysisSubmission : analysisSubmissions) {
+				try {
+					saved.add(analysisSubmissionRepository.save(analysisSubmission));
+				} catch (RuntimeException ex) {
+					logger.error("Could not save state of " + analysisSubmission, ex);
+				}
+			}
+			return saved;
 		}
 	}
 
@@ -205,19 +370,23 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 		synchronized (transferAnalysesResultsLock) {
 			logger.trace("Running transferAnalysesResults");
 
-			List<AnalysisSubmission> analysisSubmissions = analysisSubmissionRepository.findByAnalysisState(
-					AnalysisState.FINISHED_RUNNING);
+			List<AnalysisSubmission> analysisSubmissions = leaseService.claim(AnalysisState.FINISHED_RUNNING);
 
 			Set<Future<AnalysisSubmission>> submissions = Sets.newHashSet();
 
-			for (AnalysisSubmission analysisSubmission : analysisSubmissions) {
-				logger.debug("Transferring results for " + analysisSubmission);
+			try {
+				for (AnalysisSubmission analysisSubmission : analysisSubmissions) {
+					logger.debug("Transferring results for " + analysisSubmission);
 
-				try {
-					submissions.add(analysisExecutionService.transferAnalysisResults(analysisSubmission));
-				} catch (ExecutionManagerException | IOException | IridaWorkflowException e) {
-					logger.error("Error transferring submission " + analysisSubmission, e);
+					try {
+						submissions.add(hold(analysisSubmission,
+								analysisExecutionService.transferAnalysisResults(analysisSubmission)));
+					} catch (ExecutionManagerException | IOException | IridaWorkflowException e) {
+						logger.error("Error transferring submission " + analysisSubmission, e);
+					}
 				}
+			} finally {
+				leaseService.release(analysisSubmissions);
 			}
 
 			return submissions;
@@ -232,14 +401,18 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 		synchronized (postProcessingLock) {
 			logger.trace("Running postProcessResults");
 
-			List<AnalysisSubmission> analysisSubmissions = analysisSubmissionRepository
-					.findByAnalysisState(AnalysisState.TRANSFERRED);
+			List<AnalysisSubmission> analysisSubmissions = leaseService.claim(AnalysisState.TRANSFERRED);
 
 			Set<Future<AnalysisSubmission>> submissions = Sets.newHashSet();
 
-			for (AnalysisSubmission analysisSubmission : analysisSubmissions) {
-				logger.debug("Post processing results for " + analysisSubmission);
-				submissions.add(analysisExecutionService.postProcessResults(analysisSubmission));
+			try {
+				for (AnalysisSubmission analysisSubmission : analysisSubmissions) {
+					logger.debug("Post processing results for " + analysisSubmission);
+					submissions.add(hold(analysisSubmission,
+							analysisExecutionService.postProcessResults(analysisSubmission)));
+				}
+			} finally {
+				leaseService.release(analysisSubmissions);
 			}
 
 			return submissions;
@@ -247,42 +420,67 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 	}
 
 	/**
-	 * Handles checking the status of a workflow in an execution manager.
+	 * Handles checking the status of a workflow in an execution manager. The
+	 * progress of a running workflow is only written when it's different from
+	 * the progress already recorded for the submission, by this node or any
+	 * other, and a workflow that keeps not changing is checked less often.
 	 *
 	 * @param workflowStatus     The status of the workflow.
 	 * @param analysisSubmission The {@link AnalysisSubmission}.
-	 * @return A {@link Future} with an {@link AnalysisSubmission} for this
-	 * submission.
+	 * @return True if the state of the {@link AnalysisSubmission} changed and
+	 * it needs to be saved, false if it's still running.
 	 */
-	private Future<AnalysisSubmission> handleWorkflowStatus(GalaxyWorkflowStatus workflowStatus,
-			AnalysisSubmission analysisSubmission) {
-		Future<AnalysisSubmission> returnedSubmission;
-
+	private boolean handleWorkflowStatus(GalaxyWorkflowStatus workflowStatus, AnalysisSubmission analysisSubmission) {
 		// Immediately switch overall workflow state to "ERROR" if an error occurred, even if some tools are still running.
 		if (workflowStatus.errorOccurred()) {
 			logger.error("Workflow for analysis " + analysisSubmission + " in error state " + workflowStatus);
 			analysisSubmission.setAnalysisState(AnalysisState.ERROR);
-			returnedSubmission = new AsyncResult<>(analysisSubmissionRepository.save(analysisSubmission));
-			handleJobErrors(analysisSubmission);
+			return true;
 		} else if (workflowStatus.completedSuccessfully()) {
 			logger.debug("Analysis finished " + analysisSubmission);
 
 			analysisSubmission.setAnalysisState(AnalysisState.FINISHED_RUNNING);
-			returnedSubmission = new AsyncResult<>(analysisSubmissionRepository.save(analysisSubmission));
+			return true;
 		} else if (workflowStatus.isRunning()) {
 			logger.trace("Workflow for analysis " + analysisSubmission + " is running: proportion complete "
 					+ workflowStatus.getProportionComplete());
-			returnedSubmission = new AsyncResult<>(analysisSubmission);
+
+			MonitorState monitorState = monitorStates.computeIfAbsent(analysisSubmission.getId(),
+					id -> new MonitorState());
+			if (isProgressRecorded(workflowStatus, analysisSubmission)) {
+				monitorState.unchanged(maxSkippedChecks);
+				return false;
+			}
+			monitorState.changed();
+
+			// record the progress so it can be displayed without asking the execution manager
+			Date progressUpdatedDate = new Date();
+			analysisSubmissionRepository.updateProgress(analysisSubmission.getId(),
+					workflowStatus.getCompleteWorkflowItems(), workflowStatus.getTotalWorkflowItems(),
+					progressUpdatedDate);
+			analysisSubmission.setProgress(workflowStatus.getCompleteWorkflowItems(),
+					workflowStatus.getTotalWorkflowItems(), progressUpdatedDate);
+			return false;
 		} else {
 			// If one of the above combinations did not match, assume an error occurred.
 			logger.error("Workflow for analysis " + analysisSubmission
 					+ " is neither complete, in error, or still running. Switching to error state " + workflowStatus);
 			analysisSubmission.setAnalysisState(AnalysisState.ERROR);
-			returnedSubmission = new AsyncResult<>(analysisSubmissionRepository.save(analysisSubmission));
-			handleJobErrors(analysisSubmission);
+			return true;
 		}
+	}
 
-		return returnedSubmission;
+	/**
+	 * Whether the progress of a workflow is already recorded for an
+	 * {@link AnalysisSubmission}.
+	 *
+	 * @param workflowStatus     The status of the workflow.
+	 * @param analysisSubmission The {@link AnalysisSubmission}.
+	 * @return True if the recorded progress matches the workflow status.
+	 */
+	private boolean isProgressRecorded(GalaxyWorkflowStatus workflowStatus, AnalysisSubmission analysisSubmission) {
+		return Objects.equals(workflowStatus.getCompleteWorkflowItems(), analysisSubmission.getCompleteWorkflowItems())
+				&& Objects.equals(workflowStatus.getTotalWorkflowItems(), analysisSubmission.getTotalWorkflowItems());
 	}
 
 	/**
@@ -293,29 +491,88 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 		synchronized (cleanupAnalysesResultsLock) {
 			logger.trace("Running cleanupAnalysisSubmissions");
 
-			List<AnalysisSubmission> analysisSubmissions = analysisSubmissionRepository.findByAnalysisState(
-					AnalysisState.COMPLETED, AnalysisCleanedState.NOT_CLEANED);
-			analysisSubmissions.addAll(analysisSubmissionRepository.findByAnalysisState(AnalysisState.ERROR,
-					AnalysisCleanedState.NOT_CLEANED));
+			List<AnalysisSubmission> analysisSubmissions = new ArrayList<>(leaseService.claim(
+					AnalysisState.COMPLETED, AnalysisCleanedState.NOT_CLEANED));
+			analysisSubmissions.addAll(leaseService.claim(AnalysisState.ERROR, AnalysisCleanedState.NOT_CLEANED));
 
 			Set<Future<AnalysisSubmission>> cleanedSubmissions = Sets.newHashSet();
 
-			for (AnalysisSubmission submission : analysisSubmissions) {
-				if (AnalysisCleanedState.NOT_CLEANED.equals(submission.getAnalysisCleanedState())
-						&& cleanupCondition.shouldCleanupSubmission(submission)) {
-					logger.trace("Attempting to clean up submission " + submission);
-
-					try {
-						Future<AnalysisSubmission> cleanedSubmissionFuture = analysisExecutionService.cleanupSubmission(
-								submission);
-						cleanedSubmissions.add(cleanedSubmissionFuture);
-					} catch (ExecutionManagerException e) {
-						logger.error("Error cleaning submission " + submission, e);
+			try {
+				for (AnalysisSubmission submission : analysisSubmissions) {
+					if (AnalysisCleanedState.NOT_CLEANED.equals(submission.getAnalysisCleanedState())
+							&& cleanupCondition.shouldCleanupSubmission(submission)) {
+						logger.trace("Attempting to clean up submission " + submission);
+
+						try {
+							Future<AnalysisSubmission> cleanedSubmissionFuture = analysisExecutionService.cleanupSubmission(
+									submission);
+							cleanedSubmissions.add(hold(submission, cleanedSubmissionFuture));
+						} catch (ExecutionManagerException e) {
+							logger.error("Error cleaning submission " + submission, e);
+						}
 					}
 				}
+			} finally {
+				leaseService.release(analysisSubmissions);
 			}
 
 			return cleanedSubmissions;
 		}
 	}
+
+	/**
+	 * Keep the claim on an {@link AnalysisSubmission} until the work started
+	 * on it finishes.
+	 *
+	 * @param analysisSubmission The claimed {@link AnalysisSubmission}.
+	 * @param work               The work started on the submission.
+	 * @return The work.
+	 */
+	private Future<AnalysisSubmission> hold(AnalysisSubmission analysisSubmission, Future<AnalysisSubmission> work) {
+		leaseService.hold(analysisSubmission, work);
+		return work;
+	}
+
+	/**
+	 * How many monitoring passes to skip before checking a running workflow
+	 * again.
+	 */
+	private static class MonitorState {
+		private int unchangedChecks = 0;
+		private int checksToSkip = 0;
+
+		/**
+		 * Record that the workflow was checked and had changed, so it's
+		 * checked on every pass again.
+		 */
+		public void changed() {
+			unchangedChecks = 0;
+			checksToSkip = 0;
+		}
+
+		/**
+		 * Record that the workflow was checked and hadn't changed. Each
+		 * unchanged check skips one more pass before the next check, up to
+		 * the given maximum.
+		 *
+		 * @param maxSkippedChecks The most passes to skip.
+		 */
+		public void unchanged(int maxSkippedChecks) {
+			unchangedChecks++;
+			checksToSkip = Math.min(unchangedChecks, maxSkippedChecks);
+		}
+
+		/**
+		 * Whether to skip checking the workflow on this pass.
+		 *
+		 * @return True if the workflow shouldn't be checked on this pass.
+		 */
+		public boolean skip() {
+			if (checksToSkip > 0) {
+				checksToSkip--;
+				return true;
+			}
+			return false;
+		}
+	}
 }
@@ -1,5 +1,11 @@
 package ca.corefacility.bioinformatics.irida.service.impl;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 import javax.transaction.Transactional;
 import javax.validation.Validator;
 
@@ -7,11 +13,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 
+import com.google.common.collect.ImmutableMap;
+
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.Analysis;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisOutputFile;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCSummary;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.AnalysisOutputFileRepository;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.AnalysisRepository;
 import ca.corefacility.bioinformatics.irida.service.AnalysisService;
@@ -68,4 +77,21 @@ public class AnalysisServiceImpl extends CRUDServiceImpl<Long, Analysis> impleme
 		return analysisRepository.findFastqcAnalysisForSequenceFile(fileWithId);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_TECHNICIAN') or hasPermission(#objects, 'canReadSequencingObject')")
+	@Override
+	public Map<Long, FastQCSummary> getFastQCSummariesForSequencingObjects(Collection<SequencingObject> objects) {
+		Set<Long> fileIds = objects.stream().flatMap(o -> o.getFiles().stream()).map(SequenceFile::getId)
+				.collect(Collectors.toSet());
+
+		// an empty IN clause isn't valid in every database
+		if (fileIds.isEmpty()) {
+			return ImmutableMap.of();
+		}
+
+		return analysisRepository.findFastqcSummariesForSequenceFiles(fileIds).stream()
+				.collect(Collectors.toMap(FastQCSummary::getSequenceFileId, Function.identity()));
+	}
 }
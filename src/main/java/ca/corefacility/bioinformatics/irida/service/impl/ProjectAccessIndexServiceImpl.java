@@ -0,0 +1,210 @@
+package ca.corefacility.bioinformatics.irida.service.impl;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import ca.corefacility.bioinformatics.irida.model.enums.ProjectRole;
+import ca.corefacility.bioinformatics.irida.model.joins.Join;
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.project.ProjectUserAccess;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupJoin;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupProjectJoin;
+import ca.corefacility.bioinformatics.irida.repositories.ProjectRepository;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectUserAccessRepository;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectUserJoinRepository;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.UserGroupProjectJoinRepository;
+import ca.corefacility.bioinformatics.irida.repositories.user.UserGroupJoinRepository;
+import ca.corefacility.bioinformatics.irida.service.ProjectAccessIndexService;
+
+/**
+ * Implementation of {@link ProjectAccessIndexService} that recomputes the index
+ * entries for a single project or user from the membership tables. When any
+ * entry changed, all of the entries for that project or user are deleted and
+ * inserted again in the same transaction, so reindexing is idempotent and
+ * concurrent reindexing can't leave duplicate or partial entries.
+ */
+@Service
+public class ProjectAccessIndexServiceImpl implements ProjectAccessIndexService {
+	private static final Logger logger = LoggerFactory.getLogger(ProjectAccessIndexServiceImpl.class);
+
+	private final ProjectUserAccessRepository accessRepository;
+	private final ProjectRepository projectRepository;
+	private final ProjectUserJoinRepository pujRepository;
+	private final UserGroupProjectJoinRepository ugpjRepository;
+	private final UserGroupJoinRepository ugRepository;
+
+	@Autowired
+	public ProjectAccessIndexServiceImpl(final ProjectUserAccessRepository accessRepository,
+			final ProjectRepository projectRepository, final ProjectUserJoinRepository pujRepository,
+			final UserGroupProjectJoinRepository ugpjRepository, final UserGroupJoinRepository ugRepository) {
+		this.accessRepository = accessRepository;
+		this.projectRepository = projectRepository;
+		this.pujRepository = pujRepository;
+		this.ugpjRepository = ugpjRepository;
+		this.ugRepository = ugRepository;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	public void reindexProject(final Project project) {
+		reindexProjectEntries(project);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	public void reindexUser(final User user) {
+		final Map<Long, ProjectUserAccess> expected = new HashMap<>();
+
+		for (final Join<Project, User> j : pujRepository.getProjectsForUser(user)) {
+			final Project project = j.getSubject();
+			addAccess(expected, project.getId(), user, project, ((ProjectUserJoin) j).getProjectRole(), false);
+		}
+
+		for (final UserGroupProjectJoin j : ugpjRepository.findProjectsByUser(user)) {
+			final Project project = j.getSubject();
+			addAccess(expected, project.getId(), user, project, j.getProjectRole(), true);
+		}
+
+		final int changed = replaceEntries(accessRepository.getAccessForUser(user), expected,
+				a -> a.getProject().getId(), () -> accessRepository.deleteAccessForUser(user));
+		logger.trace("Updated " + changed + " project access entries for user [" + user.getUsername() + "]");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	public int rebuild() {
+		int changed = 0;
+		for (final Project project : projectRepository.findAll()) {
+			changed += reindexProjectEntries(project);
+		}
+
+		if (changed > 0) {
+			logger.warn("Corrected " + changed + " project access entries that were missing or out of date.");
+		} else {
+			logger.debug("Project access entries are consistent with project membership.");
+		}
+
+		return changed;
+	}
+
+	/**
+	 * Recompute the index entries for all users on a {@link Project}.
+	 *
+	 * @param project
+	 *            the {@link Project} to recompute
+	 * @return the number of entries that were added, changed or removed
+	 */
+	private int reindexProjectEntries(final Project project) {
+		final Map<Long, ProjectUserAccess> expected = new HashMap<>();
+
+		for (final Join<Project, User> j : pujRepository.getUsersForProject(project)) {
+			final User user = j.getObject();
+			addAccess(expected, user.getId(), user, project, ((ProjectUserJoin) j).getProjectRole(), false);
+		}
+
+		for (final UserGroupProjectJoin g : ugpjRepository.findGroupsByProject(project)) {
+			for (final UserGroupJoin member : ugRepository.findUsersInGroup(g.getObject())) {
+				final User user = member.getSubject();
+				addAccess(expected, user.getId(), user, project, g.getProjectRole(), true);
+			}
+		}
+
+		final int changed = replaceEntries(accessRepository.getAccessForProject(project), expected,
+				a -> a.getUser().getId(), () -> accessRepository.deleteAccessForProject(project));
+		logger.trace("Updated " + changed + " project access entries for project [" + project.getId() + "]");
+
+		return changed;
+	}
+
+	/**
+	 * Add a user's access to a project to a set of index entries. If the user
+	 * already has access, the entry keeps the highest role, and is only marked
+	 * as via a group if the user has no direct membership.
+	 *
+	 * @param entries
+	 *            the entries being computed
+	 * @param key
+	 *            the key for the entry
+	 * @param user
+	 *            the {@link User}
+	 * @param project
+	 *            the {@link Project}
+	 * @param projectRole
+	 *            the role the user has from this membership
+	 * @param viaGroup
+	 *            whether this membership is from a group
+	 */
+	private static void addAccess(final Map<Long, ProjectUserAccess> entries, final Long key, final User user,
+			final Project project, final ProjectRole projectRole, final boolean viaGroup) {
+		final ProjectUserAccess existing = entries.get(key);
+		if (existing == null) {
+			entries.put(key, new ProjectUserAccess(user, project, projectRole, viaGroup));
+		} else {
+			if (projectRole == ProjectRole.PROJECT_OWNER) {
+				existing.setProjectRole(ProjectRole.PROJECT_OWNER);
+			}
+			if (!viaGroup) {
+				existing.setViaGroup(false);
+			}
+		}
+	}
+
+	/**
+	 * Bring the stored index entries in line with the expected entries. If any
+	 * entry is missing, out of date or no longer applies, all of the stored
+	 * entries are deleted and the expected entries are inserted. Loaded
+	 * entries are never modified, so the flush can't update a row that the
+	 * delete already removed.
+	 *
+	 * @param existing
+	 *            the currently stored entries
+	 * @param expected
+	 *            the expected entries, by key
+	 * @param key
+	 *            function to get the key of a stored entry
+	 * @param deleteExisting
+	 *            deletes all of the currently stored entries
+	 * @return the number of entries that were added, changed or removed
+	 */
+	private int replaceEntries(final Collection<ProjectUserAccess> existing,
+			final Map<Long, ProjectUserAccess> expected, final Function<ProjectUserAccess, Long> key,
+			final Runnable deleteExisting) {
+		final Map<Long, ProjectUserAccess> missing = new HashMap<>(expected);
+		int changed = 0;
+
+		for (final ProjectUserAccess access : existing) {
+			final ProjectUserAccess update = missing.remove(key.apply(access));
+			if (update == null || access.getProjectRole() != update.getProjectRole()
+					|| access.isViaGroup() != update.isViaGroup()) {
+				changed++;
+			}
+		}
+		changed += missing.size();
+
+		if (changed > 0) {
+			deleteExisting.run();
+			accessRepository.save(expected.values());
+		}
+
+		return changed;
+	}
+}
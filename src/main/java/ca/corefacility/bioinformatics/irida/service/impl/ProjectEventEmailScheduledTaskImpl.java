@@ -13,6 +13,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.support.CronSequenceGenerator;
 import org.springframework.stereotype.Component;
 
+import ca.corefacility.bioinformatics.irida.events.ProjectEventQueue;
 import ca.corefacility.bioinformatics.irida.model.event.ProjectEvent;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
@@ -40,17 +41,20 @@ public class ProjectEventEmailScheduledTaskImpl implements ProjectEventEmailSche
 
 	ProjectService projectService;
 
+	ProjectEventQueue eventQueue;
+
 	@Value("${irida.scheduled.subscription.cron}")
 	private String scheduledCronString = "0 0 0 * * *";
 
 	@Autowired
 	public ProjectEventEmailScheduledTaskImpl(UserService userService, ProjectEventService eventService,
-			ProjectService projectService, EmailController emailController) {
+			ProjectService projectService, EmailController emailController, ProjectEventQueue eventQueue) {
 		super();
 		this.userService = userService;
 		this.eventService = eventService;
 		this.projectService = projectService;
 		this.emailController = emailController;
+		this.eventQueue = eventQueue;
 	}
 
 	/**
@@ -59,6 +63,10 @@ public class ProjectEventEmailScheduledTaskImpl implements ProjectEventEmailSche
 	@Override
 	public void emailUserTasks() {
 		if (emailController.isMailConfigured()) {
+			// write any queued events first so they're in this email instead
+			// of falling between this run and the next
+			eventQueue.flush();
+
 			logger.trace("Checking for users with subscriptions");
 			List<User> usersWithEmailSubscriptions = userService.getUsersWithEmailSubscriptions();
 
@@ -51,6 +51,7 @@ import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.RelatedProjectJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.project.ProjectReferenceFileJoin;
+import ca.corefacility.bioinformatics.irida.model.project.ProjectUserAccess;
 import ca.corefacility.bioinformatics.irida.model.project.ReferenceFile;
 import ca.corefacility.bioinformatics.irida.model.remote.RemoteStatus.SyncStatus;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
@@ -74,6 +75,7 @@ import ca.corefacility.bioinformatics.irida.repositories.referencefile.Reference
 import ca.corefacility.bioinformatics.irida.repositories.sample.SampleRepository;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequencingObjectRepository;
 import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
+import ca.corefacility.bioinformatics.irida.service.ProjectAccessIndexService;
 import ca.corefacility.bioinformatics.irida.service.ProjectService;
 
 import com.google.common.collect.ImmutableList;
@@ -105,6 +107,7 @@ public class ProjectServiceImpl extends CRUDServiceImpl<Long, Project> implement
 	private final ProjectAnalysisSubmissionJoinRepository pasRepository;
 	private final SequencingObjectRepository sequencingObjectRepository;
 	private final ProjectRepository projectRepository;
+	private final ProjectAccessIndexService accessIndexService;
 
 	@Autowired
 	public ProjectServiceImpl(ProjectRepository projectRepository, SampleRepository sampleRepository,
@@ -113,7 +116,8 @@ public class ProjectServiceImpl extends CRUDServiceImpl<Long, Project> implement
 			ReferenceFileRepository referenceFileRepository, ProjectReferenceFileJoinRepository prfjRepository,
 			final UserGroupProjectJoinRepository ugpjRepository, SampleSequencingObjectJoinRepository ssoRepository,
 			ProjectAnalysisSubmissionJoinRepository pasRepository,
-			SequencingObjectRepository sequencingObjectRepository, Validator validator) {
+			SequencingObjectRepository sequencingObjectRepository, ProjectAccessIndexService accessIndexService,
+			Validator validator) {
 		super(projectRepository, validator, Project.class);
 		this.projectRepository = projectRepository;
 		this.sampleRepository = sampleRepository;
@@ -127,6 +131,7 @@ public class ProjectServiceImpl extends CRUDServiceImpl<Long, Project> implement
 		this.ssoRepository = ssoRepository;
 		this.pasRepository = pasRepository;
 		this.sequencingObjectRepository = sequencingObjectRepository;
+		this.accessIndexService = accessIndexService;
 	}
 
 	/**
@@ -248,6 +253,7 @@ public class ProjectServiceImpl extends CRUDServiceImpl<Long, Project> implement
 	public Join<Project, User> addUserToProject(Project project, User user, ProjectRole role) {
 		try {
 			ProjectUserJoin join = pujRepository.save(new ProjectUserJoin(project, user, role));
+			accessIndexService.reindexProject(project);
 			return join;
 		} catch (DataIntegrityViolationException e) {
 			throw new EntityExistsException("The user [" + user.getId() + "] already belongs to project ["
@@ -268,6 +274,7 @@ public class ProjectServiceImpl extends CRUDServiceImpl<Long, Project> implement
 			throw new ProjectWithoutOwnerException("Removing this user would leave the project without an owner");
 		}
 		pujRepository.delete(projectJoinForUser);
+		accessIndexService.reindexProject(project);
 	}
 	
 
@@ -284,6 +291,7 @@ public class ProjectServiceImpl extends CRUDServiceImpl<Long, Project> implement
 			throw new ProjectWithoutOwnerException("Removing this user group would leave the project without an owner.");
 		}
 		ugpjRepository.delete(j);
+		accessIndexService.reindexProject(project);
 	}
 
 	/**
@@ -306,7 +314,9 @@ public class ProjectServiceImpl extends CRUDServiceImpl<Long, Project> implement
 		}
 
 		projectJoinForUser.setProjectRole(projectRole);
-		return pujRepository.save(projectJoinForUser);
+		final ProjectUserJoin join = pujRepository.save(projectJoinForUser);
+		accessIndexService.reindexProject(project);
+		return join;
 	}
 	
 	/**
@@ -327,7 +337,9 @@ public class ProjectServiceImpl extends CRUDServiceImpl<Long, Project> implement
 			throw new ProjectWithoutOwnerException("This role change would leave the project without an owner");
 		}
 		j.setProjectRole(projectRole);
-		return ugpjRepository.save(j);
+		final UserGroupProjectJoin join = ugpjRepository.save(j);
+		accessIndexService.reindexProject(project);
+		return join;
 	}
 
 	private boolean allowRoleChange(final Project project, final ProjectRole projectRoleToChange) {
@@ -664,10 +676,13 @@ public class ProjectServiceImpl extends CRUDServiceImpl<Long, Project> implement
 	 * {@inheritDoc}
 	 */
 	@Override
+	@Transactional
 	@LaunchesProjectEvent(UserGroupRoleSetProjectEvent.class)
 	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#project, 'canManageLocalProjectSettings')")
 	public Join<Project, UserGroup> addUserGroupToProject(final Project project, final UserGroup userGroup, final ProjectRole role) {
-		return ugpjRepository.save(new UserGroupProjectJoin(project, userGroup, role));
+		final UserGroupProjectJoin join = ugpjRepository.save(new UserGroupProjectJoin(project, userGroup, role));
+		accessIndexService.reindexProject(project);
+		return join;
 	}
 	
 	/**
@@ -875,30 +890,9 @@ public class ProjectServiceImpl extends CRUDServiceImpl<Long, Project> implement
 			
 			/**
 			 * This {@link Predicate} filters out {@link Project}s for the
-			 * specific user where they are assigned individually as a member.
-			 * 
-			 * @param root
-			 *            the root of the query
-			 * @param query
-			 *            the query
-			 * @param cb
-			 *            the builder
-			 * @return a {@link Predicate} that filters {@link Project}s where
-			 *         users are individually assigned.
-			 */
-			private Predicate individualProjectMembership(final Root<Project> root, final CriteriaQuery<?> query,
-					final CriteriaBuilder cb) {
-				final Subquery<Long> userMemberSelect = query.subquery(Long.class);
-				final Root<ProjectUserJoin> userMemberJoin = userMemberSelect.from(ProjectUserJoin.class);
-				userMemberSelect.select(userMemberJoin.get("project").get("id"))
-						.where(cb.equal(userMemberJoin.get("user"), user));
-				return cb.in(root.get("id")).value(userMemberSelect);
-			}
-			
-			/**
-			 * This {@link Predicate} filters out {@link Project}s for the
-			 * specific user where they are assigned transitively through a
-			 * {@link UserGroup}.
+			 * specific user where they are assigned individually as a member or
+			 * transitively through a {@link UserGroup}, using the
+			 * {@link ProjectUserAccess} index.
 			 * 
 			 * @param root
 			 *            the root of the query
@@ -906,17 +900,15 @@ public class ProjectServiceImpl extends CRUDServiceImpl<Long, Project> implement
 			 *            the query
 			 * @param cb
 			 *            the builder
-			 * @return a {@link Predicate} that filters {@link Project}s where
-			 *         users are assigned transitively through {@link UserGroup}
-			 *         .
+			 * @return a {@link Predicate} that filters {@link Project}s the user
+			 *         can read.
 			 */
-			private Predicate groupProjectMembership(final Root<Project> root, final CriteriaQuery<?> query,
+			private Predicate projectMembership(final Root<Project> root, final CriteriaQuery<?> query,
 					final CriteriaBuilder cb) {
-				final Subquery<Long> groupMemberSelect = query.subquery(Long.class);
-				final Root<UserGroupProjectJoin> groupMemberJoin = groupMemberSelect.from(UserGroupProjectJoin.class);
-				groupMemberSelect.select(groupMemberJoin.get("project").get("id"))
-						.where(cb.equal(groupMemberJoin.join("userGroup").join("users").get("user"), user));
-				return cb.in(root.get("id")).value(groupMemberSelect);
+				final Subquery<Long> accessSelect = query.subquery(Long.class);
+				final Root<ProjectUserAccess> access = accessSelect.from(ProjectUserAccess.class);
+				accessSelect.select(access.get("project").get("id")).where(cb.equal(access.get("user"), user));
+				return cb.in(root.get("id")).value(accessSelect);
 			}
 			
 			/**
@@ -928,9 +920,8 @@ public class ProjectServiceImpl extends CRUDServiceImpl<Long, Project> implement
 				final Predicate allFieldsPredicate = allFieldsPredicate(root, query, cb);
 				final Predicate specificFiltersPredicate = specificFiltersPredicate(root, query, cb);
 				
-				final Predicate projectMember = cb.or(individualProjectMembership(root, query, cb), groupProjectMembership(root, query, cb));
 				if (user != null) {
-					return cb.and(allFieldsPredicate, specificFiltersPredicate, projectMember);
+					return cb.and(allFieldsPredicate, specificFiltersPredicate, projectMembership(root, query, cb));
 				} else {
 					return cb.and(allFieldsPredicate, specificFiltersPredicate);
 				}
@@ -0,0 +1,394 @@
+package ca.corefacility.bioinformatics.irida.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.codec.binary.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
+import ca.corefacility.bioinformatics.irida.exceptions.InvalidPropertyException;
+import ca.corefacility.bioinformatics.irida.exceptions.SequenceFileUploadOffsetException;
+import ca.corefacility.bioinformatics.irida.exceptions.StorageException;
+import ca.corefacility.bioinformatics.irida.model.run.SequencingRun;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFilePair;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFileUpload;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
+import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileUploadRepository;
+import ca.corefacility.bioinformatics.irida.service.SequenceFileUploadService;
+import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
+
+/**
+ * Implementation of {@link SequenceFileUploadService} that stages uploads in a
+ * directory under the sequence file base directory. Since the staging area is
+ * on the same filesystem as the final storage area, completing an upload only
+ * renames the staged file into place. The checksum of each upload is kept in
+ * memory while chunks are written, and is recalculated from the staged bytes
+ * if the server was restarted part way through an upload.
+ */
+@Service
+public class SequenceFileUploadServiceImpl implements SequenceFileUploadService {
+	private static final Logger logger = LoggerFactory.getLogger(SequenceFileUploadServiceImpl.class);
+
+	private static final String SHA_256 = "SHA-256";
+	private static final String UPLOAD_DIRECTORY = "uploads";
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final SequenceFileUploadRepository uploadRepository;
+	private final SequencingObjectService sequencingObjectService;
+	private final Path uploadDirectory;
+	private final long expiry;
+
+	private final Map<Long, UploadDigest> digests = new ConcurrentHashMap<>();
+
+	@Autowired
+	public SequenceFileUploadServiceImpl(SequenceFileUploadRepository uploadRepository,
+			SequencingObjectService sequencingObjectService,
+			@Qualifier("sequenceFileBaseDirectory") Path sequenceFileBaseDirectory,
+			@Value("${sequence.file.upload.expiry:86400000}") long expiry) {
+		this.uploadRepository = uploadRepository;
+		this.sequencingObjectService = sequencingObjectService;
+		this.uploadDirectory = sequenceFileBaseDirectory.resolve(UPLOAD_DIRECTORY);
+		this.expiry = expiry;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	@PreAuthorize("hasPermission(#sample, 'canUpdateSample')")
+	public SequenceFileUpload createUpload(Sample sample, String fileName, Long fileSize) throws StorageException {
+		if (fileSize != null && fileSize < 0) {
+			throw new InvalidPropertyException("File size must not be negative");
+		}
+
+		SequenceFileUpload upload = uploadRepository.save(new SequenceFileUpload(sample, fileName, fileSize));
+
+		Path staged = getStagedFile(upload);
+		try {
+			Files.createDirectories(staged.getParent());
+			Files.createFile(staged);
+		} catch (IOException e) {
+			throw new StorageException("Could not stage upload at " + staged, e);
+		}
+		logger.trace("Staging upload [" + upload.getId() + "] at " + staged);
+
+		return upload;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@PreAuthorize("hasPermission(#sample, 'canUpdateSample')")
+	public SequenceFileUpload readUploadForSample(Sample sample, Long uploadId) throws EntityNotFoundException {
+		SequenceFileUpload upload = uploadRepository.findOne(uploadId);
+		if (upload == null || !upload.getSample().getId().equals(sample.getId())) {
+			throw new EntityNotFoundException("No upload with id [" + uploadId + "] for sample [" + sample.getId()
+					+ "]");
+		}
+
+		return upload;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@PreAuthorize("hasPermission(#sample, 'canUpdateSample')")
+	public long getCommittedOffset(Sample sample, Long uploadId) throws IOException {
+		return Files.size(getStagedFile(readUploadForSample(sample, uploadId)));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@PreAuthorize("hasPermission(#sample, 'canUpdateSample')")
+	public long writeChunk(Sample sample, Long uploadId, long offset, Long length, InputStream chunk)
+			throws IOException, SequenceFileUploadOffsetException, InvalidPropertyException {
+		SequenceFileUpload upload = readUploadForSample(sample, uploadId);
+		Path staged = getStagedFile(upload);
+		Long fileSize = upload.getFileSize();
+
+		UploadDigest state = digests.computeIfAbsent(uploadId, k -> new UploadDigest());
+		synchronized (state) {
+			try (FileChannel channel = FileChannel.open(staged, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+				final long committed = channel.size();
+				if (offset != committed) {
+					throw new SequenceFileUploadOffsetException("Chunk for upload [" + uploadId + "] starts at byte "
+							+ offset + ", but " + committed + " bytes are committed", committed);
+				}
+
+				MessageDigest digest = state.getDigest(staged, committed);
+				byte[] buffer = new byte[BUFFER_SIZE];
+				long position = committed;
+				try {
+					int read;
+					while ((read = chunk.read(buffer)) != -1) {
+						if (length != null && position + read - committed > length) {
+							throw new InvalidPropertyException("Chunk for upload [" + uploadId
+									+ "] is longer than its length of " + length + " bytes");
+						}
+						if (fileSize != null && position + read > fileSize) {
+							throw new SequenceFileUploadOffsetException("Chunk for upload [" + uploadId
+									+ "] is larger than the declared file size of " + fileSize + " bytes", position);
+						}
+
+						ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+						while (bytes.hasRemaining()) {
+							channel.write(bytes);
+						}
+						digest.update(buffer, 0, read);
+						position += read;
+					}
+
+					if (length != null && position - committed != length) {
+						throw new InvalidPropertyException("Chunk for upload [" + uploadId + "] has "
+								+ (position - committed) + " of its " + length + " bytes");
+					}
+				} catch (InvalidPropertyException e) {
+					// the chunk doesn't match its range, so none of its bytes
+					// can be trusted
+					channel.truncate(committed);
+					position = committed;
+					digest = state.getDigest(staged, committed);
+					logger.debug("Upload [" + uploadId + "] rolled back to byte " + committed, e);
+					throw e;
+				} catch (IOException | RuntimeException e) {
+					// drop any partially written buffer so the staged bytes
+					// always match the digest
+					channel.truncate(position);
+					logger.debug("Upload [" + uploadId + "] interrupted at byte " + position, e);
+					throw e;
+				} finally {
+					channel.force(false);
+					state.set(digest, position);
+				}
+
+				logger.trace("Committed " + (position - committed) + " bytes to upload [" + uploadId + "]");
+				return position;
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	@PreAuthorize("hasPermission(#sample, 'canUpdateSample')")
+	public SampleSequencingObjectJoin completeUploads(Sample sample, List<Long> uploadIds,
+			SequencingRun sequencingRun) throws IOException, SequenceFileUploadOffsetException {
+		if (uploadIds == null || uploadIds.isEmpty() || uploadIds.size() > 2) {
+			throw new InvalidPropertyException("Either 1 upload or a pair of 2 uploads must be completed");
+		}
+
+		List<SequenceFileUpload> uploads = new ArrayList<>();
+		List<SequenceFile> files = new ArrayList<>();
+		for (Long uploadId : uploadIds) {
+			SequenceFileUpload upload = readUploadForSample(sample, uploadId);
+			Path staged = getStagedFile(upload);
+			long size = Files.size(staged);
+			if (upload.getFileSize() != null && size != upload.getFileSize()) {
+				throw new SequenceFileUploadOffsetException("Upload [" + uploadId + "] has " + size + " of "
+						+ upload.getFileSize() + " bytes", size);
+			}
+
+			SequenceFile file = new SequenceFile(staged);
+			UploadDigest state = digests.computeIfAbsent(uploadId, k -> new UploadDigest());
+			synchronized (state) {
+				file.recordCalculatedUploadSha256(Hex.encodeHexString(state.getDigest(staged, size).digest()));
+			}
+
+			uploads.add(upload);
+			files.add(file);
+		}
+
+		SequencingObject sequencingObject;
+		if (files.size() == 1) {
+			sequencingObject = new SingleEndSequenceFile(files.get(0));
+		} else {
+			sequencingObject = new SequenceFilePair(files.get(0), files.get(1));
+		}
+
+		if (sequencingRun != null) {
+			sequencingObject.setSequencingRun(sequencingRun);
+		}
+
+		// the repository moves the staged files into their final directory
+		SampleSequencingObjectJoin join = sequencingObjectService.createSequencingObjectInSample(sequencingObject,
+				sample);
+
+		for (SequenceFileUpload upload : uploads) {
+			removeUpload(upload);
+		}
+
+		logger.debug("Completed uploads " + uploadIds + " into sequencing object [" + join.getObject().getId() + "]");
+
+		return join;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	@PreAuthorize("hasPermission(#sample, 'canUpdateSample')")
+	public void cancelUpload(Sample sample, Long uploadId) {
+		removeUpload(readUploadForSample(sample, uploadId));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	public int removeExpiredUploads() {
+		Date cutoff = new Date(System.currentTimeMillis() - expiry);
+
+		int removed = 0;
+		for (SequenceFileUpload upload : uploadRepository.findCreatedBefore(cutoff)) {
+			Path staged = getStagedFile(upload);
+			try {
+				// uploads that are still receiving chunks aren't expired
+				if (Files.exists(staged) && Files.getLastModifiedTime(staged).toMillis() >= cutoff.getTime()) {
+					continue;
+				}
+			} catch (IOException e) {
+				logger.warn("Could not check the staged file for upload [" + upload.getId() + "]", e);
+			}
+
+			removeUpload(upload);
+			removed++;
+		}
+
+		if (removed > 0) {
+			logger.debug("Removed " + removed + " expired sequence file uploads.");
+		}
+
+		return removed;
+	}
+
+	/**
+	 * Delete an upload and its staged bytes.
+	 *
+	 * @param upload
+	 *            the {@link SequenceFileUpload} to remove
+	 */
+	private void removeUpload(SequenceFileUpload upload) {
+		Path staged = getStagedFile(upload);
+		try {
+			Files.deleteIfExists(staged);
+			Files.deleteIfExists(staged.getParent());
+		} catch (IOException e) {
+			throw new StorageException("Could not remove staged upload " + staged, e);
+		}
+
+		uploadRepository.delete(upload);
+		digests.remove(upload.getId());
+	}
+
+	/**
+	 * Get the path where the bytes of an upload are staged.
+	 *
+	 * @param upload
+	 *            the {@link SequenceFileUpload}
+	 * @return the staged file
+	 */
+	private Path getStagedFile(SequenceFileUpload upload) {
+		Path directory = uploadDirectory.resolve(upload.getId().toString());
+		Path staged = directory.resolve(upload.getFileName()).normalize();
+		if (!directory.equals(staged.getParent())) {
+			throw new InvalidPropertyException("Invalid file name for upload: " + upload.getFileName());
+		}
+
+		return staged;
+	}
+
+	/**
+	 * The running checksum of an upload and the number of bytes that it
+	 * covers.
+	 */
+	private static class UploadDigest {
+		private MessageDigest digest;
+		private long offset = -1;
+
+		/**
+		 * Get a copy of the checksum for the first bytes of a staged file,
+		 * calculating it from disk if the running checksum doesn't cover
+		 * exactly those bytes.
+		 *
+		 * @param staged
+		 *            the staged file
+		 * @param committed
+		 *            the number of bytes that the checksum should cover
+		 * @return a copy of the checksum
+		 * @throws IOException
+		 *             if the staged file can't be read
+		 */
+		public MessageDigest getDigest(Path staged, long committed) throws IOException {
+			try {
+				if (digest != null && offset == committed) {
+					return (MessageDigest) digest.clone();
+				}
+
+				MessageDigest computed = MessageDigest.getInstance(SHA_256);
+				byte[] buffer = new byte[BUFFER_SIZE];
+				long remaining = committed;
+				try (InputStream is = Files.newInputStream(staged)) {
+					while (remaining > 0) {
+						int read = is.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+						if (read == -1) {
+							break;
+						}
+						computed.update(buffer, 0, read);
+						remaining -= read;
+					}
+				}
+				set(computed, committed);
+
+				return (MessageDigest) computed.clone();
+			} catch (NoSuchAlgorithmException | CloneNotSupportedException e) {
+				throw new IllegalStateException("Could not calculate checksum", e);
+			}
+		}
+
+		/**
+		 * Set the running checksum.
+		 *
+		 * @param digest
+		 *            the checksum
+		 * @param offset
+		 *            the number of bytes the checksum covers
+		 */
+		public void set(MessageDigest digest, long offset) {
+			this.digest = digest;
+			this.offset = offset;
+		}
+	}
+}
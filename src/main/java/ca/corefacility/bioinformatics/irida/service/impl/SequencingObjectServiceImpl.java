@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.service.impl;
 
+import ca.corefacility.bioinformatics.irida.events.SequencingObjectCreatedEvent;
 import ca.corefacility.bioinformatics.irida.events.annotations.LaunchesProjectEvent;
 import ca.corefacility.bioinformatics.irida.exceptions.*;
 import ca.corefacility.bioinformatics.irida.model.event.DataAddedToSampleProjectEvent;
@@ -20,6 +21,7 @@ import ca.corefacility.bioinformatics.irida.repositories.specification.SampleSeq
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
 import com.google.common.collect.ImmutableMap;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -43,17 +45,20 @@ public class SequencingObjectServiceImpl extends CRUDServiceImpl<Long, Sequencin
 
 	private final SequencingObjectRepository repository;
 	private final SequenceConcatenationRepository concatenationRepository;
+	private final ApplicationEventPublisher eventPublisher;
 
 	@Autowired
 	public SequencingObjectServiceImpl(SequencingObjectRepository repository,
 			SequenceFileRepository sequenceFileRepository, SampleSequencingObjectJoinRepository ssoRepository,
-			SequenceConcatenationRepository concatenationRepository, Validator validator) {
+			SequenceConcatenationRepository concatenationRepository, Validator validator,
+			ApplicationEventPublisher eventPublisher) {
 		super(repository, validator, SequencingObject.class);
 		this.repository = repository;
 		this.ssoRepository = ssoRepository;
 
 		this.sequenceFileRepository = sequenceFileRepository;
 		this.concatenationRepository = concatenationRepository;
+		this.eventPublisher = eventPublisher;
 	}
 
 	/**
@@ -86,7 +91,13 @@ public class SequencingObjectServiceImpl extends CRUDServiceImpl<Long, Sequencin
 			file = sequenceFileRepository.save(file);
 		}
 
-		return super.create(object);
+		SequencingObject created = super.create(object);
+
+		// listeners can start processing the files as soon as the
+		// transaction commits instead of waiting to find them
+		eventPublisher.publishEvent(new SequencingObjectCreatedEvent(created.getId()));
+
+		return created;
 	}
 
 	/**
@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.service.impl.analysis.submission;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 
@@ -59,10 +60,20 @@ public class AnalysisSubmissionCleanupServiceImpl implements AnalysisSubmissionC
 		} else {
 			int numberSubmissionsSwitched = 0;
 			ranSwitchInconsistentSubmissionsToError = true;
+			Date now = new Date();
 
 			for (AnalysisState state : inconsistentStates) {
 				List<AnalysisSubmission> submissions = analysisSubmissionRepository.findByAnalysisState(state);
 				for (AnalysisSubmission submission : submissions) {
+					// another node running the analysis scheduler is still working on it
+					if (submission.getLeaseOwner() != null && submission.getLeaseExpiry() != null
+							&& submission.getLeaseExpiry().after(now)) {
+						logger.debug("AnalysisSubmission [id=" + submission.getId() + ", state="
+								+ submission.getAnalysisState() + "] is leased to " + submission.getLeaseOwner()
+								+ ", leaving it alone.");
+						continue;
+					}
+
 					logger.error("AnalysisSubmission [id=" + submission.getId() + ", name=" + submission.getName()
 							+ ", state=" + submission.getAnalysisState()
 							+ "] left in inconsistent state.  Switching to " + AnalysisState.ERROR + ".");
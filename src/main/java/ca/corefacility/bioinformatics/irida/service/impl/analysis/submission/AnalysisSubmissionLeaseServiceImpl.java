@@ -0,0 +1,307 @@
+package ca.corefacility.bioinformatics.irida.service.impl.analysis.submission;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+import ca.corefacility.bioinformatics.irida.model.enums.AnalysisCleanedState;
+import ca.corefacility.bioinformatics.irida.model.enums.AnalysisState;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission.Priority;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.AnalysisSubmissionRepository;
+import ca.corefacility.bioinformatics.irida.service.AnalysisSubmissionLeaseService;
+
+/**
+ * An {@link AnalysisSubmissionLeaseService} that claims
+ * {@link AnalysisSubmission}s by writing a lease to the database, so any
+ * number of IRIDA nodes can run the analysis scheduler against the same
+ * database.
+ * 
+ * A node claims a batch of submissions with a single conditional update that
+ * only takes leases that are free or have run out, then loads the submissions
+ * it got. Leases held for running work are renewed by {@link #renewLeases()}
+ * until the work finishes. If a node dies its leases run out and the
+ * submissions are picked up by another node. If a node falls behind renewing
+ * and its leases are taken over, it cancels the work it was doing on them.
+ */
+public class AnalysisSubmissionLeaseServiceImpl implements AnalysisSubmissionLeaseService {
+
+	private static final Logger logger = LoggerFactory.getLogger(AnalysisSubmissionLeaseServiceImpl.class);
+
+	/**
+	 * States a submission is only in while a node is part way through a stage.
+	 * The stage can't safely be run again, so if the node stops renewing its
+	 * lease the submission is switched to {@link AnalysisState#ERROR}, as it
+	 * would be on startup.
+	 */
+	private static final Set<AnalysisState> IN_PROGRESS_STATES = ImmutableSet.of(AnalysisState.PREPARING,
+			AnalysisState.SUBMITTING, AnalysisState.COMPLETING);
+
+	private static final List<Priority> PRIORITIES_HIGH_TO_LOW = Lists.reverse(Arrays.asList(Priority.values()));
+
+	/**
+	 * Stands in for the work on a claimed submission until the submission is
+	 * held or released.
+	 */
+	private static final Future<AnalysisSubmission> UNHELD = new CompletableFuture<>();
+
+	private final AnalysisSubmissionRepository analysisSubmissionRepository;
+	private final String leaseOwner;
+	private final long leaseDuration;
+	private final int batchSize;
+
+	// the work on each submission this node has a lease on, guarded by this
+	private final Map<Long, Future<AnalysisSubmission>> leases = new HashMap<>();
+
+	/**
+	 * Builds a new {@link AnalysisSubmissionLeaseServiceImpl}.
+	 * 
+	 * @param analysisSubmissionRepository
+	 *            The {@link AnalysisSubmissionRepository} to write leases to.
+	 * @param leaseOwner
+	 *            The name of this node. This must be different on every node.
+	 * @param leaseDuration
+	 *            How long a lease lasts without being renewed, in
+	 *            milliseconds.
+	 * @param batchSize
+	 *            The most submissions to claim at once.
+	 */
+	public AnalysisSubmissionLeaseServiceImpl(AnalysisSubmissionRepository analysisSubmissionRepository,
+			String leaseOwner, long leaseDuration, int batchSize) {
+		this.analysisSubmissionRepository = analysisSubmissionRepository;
+		this.leaseOwner = leaseOwner;
+		this.leaseDuration = leaseDuration;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<AnalysisSubmission> claim(AnalysisState analysisState) {
+		return claim(analysisState, batchSize);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<AnalysisSubmission> claim(AnalysisState analysisState, int limit) {
+		Date now = new Date();
+		int size = Math.min(limit, batchSize);
+
+		List<Long> ids = new ArrayList<>();
+		for (Priority priority : PRIORITIES_HIGH_TO_LOW) {
+			if (ids.size() >= size) {
+				break;
+			}
+			ids.addAll(analysisSubmissionRepository.findLeasableIds(analysisState, priority, leaseOwner, now,
+					new PageRequest(0, size - ids.size())));
+		}
+
+		return claimIds(ids, s -> analysisState.equals(s.getAnalysisState()), now);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<AnalysisSubmission> claim(AnalysisState analysisState, AnalysisCleanedState analysisCleanedState) {
+		Date now = new Date();
+		List<Long> ids = new ArrayList<>(analysisSubmissionRepository.findLeasableIds(analysisState,
+				analysisCleanedState, leaseOwner, now, new PageRequest(0, batchSize)));
+
+		return claimIds(ids, s -> analysisState.equals(s.getAnalysisState())
+				&& analysisCleanedState.equals(s.getAnalysisCleanedState()), now);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized void hold(AnalysisSubmission analysisSubmission, Future<AnalysisSubmission> work) {
+		if (work == null) {
+			return;
+		}
+
+		if (leases.containsKey(analysisSubmission.getId())) {
+			leases.put(analysisSubmission.getId(), work);
+		} else {
+			logger.warn("Lost the lease on analysis submission " + analysisSubmission.getId() + " held by "
+					+ leaseOwner + " before its work was held.  Cancelling the work.");
+			work.cancel(true);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized void release(Collection<AnalysisSubmission> analysisSubmissions) {
+		List<Long> ids = analysisSubmissions.stream()
+				.map(AnalysisSubmission::getId)
+				.filter(id -> leases.get(id) == UNHELD)
+				.collect(Collectors.toList());
+
+		releaseLeases(ids);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized int renewLeases() {
+		releaseFinishedWork();
+
+		if (leases.isEmpty()) {
+			return 0;
+		}
+
+		List<Long> ids = new ArrayList<>(leases.keySet());
+		int renewed = analysisSubmissionRepository.renewLeases(ids, leaseOwner,
+				new Date(System.currentTimeMillis() + leaseDuration));
+		if (renewed == ids.size()) {
+			logger.trace("Renewed " + renewed + " analysis submission leases held by " + leaseOwner);
+			return 0;
+		}
+
+		// find out which leases were taken over and stop working on them
+		Set<Long> held = analysisSubmissionRepository.findByIdsAndLeaseOwner(ids, leaseOwner)
+				.stream()
+				.map(AnalysisSubmission::getId)
+				.collect(Collectors.toSet());
+		List<Long> lost = ids.stream()
+				.filter(id -> !held.contains(id))
+				.collect(Collectors.toList());
+
+		logger.warn("Lost " + lost.size() + " of " + ids.size() + " analysis submission leases held by "
+				+ leaseOwner + ".  Another node may now be working on them, cancelling work on " + lost);
+		for (Long id : lost) {
+			Future<AnalysisSubmission> work = leases.remove(id);
+			if (work != UNHELD) {
+				work.cancel(true);
+			}
+		}
+
+		return lost.size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int recoverExpiredLeases() {
+		Date now = new Date();
+		List<Long> ids = new ArrayList<>(analysisSubmissionRepository.findIdsWithExpiredLease(IN_PROGRESS_STATES,
+				now));
+
+		// claim the submissions first so only one node switches each of them
+		List<AnalysisSubmission> abandoned = claimIds(ids, s -> IN_PROGRESS_STATES.contains(s.getAnalysisState()),
+				now);
+		try {
+			for (AnalysisSubmission submission : abandoned) {
+				logger.error("AnalysisSubmission [id=" + submission.getId() + ", name=" + submission.getName()
+						+ ", state=" + submission.getAnalysisState()
+						+ "] was abandoned by an analysis scheduler node.  Switching to " + AnalysisState.ERROR
+						+ ".");
+
+				submission.setAnalysisState(AnalysisState.ERROR);
+				analysisSubmissionRepository.save(submission);
+			}
+		} finally {
+			release(abandoned);
+		}
+
+		return abandoned.size();
+	}
+
+	/**
+	 * Lease submissions to this node and load the ones it got.
+	 * 
+	 * @param ids
+	 *            The ids of the submissions to lease.
+	 * @param wanted
+	 *            Whether a leased submission is still wanted. Another node
+	 *            may have moved a submission on between finding its id and
+	 *            leasing it.
+	 * @param now
+	 *            The current time.
+	 * @return The leased submissions.
+	 */
+	private synchronized List<AnalysisSubmission> claimIds(List<Long> ids, Predicate<AnalysisSubmission> wanted,
+			Date now) {
+		releaseFinishedWork();
+
+		// don't hand out submissions this node is still working on
+		ids.removeAll(leases.keySet());
+		if (ids.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		analysisSubmissionRepository.claimLeases(ids, leaseOwner, new Date(now.getTime() + leaseDuration), now);
+
+		List<AnalysisSubmission> claimed = new ArrayList<>();
+		List<Long> unwanted = new ArrayList<>();
+		for (AnalysisSubmission submission : analysisSubmissionRepository.findByIdsAndLeaseOwner(ids, leaseOwner)) {
+			if (wanted.test(submission)) {
+				claimed.add(submission);
+				leases.put(submission.getId(), UNHELD);
+			} else {
+				unwanted.add(submission.getId());
+			}
+		}
+
+		if (!unwanted.isEmpty()) {
+			analysisSubmissionRepository.releaseLeases(unwanted, leaseOwner);
+		}
+
+		logger.trace("Leased " + claimed.size() + " of " + ids.size() + " analysis submissions to " + leaseOwner);
+		return claimed;
+	}
+
+	/**
+	 * Release the leases on submissions whose work has finished. Must be
+	 * called while synchronized on this.
+	 */
+	private void releaseFinishedWork() {
+		releaseLeases(leases.entrySet()
+				.stream()
+				.filter(e -> e.getValue()
+						.isDone())
+				.map(Map.Entry::getKey)
+				.collect(Collectors.toList()));
+	}
+
+	/**
+	 * Forget about and release leases held by this node. Must be called while
+	 * synchronized on this.
+	 * 
+	 * @param ids
+	 *            The ids of the submissions to release.
+	 */
+	private void releaseLeases(List<Long> ids) {
+		if (ids.isEmpty()) {
+			return;
+		}
+
+		leases.keySet()
+				.removeAll(ids);
+		analysisSubmissionRepository.releaseLeases(ids, leaseOwner);
+	}
+}
@@ -48,14 +48,13 @@ import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFilePair;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
+import ca.corefacility.bioinformatics.irida.model.user.Role;
 import ca.corefacility.bioinformatics.irida.model.user.User;
 import ca.corefacility.bioinformatics.irida.model.workflow.IridaWorkflow;
 import ca.corefacility.bioinformatics.irida.model.workflow.description.IridaWorkflowDescription;
-import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowStatus;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.IridaWorkflowNamedParameters;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.ProjectAnalysisSubmissionJoin;
-import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyHistoriesService;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.AnalysisSubmissionRepository;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.ProjectAnalysisSubmissionJoinRepository;
 import ca.corefacility.bioinformatics.irida.repositories.referencefile.ReferenceFileRepository;
@@ -102,7 +101,6 @@ public class AnalysisSubmissionServiceImpl extends CRUDServiceImpl<Long, Analysi
 	private AnalysisSubmissionRepository analysisSubmissionRepository;
 	private ProjectAnalysisSubmissionJoinRepository pasRepository;
 	private final ReferenceFileRepository referenceFileRepository;
-	private final GalaxyHistoriesService galaxyHistoriesService;
 	private final SequencingObjectService sequencingObjectService;
 	private final IridaWorkflowsService iridaWorkflowsService;
 	private JobErrorRepository jobErrorRepository;
@@ -117,7 +115,6 @@ public class AnalysisSubmissionServiceImpl extends CRUDServiceImpl<Long, Analysi
 	 * @param userRepository               A repository for accessing user information.
 	 * @param referenceFileRepository      the reference file repository
 	 * @param sequencingObjectService      the {@link SequencingObject} service.
-	 * @param galaxyHistoriesService       The {@link GalaxyHistoriesService}.
 	 * @param pasRepository                The {@link ProjectAnalysisSubmissionJoinRepository}
 	 * @param jobErrorRepository           A repository for accessing {@link JobError}
 	 * @param iridaWorkflowsService		   The {@link IridaWorkflowsService}
@@ -126,14 +123,12 @@ public class AnalysisSubmissionServiceImpl extends CRUDServiceImpl<Long, Analysi
 	@Autowired
 	public AnalysisSubmissionServiceImpl(AnalysisSubmissionRepository analysisSubmissionRepository,
 			UserRepository userRepository, final ReferenceFileRepository referenceFileRepository,
-			final SequencingObjectService sequencingObjectService, final GalaxyHistoriesService galaxyHistoriesService,
-			ProjectAnalysisSubmissionJoinRepository pasRepository, JobErrorRepository jobErrorRepository,
-			IridaWorkflowsService iridaWorkflowsService, Validator validator) {
+			final SequencingObjectService sequencingObjectService, ProjectAnalysisSubmissionJoinRepository pasRepository,
+			JobErrorRepository jobErrorRepository, IridaWorkflowsService iridaWorkflowsService, Validator validator) {
 		super(analysisSubmissionRepository, validator, AnalysisSubmission.class);
 		this.userRepository = userRepository;
 		this.analysisSubmissionRepository = analysisSubmissionRepository;
 		this.referenceFileRepository = referenceFileRepository;
-		this.galaxyHistoriesService = galaxyHistoriesService;
 		this.sequencingObjectService = sequencingObjectService;
 		this.pasRepository = pasRepository;
 		this.jobErrorRepository = jobErrorRepository;
@@ -422,11 +417,18 @@ public class AnalysisSubmissionServiceImpl extends CRUDServiceImpl<Long, Analysi
 		return getAnalysisSubmissionsForUser(user);
 	}
 	
+	/**
+	 * {@inheritDoc}
+	 */
 	@Override
 	@PreAuthorize("hasRole('ROLE_USER')")
-	@PostFilter("hasPermission(filterObject, 'canReadAnalysisSubmission')")
 	public List<AnalysisSubmission> getAnalysisSubmissionsAccessibleByCurrentUserByWorkflowIds(Collection<UUID> workflowIds) {
-		return analysisSubmissionRepository.findByWorkflowIds(workflowIds);
+		UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+		User user = userRepository.loadUserByUsername(userDetails.getUsername());
+		if (user.getSystemRole().equals(Role.ROLE_ADMIN)) {
+			return analysisSubmissionRepository.findByWorkflowIds(workflowIds);
+		}
+		return analysisSubmissionRepository.findByWorkflowIdsAccessibleByUser(workflowIds, user);
 	}
 
 	/**
@@ -613,8 +615,10 @@ public class AnalysisSubmissionServiceImpl extends CRUDServiceImpl<Long, Analysi
 
 			/**
 			 * If the analysis is in a state of {@link AnalysisState.RUNNING}
-			 * then we are able to ask Galaxy for the proportion of jobs that
-			 * are complete. We can scale this value between RUNNING_PERCENT
+			 * then the analysis scheduler records the proportion of jobs that
+			 * are complete in Galaxy each time it checks on the analysis, so
+			 * this doesn't need to ask Galaxy. Until the first check the
+			 * proportion is 0. We can scale this value between RUNNING_PERCENT
 			 * (10%) and FINISHED_RUNNING_PERCENT (90%) so that after all jobs
 			 * are complete we are only at 90%. The remaining 10% involves
 			 * transferring files back to Galaxy.
@@ -629,10 +633,8 @@ public class AnalysisSubmissionServiceImpl extends CRUDServiceImpl<Long, Analysi
 			 * 90%.
 			 */
 		case RUNNING:
-			String workflowHistoryId = analysisSubmission.getRemoteAnalysisId();
-			GalaxyWorkflowStatus workflowStatus = galaxyHistoriesService.getStatusForHistory(workflowHistoryId);
 			return RUNNING_PERCENT + (FINISHED_RUNNING_PERCENT - RUNNING_PERCENT)
-					* workflowStatus.getProportionComplete();
+					* analysisSubmission.getProportionComplete();
 			
 		case FINISHED_RUNNING:
 		case COMPLETING:
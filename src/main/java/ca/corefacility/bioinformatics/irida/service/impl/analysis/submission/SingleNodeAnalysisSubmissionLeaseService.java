@@ -0,0 +1,110 @@
+package ca.corefacility.bioinformatics.irida.service.impl.analysis.submission;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ca.corefacility.bioinformatics.irida.model.enums.AnalysisCleanedState;
+import ca.corefacility.bioinformatics.irida.model.enums.AnalysisState;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.AnalysisSubmissionRepository;
+import ca.corefacility.bioinformatics.irida.service.AnalysisSubmissionLeaseService;
+
+/**
+ * An {@link AnalysisSubmissionLeaseService} for when only one IRIDA node runs
+ * the analysis scheduler. Every submission in a state is claimed and nothing
+ * is written to the database.
+ */
+public class SingleNodeAnalysisSubmissionLeaseService implements AnalysisSubmissionLeaseService {
+
+	private static final Logger logger = LoggerFactory.getLogger(SingleNodeAnalysisSubmissionLeaseService.class);
+
+	private final AnalysisSubmissionRepository analysisSubmissionRepository;
+
+	/**
+	 * Builds a new {@link SingleNodeAnalysisSubmissionLeaseService}.
+	 * 
+	 * @param analysisSubmissionRepository
+	 *            The {@link AnalysisSubmissionRepository} to find submissions
+	 *            in.
+	 */
+	public SingleNodeAnalysisSubmissionLeaseService(AnalysisSubmissionRepository analysisSubmissionRepository) {
+		this.analysisSubmissionRepository = analysisSubmissionRepository;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<AnalysisSubmission> claim(AnalysisState analysisState) {
+		return new ArrayList<>(analysisSubmissionRepository.findByAnalysisState(analysisState));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<AnalysisSubmission> claim(AnalysisState analysisState, int limit) {
+		List<AnalysisSubmission> analysisSubmissions = claim(analysisState);
+
+		// Sort submissions by priority high to low
+		analysisSubmissions.sort((a1, a2) -> {
+			return a2.getPriority()
+					.compareTo(a1.getPriority());
+		});
+
+		if (limit < analysisSubmissions.size()) {
+			logger.debug("Attempting to claim more submissions than limit, list will be trimmed: "
+					+ analysisSubmissions.size() + "=>" + limit);
+			analysisSubmissions = analysisSubmissions.subList(0, limit);
+		}
+
+		return analysisSubmissions;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<AnalysisSubmission> claim(AnalysisState analysisState, AnalysisCleanedState analysisCleanedState) {
+		return new ArrayList<>(analysisSubmissionRepository.findByAnalysisState(analysisState, analysisCleanedState));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void hold(AnalysisSubmission analysisSubmission, Future<AnalysisSubmission> work) {
+		// nothing else can claim the submission
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void release(Collection<AnalysisSubmission> analysisSubmissions) {
+		// nothing else can claim the submission
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int renewLeases() {
+		// claims never run out
+		return 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int recoverExpiredLeases() {
+		// submissions left part way through a stage are switched to error on startup
+		return 0;
+	}
+}
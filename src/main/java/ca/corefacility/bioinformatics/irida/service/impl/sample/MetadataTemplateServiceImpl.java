@@ -1,8 +1,11 @@
 package ca.corefacility.bioinformatics.irida.service.impl.sample;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import javax.transaction.Transactional;
 import javax.validation.Validator;
@@ -145,24 +148,45 @@ public class MetadataTemplateServiceImpl extends CRUDServiceImpl<Long, MetadataT
 		return fieldRepository.findAllMetadataFieldsByLabelQuery(query);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
 	@Override
 	@Transactional
 	@PreAuthorize("permitAll()")
-	public Map<MetadataTemplateField, MetadataEntry> getMetadataMap(Map<String, MetadataEntry> metadataMap) {
-		Map<MetadataTemplateField, MetadataEntry> metadata = new HashMap<>();
-		metadataMap.entrySet().forEach(e -> {
+	public Map<String, MetadataTemplateField> getOrCreateMetadataFields(Collection<String> labels) {
+		Map<String, MetadataTemplateField> fields = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		if (labels.isEmpty()) {
+			return fields;
+		}
+
+		for (MetadataTemplateField field : fieldRepository.findMetadataFieldsByLabels(labels)) {
+			fields.put(field.getLabel(), field);
+		}
 
-			// get the metadatatemplatefield if it exists
-			MetadataTemplateField field = readMetadataFieldByLabel(e.getKey());
+		// labels differing only by case share a field, as they do when read one at a time
+		Map<String, MetadataTemplateField> missing = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		labels.stream()
+				.filter(label -> !fields.containsKey(label))
+				.forEach(label -> missing.putIfAbsent(label, new MetadataTemplateField(label, "text")));
 
-			// if not, create a new one
-			if (field == null) {
-				field = new MetadataTemplateField(e.getKey(), "text");
-				field = saveMetadataField(field);
+		if (!missing.isEmpty()) {
+			for (MetadataTemplateField field : fieldRepository.save(new ArrayList<>(missing.values()))) {
+				fields.put(field.getLabel(), field);
 			}
+		}
 
-			metadata.put(field, e.getValue());
-		});
+		return fields;
+	}
+
+	@Override
+	@Transactional
+	@PreAuthorize("permitAll()")
+	public Map<MetadataTemplateField, MetadataEntry> getMetadataMap(Map<String, MetadataEntry> metadataMap) {
+		Map<String, MetadataTemplateField> fields = getOrCreateMetadataFields(metadataMap.keySet());
+
+		Map<MetadataTemplateField, MetadataEntry> metadata = new HashMap<>();
+		metadataMap.forEach((label, entry) -> metadata.put(fields.get(label), entry));
 
 		return metadata;
 	}
@@ -0,0 +1,142 @@
+package ca.corefacility.bioinformatics.irida.service.impl.sample;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.security.access.prepost.PostAuthorize;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.SampleMetadataImport;
+import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateService;
+import ca.corefacility.bioinformatics.irida.service.sample.SampleMetadataImportService;
+import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
+
+/**
+ * Imports sample metadata on the metadata import executor.  The sample names in the spreadsheet are resolved in one
+ * query, any new metadata fields are created together, and the metadata is merged into the samples in batches within
+ * a single transaction.  Imports are kept in memory for an hour so the UI can follow their progress.
+ */
+@Service
+public class SampleMetadataImportServiceImpl implements SampleMetadataImportService {
+	private static final Logger logger = LoggerFactory.getLogger(SampleMetadataImportServiceImpl.class);
+
+	private final SampleService sampleService;
+	private final MetadataTemplateService metadataTemplateService;
+	private final TaskExecutor metadataImportExecutor;
+
+	private final Cache<String, SampleMetadataImport> imports = CacheBuilder.newBuilder()
+			.expireAfterAccess(1, TimeUnit.HOURS)
+			.build();
+
+	@Autowired
+	public SampleMetadataImportServiceImpl(SampleService sampleService,
+			MetadataTemplateService metadataTemplateService,
+			@Qualifier("metadataImportExecutor") TaskExecutor metadataImportExecutor) {
+		this.sampleService = sampleService;
+		this.metadataTemplateService = metadataTemplateService;
+		this.metadataImportExecutor = metadataImportExecutor;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#project, 'isProjectOwner')")
+	public SampleMetadataImport startImport(Project project, String sampleNameColumn,
+			List<Map<String, String>> rows) {
+		SecurityContext context = SecurityContextHolder.getContext();
+		SampleMetadataImport metadataImport = new SampleMetadataImport(project.getId(), context.getAuthentication()
+				.getName(), rows.size());
+		imports.put(metadataImport.getId(), metadataImport);
+
+		metadataImportExecutor.execute(new DelegatingSecurityContextRunnable(
+				() -> runImport(metadataImport, project, sampleNameColumn, rows), context));
+
+		return metadataImport;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@PostAuthorize("hasRole('ROLE_ADMIN') or returnObject.username == authentication.name")
+	public SampleMetadataImport getImport(String id) {
+		SampleMetadataImport metadataImport = imports.getIfPresent(id);
+		if (metadataImport == null) {
+			throw new EntityNotFoundException("No metadata import with id " + id);
+		}
+		return metadataImport;
+	}
+
+	/**
+	 * Match the rows to samples and merge their metadata, recording the progress in the import.
+	 *
+	 * @param metadataImport   the {@link SampleMetadataImport} to record progress in
+	 * @param project          the {@link Project} holding the samples
+	 * @param sampleNameColumn the column holding the sample names
+	 * @param rows             the rows of metadata
+	 */
+	private void runImport(SampleMetadataImport metadataImport, Project project, String sampleNameColumn,
+			List<Map<String, String>> rows) {
+		try {
+			Map<String, Long> sampleIds = sampleService.getSampleIdsBySampleName(project, rows.stream()
+					.map(r -> r.get(sampleNameColumn))
+					.filter(n -> n != null)
+					.collect(Collectors.toSet()));
+
+			Set<String> labels = new HashSet<>();
+			rows.forEach(r -> labels.addAll(r.keySet()));
+			labels.remove(sampleNameColumn);
+			Map<String, MetadataTemplateField> fields = metadataTemplateService.getOrCreateMetadataFields(labels);
+
+			Map<Long, Map<MetadataTemplateField, MetadataEntry>> metadata = new HashMap<>();
+			for (Map<String, String> row : rows) {
+				String name = row.get(sampleNameColumn);
+				Long sampleId = name == null ? null : sampleIds.get(name);
+				if (sampleId == null) {
+					metadataImport.sampleMissing(name);
+					continue;
+				}
+
+				// later rows for the same sample overwrite earlier ones, as they would have saving one at a time
+				Map<MetadataTemplateField, MetadataEntry> sampleMetadata = metadata.computeIfAbsent(sampleId,
+						k -> new HashMap<>());
+				for (Map.Entry<String, String> cell : row.entrySet()) {
+					if (!cell.getKey()
+							.equals(sampleNameColumn)) {
+						sampleMetadata.put(fields.get(cell.getKey()), new MetadataEntry(cell.getValue(), "text"));
+					}
+				}
+			}
+
+			metadataImport.setTotal(metadata.size());
+			sampleService.mergeSampleMetadata(metadata, metadataImport::setSaved);
+			metadataImport.complete();
+			logger.debug("Imported metadata for " + metadata.size() + " samples into project " + project.getId());
+		} catch (Exception e) {
+			logger.error("Failed to import metadata into project " + project.getId(), e);
+			metadataImport.fail(e.getMessage());
+		}
+	}
+}
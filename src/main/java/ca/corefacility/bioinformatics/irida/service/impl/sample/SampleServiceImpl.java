@@ -1,6 +1,8 @@
 package ca.corefacility.bioinformatics.irida.service.impl.sample;
 
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 import javax.persistence.EntityExistsException;
@@ -13,6 +15,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
@@ -24,25 +27,32 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+
 import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
 import ca.corefacility.bioinformatics.irida.exceptions.InvalidPropertyException;
 import ca.corefacility.bioinformatics.irida.exceptions.SequenceFileAnalysisException;
 import ca.corefacility.bioinformatics.irida.model.assembly.GenomeAssembly;
 import ca.corefacility.bioinformatics.irida.model.joins.Join;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
-import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.SampleGenomeAssemblyJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.project.ProjectUserAccess;
 import ca.corefacility.bioinformatics.irida.model.project.ReferenceFile;
+import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
 import ca.corefacility.bioinformatics.irida.model.sample.QCEntry;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.SampleQCSummary;
+import ca.corefacility.bioinformatics.irida.model.sample.SampleSequenceFileBases;
 import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.SampleMetadataQuery;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.model.user.User;
 import ca.corefacility.bioinformatics.irida.model.user.group.UserGroup;
-import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupProjectJoin;
-import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCSummary;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.AnalysisRepository;
 import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectSampleJoinRepository;
@@ -69,6 +79,13 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 
 	private static final Logger logger = LoggerFactory.getLogger(SampleServiceImpl.class);
 
+	// maximum number of ids to put in a single IN clause when loading QC
+	// summaries
+	private static final int QC_SUMMARY_BATCH_SIZE = 1000;
+
+	// number of samples to read and write at once when merging metadata
+	private static final int METADATA_MERGE_BATCH_SIZE = 500;
+
 	/**
 	 * Reference to {@link SampleRepository} for managing {@link Sample}.
 	 */
@@ -222,6 +239,34 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	@PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_SEQUENCER') or hasPermission(#project, 'canReadProject')")
+	public Map<String, Long> getSampleIdsBySampleName(Project project, Collection<String> sampleNames) {
+		return sampleRepository.getSampleIdsBySampleName(project, sampleNames);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#metadata.keySet(), 'canUpdateSample')")
+	public void mergeSampleMetadata(Map<Long, Map<MetadataTemplateField, MetadataEntry>> metadata,
+			IntConsumer progress) {
+		int merged = 0;
+		for (List<Long> batch : Iterables.partition(metadata.keySet(), METADATA_MERGE_BATCH_SIZE)) {
+			Map<Long, Map<MetadataTemplateField, MetadataEntry>> batchMetadata = new HashMap<>();
+			batch.forEach(id -> batchMetadata.put(id, metadata.get(id)));
+
+			merged += sampleRepository.mergeMetadata(batchMetadata);
+			progress.accept(merged);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -250,6 +295,29 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 		return samplesForProjectShallow;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Transactional(readOnly = true)
+	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#project, 'canReadProject')")
+	@Override
+	public Page<ProjectSampleJoin> getSamplesForProjectShallow(Project project, SampleMetadataQuery query) {
+		List<ProjectSampleJoin> window = sampleRepository.getSamplesForProjectShallow(project, query);
+		long total = sampleRepository.countSamplesForProject(project, query);
+		return new PageImpl<>(window, null, total);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Transactional(readOnly = true)
+	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#project, 'canReadProject')")
+	@Override
+	public Map<Long, Map<Long, String>> getMetadataValuesForProjectSamples(Project project,
+			Collection<Long> sampleIds) {
+		return sampleRepository.getMetadataValuesForProjectSamples(project, sampleIds);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -259,6 +327,16 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 		return psjRepository.getSamplesInProject(project, sampleIds);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#project, 'canReadProject')")
+	public List<Sample> getSamplesForProjectChangedSince(Project project, Date since) {
+		return psjRepository.getSamplesForProjectChangedSince(project, since);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -370,16 +448,23 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 		long totalBases = 0;
 
 		List<SampleSequencingObjectJoin> sequencesForSample = ssoRepository.getSequencesForSample(sample);
-		for (SampleSequencingObjectJoin join : sequencesForSample) {
-			for (SequenceFile sequenceFile : join.getObject().getFiles()) {
-				final AnalysisFastQC sequenceFileFastQC = analysisRepository
-						.findFastqcAnalysisForSequenceFile(sequenceFile);
-				if (sequenceFileFastQC == null || sequenceFileFastQC.getTotalBases() == null) {
-					throw new SequenceFileAnalysisException("Missing FastQC analysis for SequenceFile ["
-							+ sequenceFile.getId() + "]");
-				}
-				totalBases += sequenceFileFastQC.getTotalBases();
+		Set<Long> fileIds = sequencesForSample.stream().flatMap(j -> j.getObject().getFiles().stream())
+				.map(SequenceFile::getId).collect(Collectors.toSet());
+
+		if (fileIds.isEmpty()) {
+			return totalBases;
+		}
+
+		// only load the totals, not the full FastQC analysis with its charts
+		Map<Long, FastQCSummary> summaries = analysisRepository.findFastqcSummariesForSequenceFiles(fileIds)
+				.stream().collect(Collectors.toMap(FastQCSummary::getSequenceFileId, Function.identity()));
+
+		for (Long fileId : fileIds) {
+			final FastQCSummary summary = summaries.get(fileId);
+			if (summary == null || summary.getTotalBases() == null) {
+				throw new SequenceFileAnalysisException("Missing FastQC analysis for SequenceFile [" + fileId + "]");
 			}
+			totalBases += summary.getTotalBases();
 		}
 
 		return totalBases;
@@ -472,6 +557,56 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 		return qcEntryRepository.getQCEntriesForSample(sample);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Transactional(readOnly = true)
+	@Override
+	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#page.content.![object], 'canReadSample')")
+	public Map<Long, SampleQCSummary> getQCSummariesForProjectSamples(Page<ProjectSampleJoin> page) {
+		Set<Long> sampleIds = page.getContent().stream().map(j -> j.getObject().getId())
+				.collect(Collectors.toCollection(LinkedHashSet::new));
+
+		Map<Long, Long> totalBases = new HashMap<>();
+		Set<Long> missingFastQC = new HashSet<>();
+		Map<Long, Long> objectSamples = new HashMap<>();
+		Map<Long, List<QCEntry>> qcEntries = new HashMap<>();
+
+		// keep the IN clauses to a reasonable size for large exports
+		for (List<Long> ids : Lists.partition(new ArrayList<>(sampleIds), QC_SUMMARY_BATCH_SIZE)) {
+			List<SampleSequenceFileBases> fileBases = new ArrayList<>();
+			fileBases.addAll(ssoRepository.getSingleEndFileBasesForSamples(ids));
+			fileBases.addAll(ssoRepository.getPairedFileBasesForSamples(ids));
+
+			for (SampleSequenceFileBases bases : fileBases) {
+				objectSamples.put(bases.getSequencingObjectId(), bases.getSampleId());
+				if (bases.getTotalBases() == null) {
+					missingFastQC.add(bases.getSampleId());
+				} else {
+					totalBases.merge(bases.getSampleId(), bases.getTotalBases(), Long::sum);
+				}
+			}
+		}
+
+		for (List<Long> ids : Lists.partition(new ArrayList<>(objectSamples.keySet()), QC_SUMMARY_BATCH_SIZE)) {
+			for (QCEntry entry : qcEntryRepository.getQCEntriesForSequencingObjects(ids)) {
+				Long sampleId = objectSamples.get(entry.getSequencingObjectId());
+				qcEntries.computeIfAbsent(sampleId, k -> new ArrayList<>()).add(entry);
+			}
+		}
+
+		Map<Long, SampleQCSummary> summaries = new HashMap<>();
+		for (Long sampleId : sampleIds) {
+			// matches getTotalBasesForSample: no files is 0 bases, any file
+			// without FastQC means the total isn't known.
+			Long bases = missingFastQC.contains(sampleId) ? null : totalBases.getOrDefault(sampleId, 0L);
+			summaries.put(sampleId,
+					new SampleQCSummary(sampleId, bases, qcEntries.getOrDefault(sampleId, Collections.emptyList())));
+		}
+
+		return summaries;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -583,9 +718,7 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 			public Predicate toPredicate(Root<ProjectSampleJoin> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
 				Predicate search;
 				if (user != null) {
-					Predicate sampleAccess = cb.or(individualProjectMembership(root, query, cb),
-							groupProjectMembership(root, query, cb));
-					search = cb.and(sampleAccess, sampleProperties(root, query, cb));
+					search = cb.and(projectMembership(root, query, cb), sampleProperties(root, query, cb));
 				} else {
 					search = sampleProperties(root, query, cb);
 				}
@@ -613,30 +746,9 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 
 			/**
 			 * This {@link Predicate} filters out {@link Project}s for the
-			 * specific user where they are assigned individually as a member.
-			 *
-			 * @param root
-			 *            the root of the query
-			 * @param query
-			 *            the query
-			 * @param cb
-			 *            the builder
-			 * @return a {@link Predicate} that filters {@link Project}s where
-			 *         users are individually assigned.
-			 */
-			private Predicate individualProjectMembership(final Root<ProjectSampleJoin> root,
-					final CriteriaQuery<?> query, final CriteriaBuilder cb) {
-				final Subquery<Long> userMemberSelect = query.subquery(Long.class);
-				final Root<ProjectUserJoin> userMemberJoin = userMemberSelect.from(ProjectUserJoin.class);
-				userMemberSelect.select(userMemberJoin.get("project").get("id"))
-						.where(cb.equal(userMemberJoin.get("user"), user));
-				return cb.in(root.get("project")).value(userMemberSelect);
-			}
-
-			/**
-			 * This {@link Predicate} filters out {@link Project}s for the
-			 * specific user where they are assigned transitively through a
-			 * {@link UserGroup}.
+			 * specific user where they are assigned individually as a member or
+			 * transitively through a {@link UserGroup}, using the
+			 * {@link ProjectUserAccess} index.
 			 *
 			 * @param root
 			 *            the root of the query
@@ -644,17 +756,15 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 			 *            the query
 			 * @param cb
 			 *            the builder
-			 * @return a {@link Predicate} that filters {@link Project}s where
-			 *         users are assigned transitively through {@link UserGroup}
-			 *         .
+			 * @return a {@link Predicate} that filters {@link Project}s the user
+			 *         can read.
 			 */
-			private Predicate groupProjectMembership(final Root<ProjectSampleJoin> root, final CriteriaQuery<?> query,
+			private Predicate projectMembership(final Root<ProjectSampleJoin> root, final CriteriaQuery<?> query,
 					final CriteriaBuilder cb) {
-				final Subquery<Long> groupMemberSelect = query.subquery(Long.class);
-				final Root<UserGroupProjectJoin> groupMemberJoin = groupMemberSelect.from(UserGroupProjectJoin.class);
-				groupMemberSelect.select(groupMemberJoin.get("project").get("id"))
-						.where(cb.equal(groupMemberJoin.join("userGroup").join("users").get("user"), user));
-				return cb.in(root.get("project")).value(groupMemberSelect);
+				final Subquery<Long> accessSelect = query.subquery(Long.class);
+				final Root<ProjectUserAccess> access = accessSelect.from(ProjectUserAccess.class);
+				accessSelect.select(access.get("project").get("id")).where(cb.equal(access.get("user"), user));
+				return cb.in(root.get("project")).value(accessSelect);
 			}
 
 		};
@@ -12,6 +12,7 @@ import javax.validation.ConstraintViolationException;
 import javax.validation.Validator;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -25,6 +26,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import ca.corefacility.bioinformatics.irida.events.UserGroupMembershipChangedEvent;
 import ca.corefacility.bioinformatics.irida.exceptions.EntityExistsException;
 import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
 import ca.corefacility.bioinformatics.irida.exceptions.EntityRevisionDeletedException;
@@ -39,6 +41,7 @@ import ca.corefacility.bioinformatics.irida.repositories.joins.project.UserGroup
 import ca.corefacility.bioinformatics.irida.repositories.user.UserGroupJoinRepository;
 import ca.corefacility.bioinformatics.irida.repositories.user.UserGroupRepository;
 import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
+import ca.corefacility.bioinformatics.irida.service.ProjectAccessIndexService;
 import ca.corefacility.bioinformatics.irida.service.impl.CRUDServiceImpl;
 import ca.corefacility.bioinformatics.irida.service.user.UserGroupService;
 
@@ -53,6 +56,8 @@ public class UserGroupServiceImpl extends CRUDServiceImpl<Long, UserGroup> imple
 	private final UserRepository userRepository;
 	private final UserGroupProjectJoinRepository userGroupProjectJoinRepository;
 	private final UserGroupRepository userGroupRepository;
+	private final ProjectAccessIndexService accessIndexService;
+	private final ApplicationEventPublisher eventPublisher;
 
 	/**
 	 * Create a new {@link UserGroupServiceImpl}.
@@ -65,18 +70,27 @@ public class UserGroupServiceImpl extends CRUDServiceImpl<Long, UserGroup> imple
 	 *            the {@link UserRepository}
 	 * @param userGroupProjectJoinRepository
 	 *            The {@link UserGroupProjectJoinRepository}
+	 * @param accessIndexService
+	 *            the {@link ProjectAccessIndexService} to update when group
+	 *            membership changes
 	 * @param validator
 	 *            the {@link Validator}
+	 * @param eventPublisher
+	 *            publisher for {@link UserGroupMembershipChangedEvent}s
 	 */
 	@Autowired
 	public UserGroupServiceImpl(final UserGroupRepository userGroupRepository,
 			final UserGroupJoinRepository userGroupJoinRepository, final UserRepository userRepository,
-			final UserGroupProjectJoinRepository userGroupProjectJoinRepository, final Validator validator) {
+			final UserGroupProjectJoinRepository userGroupProjectJoinRepository,
+			final ProjectAccessIndexService accessIndexService, final Validator validator,
+			final ApplicationEventPublisher eventPublisher) {
 		super(userGroupRepository, validator, UserGroup.class);
 		this.userGroupRepository = userGroupRepository;
 		this.userGroupJoinRepository = userGroupJoinRepository;
 		this.userRepository = userRepository;
 		this.userGroupProjectJoinRepository = userGroupProjectJoinRepository;
+		this.accessIndexService = accessIndexService;
+		this.eventPublisher = eventPublisher;
 	}
 
 	/**
@@ -115,9 +129,13 @@ public class UserGroupServiceImpl extends CRUDServiceImpl<Long, UserGroup> imple
 	 * {@inheritDoc}
 	 */
 	@Override
+	@Transactional
 	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#id, 'canUpdateUserGroup')")
 	public void delete(Long id) throws EntityNotFoundException {
+		final Collection<UserGroupJoin> members = userGroupJoinRepository.findUsersInGroup(super.read(id));
 		super.delete(id);
+		members.forEach(m -> accessIndexService.reindexUser(m.getSubject()));
+		eventPublisher.publishEvent(new UserGroupMembershipChangedEvent(id));
 	}
 
 	/**
@@ -217,11 +235,14 @@ public class UserGroupServiceImpl extends CRUDServiceImpl<Long, UserGroup> imple
 	 * {@inheritDoc}
 	 */
 	@Override
+	@Transactional
 	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#userGroup, 'canUpdateUserGroup')")
 	public UserGroupJoin addUserToGroup(final User user, final UserGroup userGroup, final UserGroupRole role) {
-		final UserGroupJoin join = new UserGroupJoin(user, userGroup, role);
+		final UserGroupJoin join = userGroupJoinRepository.save(new UserGroupJoin(user, userGroup, role));
+		accessIndexService.reindexUser(user);
+		eventPublisher.publishEvent(new UserGroupMembershipChangedEvent(userGroup.getId()));
 
-		return userGroupJoinRepository.save(join);
+		return join;
 	}
 
 	/**
@@ -239,13 +260,16 @@ public class UserGroupServiceImpl extends CRUDServiceImpl<Long, UserGroup> imple
 		}
 
 		join.setRole(role);
-		return userGroupJoinRepository.save(join);
+		final UserGroupJoin saved = userGroupJoinRepository.save(join);
+		eventPublisher.publishEvent(new UserGroupMembershipChangedEvent(userGroup.getId()));
+		return saved;
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
+	@Transactional
 	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#userGroup, 'canUpdateUserGroup')")
 	public void removeUserFromGroup(final User user, final UserGroup userGroup) throws UserGroupWithoutOwnerException {
 		final UserGroupJoin join = userGroupJoinRepository.findOne(findUserGroupJoin(user, userGroup));
@@ -256,6 +280,8 @@ public class UserGroupServiceImpl extends CRUDServiceImpl<Long, UserGroup> imple
 		}
 
 		userGroupJoinRepository.delete(join);
+		accessIndexService.reindexUser(user);
+		eventPublisher.publishEvent(new UserGroupMembershipChangedEvent(userGroup.getId()));
 	}
 
 	/**
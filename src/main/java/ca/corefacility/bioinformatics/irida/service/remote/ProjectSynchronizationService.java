@@ -28,22 +28,46 @@ import org.apache.commons.lang3.time.DateUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import javax.annotation.PreDestroy;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
  * Service class to run a project synchornization task. Ths class will be
  * responsible for communicating with Remote IRIDA installations and pulling
  * metadata and sequencing data into the local installation.
+ * 
+ * Marked projects are synchronized in parallel on a bounded pool of project
+ * threads. The samples in each project are synchronized on a shared pool of
+ * transfer threads, with at most <code>project.sync.api.concurrency</code>
+ * samples being transferred from the same remote API at once.
  */
 @Service
 public class ProjectSynchronizationService {
 	private static final Logger logger = LoggerFactory.getLogger(ProjectSynchronizationService.class);
 
+	// look for changes a little before the last sync to allow for clock differences between installations
+	private static final long CHANGED_SINCE_OVERLAP = TimeUnit.HOURS.toMillis(1);
+
 	private ProjectService projectService;
 	private SampleService sampleService;
 	private SequencingObjectService objectService;
@@ -55,11 +79,57 @@ public class ProjectSynchronizationService {
 	private SequenceFilePairRemoteService pairRemoteService;
 	private RemoteAPITokenService tokenService;
 
+	private final ExecutorService projectExecutor;
+	private final ExecutorService transferExecutor;
+	private final int apiConcurrency;
+
+	// projects currently queued or running, so they aren't submitted twice
+	private final Set<Long> runningProjects = ConcurrentHashMap.newKeySet();
+	private final Map<String, Semaphore> apiPermits = new ConcurrentHashMap<>();
+	private final Map<Long, SyncProgress> syncProgress = new ConcurrentHashMap<>();
+	private final Object tokenLock = new Object();
+	private final Object metadataFieldLock = new Object();
+
 	@Autowired
 	public ProjectSynchronizationService(ProjectService projectService, SampleService sampleService,
 			SequencingObjectService objectService, MetadataTemplateService metadataTemplateService, ProjectRemoteService projectRemoteService,
 			SampleRemoteService sampleRemoteService, SingleEndSequenceFileRemoteService singleEndRemoteService,
-			SequenceFilePairRemoteService pairRemoteService, RemoteAPITokenService tokenService) {
+			SequenceFilePairRemoteService pairRemoteService, RemoteAPITokenService tokenService,
+			@Value("${project.sync.threads:2}") int projectThreads,
+			@Value("${project.sync.transfer.threads:8}") int transferThreads,
+			@Value("${project.sync.api.concurrency:4}") int apiConcurrency) {
+		this(projectService, sampleService, objectService, metadataTemplateService, projectRemoteService,
+				sampleRemoteService, singleEndRemoteService, pairRemoteService, tokenService,
+				Executors.newFixedThreadPool(projectThreads,
+						new ThreadFactoryBuilder().setNameFormat("project-sync-%d").build()),
+				Executors.newFixedThreadPool(transferThreads,
+						new ThreadFactoryBuilder().setNameFormat("project-sync-transfer-%d").build()),
+				apiConcurrency);
+	}
+
+	/**
+	 * Create a {@link ProjectSynchronizationService} that runs project and
+	 * sample synchronization on the given executors.
+	 *
+	 * @param projectService           the {@link ProjectService}
+	 * @param sampleService            the {@link SampleService}
+	 * @param objectService            the {@link SequencingObjectService}
+	 * @param metadataTemplateService  the {@link MetadataTemplateService}
+	 * @param projectRemoteService     the {@link ProjectRemoteService}
+	 * @param sampleRemoteService      the {@link SampleRemoteService}
+	 * @param singleEndRemoteService   the {@link SingleEndSequenceFileRemoteService}
+	 * @param pairRemoteService        the {@link SequenceFilePairRemoteService}
+	 * @param tokenService             the {@link RemoteAPITokenService}
+	 * @param projectExecutor          executor to synchronize projects on
+	 * @param transferExecutor         executor to synchronize samples on
+	 * @param apiConcurrency           the maximum number of samples to transfer from a single remote API at once
+	 */
+	public ProjectSynchronizationService(ProjectService projectService, SampleService sampleService,
+			SequencingObjectService objectService, MetadataTemplateService metadataTemplateService,
+			ProjectRemoteService projectRemoteService, SampleRemoteService sampleRemoteService,
+			SingleEndSequenceFileRemoteService singleEndRemoteService, SequenceFilePairRemoteService pairRemoteService,
+			RemoteAPITokenService tokenService, ExecutorService projectExecutor, ExecutorService transferExecutor,
+			int apiConcurrency) {
 
 		this.projectService = projectService;
 		this.sampleService = sampleService;
@@ -70,6 +140,31 @@ public class ProjectSynchronizationService {
 		this.singleEndRemoteService = singleEndRemoteService;
 		this.pairRemoteService = pairRemoteService;
 		this.tokenService = tokenService;
+		this.projectExecutor = projectExecutor;
+		this.transferExecutor = transferExecutor;
+		this.apiConcurrency = apiConcurrency;
+	}
+
+	/**
+	 * Stop any running synchronization tasks when the application is shut
+	 * down.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		projectExecutor.shutdownNow();
+		transferExecutor.shutdownNow();
+	}
+
+	/**
+	 * Get the progress of a project that is currently being synchronized on
+	 * this server.
+	 *
+	 * @param projectId the id of the {@link Project}
+	 * @return the {@link SyncProgress} of the project, or null if the project
+	 * isn't currently being synchronized
+	 */
+	public SyncProgress getSyncProgress(Long projectId) {
+		return syncProgress.get(projectId);
 	}
 
 	/**
@@ -116,7 +211,8 @@ public class ProjectSynchronizationService {
 
 	/**
 	 * Find projects which should be synchronized and launch a synchornization
-	 * task.
+	 * task. Projects which are still being synchronized from an earlier run
+	 * are skipped.
 	 */
 	public synchronized void findMarkedProjectsToSync() {
 		// mark any projects which should be synched first
@@ -127,41 +223,66 @@ public class ProjectSynchronizationService {
 		logger.trace("Checking for projects to sync");
 
 		for (Project project : markedProjects) {
-			/*
-			 * Set the correct authorization for the user who's syncing the
-			 * project
-			 */
-			User readBy = project.getRemoteStatus().getReadBy();
-			setAuthentication(readBy);
-
-			logger.trace("Syncing project at " + project.getRemoteStatus().getURL());
+			if (!runningProjects.add(project.getId())) {
+				logger.trace("Project " + project.getId() + " is already being synchronized");
+				continue;
+			}
 
 			try {
-				RemoteAPI api = project.getRemoteStatus().getApi();
-				tokenService.updateTokenFromRefreshToken(api);
+				projectExecutor.execute(() -> runProjectSync(project));
+			} catch (RejectedExecutionException e) {
+				runningProjects.remove(project.getId());
+				logger.warn("Could not start synchronizing project " + project.getId(), e);
+			}
+		}
 
-				syncProject(project);
-			} catch (IridaOAuthException e) {
-				logger.trace("Can't sync project " + project.getRemoteStatus().getURL() + " due to oauth error:", e);
-				//re-reading project to get updated version
-				project = projectService.read(project.getId());
-				project.getRemoteStatus().setSyncStatus(SyncStatus.UNAUTHORIZED);
-				projectService.update(project);
-			} catch (Exception e) {
-				logger.debug("An error occurred while synchronizing project " + project.getRemoteStatus().getURL(), e);
-				//re-reading project to get updated version
-				project = projectService.read(project.getId());
-				project.getRemoteStatus().setSyncStatus(SyncStatus.ERROR);
-				projectService.update(project);
-			} finally {
-				// clear the context holder when you're done
-				SecurityContextHolder.clearContext();
+	}
 
-				logger.trace("Done project " + project.getRemoteStatus().getURL());
+	/**
+	 * Run the synchronization of a single {@link Project} as the user who
+	 * read the project, and record any failure in the project's sync status.
+	 *
+	 * @param project
+	 *            the {@link Project} to synchronize
+	 */
+	private void runProjectSync(Project project) {
+		/*
+		 * Set the correct authorization for the user who's syncing the
+		 * project
+		 */
+		User readBy = project.getRemoteStatus().getReadBy();
+		setAuthentication(readBy);
+
+		logger.trace("Syncing project at " + project.getRemoteStatus().getURL());
+
+		try {
+			RemoteAPI api = project.getRemoteStatus().getApi();
+			// projects read by the same user from the same api share a token
+			synchronized (tokenLock) {
+				tokenService.updateTokenFromRefreshToken(api);
 			}
 
+			syncProject(project);
+		} catch (IridaOAuthException e) {
+			logger.trace("Can't sync project " + project.getRemoteStatus().getURL() + " due to oauth error:", e);
+			//re-reading project to get updated version
+			project = projectService.read(project.getId());
+			project.getRemoteStatus().setSyncStatus(SyncStatus.UNAUTHORIZED);
+			projectService.update(project);
+		} catch (Exception e) {
+			logger.debug("An error occurred while synchronizing project " + project.getRemoteStatus().getURL(), e);
+			//re-reading project to get updated version
+			project = projectService.read(project.getId());
+			project.getRemoteStatus().setSyncStatus(SyncStatus.ERROR);
+			projectService.update(project);
+		} finally {
+			// clear the context holder when you're done
+			SecurityContextHolder.clearContext();
+			syncProgress.remove(project.getId());
+			runningProjects.remove(project.getId());
+
+			logger.trace("Done project " + project.getRemoteStatus().getURL());
 		}
-
 	}
 
 	/**
@@ -170,10 +291,15 @@ public class ProjectSynchronizationService {
 	 * @param project
 	 *            the {@link Project} to synchronize. This should have been read
 	 *            from a remote api.
+	 * @throws InterruptedException
+	 *             if the thread is interrupted while synchronizing samples
 	 */
-	private void syncProject(Project project) {
+	private void syncProject(Project project) throws InterruptedException {
+		Date syncStart = new Date();
+		Date lastSynchronized = project.getRemoteStatus().getLastSynchronized();
+
 		project.getRemoteStatus().setSyncStatus(SyncStatus.UPDATING);
-		project.getRemoteStatus().setLastUpdate(new Date());
+		project.getRemoteStatus().setLastUpdate(syncStart);
 		projectService.update(project);
 
 		String projectURL = project.getRemoteStatus().getURL();
@@ -190,6 +316,7 @@ public class ProjectSynchronizationService {
 			// need to keep the status and frequency of the local project
 			RemoteStatus originalStatus = project.getRemoteStatus();
 			readProject.getRemoteStatus().setSyncStatus(originalStatus.getSyncStatus());
+			readProject.getRemoteStatus().setLastSynchronized(originalStatus.getLastSynchronized());
 			readProject.setSyncFrequency(project.getSyncFrequency());
 
 			project = projectService.update(readProject);
@@ -236,14 +363,36 @@ public class ProjectSynchronizationService {
 			samplesByUrl.remove(localUrl);
 		}
 
-		List<ProjectSynchronizationException> syncExceptions = new ArrayList<>();
+		/*
+		 * If the remote installation can tell us what changed since the last
+		 * successful sync, only synchronize those samples along with any that
+		 * are new or didn't finish synchronizing last time.
+		 */
+		Set<String> changedUrls = null;
+		Map<String, Map<String, MetadataEntry>> changedMetadata = new HashMap<>();
+		if (lastSynchronized != null && sampleRemoteService.isChangedSinceSupported(readProject)) {
+			Date since = new Date(lastSynchronized.getTime() - CHANGED_SINCE_OVERLAP);
+
+			changedUrls = sampleRemoteService.getSamplesForProjectChangedSince(readProject, since).stream()
+					.map(s -> s.getRemoteStatus().getURL()).collect(Collectors.toSet());
+			changedMetadata = sampleRemoteService.getProjectSampleMetadata(readProject, since);
+		}
+
+		List<Sample> samplesToSync = new ArrayList<>();
 		for (Sample s : readSamplesForProject) {
-			s.setId(null);
-			s = syncSampleMetadata(s);
-			List<ProjectSynchronizationException> syncExceptionsSample = syncSample(s, project, samplesByUrl);
+			String url = s.getRemoteStatus().getURL();
+			Sample localSample = samplesByUrl.get(url);
 
-			syncExceptions.addAll(syncExceptionsSample);
+			if (changedUrls == null || localSample == null || changedUrls.contains(url)
+					|| localSample.getRemoteStatus().getSyncStatus() != SyncStatus.SYNCHRONIZED) {
+				samplesToSync.add(s);
+			}
 		}
+		logger.debug("Synchronizing " + samplesToSync.size() + " of " + readSamplesForProject.size()
+				+ " samples for project " + project.getId());
+
+		List<ProjectSynchronizationException> syncExceptions = syncSamples(project, samplesToSync, samplesByUrl,
+				changedMetadata);
 
 		// re-read project to ensure any updates are reflected
 		project = projectService.read(project.getId());
@@ -251,8 +400,10 @@ public class ProjectSynchronizationService {
 
 		if (syncExceptions.isEmpty()) {
 			project.getRemoteStatus().setSyncStatus(SyncStatus.SYNCHRONIZED);
+			project.getRemoteStatus().setLastSynchronized(syncStart);
 		} else {
 			project.getRemoteStatus().setSyncStatus(SyncStatus.ERROR);
+			project.getRemoteStatus().setLastSynchronized(lastSynchronized);
 
 			logger.error("Error syncing project " + project.getId() + " setting sync status to ERROR");
 		}
@@ -260,6 +411,134 @@ public class ProjectSynchronizationService {
 		projectService.update(project);
 	}
 
+	/**
+	 * Synchronize the samples read from a remote project on the transfer
+	 * executor and wait for them all to finish. Each sample is synchronized
+	 * with the current thread's security context, and no more than
+	 * <code>apiConcurrency</code> samples are transferred from the project's
+	 * remote API at once.
+	 *
+	 * The metadata for every sample is read first, and the
+	 * {@link MetadataTemplateField}s for all of their labels are found or
+	 * created here in one go. Creating them from the sample threads would let
+	 * two samples with the same new label each create a field. Projects
+	 * synchronizing at the same time take turns for the same reason.
+	 *
+	 * @param project         the local {@link Project} to synchronize into
+	 * @param remoteSamples   the {@link Sample}s read from the remote api
+	 * @param existingSamples the local samples, by their remote url
+	 * @param remoteMetadata  metadata that was already read for some of the samples, by their remote url.
+	 *                        Metadata for any other sample is read separately.
+	 * @return A list of {@link ProjectSynchronizationException}s, empty if no errors.
+	 * @throws InterruptedException if the thread is interrupted while waiting for the samples
+	 */
+	private List<ProjectSynchronizationException> syncSamples(Project project, List<Sample> remoteSamples,
+			Map<String, Sample> existingSamples, Map<String, Map<String, MetadataEntry>> remoteMetadata)
+			throws InterruptedException {
+		RemoteAPI api = project.getRemoteStatus().getApi();
+		Semaphore permits = apiPermits.computeIfAbsent(String.valueOf(api.getServiceURI()),
+				k -> new Semaphore(apiConcurrency));
+		SecurityContext context = SecurityContextHolder.getContext();
+
+		SyncProgress progress = new SyncProgress(remoteSamples.size());
+		syncProgress.put(project.getId(), progress);
+
+		List<ProjectSynchronizationException> syncExceptions = new ArrayList<>();
+
+		// read the metadata that didn't come with the project
+		List<Future<Map<String, MetadataEntry>>> metadataReads = new ArrayList<>();
+		for (Sample remoteSample : remoteSamples) {
+			Map<String, MetadataEntry> metadata = remoteMetadata.get(remoteSample.getRemoteStatus().getURL());
+			if (metadata != null) {
+				metadataReads.add(CompletableFuture.completedFuture(metadata));
+			} else {
+				metadataReads.add(
+						submitTransfer(() -> sampleRemoteService.getSampleMetadata(remoteSample), permits, context));
+			}
+		}
+
+		List<Sample> readSamples = new ArrayList<>();
+		List<Map<String, MetadataEntry>> readMetadata = new ArrayList<>();
+		for (int i = 0; i < remoteSamples.size(); i++) {
+			try {
+				readMetadata.add(metadataReads.get(i).get());
+				readSamples.add(remoteSamples.get(i));
+			} catch (ExecutionException e) {
+				logger.error("Error reading sample metadata in project " + project.getId(), e.getCause());
+				syncExceptions.add(new ProjectSynchronizationException(
+						"Could not synchronize sample in project " + project.getId(), e.getCause()));
+				progress.sampleCompleted();
+			}
+		}
+
+		Set<String> labels = new HashSet<>();
+		readMetadata.forEach(m -> labels.addAll(m.keySet()));
+		Map<String, MetadataTemplateField> fields;
+		synchronized (metadataFieldLock) {
+			fields = metadataTemplateService.getOrCreateMetadataFields(labels);
+		}
+
+		List<Future<List<ProjectSynchronizationException>>> sampleSyncs = new ArrayList<>();
+		for (int i = 0; i < readSamples.size(); i++) {
+			Sample remoteSample = readSamples.get(i);
+			Map<String, MetadataEntry> metadata = readMetadata.get(i);
+			Callable<List<ProjectSynchronizationException>> task = () -> {
+				try {
+					remoteSample.setId(null);
+					Sample sample = setSampleMetadata(remoteSample, metadata, fields);
+					return syncSample(sample, project, existingSamples);
+				} finally {
+					progress.sampleCompleted();
+				}
+			};
+
+			sampleSyncs.add(submitTransfer(task, permits, context));
+		}
+
+		for (Future<List<ProjectSynchronizationException>> sampleSync : sampleSyncs) {
+			try {
+				syncExceptions.addAll(sampleSync.get());
+			} catch (ExecutionException e) {
+				logger.error("Error synchronizing sample in project " + project.getId(), e.getCause());
+				syncExceptions.add(new ProjectSynchronizationException(
+						"Could not synchronize sample in project " + project.getId(), e.getCause()));
+			}
+		}
+
+		return syncExceptions;
+	}
+
+	/**
+	 * Run a task on the transfer executor with the given security context once
+	 * one of the remote API's permits is free. Waits here rather than on a
+	 * transfer thread so other APIs aren't blocked.
+	 *
+	 * @param task    the task to run
+	 * @param permits the permits for the remote API the task reads from
+	 * @param context the security context to run the task with
+	 * @param <T>     the type the task returns
+	 * @return the {@link Future} for the task
+	 * @throws InterruptedException if the thread is interrupted while waiting for a permit
+	 */
+	private <T> Future<T> submitTransfer(Callable<T> task, Semaphore permits, SecurityContext context)
+			throws InterruptedException {
+		Callable<T> permitted = () -> {
+			try {
+				return task.call();
+			} finally {
+				permits.release();
+			}
+		};
+
+		permits.acquire();
+		try {
+			return transferExecutor.submit(new DelegatingSecurityContextCallable<>(permitted, context));
+		} catch (RejectedExecutionException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
 	/**
 	 * Synchronize a given {@link Sample} to the local installation.
 	 *
@@ -354,19 +633,22 @@ public class ProjectSynchronizationService {
 	}
 
 	/**
-	 * Synchronize the given sample's metadata
+	 * Set metadata read from a remote api on a sample
 	 *
-	 * @param sample the sample to sync
-	 * @return the synchronized sample
+	 * @param sample         the sample to set metadata on
+	 * @param sampleMetadata the metadata read for the sample
+	 * @param fields         the {@link MetadataTemplateField}s for the metadata labels, looked up without case
+	 * @return the sample with its metadata set
 	 */
-	public Sample syncSampleMetadata(Sample sample){
-		Map<String, MetadataEntry> sampleMetadata = sampleRemoteService.getSampleMetadata(sample);
-		
-		sampleMetadata.values().forEach(e -> e.setId(null));
-		
-		Map<MetadataTemplateField, MetadataEntry> metadata = metadataTemplateService.getMetadataMap(sampleMetadata);
+	private Sample setSampleMetadata(Sample sample, Map<String, MetadataEntry> sampleMetadata,
+			Map<String, MetadataTemplateField> fields) {
+		Map<MetadataTemplateField, MetadataEntry> metadata = new HashMap<>();
+		sampleMetadata.forEach((label, entry) -> {
+			entry.setId(null);
+			metadata.put(fields.get(label), entry);
+		});
 		sample.setMetadata(metadata);
-		
+
 		return sample;
 	}
 
@@ -482,4 +764,42 @@ public class ProjectSynchronizationService {
 		context.setAuthentication(userAuthentication);
 		SecurityContextHolder.setContext(context);
 	}
+
+	/**
+	 * The number of samples that have been synchronized in a project that is
+	 * currently being synchronized.
+	 */
+	public static class SyncProgress {
+		private final int total;
+		private final AtomicInteger completed = new AtomicInteger();
+
+		public SyncProgress(int total) {
+			this.total = total;
+		}
+
+		/**
+		 * Record that a sample has finished synchronizing.
+		 */
+		public void sampleCompleted() {
+			completed.incrementAndGet();
+		}
+
+		/**
+		 * Get the number of samples in the remote project
+		 *
+		 * @return the number of samples to synchronize
+		 */
+		public int getTotal() {
+			return total;
+		}
+
+		/**
+		 * Get the number of samples that have finished synchronizing
+		 *
+		 * @return the number of synchronized samples
+		 */
+		public int getCompleted() {
+			return completed.get();
+		}
+	}
 }
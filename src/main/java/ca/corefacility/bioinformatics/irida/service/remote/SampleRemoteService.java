@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.service.remote;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -33,4 +34,43 @@ public interface SampleRemoteService extends RemoteService<Sample> {
 	 *         {@link MetadataTemplateField}
 	 */
 	public Map<String, MetadataEntry> getSampleMetadata(Sample sample);
+
+	/**
+	 * Check whether the remote API a {@link Project} was read from can list
+	 * the {@link Sample}s that changed since a given time, and can return the
+	 * metadata for many samples at once.
+	 * 
+	 * @param project
+	 *            the remote {@link Project}
+	 * @return true if {@link #getSamplesForProjectChangedSince(Project, Date)}
+	 *         and {@link #getProjectSampleMetadata(Project, Date)} can be used
+	 */
+	public boolean isChangedSinceSupported(Project project);
+
+	/**
+	 * Get the {@link Sample}s in a {@link Project} that were added to the
+	 * project, modified, or had sequencing data added since a given date
+	 * 
+	 * @param project
+	 *            The {@link Project} to get samples from
+	 * @param since
+	 *            the date to get changes since
+	 * @return A List of the changed {@link Sample}s
+	 */
+	public List<Sample> getSamplesForProjectChangedSince(Project project, Date since);
+
+	/**
+	 * Get the metadata for the {@link Sample}s in a remote {@link Project}
+	 * with a single request
+	 * 
+	 * @param project
+	 *            the remote {@link Project} to get sample metadata for
+	 * @param since
+	 *            only get metadata for samples that changed since this date.
+	 *            null to get metadata for all samples.
+	 * @return a map of sample URL to the sample's metadata. Before saving the
+	 *         String component must be converted to
+	 *         {@link MetadataTemplateField}
+	 */
+	public Map<String, Map<String, MetadataEntry>> getProjectSampleMetadata(Project project, Date since);
 }
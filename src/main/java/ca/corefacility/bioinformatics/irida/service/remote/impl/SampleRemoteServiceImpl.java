@@ -1,11 +1,13 @@
 package ca.corefacility.bioinformatics.irida.service.remote.impl;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.hateoas.Link;
 import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
@@ -23,6 +25,7 @@ import ca.corefacility.bioinformatics.irida.service.remote.SampleRemoteService;
 @Service
 public class SampleRemoteServiceImpl extends RemoteServiceImpl<Sample> implements SampleRemoteService {
 	public static final String PROJECT_SAMPLES_REL = "project/samples";
+	public static final String PROJECT_SAMPLES_METADATA_REL = "project/samples/metadata";
 	public static final String SAMPLES_CACHE_NAME = "samplesForProject";
 
 	public static final String FILE_SAMPLE_REL = "sample";
@@ -52,4 +55,31 @@ public class SampleRemoteServiceImpl extends RemoteServiceImpl<Sample> implement
 		return sampleRemoteRepository.getSampleMetadata(sample);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isChangedSinceSupported(Project project) {
+		// installations that can list changed samples also link to the bulk metadata
+		return project.hasLink(PROJECT_SAMPLES_METADATA_REL);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<Sample> getSamplesForProjectChangedSince(Project project, Date since) {
+		Link link = project.getLink(PROJECT_SAMPLES_REL);
+		String samplesHref = UriComponentsBuilder.fromHttpUrl(link.getHref()).queryParam("since", since.getTime())
+				.toUriString();
+		return list(samplesHref, project.getRemoteStatus().getApi());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, Map<String, MetadataEntry>> getProjectSampleMetadata(Project project, Date since) {
+		return sampleRemoteRepository.getProjectSampleMetadata(project, since);
+	}
 }
@@ -8,6 +8,7 @@ import ca.corefacility.bioinformatics.irida.model.sample.StaticMetadataTemplateF
 import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
 import ca.corefacility.bioinformatics.irida.service.CRUDService;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -109,6 +110,15 @@ public interface MetadataTemplateService extends CRUDService<Long, MetadataTempl
 	 */
 	public List<MetadataTemplateField> getAllMetadataFieldsByQueryString(String query);
 
+	/**
+	 * Get the {@link MetadataTemplateField}s for some labels, creating any that don't exist yet.  Existing fields are
+	 * read with a single query and missing fields are saved together.
+	 *
+	 * @param labels the {@link String} field labels
+	 * @return a map of label to {@link MetadataTemplateField}, looked up without case
+	 */
+	public Map<String, MetadataTemplateField> getOrCreateMetadataFields(Collection<String> labels);
+
 	/**
 	 * Get the appropriate {@link MetadataTemplateField}s and {@link MetadataEntry}s for a given map of Strings
 	 *
@@ -0,0 +1,36 @@
+package ca.corefacility.bioinformatics.irida.service.sample;
+
+import java.util.List;
+import java.util.Map;
+
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.SampleMetadataImport;
+
+/**
+ * Service for importing spreadsheets of {@link MetadataEntry}s into the {@link Sample}s of a {@link Project} in the
+ * background.
+ */
+public interface SampleMetadataImportService {
+
+	/**
+	 * Start importing rows of metadata into the {@link Sample}s of a {@link Project}.  Each row is matched to a
+	 * {@link Sample} by the value in its sample name column, and every other column is saved as a
+	 * {@link MetadataEntry} on that {@link Sample}.
+	 *
+	 * @param project          the {@link Project} holding the {@link Sample}s
+	 * @param sampleNameColumn the column holding the {@link Sample} names
+	 * @param rows             the rows of metadata, keyed by column
+	 * @return the {@link SampleMetadataImport} to follow the progress of the import
+	 */
+	public SampleMetadataImport startImport(Project project, String sampleNameColumn, List<Map<String, String>> rows);
+
+	/**
+	 * Get a running or recently finished import
+	 *
+	 * @param id the id of the {@link SampleMetadataImport}
+	 * @return the {@link SampleMetadataImport}
+	 */
+	public SampleMetadataImport getImport(String id);
+}
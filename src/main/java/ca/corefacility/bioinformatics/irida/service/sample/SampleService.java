@@ -3,6 +3,8 @@ package ca.corefacility.bioinformatics.irida.service.sample;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
@@ -16,9 +18,13 @@ import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.SampleGenomeAssemblyJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.project.ReferenceFile;
+import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
 import ca.corefacility.bioinformatics.irida.model.sample.QCEntry;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.SampleQCSummary;
 import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.SampleMetadataQuery;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
@@ -76,6 +82,27 @@ public interface SampleService extends CRUDService<Long, Sample> {
 	 */
 	public List<Sample> getSamplesForProjectShallow(Project project);
 
+	/**
+	 * Get a filtered and sorted window of the {@link Sample}s in a {@link Project} for the line list.  Filtering,
+	 * sorting and paging are done in the database.  Note: The {@link Sample}s will not have metadata, use
+	 * {@link #getMetadataValuesForProjectSamples(Project, Collection)} to read it for the window.
+	 *
+	 * @param project the {@link Project} to get samples for
+	 * @param query   the {@link SampleMetadataQuery} describing the window
+	 * @return a {@link Page} of {@link ProjectSampleJoin} with the number of samples matching the filters
+	 */
+	public Page<ProjectSampleJoin> getSamplesForProjectShallow(Project project, SampleMetadataQuery query);
+
+	/**
+	 * Get the metadata values of some {@link Sample}s in a {@link Project} with a single query.
+	 *
+	 * @param project   the {@link Project} the samples are in
+	 * @param sampleIds the ids of the {@link Sample}s
+	 * @return a map of {@link Sample} id to a map of metadata field id to value
+	 */
+	public Map<Long, Map<Long, String>> getMetadataValuesForProjectSamples(Project project,
+			Collection<Long> sampleIds);
+
 	/**
 	 * Get a list of {@link Sample} in a {@link Project} given some Sample ids.
 	 * @param project {@link Project} to get samples for.
@@ -83,6 +110,16 @@ public interface SampleService extends CRUDService<Long, Sample> {
 	 * @return List of Samples from a {@link Project}.
 	 */
 	List<Sample> getSamplesInProject(Project project, List<Long> sampleIds);
+
+	/**
+	 * Get the {@link Sample}s in a {@link Project} that were added to the
+	 * project, modified, or had sequencing data added since a given date.
+	 *
+	 * @param project {@link Project} to get samples for.
+	 * @param since   the date to get changes since
+	 * @return List of the changed {@link Sample}s
+	 */
+	List<Sample> getSamplesForProjectChangedSince(Project project, Date since);
 		
 	/**
 	 * Get a list of the organism fields stored for all {@link Sample}s in a
@@ -135,6 +172,26 @@ public interface SampleService extends CRUDService<Long, Sample> {
 	 * @return A {@link Sample} with the given ID
 	 */
 	public Sample getSampleBySampleName(Project project, String sampleName);
+
+	/**
+	 * Get the ids of the {@link Sample}s in a {@link Project} with some names using a single query.
+	 *
+	 * @param project     the {@link Project} that the {@link Sample}s belong to.
+	 * @param sampleNames the names of the requested samples
+	 * @return a map of {@link Sample} name to id, looked up without case. Names that aren't in the project are left
+	 * out.
+	 */
+	public Map<String, Long> getSampleIdsBySampleName(Project project, Collection<String> sampleNames);
+
+	/**
+	 * Merge new metadata into many {@link Sample}s at once.  The samples are read and written in batches within a
+	 * single transaction, so the whole merge is recorded as a single revision and is rolled back if any batch fails.
+	 *
+	 * @param metadata a map of {@link Sample} id to the metadata to merge into the sample
+	 * @param progress called with the number of samples merged so far after each batch is written
+	 */
+	public void mergeSampleMetadata(Map<Long, Map<MetadataTemplateField, MetadataEntry>> metadata,
+			IntConsumer progress);
 	
 	/**
 	 * Remove a {@link SequencingObject} from a given {@link Sample}. This will
@@ -264,6 +321,17 @@ public interface SampleService extends CRUDService<Long, Sample> {
 	 */
 	public List<QCEntry> getQCEntriesForSample(Sample sample);
 
+	/**
+	 * Get the total bases and {@link QCEntry}s for every {@link Sample} in a
+	 * page of {@link ProjectSampleJoin}s. This uses a fixed number of queries
+	 * regardless of the number of {@link Sample}s in the page.
+	 * 
+	 * @param page
+	 *            the page of {@link ProjectSampleJoin}s to get summaries for
+	 * @return a map of {@link Sample} id to {@link SampleQCSummary}
+	 */
+	public Map<Long, SampleQCSummary> getQCSummariesForProjectSamples(Page<ProjectSampleJoin> page);
+
 	/**
 	 * Gets a collection of {@link SampleGenomeAssemblyJoin}s for the given
 	 * sample.
@@ -32,6 +32,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import ca.corefacility.bioinformatics.irida.exceptions.EntityExistsException;
 import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
 import ca.corefacility.bioinformatics.irida.exceptions.InvalidPropertyException;
+import ca.corefacility.bioinformatics.irida.exceptions.SequenceFileUploadOffsetException;
 import ca.corefacility.bioinformatics.irida.model.IridaResourceSupport;
 
 import com.fasterxml.jackson.core.JsonParseException;
@@ -143,6 +144,22 @@ public class ControllerExceptionHandler {
 				+ e.getMessage()), HttpStatus.CONFLICT);
 	}
 
+	/**
+	 * Handle {@link SequenceFileUploadOffsetException}.
+	 * 
+	 * @param e
+	 *            the exception as thrown by the service.
+	 * @return a conflict response with the number of bytes committed for the
+	 *         upload.
+	 */
+	@ExceptionHandler(SequenceFileUploadOffsetException.class)
+	public ResponseEntity<ErrorResponse> handleUploadOffsetException(SequenceFileUploadOffsetException e) {
+		logger.info("A client sent a sequence file upload chunk that didn't match the upload: " + e.getMessage());
+		ErrorResponse errorResponse = new ErrorResponse(e.getMessage());
+		errorResponse.addProperty("committedOffset", e.getCommittedOffset());
+		return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+	}
+
 	/**
 	 * Handle {@link HttpRequestMethodNotSupportedException}.
 	 * 
@@ -12,6 +12,7 @@ import ca.corefacility.bioinformatics.irida.web.assembler.resource.ResourceColle
 import ca.corefacility.bioinformatics.irida.web.assembler.resource.RootResource;
 import ca.corefacility.bioinformatics.irida.web.controller.api.RESTGenericController;
 import ca.corefacility.bioinformatics.irida.web.controller.api.samples.RESTSampleMetadataController;
+import ca.corefacility.bioinformatics.irida.web.controller.api.samples.RESTSampleSequenceFileUploadsController;
 import ca.corefacility.bioinformatics.irida.web.controller.api.samples.RESTSampleSequenceFilesController;
 import com.google.common.net.HttpHeaders;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,10 +25,12 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.view.RedirectView;
 
 import javax.servlet.http.HttpServletResponse;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -197,6 +200,42 @@ public class RESTProjectSamplesController {
 		return modelMap;
 	}
 
+	/**
+	 * Get the list of {@link Sample}s in a {@link Project} that were added to
+	 * the project, modified, or had sequencing data added since a given time.
+	 * Remote installations use this to only synchronize the samples that
+	 * changed since their last synchronization.
+	 *
+	 * @param projectId
+	 *            the identifier of the {@link Project} to get the
+	 *            {@link Sample}s for.
+	 * @param since
+	 *            the time to get changes since, in milliseconds since the
+	 *            epoch.
+	 * @return the list of changed {@link Sample}s in the {@link Project}.
+	 */
+	@RequestMapping(value = "/api/projects/{projectId}/samples", method = RequestMethod.GET, params = "since")
+	public ModelMap getProjectSamplesChangedSince(@PathVariable Long projectId, @RequestParam Long since) {
+		ModelMap modelMap = new ModelMap();
+		Project p = projectService.read(projectId);
+		List<Sample> samples = sampleService.getSamplesForProjectChangedSince(p, new Date(since));
+
+		ResourceCollection<Sample> sampleResources = new ResourceCollection<>(samples.size());
+
+		for (Sample sample : samples) {
+			addLinksForSample(Optional.of(p), sample);
+			sampleResources.add(sample);
+		}
+
+		sampleResources.add(linkTo(
+				methodOn(RESTProjectSamplesController.class).getProjectSamplesChangedSince(projectId, since))
+				.withSelfRel());
+
+		modelMap.addAttribute(RESTGenericController.RESOURCE_NAME, sampleResources);
+
+		return modelMap;
+	}
+
 	/**
 	 * Get samples by a given string name
 	 *
@@ -288,6 +327,8 @@ public class RESTProjectSamplesController {
 						.withRel(RESTSampleSequenceFilesController.REL_SAMPLE_SEQUENCE_FILE_UNPAIRED));
 		s.add(linkTo(methodOn(RESTSampleMetadataController.class).getSampleMetadata(s.getId()))
 				.withRel(RESTSampleMetadataController.METADATA_REL));
+		s.add(linkTo(methodOn(RESTSampleSequenceFileUploadsController.class).startUpload(s.getId(), null, null))
+				.withRel(RESTSampleSequenceFileUploadsController.REL_SAMPLE_UPLOADS));
 		if (p.isPresent()) {
 			final Project project = p.get();
 			s.add(linkTo(RESTProjectsController.class).slash(project.getId()).withRel(REL_PROJECT));
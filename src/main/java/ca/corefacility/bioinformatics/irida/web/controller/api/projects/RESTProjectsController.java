@@ -17,6 +17,7 @@ import ca.corefacility.bioinformatics.irida.exceptions.ProjectWithoutOwnerExcept
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.service.ProjectService;
 import ca.corefacility.bioinformatics.irida.web.controller.api.RESTGenericController;
+import ca.corefacility.bioinformatics.irida.web.controller.api.samples.RESTSampleMetadataController;
 
 /**
  * Controller for managing {@link Project}s in the database.
@@ -80,6 +81,8 @@ public class RESTProjectsController extends RESTGenericController<Project> {
 		}
 		links.add(linkTo(methodOn(RESTProjectSamplesController.class).getProjectSamples(projectId))
 				.withRel(RESTProjectSamplesController.REL_PROJECT_SAMPLES));
+		links.add(linkTo(methodOn(RESTSampleMetadataController.class).getProjectSampleMetadata(projectId, null))
+				.withRel(RESTSampleMetadataController.PROJECT_SAMPLES_METADATA_REL));
 		links.add(linkTo(methodOn(RESTProjectAnalysisController.class).getProjectAnalyses(projectId))
 				.withRel(PROJECT_ANALYSES_REL));
 		return links;
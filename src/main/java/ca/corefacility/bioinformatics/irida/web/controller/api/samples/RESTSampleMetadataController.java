@@ -3,7 +3,10 @@ package ca.corefacility.bioinformatics.irida.web.controller.api.samples;
 import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
 import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
 
+import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,15 +17,20 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import ca.corefacility.bioinformatics.irida.model.IridaResourceSupport;
+import ca.corefacility.bioinformatics.irida.model.joins.Join;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
+import ca.corefacility.bioinformatics.irida.service.ProjectService;
 import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateService;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
+import ca.corefacility.bioinformatics.irida.web.assembler.resource.ResourceCollection;
 import ca.corefacility.bioinformatics.irida.web.controller.api.RESTGenericController;
 import ca.corefacility.bioinformatics.irida.web.controller.api.projects.RESTProjectSamplesController;
 
@@ -36,14 +44,18 @@ public class RESTSampleMetadataController {
 
 	public static final String METADATA_REL = "sample/metadata";
 	public static final String SAMPLE_REL = "sample";
+	public static final String PROJECT_SAMPLES_METADATA_REL = "project/samples/metadata";
 
 	private SampleService sampleService;
 	private MetadataTemplateService metadataTemplateService;
+	private ProjectService projectService;
 
 	@Autowired
-	public RESTSampleMetadataController(SampleService sampleService, MetadataTemplateService metadataTemplateService) {
+	public RESTSampleMetadataController(SampleService sampleService, MetadataTemplateService metadataTemplateService,
+			ProjectService projectService) {
 		this.sampleService = sampleService;
 		this.metadataTemplateService = metadataTemplateService;
+		this.projectService = projectService;
 	}
 
 	/**
@@ -65,6 +77,44 @@ public class RESTSampleMetadataController {
 		return modelMap;
 	}
 
+	/**
+	 * Get the metadata for all the {@link Sample}s in a {@link Project} in a
+	 * single response. Each entry links to the {@link Sample} it belongs to.
+	 * 
+	 * @param projectId
+	 *            the id of the {@link Project} to get sample metadata for
+	 * @param since
+	 *            optional time in milliseconds since the epoch. If given, only
+	 *            the samples added to the project, modified, or given new
+	 *            sequencing data since this time are included.
+	 * @return the metadata for the samples in the project
+	 */
+	@RequestMapping(value = "/api/projects/{projectId}/samples/metadata", method = RequestMethod.GET)
+	public ModelMap getProjectSampleMetadata(@PathVariable Long projectId,
+			@RequestParam(value = "since", required = false) Long since) {
+		logger.trace("Getting sample metadata for project " + projectId);
+		ModelMap modelMap = new ModelMap();
+		Project project = projectService.read(projectId);
+
+		List<Sample> samples;
+		if (since == null) {
+			samples = sampleService.getSamplesForProject(project).stream().map(Join::getObject)
+					.collect(Collectors.toList());
+		} else {
+			samples = sampleService.getSamplesForProjectChangedSince(project, new Date(since));
+		}
+
+		ResourceCollection<SampleMetadataResponse> resources = new ResourceCollection<>(samples.size());
+		for (Sample s : samples) {
+			resources.add(buildSampleMetadataResponse(s));
+		}
+		resources.add(linkTo(methodOn(RESTSampleMetadataController.class).getProjectSampleMetadata(projectId, since))
+				.withSelfRel());
+
+		modelMap.addAttribute(RESTGenericController.RESOURCE_NAME, resources);
+		return modelMap;
+	}
+
 	/**
 	 * Save new metadata for a {@link Sample}. Note this will overwrite the
 	 * existing metadata
@@ -83,6 +133,8 @@ public class RESTSampleMetadataController {
 		Map<MetadataTemplateField, MetadataEntry> metadata = metadataTemplateService.getMetadataMap(metadataMap);
 
 		s.setMetadata(metadata);
+		// replacing the metadata doesn't mark the sample as modified on its own
+		s.setModifiedDate(new Date());
 
 		sampleService.update(s);
 
@@ -0,0 +1,366 @@
+package ca.corefacility.bioinformatics.irida.web.controller.api.samples;
+
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.Link;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.ModelMap;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.net.HttpHeaders;
+
+import ca.corefacility.bioinformatics.irida.exceptions.InvalidPropertyException;
+import ca.corefacility.bioinformatics.irida.model.IridaResourceSupport;
+import ca.corefacility.bioinformatics.irida.model.run.SequencingRun;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFileUpload;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+import ca.corefacility.bioinformatics.irida.service.SequenceFileUploadService;
+import ca.corefacility.bioinformatics.irida.service.SequencingRunService;
+import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
+import ca.corefacility.bioinformatics.irida.web.assembler.resource.RootResource;
+import ca.corefacility.bioinformatics.irida.web.controller.api.RESTGenericController;
+import ca.corefacility.bioinformatics.irida.web.controller.api.projects.RESTProjectSamplesController;
+
+/**
+ * Controller for resumable, chunked uploads of sequence files to a
+ * {@link Sample}. A client starts an upload, sends the file in chunks with
+ * <code>PUT</code> requests carrying a <code>Content-Range</code> header, and
+ * completes one or two uploads into a {@link SequencingObject}. If a chunk
+ * fails, the client can read the upload to find out how many bytes were
+ * committed and resume from there.
+ */
+@Controller
+public class RESTSampleSequenceFileUploadsController {
+	private static final Logger logger = LoggerFactory.getLogger(RESTSampleSequenceFileUploadsController.class);
+
+	/**
+	 * Rel to start a new upload for a {@link Sample}
+	 */
+	public static final String REL_SAMPLE_UPLOADS = "sample/sequenceFiles/uploads";
+
+	/**
+	 * Rel to complete uploads into a {@link SequencingObject}
+	 */
+	public static final String REL_COMPLETE_UPLOADS = "sample/sequenceFiles/uploads/complete";
+
+	private static final Pattern CONTENT_RANGE = Pattern.compile("^bytes (\\d+)-(\\d+)/(\\d+|\\*)$");
+
+	private SampleService sampleService;
+	private SequencingRunService sequencingRunService;
+	private SequenceFileUploadService uploadService;
+
+	protected RESTSampleSequenceFileUploadsController() {
+	}
+
+	@Autowired
+	public RESTSampleSequenceFileUploadsController(SampleService sampleService,
+			SequencingRunService sequencingRunService, SequenceFileUploadService uploadService) {
+		this.sampleService = sampleService;
+		this.sequencingRunService = sequencingRunService;
+		this.uploadService = uploadService;
+	}
+
+	/**
+	 * Start a new upload of a sequence file to a {@link Sample}.
+	 *
+	 * @param sampleId
+	 *            the id of the {@link Sample} to upload to
+	 * @param request
+	 *            the name and optional size of the file
+	 * @param response
+	 *            the servlet response
+	 * @return the new upload
+	 */
+	@RequestMapping(value = "/api/samples/{sampleId}/uploads", method = RequestMethod.POST)
+	public ModelMap startUpload(@PathVariable Long sampleId, @RequestBody UploadRequest request,
+			HttpServletResponse response) {
+		ModelMap modelMap = new ModelMap();
+		Sample sample = sampleService.read(sampleId);
+
+		SequenceFileUpload upload = uploadService.createUpload(sample, request.getFileName(), request.getFileSize());
+		logger.debug("Started upload [" + upload.getId() + "] of " + upload.getFileName() + " to sample "
+				+ sampleId);
+
+		UploadResponse resource = buildUploadResponse(sampleId, upload, 0L);
+
+		modelMap.addAttribute(RESTGenericController.RESOURCE_NAME, resource);
+		response.addHeader(HttpHeaders.LOCATION, resource.getLink(Link.REL_SELF).getHref());
+		response.setStatus(HttpStatus.CREATED.value());
+
+		return modelMap;
+	}
+
+	/**
+	 * Read an upload, including the number of bytes that have been committed.
+	 *
+	 * @param sampleId
+	 *            the id of the {@link Sample}
+	 * @param uploadId
+	 *            the id of the upload
+	 * @return the upload
+	 * @throws IOException
+	 *             if the staged file can't be read
+	 */
+	@RequestMapping(value = "/api/samples/{sampleId}/uploads/{uploadId}", method = RequestMethod.GET)
+	public ModelMap readUpload(@PathVariable Long sampleId, @PathVariable Long uploadId) throws IOException {
+		ModelMap modelMap = new ModelMap();
+		Sample sample = sampleService.read(sampleId);
+
+		SequenceFileUpload upload = uploadService.readUploadForSample(sample, uploadId);
+		long committed = uploadService.getCommittedOffset(sample, uploadId);
+
+		modelMap.addAttribute(RESTGenericController.RESOURCE_NAME, buildUploadResponse(sampleId, upload, committed));
+		return modelMap;
+	}
+
+	/**
+	 * Write a chunk of an upload. The body of the request is the raw bytes of
+	 * the chunk, and the <code>Content-Range</code> header gives the position
+	 * of the chunk in the file. If there's no <code>Content-Range</code>
+	 * header, the body is taken to be the whole file. A chunk whose body
+	 * doesn't have exactly the number of bytes in its range is rejected.
+	 *
+	 * @param sampleId
+	 *            the id of the {@link Sample}
+	 * @param uploadId
+	 *            the id of the upload
+	 * @param contentRange
+	 *            the <code>Content-Range</code> of the chunk
+	 * @param request
+	 *            the servlet request containing the chunk
+	 * @return the upload with the new number of committed bytes
+	 * @throws IOException
+	 *             if the chunk can't be read or written
+	 */
+	@RequestMapping(value = "/api/samples/{sampleId}/uploads/{uploadId}", method = RequestMethod.PUT)
+	public ModelMap writeChunk(@PathVariable Long sampleId, @PathVariable Long uploadId,
+			@RequestHeader(value = HttpHeaders.CONTENT_RANGE, required = false) String contentRange,
+			HttpServletRequest request) throws IOException {
+		ModelMap modelMap = new ModelMap();
+		Sample sample = sampleService.read(sampleId);
+		SequenceFileUpload upload = uploadService.readUploadForSample(sample, uploadId);
+
+		long offset = 0;
+		Long length = null;
+		if (contentRange != null) {
+			Matcher matcher = CONTENT_RANGE.matcher(contentRange.trim());
+			if (!matcher.matches()) {
+				throw new InvalidPropertyException("Invalid Content-Range header: " + contentRange);
+			}
+			offset = Long.parseLong(matcher.group(1));
+			long end = Long.parseLong(matcher.group(2));
+			if (end < offset) {
+				throw new InvalidPropertyException("Invalid Content-Range header: " + contentRange);
+			}
+			if (!matcher.group(3).equals("*")) {
+				long total = Long.parseLong(matcher.group(3));
+				if (end >= total || (upload.getFileSize() != null && total != upload.getFileSize())) {
+					throw new InvalidPropertyException("Content-Range " + contentRange
+							+ " is outside of the file being uploaded");
+				}
+			}
+			length = end - offset + 1;
+		}
+
+		// reject a body that can't match the range before writing any of it
+		long contentLength = request.getContentLengthLong();
+		if (length != null && contentLength != -1 && contentLength != length) {
+			throw new InvalidPropertyException("Chunk has " + contentLength + " bytes, but Content-Range "
+					+ contentRange + " has " + length + " bytes");
+		}
+
+		long committed;
+		try (InputStream chunk = request.getInputStream()) {
+			committed = uploadService.writeChunk(sample, uploadId, offset, length, chunk);
+		}
+
+		modelMap.addAttribute(RESTGenericController.RESOURCE_NAME, buildUploadResponse(sampleId, upload, committed));
+		return modelMap;
+	}
+
+	/**
+	 * Cancel an upload and remove the bytes that have been uploaded.
+	 *
+	 * @param sampleId
+	 *            the id of the {@link Sample}
+	 * @param uploadId
+	 *            the id of the upload
+	 * @return a link back to the {@link Sample}
+	 */
+	@RequestMapping(value = "/api/samples/{sampleId}/uploads/{uploadId}", method = RequestMethod.DELETE)
+	public ModelMap cancelUpload(@PathVariable Long sampleId, @PathVariable Long uploadId) {
+		ModelMap modelMap = new ModelMap();
+		Sample sample = sampleService.read(sampleId);
+
+		uploadService.cancelUpload(sample, uploadId);
+
+		RootResource resource = new RootResource();
+		resource.add(linkTo(methodOn(RESTProjectSamplesController.class).getSample(sampleId)).withRel(
+				RESTSampleSequenceFilesController.REL_SAMPLE));
+		modelMap.addAttribute(RESTGenericController.RESOURCE_NAME, resource);
+
+		return modelMap;
+	}
+
+	/**
+	 * Complete one upload into a single end file, or two uploads into a pair
+	 * of files, in a {@link Sample}.
+	 *
+	 * @param sampleId
+	 *            the id of the {@link Sample}
+	 * @param request
+	 *            the ids of the uploads and the optional sequencing run
+	 * @param response
+	 *            the servlet response
+	 * @return the new {@link SequencingObject}
+	 * @throws IOException
+	 *             if the staged files can't be read
+	 */
+	@RequestMapping(value = "/api/samples/{sampleId}/uploads/complete", method = RequestMethod.POST)
+	public ModelMap completeUploads(@PathVariable Long sampleId, @RequestBody CompleteUploadsRequest request,
+			HttpServletResponse response) throws IOException {
+		ModelMap modelMap = new ModelMap();
+		Sample sample = sampleService.read(sampleId);
+
+		SequencingRun sequencingRun = null;
+		if (request.getMiseqRunId() != null) {
+			sequencingRun = sequencingRunService.read(request.getMiseqRunId());
+		}
+
+		SampleSequencingObjectJoin join = uploadService.completeUploads(sample, request.getUploads(), sequencingRun);
+		SequencingObject sequencingObject = RESTSampleSequenceFilesController.addSequencingObjectLinks(
+				join.getObject(), sampleId);
+
+		modelMap.addAttribute(RESTGenericController.RESOURCE_NAME, sequencingObject);
+		response.addHeader(HttpHeaders.LOCATION, sequencingObject.getLink(Link.REL_SELF).getHref());
+		response.setStatus(HttpStatus.CREATED.value());
+
+		return modelMap;
+	}
+
+	/**
+	 * Build the response for an upload with links to write, complete and get
+	 * back to the {@link Sample}.
+	 *
+	 * @param sampleId
+	 *            the id of the {@link Sample}
+	 * @param upload
+	 *            the {@link SequenceFileUpload}
+	 * @param committedOffset
+	 *            the number of bytes committed for the upload
+	 * @return the response
+	 */
+	private UploadResponse buildUploadResponse(Long sampleId, SequenceFileUpload upload, long committedOffset) {
+		UploadResponse resource = new UploadResponse(upload, committedOffset);
+		// reading, writing and cancelling an upload all share the same href
+		resource.add(linkTo(methodOn(RESTSampleSequenceFileUploadsController.class).cancelUpload(sampleId,
+				upload.getId())).withSelfRel());
+		resource.add(linkTo(methodOn(RESTSampleSequenceFileUploadsController.class).startUpload(sampleId, null, null))
+				.slash("complete").withRel(REL_COMPLETE_UPLOADS));
+		resource.add(linkTo(methodOn(RESTProjectSamplesController.class).getSample(sampleId)).withRel(
+				RESTSampleSequenceFilesController.REL_SAMPLE));
+		return resource;
+	}
+
+	/**
+	 * Request body to start an upload
+	 */
+	public static class UploadRequest {
+		private String fileName;
+		private Long fileSize;
+
+		public String getFileName() {
+			return fileName;
+		}
+
+		public void setFileName(String fileName) {
+			this.fileName = fileName;
+		}
+
+		public Long getFileSize() {
+			return fileSize;
+		}
+
+		public void setFileSize(Long fileSize) {
+			this.fileSize = fileSize;
+		}
+	}
+
+	/**
+	 * Request body to complete uploads into a {@link SequencingObject}
+	 */
+	public static class CompleteUploadsRequest {
+		private List<Long> uploads;
+		private Long miseqRunId;
+
+		public List<Long> getUploads() {
+			return uploads;
+		}
+
+		public void setUploads(List<Long> uploads) {
+			this.uploads = uploads;
+		}
+
+		public Long getMiseqRunId() {
+			return miseqRunId;
+		}
+
+		public void setMiseqRunId(Long miseqRunId) {
+			this.miseqRunId = miseqRunId;
+		}
+	}
+
+	/**
+	 * Response describing an upload and how many of its bytes are committed
+	 */
+	private class UploadResponse extends IridaResourceSupport {
+		private final SequenceFileUpload upload;
+		private final long committedOffset;
+
+		public UploadResponse(SequenceFileUpload upload, long committedOffset) {
+			this.upload = upload;
+			this.committedOffset = committedOffset;
+		}
+
+		@JsonProperty
+		public Long getIdentifier() {
+			return upload.getId();
+		}
+
+		@JsonProperty
+		public String getFileName() {
+			return upload.getFileName();
+		}
+
+		@JsonProperty
+		public Long getFileSize() {
+			return upload.getFileSize();
+		}
+
+		@JsonProperty
+		public long getCommittedOffset() {
+			return committedOffset;
+		}
+	}
+}
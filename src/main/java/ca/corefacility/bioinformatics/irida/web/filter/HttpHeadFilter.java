@@ -30,11 +30,16 @@ import javax.servlet.http.HttpServletRequestWrapper;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpServletResponseWrapper;
 
+import com.google.common.net.HttpHeaders;
+
 /**
  * Servlet filter that presents a HEAD request as a GET. The application doesn't
- * need to know the difference, as this filter handles all the details.
+ * need to know the difference, as this filter handles all the details. Views
+ * that can set their headers without writing the body can check
+ * {@link #isHeadRequest(HttpServletRequest)} and skip writing it.
  */
 public class HttpHeadFilter implements Filter {
+	public static final String HEAD_REQUEST_ATTRIBUTE = HttpHeadFilter.class.getName() + ".HEAD";
 
 	@Override
 	public void init(FilterConfig filterConfig) throws ServletException {
@@ -50,6 +55,7 @@ public class HttpHeadFilter implements Filter {
 			HttpServletResponse httpServletResponse = (HttpServletResponse) response;
 			NoBodyResponseWrapper noBodyResponseWrapper = new NoBodyResponseWrapper(httpServletResponse);
 
+			httpServletRequest.setAttribute(HEAD_REQUEST_ATTRIBUTE, Boolean.TRUE);
 			chain.doFilter(new ForceGetRequestWrapper(httpServletRequest), noBodyResponseWrapper);
 			noBodyResponseWrapper.setContentLength();
 		} else {
@@ -62,6 +68,19 @@ public class HttpHeadFilter implements Filter {
 		// Do nothing
 	}
 
+	/**
+	 * Checks whether a request was a HEAD request that this filter is
+	 * presenting as a GET.
+	 * 
+	 * @param request
+	 *            The request to check.
+	 * @return {@code true} if the client sent a HEAD request, {@code false}
+	 *         otherwise.
+	 */
+	public static boolean isHeadRequest(HttpServletRequest request) {
+		return Boolean.TRUE.equals(request.getAttribute(HEAD_REQUEST_ATTRIBUTE));
+	}
+
 	/**
 	 * Checks whether the HTTP method of this request is HEAD.
 	 * 
@@ -110,6 +129,11 @@ public class HttpHeadFilter implements Filter {
 
 		private PrintWriter writer;
 
+		/**
+		 * Whether the application set the content length itself.
+		 */
+		private boolean contentLengthSet = false;
+
 		/**
 		 * Constructs a response adaptor wrapping the given response.
 		 * 
@@ -134,12 +158,60 @@ public class HttpHeadFilter implements Filter {
 			return writer;
 		}
 
+		@Override
+		public void setContentLength(int len) {
+			contentLengthSet = true;
+			super.setContentLength(len);
+		}
+
+		@Override
+		public void setContentLengthLong(long len) {
+			contentLengthSet = true;
+			super.setContentLengthLong(len);
+		}
+
+		@Override
+		public void setHeader(String name, String value) {
+			checkContentLengthHeader(name);
+			super.setHeader(name, value);
+		}
+
+		@Override
+		public void addHeader(String name, String value) {
+			checkContentLengthHeader(name);
+			super.addHeader(name, value);
+		}
+
+		@Override
+		public void setIntHeader(String name, int value) {
+			checkContentLengthHeader(name);
+			super.setIntHeader(name, value);
+		}
+
+		@Override
+		public void addIntHeader(String name, int value) {
+			checkContentLengthHeader(name);
+			super.addIntHeader(name, value);
+		}
+
+		private void checkContentLengthHeader(String name) {
+			if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+				contentLengthSet = true;
+			}
+		}
+
 		/**
 		 * Sets the content length, based on what has been written to the
-		 * outputstream so far.
+		 * outputstream so far. A content length set by the application is
+		 * kept, as it describes the body that would have been sent.
 		 */
 		void setContentLength() {
-			super.setContentLength(noBodyOutputStream.getContentLength());
+			if (writer != null) {
+				writer.flush();
+			}
+			if (!contentLengthSet) {
+				super.setContentLengthLong(noBodyOutputStream.getContentLength());
+			}
 		}
 	}
 
@@ -151,12 +223,12 @@ public class HttpHeadFilter implements Filter {
 		/**
 		 * The number of bytes written to this stream so far.
 		 */
-		private int contentLength = 0;
+		private long contentLength = 0;
 
 		/**
 		 * @return The number of bytes written to this stream so far.
 		 */
-		int getContentLength() {
+		long getContentLength() {
 			return contentLength;
 		}
 
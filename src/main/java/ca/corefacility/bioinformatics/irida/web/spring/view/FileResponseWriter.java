@@ -0,0 +1,252 @@
+package ca.corefacility.bioinformatics.irida.web.spring.view;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpRange;
+
+import ca.corefacility.bioinformatics.irida.web.filter.HttpHeadFilter;
+
+import com.google.common.net.HttpHeaders;
+
+/**
+ * Writes a file to an {@link HttpServletResponse}, with support for HTTP byte
+ * range requests. Single and multiple ranges are supported, and an
+ * {@code If-Range} header is checked against the file's entity tag or
+ * modification time. The file is sent with {@link FileChannel#transferTo} or,
+ * when the container supports it, handed to the container to send with
+ * sendfile.
+ */
+public class FileResponseWriter {
+	private static final Logger logger = LoggerFactory.getLogger(FileResponseWriter.class);
+
+	/**
+	 * Request attributes Tomcat uses to send a file with sendfile after the
+	 * servlet returns.
+	 */
+	static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+	static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+	static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+	static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+	/**
+	 * The most ranges we'll serve in one response. Requests for more ranges
+	 * get the whole file.
+	 */
+	private static final int MAX_RANGES = 32;
+
+	private static final String CRLF = "\r\n";
+
+	private FileResponseWriter() {
+	}
+
+	/**
+	 * Write a file to the response. Sets {@code Accept-Ranges},
+	 * {@code Last-Modified}, {@code Content-Length} and, if given,
+	 * {@code ETag}. Only the headers are sent for a HEAD request.
+	 *
+	 * @param file
+	 *            the file to send
+	 * @param contentType
+	 *            the content type of the file
+	 * @param etag
+	 *            the quoted entity tag for the file, or <code>null</code>
+	 * @param request
+	 *            the {@link HttpServletRequest}
+	 * @param response
+	 *            the {@link HttpServletResponse} to write to
+	 * @throws IOException
+	 *             if the file couldn't be read or written to the response
+	 */
+	public static void writeFile(Path file, String contentType, String etag, HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+		final long length = Files.size(file);
+		final long lastModified = Files.getLastModifiedTime(file).toMillis();
+
+		response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+		response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+		if (etag != null) {
+			response.setHeader(HttpHeaders.ETAG, etag);
+		}
+
+		List<HttpRange> requested = getRequestedRanges(request, etag, lastModified);
+		if (requested == null) {
+			response.setContentType(contentType);
+			response.setContentLengthLong(length);
+			send(file, new long[][] { { 0, length - 1 } }, request, response);
+			return;
+		}
+
+		List<long[]> ranges = new ArrayList<>();
+		for (HttpRange range : requested) {
+			long start = range.getRangeStart(length);
+			long end = range.getRangeEnd(length);
+			if (start < length && start <= end) {
+				ranges.add(new long[] { start, end });
+			}
+		}
+
+		if (ranges.isEmpty()) {
+			response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+			response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+			return;
+		}
+
+		response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+		if (ranges.size() == 1) {
+			long[] range = ranges.get(0);
+			response.setContentType(contentType);
+			response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(range, length));
+			response.setContentLengthLong(range[1] - range[0] + 1);
+			send(file, new long[][] { range }, request, response);
+		} else {
+			sendMultipart(file, contentType, ranges, length, request, response);
+		}
+	}
+
+	/**
+	 * Get the ranges requested by the client.
+	 *
+	 * @return the requested ranges, or <code>null</code> if the whole file
+	 *         should be sent
+	 */
+	private static List<HttpRange> getRequestedRanges(HttpServletRequest request, String etag, long lastModified) {
+		String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+		if (rangeHeader == null) {
+			return null;
+		}
+
+		String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+		if (ifRange != null) {
+			if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+				// If-Range needs a strong match, so a weak tag never matches
+				if (etag == null || !ifRange.equals(etag)) {
+					return null;
+				}
+			} else {
+				try {
+					long ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+					if (ifRangeDate / 1000 != lastModified / 1000) {
+						return null;
+					}
+				} catch (IllegalArgumentException e) {
+					return null;
+				}
+			}
+		}
+
+		try {
+			List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+			if (ranges.isEmpty() || ranges.size() > MAX_RANGES) {
+				return null;
+			}
+			return ranges;
+		} catch (IllegalArgumentException e) {
+			logger.trace("Ignoring invalid Range header [" + rangeHeader + "]");
+			return null;
+		}
+	}
+
+	/**
+	 * Send ranges of the file as they are, without multipart boundaries.
+	 */
+	private static void send(Path file, long[][] ranges, HttpServletRequest request, HttpServletResponse response)
+			throws IOException {
+		if (HttpHeadFilter.isHeadRequest(request)) {
+			return;
+		}
+
+		if (ranges.length == 1 && ranges[0][1] >= ranges[0][0]
+				&& Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+			request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, file.toAbsolutePath().toString());
+			request.setAttribute(SENDFILE_START_ATTRIBUTE, ranges[0][0]);
+			request.setAttribute(SENDFILE_END_ATTRIBUTE, ranges[0][1] + 1);
+			return;
+		}
+
+		OutputStream os = response.getOutputStream();
+		WritableByteChannel target = Channels.newChannel(os);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			for (long[] range : ranges) {
+				transfer(channel, range[0], range[1] - range[0] + 1, target);
+			}
+		}
+		os.flush();
+	}
+
+	/**
+	 * Send several ranges of the file as a {@code multipart/byteranges} body.
+	 */
+	private static void sendMultipart(Path file, String contentType, List<long[]> ranges, long length,
+			HttpServletRequest request, HttpServletResponse response) throws IOException {
+		String boundary = UUID.randomUUID().toString();
+
+		List<byte[]> partHeaders = new ArrayList<>();
+		long contentLength = 0;
+		for (long[] range : ranges) {
+			byte[] partHeader = (CRLF + "--" + boundary + CRLF + HttpHeaders.CONTENT_TYPE + ": " + contentType + CRLF
+					+ HttpHeaders.CONTENT_RANGE + ": " + contentRange(range, length) + CRLF + CRLF)
+							.getBytes(StandardCharsets.US_ASCII);
+			partHeaders.add(partHeader);
+			contentLength += partHeader.length + range[1] - range[0] + 1;
+		}
+		byte[] end = (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.US_ASCII);
+		contentLength += end.length;
+
+		response.setContentType("multipart/byteranges; boundary=" + boundary);
+		response.setContentLengthLong(contentLength);
+
+		if (HttpHeadFilter.isHeadRequest(request)) {
+			return;
+		}
+
+		OutputStream os = response.getOutputStream();
+		WritableByteChannel target = Channels.newChannel(os);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			for (int i = 0; i < ranges.size(); i++) {
+				long[] range = ranges.get(i);
+				os.write(partHeaders.get(i));
+				transfer(channel, range[0], range[1] - range[0] + 1, target);
+			}
+		}
+		os.write(end);
+		os.flush();
+	}
+
+	/**
+	 * Transfer part of a file to the response with
+	 * {@link FileChannel#transferTo}, which may return before all of the bytes
+	 * are sent.
+	 */
+	private static void transfer(FileChannel channel, long position, long count, WritableByteChannel target)
+			throws IOException {
+		while (count > 0) {
+			long sent = channel.transferTo(position, count, target);
+			if (sent <= 0 && position >= channel.size()) {
+				throw new EOFException("File ended before the requested range was sent");
+			}
+			position += sent;
+			count -= sent;
+		}
+	}
+
+	private static String contentRange(long[] range, long length) {
+		return "bytes " + range[0] + "-" + range[1] + "/" + length;
+	}
+}
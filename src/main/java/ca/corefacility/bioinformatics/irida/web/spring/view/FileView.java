@@ -0,0 +1,79 @@
+package ca.corefacility.bioinformatics.irida.web.spring.view;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.view.AbstractView;
+
+import ca.corefacility.bioinformatics.irida.web.controller.api.RESTGenericController;
+
+import com.google.common.net.HttpHeaders;
+
+/**
+ * Base view for writing a file-backed resource to the client. The response
+ * headers are built from the file's metadata, so a HEAD request is answered
+ * without reading the file, and byte range requests are supported.
+ *
+ * @param <T>
+ *            the type of resource in the model
+ */
+public abstract class FileView<T> extends AbstractView {
+	private static final Logger logger = LoggerFactory.getLogger(FileView.class);
+
+	private final Class<T> resourceType;
+
+	/**
+	 * Create a view for a type of file-backed resource.
+	 *
+	 * @param contentType
+	 *            the content type to send the file as
+	 * @param resourceType
+	 *            the type of resource in the model
+	 */
+	protected FileView(String contentType, Class<T> resourceType) {
+		setContentType(contentType);
+		this.resourceType = resourceType;
+	}
+
+	/**
+	 * Get the file on disk for the resource.
+	 *
+	 * @param resource
+	 *            the resource being sent
+	 * @return the {@link Path} to the file
+	 */
+	protected abstract Path getFile(T resource);
+
+	/**
+	 * Get an entity tag for the contents of the resource's file. The default
+	 * doesn't send an entity tag.
+	 *
+	 * @param resource
+	 *            the resource being sent
+	 * @return the quoted entity tag, or <code>null</code> if there isn't one
+	 */
+	protected String getETag(T resource) {
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void renderMergedOutputModel(Map<String, Object> model, HttpServletRequest request,
+			HttpServletResponse response) throws Exception {
+		T resource = resourceType.cast(model.get(RESTGenericController.RESOURCE_NAME));
+		Path fileContent = getFile(resource);
+		String filename = fileContent.getFileName().toString();
+
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+
+		logger.trace("Sending file to client [" + filename + "]");
+		FileResponseWriter.writeFile(fileContent, getContentType(), getETag(resource), request, response);
+	}
+}
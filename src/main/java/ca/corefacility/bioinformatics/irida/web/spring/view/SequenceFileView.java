@@ -0,0 +1,49 @@
+package ca.corefacility.bioinformatics.irida.web.spring.view;
+
+import java.nio.file.Path;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+
+/**
+ * Base view for writing out the contents of a {@link SequenceFile}. The entity
+ * tag is built from the checksum stored for the file, so it can be sent
+ * without reading the file.
+ */
+public abstract class SequenceFileView extends FileView<SequenceFile> {
+
+	/**
+	 * Create a view for a {@link SequenceFile}.
+	 *
+	 * @param contentType
+	 *            the content type to send the file as
+	 */
+	protected SequenceFileView(String contentType) {
+		super(contentType, SequenceFile.class);
+	}
+
+	@Override
+	protected Path getFile(SequenceFile resource) {
+		return resource.getFile();
+	}
+
+	@Override
+	protected String getETag(SequenceFile resource) {
+		return getSequenceFileETag(resource);
+	}
+
+	/**
+	 * Get the entity tag for a {@link SequenceFile} from its stored checksum
+	 * and revision.
+	 *
+	 * @param file
+	 *            the {@link SequenceFile}
+	 * @return the quoted entity tag, or <code>null</code> if there's no stored
+	 *         checksum for the file
+	 */
+	public static String getSequenceFileETag(SequenceFile file) {
+		if (file.getUploadSha256() == null) {
+			return null;
+		}
+		return "\"" + file.getUploadSha256() + "-" + file.getFileRevisionNumber() + "\"";
+	}
+}
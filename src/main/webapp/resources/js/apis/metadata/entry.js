@@ -6,15 +6,21 @@ import axios from "axios";
 const BASE_URL = `${window.TL.BASE_URL}linelist/entries`;
 
 /**
- * Get all metadata belonging to samples in the current project.
- * These will be the table content
+ * Get a block of the metadata belonging to samples in the current project,
+ * filtered and sorted on the server.  Used as the datasource for an ag-Grid
+ * infinite row model.
  * @param {number} projectId
- * @returns {Promise}
+ * @param {object} params - ag-Grid getRows params (startRow, endRow,
+ * sortModel, filterModel) and the text from the quick search (quickFilter)
+ * @returns {Promise} resolves to the rows in the block and the total number
+ * of rows (lastRow)
  */
-export function fetchMetadataEntries(projectId) {
+export function fetchMetadataEntriesPage(projectId, params) {
+  const { startRow, endRow, sortModel, filterModel, quickFilter } = params;
   return axios({
-    method: "get",
-    url: `${BASE_URL}?projectId=${projectId}`
+    method: "post",
+    url: `${BASE_URL}/page?projectId=${projectId}`,
+    data: { startRow, endRow, sortModel, filterModel, quickFilter }
   });
 }
 
@@ -15,7 +15,6 @@ const mapStateToProps = state => ({
   initializing: state.fields.get("initializing"),
   error: state.fields.get("error"),
   fields: state.fields.get("fields"),
-  entries: state.entries.get("entries"),
   templates: state.templates.get("templates"),
   current: state.templates.get("current"),
   modified: state.templates.get("modified"),
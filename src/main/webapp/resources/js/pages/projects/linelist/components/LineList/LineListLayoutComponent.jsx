@@ -13,7 +13,9 @@ export class LineListLayoutComponent extends React.Component {
 
   state = {
     collapsed: true,
-    height: 800
+    height: 800,
+    filterCount: 0,
+    totalSamples: 0
   };
 
   /**
@@ -94,6 +96,14 @@ export class LineListLayoutComponent extends React.Component {
     this.setState({ filterCount: count });
   };
 
+  /**
+   * Update the total number of samples in the project
+   * @param count
+   */
+  updateTotalCount = count => {
+    this.setState({ totalSamples: count });
+  };
+
   /**
    * Scroll the table to the top.
    */
@@ -117,6 +127,7 @@ export class LineListLayoutComponent extends React.Component {
             <Table
               {...this.props}
               onFilter={this.updateFilterCount}
+              onTotal={this.updateTotalCount}
               height={this.state.height}
               ref={this.tableRef}
             />
@@ -143,14 +154,8 @@ export class LineListLayoutComponent extends React.Component {
         </Layout>
         <InfoBar
           selectedCount={this.props.selectedCount}
-          filterCount={
-            this.state.filterCount
-              ? this.state.filterCount
-              : this.props.entries
-              ? this.props.entries.size
-              : 0
-          }
-          totalSamples={this.props.entries ? this.props.entries.size : 0}
+          filterCount={this.state.filterCount}
+          totalSamples={this.state.totalSamples}
         />
       </div>
     );
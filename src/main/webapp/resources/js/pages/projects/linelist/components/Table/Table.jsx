@@ -1,8 +1,8 @@
 import React from "react";
-import { List } from "immutable";
 import PropTypes from "prop-types";
 import ImmutablePropTypes from "react-immutable-proptypes";
 import { showUndoNotification } from "../../../../../modules/notifications";
+import { fetchMetadataEntriesPage } from "../../../../../apis/metadata/entry";
 import { AgGridReact } from "ag-grid-react";
 import "ag-grid-community/dist/styles/ag-grid.css";
 import "ag-grid-community/dist/styles/ag-theme-balham.css";
@@ -19,15 +19,18 @@ import { FIELDS } from "../../constants";
 
 const { i18n } = window.PAGE;
 
+/*
+Number of rows to request at a time.  The table only loads the blocks being
+displayed, exports page through every row matching the current filters using
+the largest block the server will return.
+ */
+const BLOCK_SIZE = 100;
+const EXPORT_BLOCK_SIZE = 1000;
+
 /**
  * React component to render the ag-grid to the page.
  */
 export class Table extends React.Component {
-  state = {
-    entries: null,
-    filterCount: 0
-  };
-
   /*
   Regular expression to clean the project and template names for export.
    */
@@ -41,6 +44,40 @@ export class Table extends React.Component {
    */
   colDropped = false;
 
+  /*
+  Text from the quick search.  This is sent along with each block request so
+  that the server can search rows that have not been loaded yet.
+   */
+  quickFilter = "";
+
+  /*
+  ag-grid infinite row model datasource.  Sorting and filtering happen on the
+  server, only the blocks being displayed are fetched.
+   */
+  dataSource = {
+    getRows: params => {
+      const { startRow, endRow, sortModel, filterModel } = params;
+      const quickFilter = this.quickFilter;
+      fetchMetadataEntriesPage(window.project.id, {
+        startRow,
+        endRow,
+        sortModel,
+        filterModel,
+        quickFilter
+      })
+        .then(({ data }) => {
+          params.successCallback(data.rows, data.lastRow);
+          if (startRow === 0) {
+            this.setFilterCount(
+              data.lastRow,
+              Object.keys(filterModel).length > 0 || quickFilter.length > 0
+            );
+          }
+        })
+        .catch(() => params.failCallback());
+    }
+  };
+
   /*
   External custom components used by ag-grid.
    */
@@ -68,17 +105,6 @@ export class Table extends React.Component {
       return true;
     }
 
-    if (
-      List.isList(nextProps.entries) &&
-      !nextProps.entries.equals(this.props.entries)
-    ) {
-      /*
-      This should only happen on the original loading of the table when the
-      complete list of MetadataEntries are passed.
-       */
-      return true;
-    }
-
     if (nextProps.current !== this.props.current) {
       /*
       The current template has changed.
@@ -226,7 +252,33 @@ export class Table extends React.Component {
     return `${date}-${project}-${template}.${ext}`;
   };
 
-  createFile = ext => {
+  /**
+   * Get every row matching the current sort, filters and quick search from
+   * the server, a block at a time.
+   * @returns {Promise<Array>}
+   */
+  fetchAllEntries = async () => {
+    const sortModel = this.api.getSortModel();
+    const filterModel = this.api.getFilterModel();
+    const entries = [];
+    let lastRow;
+    do {
+      const { data } = await fetchMetadataEntriesPage(window.project.id, {
+        startRow: entries.length,
+        endRow: entries.length + EXPORT_BLOCK_SIZE,
+        sortModel,
+        filterModel,
+        quickFilter: this.quickFilter
+      });
+      if (data.rows.length === 0) break;
+      entries.push(...data.rows);
+      lastRow = data.lastRow;
+    } while (entries.length < lastRow);
+    return entries;
+  };
+
+  createFile = async ext => {
+    const entries = await this.fetchAllEntries();
     const colOrder = this.columnApi.getColumnState().filter(c => !c.hide);
 
     /*
@@ -263,8 +315,7 @@ export class Table extends React.Component {
     /*
     Add all the entries
      */
-    this.api.forEachNodeAfterFilterAndSort((node, r) => {
-      const entry = node.data;
+    entries.forEach((entry, r) => {
       /*
       Offset to allow for the header row.
        */
@@ -398,17 +449,23 @@ export class Table extends React.Component {
    * @param {string} value
    */
   quickSearch = value => {
-    this.api.setQuickFilter(value);
+    if (value !== this.quickFilter) {
+      this.quickFilter = value;
+      this.api.purgeInfiniteCache();
+    }
   };
 
   /**
    * Update parent components of the revised filter status.
-   * @returns {*}
+   * @param {number} count - number of rows matching the filters
+   * @param {boolean} filtered - whether any filters are applied
    */
-  setFilterCount = () =>
-    this.props.onFilter(
-      this.api.getModel().rootNode.childrenAfterFilter.length
-    );
+  setFilterCount = (count, filtered) => {
+    this.props.onFilter(count);
+    if (!filtered) {
+      this.props.onTotal(count);
+    }
+  };
 
   /**
    * Scroll table to the top left most position.
@@ -421,8 +478,6 @@ export class Table extends React.Component {
   };
 
   render() {
-    const rowData =
-      this.props.entries !== null ? this.props.entries.toJS() : undefined;
     return (
       <div
         className="ag-grid-table-wrapper"
@@ -431,10 +486,11 @@ export class Table extends React.Component {
         <AgGridReact
           id="linelist-grid"
           rowSelection="multiple"
-          onFilterChanged={this.setFilterCount}
           localeText={i18n.linelist.agGrid}
           columnDefs={this.props.fields.toJS()}
-          rowData={rowData}
+          rowModelType="infinite"
+          datasource={this.dataSource}
+          cacheBlockSize={BLOCK_SIZE}
           frameworkComponents={this.frameworkComponents}
           loadingOverlayComponent="LoadingOverlay"
           onGridReady={this.onGridReady}
@@ -443,7 +499,6 @@ export class Table extends React.Component {
           suppressRowClickSelection={true}
           onSelectionChanged={this.onSelectionChange}
           defaultColDef={{
-            headerCheckboxSelectionFilteredOnly: true,
             sortable: true,
             filter: true
           }}
@@ -460,8 +515,8 @@ Table.propTypes = {
   height: PropTypes.number.isRequired,
   tableModified: PropTypes.func.isRequired,
   fields: ImmutablePropTypes.list.isRequired,
-  entries: ImmutablePropTypes.list,
   templates: ImmutablePropTypes.list,
   current: PropTypes.number.isRequired,
-  onFilter: PropTypes.func.isRequired
+  onFilter: PropTypes.func.isRequired,
+  onTotal: PropTypes.func.isRequired
 };
@@ -1,27 +1,8 @@
-import { call, put, take } from "redux-saga/effects";
-import {
-  fetchMetadataEntries,
-  saveMetadataEntryField
-} from "../../../../apis/metadata/entry";
-import { types as appTypes } from "../../../../redux/reducers/app";
-import { actions, types } from "../reducers/entries";
+import { call, take } from "redux-saga/effects";
+import { saveMetadataEntryField } from "../../../../apis/metadata/entry";
+import { types } from "../reducers/entries";
 import { FIELDS } from "../constants";
 
-/**
- * Fetch all the metadata entries required to initialize the table.
- * @returns {IterableIterator<*>}
- */
-export function* entriesLoadingSaga() {
-  try {
-    const { payload } = yield take(appTypes.INIT_APP);
-    yield put(actions.load());
-    const { data: entries } = yield call(fetchMetadataEntries, payload.id);
-    yield put(actions.success(entries));
-  } catch (error) {
-    yield put(actions.error(error));
-  }
-}
-
 /**
  * Saga to handle updating the value of a metadata entry.
  * @returns {IterableIterator<*>}
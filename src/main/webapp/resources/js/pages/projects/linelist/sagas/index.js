@@ -1,2 +1,2 @@
-export { entriesLoadingSaga, entryEditedSaga } from "./entries";
+export { entryEditedSaga } from "./entries";
 export { templatesLoadingSaga, saveTemplateSaga } from "./templates";
@@ -15,6 +15,7 @@ const template = `
           disabled="disabled"
           class="btn btn-success">
      <i class="fa fa-circle-o-notch fa-spin fa-fw" aria-hidden="true"></i>&nbsp;
+     {{ $ctrl.progress }}
 </button>
 </span>
 `;
@@ -26,24 +27,58 @@ const saveMetadata = {
   template,
   controller: [
     "$window",
+    "$timeout",
     "sampleMetadataService",
-    function($window, sampleMetadataService) {
+    function($window, $timeout, sampleMetadataService) {
+      // How often to check the progress of the import, in milliseconds.
+      const POLL_INTERVAL = 1000;
+
+      /**
+       * Handle the results of saving, polling the server again until the
+       * import has finished.
+       * @param {object} results from the server.
+       */
+      const handleResults = results => {
+        if (results.success) {
+          showNotification({
+            text: results.success
+          });
+          $window.location.href = this.url;
+          return;
+        }
+        if (results["save-errors"]) {
+          results["save-errors"].forEach(text => {
+            showNotification({ text, type: "error" });
+          });
+          this.saving = false;
+          return;
+        }
+        if (results["found-error"]) {
+          showNotification({ text: results["found-error"], type: "error" });
+          this.saving = false;
+          return;
+        }
+        if (results.progress) {
+          this.progress = results.progress;
+        }
+        $timeout(
+          () =>
+            sampleMetadataService
+              .getImportStatus(this.importId)
+              .then(response => handleResults(response.data)),
+          POLL_INTERVAL
+        );
+      };
+
       this.saveMetadata = () => {
         this.saving = true;
+        this.progress = "";
         sampleMetadataService.saveMetadata().then(response => {
           const results = response.data;
-          if (results.success) {
-            showNotification({
-              text: results.success
-            });
-            $window.location.href = this.url;
-          }
-          if (results["save-errors"]) {
-            results["save-errors"].forEach(text => {
-              showNotification({ text, type: "error" });
-            });
+          if (results.importId) {
+            this.importId = results.importId;
           }
-          this.saving = false;
+          handleResults(results);
         });
       };
     }
@@ -52,6 +52,15 @@ export function sampleMetadataService($http, $window, Upload) {
     return $http.post(`${URL}/save`);
   };
 
+  /**
+   * Get the progress of saving the metadata.
+   * @param {string} id of the import returned when saving started.
+   * @return {object} ajax promise
+   */
+  const getImportStatus = id => {
+    return $http.get(`${URL}/status`, { params: { id } });
+  };
+
   /**
    * Clear any metadata uploaded to the server.
    * @return {object} ajax promise
@@ -65,6 +74,7 @@ export function sampleMetadataService($http, $window, Upload) {
     getProjectData,
     setSampleIdColumn,
     saveMetadata,
+    getImportStatus,
     clearProject
   };
 }
@@ -8,6 +8,7 @@ import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Profile;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import ca.corefacility.bioinformatics.irida.config.conditions.NonWindowsPlatformCondition;
 import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyHistoriesService;
@@ -15,6 +16,7 @@ import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyJobErro
 import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyLibrariesService;
 import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyWorkflowService;
 import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.integration.LocalGalaxy;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.GalaxyWorkflowUploadRepository;
 
 import com.github.jmchilton.blend4j.galaxy.*;
 
@@ -29,6 +31,12 @@ public class GalaxyExecutionTestConfig {
 	@Autowired
 	private LocalGalaxy localGalaxy;
 
+	@Autowired
+	private GalaxyWorkflowUploadRepository galaxyWorkflowUploadRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
 	/**
 	 * Timeout in seconds to stop polling a Galaxy library.
 	 */
@@ -66,7 +74,8 @@ public class GalaxyExecutionTestConfig {
 	public GalaxyWorkflowService galaxyWorkflowService() {
 		WorkflowsClient workflowsClient = localGalaxy.getGalaxyInstanceAdmin().getWorkflowsClient();
 
-		return new GalaxyWorkflowService(workflowsClient, StandardCharsets.UTF_8);
+		return new GalaxyWorkflowService(workflowsClient, StandardCharsets.UTF_8, galaxyWorkflowUploadRepository,
+				transactionManager);
 	}
 
 	@Lazy
@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.events;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
@@ -8,12 +9,14 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
 
 import ca.corefacility.bioinformatics.irida.model.enums.ProjectRole;
 import ca.corefacility.bioinformatics.irida.model.event.DataAddedToSampleProjectEvent;
@@ -43,6 +46,7 @@ public class ProjectEventHandlerTest {
 	private ProjectSampleJoinRepository psjRepository;
 	private ProjectRepository projectRepository;
 	private SampleRepository sampleRepository;
+	private ApplicationEventPublisher eventPublisher;
 
 	@Before
 	public void setup() {
@@ -50,7 +54,9 @@ public class ProjectEventHandlerTest {
 		psjRepository = mock(ProjectSampleJoinRepository.class);
 		projectRepository = mock(ProjectRepository.class);
 		sampleRepository = mock(SampleRepository.class);
-		handler = new ProjectEventHandler(eventRepository, psjRepository, projectRepository, sampleRepository);
+		eventPublisher = mock(ApplicationEventPublisher.class);
+		handler = new ProjectEventHandler(eventRepository, psjRepository, projectRepository, sampleRepository,
+				eventPublisher);
 	}
 
 	@Test
@@ -113,6 +119,7 @@ public class ProjectEventHandlerTest {
 		assertTrue(event instanceof UserRemovedProjectEvent);
 
 		verify(projectRepository).save(any(Project.class));
+		verify(eventPublisher).publishEvent(any(UserRemovedProjectEvent.class));
 	}
 
 	@SuppressWarnings("unchecked")
@@ -226,4 +233,30 @@ public class ProjectEventHandlerTest {
 
 		verifyZeroInteractions(eventRepository);
 	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testQueuedEvents() {
+		ProjectEventQueue eventQueue = mock(ProjectEventQueue.class);
+		handler = new ProjectEventHandler(eventRepository, psjRepository, projectRepository, sampleRepository,
+				eventPublisher, eventQueue);
+
+		Project project = new Project();
+		Sample sample = new Sample();
+		SampleSequencingObjectJoin join = new SampleSequencingObjectJoin(sample,
+				new SingleEndSequenceFile(new SequenceFile()));
+		when(psjRepository.getProjectForSample(sample)).thenReturn(
+				Lists.newArrayList(new ProjectSampleJoin(project, sample, true)));
+
+		handler.delegate(new MethodEvent(DataAddedToSampleProjectEvent.class, join, new Object[] {}));
+
+		ArgumentCaptor<Collection> eventCaptor = ArgumentCaptor.forClass(Collection.class);
+		ArgumentCaptor<Collection> sampleCaptor = ArgumentCaptor.forClass(Collection.class);
+		verify(eventQueue).add(eventCaptor.capture(), sampleCaptor.capture());
+		assertEquals("one event should be queued", 1, eventCaptor.getValue().size());
+		assertTrue("sample should be modified", sampleCaptor.getValue().contains(sample));
+
+		verify(eventPublisher).publishEvent(any(DataAddedToSampleProjectEvent.class));
+		verifyZeroInteractions(eventRepository, projectRepository, sampleRepository);
+	}
 }
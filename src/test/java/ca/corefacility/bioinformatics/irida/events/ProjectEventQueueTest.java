@@ -0,0 +1,120 @@
+package ca.corefacility.bioinformatics.irida.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import ca.corefacility.bioinformatics.irida.model.event.DataAddedToSampleProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.event.ProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.event.SampleAddedProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.repositories.ProjectEventRepository;
+import ca.corefacility.bioinformatics.irida.repositories.ProjectRepository;
+import ca.corefacility.bioinformatics.irida.repositories.sample.SampleRepository;
+
+public class ProjectEventQueueTest {
+	private ProjectEventQueue queue;
+	private ProjectEventRepository eventRepository;
+	private ProjectRepository projectRepository;
+	private SampleRepository sampleRepository;
+
+	private Project project;
+	private Sample sample1;
+	private Sample sample2;
+
+	@Before
+	public void setUp() {
+		eventRepository = mock(ProjectEventRepository.class);
+		projectRepository = mock(ProjectRepository.class);
+		sampleRepository = mock(SampleRepository.class);
+		PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+		when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+
+		queue = new ProjectEventQueue(eventRepository, projectRepository, sampleRepository, transactionManager);
+
+		project = new Project("project");
+		project.setId(1L);
+		sample1 = new Sample("sample1");
+		sample1.setId(2L);
+		sample2 = new Sample("sample2");
+		sample2.setId(3L);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testFlushCoalescesModifiedDates() {
+		queue.add(ImmutableList.of(new SampleAddedProjectEvent(new ProjectSampleJoin(project, sample1, true)),
+				new SampleAddedProjectEvent(new ProjectSampleJoin(project, sample2, true))), ImmutableList.of());
+		queue.add(ImmutableList.of(new DataAddedToSampleProjectEvent(project, sample1),
+				new DataAddedToSampleProjectEvent(project, sample1)), ImmutableList.of(sample1, sample1));
+		when(sampleRepository.findAll(ImmutableSet.of(2L))).thenReturn(ImmutableList.of(sample1));
+
+		assertEquals("events should be queued", 4, queue.size());
+
+		queue.flush();
+
+		ArgumentCaptor<List> eventCaptor = ArgumentCaptor.forClass(List.class);
+		verify(eventRepository).save(eventCaptor.capture());
+		assertEquals("all events should be saved together", 4, eventCaptor.getValue()
+				.size());
+
+		verify(projectRepository).updateModifiedDate(ImmutableSet.of(1L), sample1.getModifiedDate());
+		verify(sampleRepository).findAll(ImmutableSet.of(2L));
+		assertEquals("queue should be empty", 0, queue.size());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testFailedBatchWrittenOneAtATime() {
+		ProjectEvent event1 = new DataAddedToSampleProjectEvent(project, sample1);
+		ProjectEvent event2 = new DataAddedToSampleProjectEvent(project, sample2);
+		queue.add(ImmutableList.of(event1, event2), ImmutableList.of());
+		when(eventRepository.save(ImmutableList.of(event1, event2))).thenThrow(new IllegalStateException("broken"));
+
+		queue.flush();
+
+		verify(eventRepository).save(ImmutableList.of(event1));
+		verify(eventRepository).save(ImmutableList.of(event2));
+		verify(projectRepository, times(2)).updateModifiedDate(anyCollectionOf(Long.class), any(Date.class));
+	}
+
+	@Test
+	public void testEventsDatedWhenWritten() throws InterruptedException {
+		ProjectEvent event = new DataAddedToSampleProjectEvent(project, sample1);
+		Date queued = event.getCreatedDate();
+		queue.add(ImmutableList.of(event), ImmutableList.of());
+
+		Thread.sleep(10);
+		queue.flush();
+
+		assertTrue("event should be dated when it's written", event.getCreatedDate().after(queued));
+		verify(projectRepository).updateModifiedDate(ImmutableSet.of(1L), event.getCreatedDate());
+	}
+
+	@Test
+	public void testFlushEmptyQueue() {
+		queue.flush();
+
+		verifyZeroInteractions(eventRepository, projectRepository, sampleRepository);
+	}
+}
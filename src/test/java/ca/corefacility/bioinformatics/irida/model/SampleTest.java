@@ -1,7 +1,9 @@
 package ca.corefacility.bioinformatics.irida.model;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.util.Date;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -136,6 +138,20 @@ public class SampleTest {
 		assertEquals("Non-updated metadata entry does not match", this.entry2, sample1.getMetadata().get(field2));
 	}
 
+	@Test
+	public void testMergeMetadataUpdatesModifiedDate() {
+		Date modifiedDate = new Date(1000);
+		sample1.setModifiedDate(modifiedDate);
+
+		Map<MetadataTemplateField, MetadataEntry> inputMetadata = Maps.newHashMap();
+		inputMetadata.put(field1, new MetadataEntry("entry2", "text"));
+
+		sample1.mergeMetadata(inputMetadata);
+
+		assertTrue("Editing a metadata value should update the modified date",
+				sample1.getModifiedDate().after(modifiedDate));
+	}
+
 	@Test
 	public void testMergeMetadataPipelineSuccess() {
 		Map<MetadataTemplateField, MetadataEntry> inputMetadata = Maps.newHashMap();
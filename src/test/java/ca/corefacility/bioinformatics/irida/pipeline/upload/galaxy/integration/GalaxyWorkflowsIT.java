@@ -31,6 +31,7 @@ import org.springframework.test.context.TestExecutionListeners;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.support.AnnotationConfigContextLoader;
 import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import ca.corefacility.bioinformatics.irida.config.IridaApiGalaxyTestConfig;
 import ca.corefacility.bioinformatics.irida.config.conditions.WindowsPlatformCondition;
@@ -47,6 +48,7 @@ import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.Gala
 import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyHistoriesService;
 import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyLibrariesService;
 import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyWorkflowService;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.GalaxyWorkflowUploadRepository;
 
 import com.github.jmchilton.blend4j.galaxy.GalaxyInstance;
 import com.github.jmchilton.blend4j.galaxy.HistoriesClient;
@@ -85,6 +87,12 @@ public class GalaxyWorkflowsIT {
 	@Autowired
 	private LocalGalaxy localGalaxy;
 
+	@Autowired
+	private GalaxyWorkflowUploadRepository galaxyWorkflowUploadRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
 	private Path dataFile1;
 	private Path dataFile2;
 	private Path dataFile3;
@@ -164,7 +172,8 @@ public class GalaxyWorkflowsIT {
 		GalaxyLibrariesService galaxyLibrariesService = new GalaxyLibrariesService(librariesClient, LIBRARY_POLLING_TIME, LIBRARY_TIMEOUT, 1);
 		galaxyHistory = new GalaxyHistoriesService(historiesClient, toolsClient, galaxyLibrariesService);
 		galaxyWorkflowService 
-			= new GalaxyWorkflowService(workflowsClient, StandardCharsets.UTF_8);
+			= new GalaxyWorkflowService(workflowsClient, StandardCharsets.UTF_8, galaxyWorkflowUploadRepository,
+					transactionManager);
 	}
 	
 	/**
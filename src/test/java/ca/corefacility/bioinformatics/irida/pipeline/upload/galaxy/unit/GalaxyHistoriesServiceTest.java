@@ -4,6 +4,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.net.URISyntaxException;
@@ -45,6 +47,7 @@ import com.github.jmchilton.blend4j.galaxy.beans.HistoryDetails;
 import com.github.jmchilton.blend4j.galaxy.beans.collection.request.CollectionDescription;
 import com.github.jmchilton.blend4j.galaxy.beans.collection.request.HistoryDatasetElement;
 import com.github.jmchilton.blend4j.galaxy.beans.collection.response.CollectionResponse;
+import com.google.common.collect.Sets;
 import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.UniformInterfaceException;
 
@@ -408,4 +411,42 @@ public class GalaxyHistoriesServiceTest {
 		
 		galaxyHistory.getDatasetForFileInHistory(FILENAME, HISTORY_ID);
 	}
+
+	/**
+	 * Tests getting datasets for several files in a history with a single
+	 * listing of the history contents.
+	 * @throws GalaxyDatasetException 
+	 */
+	@Test
+	public void testGetDatasetsForFilesInHistory() throws GalaxyDatasetException {
+		String filename2 = "filename2";
+		Dataset dataset = new Dataset();
+		Dataset dataset2 = new Dataset();
+
+		when(historiesClient.showHistoryContents(HISTORY_ID)).thenReturn(
+				buildHistoryContentsList(FILENAME, DATA_ID, filename2, "3"));
+		when(historiesClient.showDataset(HISTORY_ID, DATA_ID)).thenReturn(dataset);
+		when(historiesClient.showDataset(HISTORY_ID, "3")).thenReturn(dataset2);
+
+		Map<String, Dataset> datasets = galaxyHistory.getDatasetsForFilesInHistory(
+				Sets.newHashSet(FILENAME, filename2), HISTORY_ID);
+
+		assertEquals("should have a dataset for each file", 2, datasets.size());
+		assertEquals("wrong dataset for file", dataset, datasets.get(FILENAME));
+		assertEquals("wrong dataset for file", dataset2, datasets.get(filename2));
+		verify(historiesClient, times(1)).showHistoryContents(HISTORY_ID);
+	}
+
+	/**
+	 * Tests getting datasets for several files when one of them isn't in the
+	 * history.
+	 * @throws GalaxyDatasetException 
+	 */
+	@Test(expected=GalaxyDatasetNotFoundException.class)
+	public void testGetDatasetsForFilesInHistoryMissingFile() throws GalaxyDatasetException {
+		when(historiesClient.showHistoryContents(HISTORY_ID)).thenReturn(datasetHistoryContents);
+		when(historiesClient.showDataset(HISTORY_ID, DATA_ID)).thenReturn(new Dataset());
+
+		galaxyHistory.getDatasetsForFilesInHistory(Sets.newHashSet(FILENAME, "missing"), HISTORY_ID);
+	}
 }
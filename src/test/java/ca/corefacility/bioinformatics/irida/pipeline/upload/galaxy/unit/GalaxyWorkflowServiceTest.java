@@ -1,28 +1,48 @@
 package ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.unit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import ca.corefacility.bioinformatics.irida.exceptions.WorkflowException;
+import ca.corefacility.bioinformatics.irida.exceptions.galaxy.WorkflowUploadException;
+import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowUpload;
 import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyHistoriesService;
 import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyWorkflowService;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.GalaxyWorkflowUploadRepository;
 
 import com.github.jmchilton.blend4j.galaxy.GalaxyResponseException;
 import com.github.jmchilton.blend4j.galaxy.WorkflowsClient;
 import com.github.jmchilton.blend4j.galaxy.beans.Dataset;
 import com.github.jmchilton.blend4j.galaxy.beans.History;
+import com.github.jmchilton.blend4j.galaxy.beans.Workflow;
 import com.github.jmchilton.blend4j.galaxy.beans.WorkflowDetails;
 import com.github.jmchilton.blend4j.galaxy.beans.WorkflowInputDefinition;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
 
 /**
  * Unit tests for the GalaxyWorkflowManager.
@@ -37,12 +57,20 @@ public class GalaxyWorkflowServiceTest {
 	@Mock private Dataset inputDataset;
 	@Mock private Dataset downloadDataset;
 	@Mock private GalaxyResponseException responseException;
+	@Mock private GalaxyWorkflowUploadRepository galaxyWorkflowUploadRepository;
+	@Mock private PlatformTransactionManager transactionManager;
 	
 	private GalaxyWorkflowService galaxyWorkflowService;
 	
 	private static final String VALID_WORKFLOW_ID = "1";
 	
 	private static final String VALID_INPUT_LABEL = "fastq";
+
+	private static final String WORKFLOW_CONTENTS = "{\"name\": \"workflow\"}";
+
+	private static final String WORKFLOW_HASH = Hashing.sha256()
+			.hashString(WORKFLOW_CONTENTS, StandardCharsets.UTF_8)
+			.toString();
 			
 	private Map<String, WorkflowInputDefinition> workflowInputs;
 	
@@ -54,7 +82,8 @@ public class GalaxyWorkflowServiceTest {
 	public void setup() throws URISyntaxException {
 		MockitoAnnotations.initMocks(this);
 		
-		galaxyWorkflowService = new GalaxyWorkflowService(workflowsClient, StandardCharsets.UTF_8);
+		galaxyWorkflowService = new GalaxyWorkflowService(workflowsClient, StandardCharsets.UTF_8,
+				galaxyWorkflowUploadRepository, transactionManager);
 		
 		String workflowInputId = "1";
 		WorkflowInputDefinition worklowInput = new WorkflowInputDefinition();
@@ -100,4 +129,111 @@ public class GalaxyWorkflowServiceTest {
 		
 		galaxyWorkflowService.getWorkflowInputId(details, "invalid");
 	}
+
+	/**
+	 * Tests that a workflow file already uploaded for the same IRIDA workflow is reused.
+	 * @throws IOException
+	 * @throws WorkflowUploadException
+	 */
+	@Test
+	public void testGetOrUploadGalaxyWorkflowReusesUpload() throws IOException, WorkflowUploadException {
+		Path workflowFile = createWorkflowFile(WORKFLOW_CONTENTS);
+		UUID iridaWorkflowId = UUID.randomUUID();
+		when(galaxyWorkflowUploadRepository.findUpload(iridaWorkflowId, WORKFLOW_HASH)).thenReturn(
+				new GalaxyWorkflowUpload(iridaWorkflowId, WORKFLOW_HASH, VALID_WORKFLOW_ID));
+		Workflow workflow = workflow(VALID_WORKFLOW_ID);
+		when(workflowsClient.getWorkflows()).thenReturn(ImmutableList.of(workflow));
+
+		assertEquals(VALID_WORKFLOW_ID, galaxyWorkflowService.getOrUploadGalaxyWorkflow(iridaWorkflowId, workflowFile));
+
+		verify(workflowsClient, never()).importWorkflow(anyString());
+		verify(galaxyWorkflowUploadRepository, never()).save(any(GalaxyWorkflowUpload.class));
+	}
+
+	/**
+	 * Tests that a new workflow file is uploaded and recorded.
+	 * @throws IOException
+	 * @throws WorkflowUploadException
+	 */
+	@Test
+	public void testGetOrUploadGalaxyWorkflowRecordsUpload() throws IOException, WorkflowUploadException {
+		Path workflowFile = createWorkflowFile(WORKFLOW_CONTENTS);
+		UUID iridaWorkflowId = UUID.randomUUID();
+		Workflow workflow = workflow(VALID_WORKFLOW_ID);
+		when(workflowsClient.importWorkflow(WORKFLOW_CONTENTS)).thenReturn(workflow);
+
+		assertEquals(VALID_WORKFLOW_ID, galaxyWorkflowService.getOrUploadGalaxyWorkflow(iridaWorkflowId, workflowFile));
+
+		ArgumentCaptor<GalaxyWorkflowUpload> captor = ArgumentCaptor.forClass(GalaxyWorkflowUpload.class);
+		verify(galaxyWorkflowUploadRepository).save(captor.capture());
+		GalaxyWorkflowUpload upload = captor.getValue();
+		assertEquals(iridaWorkflowId, upload.getIridaWorkflowId());
+		assertEquals(WORKFLOW_HASH, upload.getWorkflowHash());
+		assertEquals(VALID_WORKFLOW_ID, upload.getGalaxyWorkflowId());
+	}
+
+	/**
+	 * Tests that a workflow file is uploaded again when the uploaded copy was
+	 * deleted in Galaxy.
+	 * @throws IOException
+	 * @throws WorkflowUploadException
+	 */
+	@Test
+	public void testGetOrUploadGalaxyWorkflowUploadsDeleted() throws IOException, WorkflowUploadException {
+		Path workflowFile = createWorkflowFile(WORKFLOW_CONTENTS);
+		UUID iridaWorkflowId = UUID.randomUUID();
+		GalaxyWorkflowUpload upload = new GalaxyWorkflowUpload(iridaWorkflowId, WORKFLOW_HASH, "deleted");
+		when(galaxyWorkflowUploadRepository.findUpload(iridaWorkflowId, WORKFLOW_HASH)).thenReturn(upload);
+		Workflow other = workflow("other");
+		when(workflowsClient.getWorkflows()).thenReturn(ImmutableList.of(other));
+		Workflow workflow = workflow(VALID_WORKFLOW_ID);
+		when(workflowsClient.importWorkflow(WORKFLOW_CONTENTS)).thenReturn(workflow);
+
+		assertEquals(VALID_WORKFLOW_ID, galaxyWorkflowService.getOrUploadGalaxyWorkflow(iridaWorkflowId, workflowFile));
+
+		verify(galaxyWorkflowUploadRepository).save(upload);
+		assertEquals("the upload should point at the new copy", VALID_WORKFLOW_ID, upload.getGalaxyWorkflowId());
+	}
+
+	/**
+	 * Tests that a workflow uploaded at the same time as another node is used
+	 * for the submission without being recorded.
+	 * @throws IOException
+	 * @throws WorkflowUploadException
+	 */
+	@Test
+	public void testGetOrUploadGalaxyWorkflowRecordedByAnotherNode() throws IOException, WorkflowUploadException {
+		Path workflowFile = createWorkflowFile(WORKFLOW_CONTENTS);
+		UUID iridaWorkflowId = UUID.randomUUID();
+		Workflow workflow = workflow(VALID_WORKFLOW_ID);
+		when(workflowsClient.importWorkflow(WORKFLOW_CONTENTS)).thenReturn(workflow);
+		when(galaxyWorkflowUploadRepository.save(any(GalaxyWorkflowUpload.class))).thenThrow(
+				new DataIntegrityViolationException("duplicate"));
+
+		assertEquals(VALID_WORKFLOW_ID, galaxyWorkflowService.getOrUploadGalaxyWorkflow(iridaWorkflowId, workflowFile));
+	}
+
+	/**
+	 * Tests that only recorded workflows are shared.
+	 */
+	@Test
+	public void testIsSharedWorkflow() {
+		when(galaxyWorkflowUploadRepository.countByGalaxyWorkflowId(VALID_WORKFLOW_ID)).thenReturn(1L);
+
+		assertTrue(galaxyWorkflowService.isSharedWorkflow(VALID_WORKFLOW_ID));
+		assertFalse(galaxyWorkflowService.isSharedWorkflow("unshared"));
+	}
+
+	private Workflow workflow(String id) {
+		Workflow workflow = mock(Workflow.class);
+		when(workflow.getId()).thenReturn(id);
+		return workflow;
+	}
+
+	private Path createWorkflowFile(String contents) throws IOException {
+		Path workflowFile = Files.createTempFile("workflow", ".ga");
+		workflowFile.toFile().deleteOnExit();
+		Files.write(workflowFile, contents.getBytes(StandardCharsets.UTF_8));
+		return workflowFile;
+	}
 }
@@ -1,7 +1,11 @@
 package ca.corefacility.bioinformatics.irida.processing.impl.unit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
@@ -16,14 +20,18 @@ import org.mockito.ArgumentCaptor;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.FileStreamSubscriber;
 import ca.corefacility.bioinformatics.irida.processing.impl.ChecksumFileProcessor;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 public class ChecksumFileProcessorTest {
 	private ChecksumFileProcessor fileProcessor;
 	private SequenceFileRepository sequenceFileRepository;
 	private static final String FILE_CONTENTS = ">test read\nACGTACTCATG";
 	private static final String CHECKSUM = "aeaa0755dc44b393ffe12f02e9bd42b0169b12ca9c15708085db6a4ac9110ee0";
+	private static final String CLIENT_CHECKSUM = "0000000000000000000000000000000000000000000000000000000000000000";
 
 	@Before
 	public void setUp() {
@@ -47,6 +55,40 @@ public class ChecksumFileProcessorTest {
 		assertEquals("checksums should be equal", CHECKSUM, file.getUploadSha256());
 	}
 
+	@Test
+	public void testChecksumSkippedWhenCalculatedOnUpload() throws IOException {
+		final SequenceFile sf = constructSequenceFile();
+		sf.recordCalculatedUploadSha256(CHECKSUM);
+
+		fileProcessor.process(new SingleEndSequenceFile(sf));
+		fileProcessor.subscribe(sf, false).complete();
+
+		verify(sequenceFileRepository, never()).saveMetadata(any(SequenceFile.class));
+	}
+
+	@Test
+	public void testClientSuppliedChecksumIgnored() throws IOException {
+		final SequenceFile sf = new ObjectMapper().readValue("{\"uploadSha256\":\"" + CLIENT_CHECKSUM
+				+ "\",\"uploadSha256Calculated\":true}", SequenceFile.class);
+		Path sequenceFile = Files.createTempFile(null, null);
+		Files.write(sequenceFile, FILE_CONTENTS.getBytes());
+		sf.setFile(sequenceFile);
+
+		assertFalse("client shouldn't be able to mark the checksum as calculated", sf.isUploadSha256Calculated());
+
+		fileProcessor.process(new SingleEndSequenceFile(sf));
+		assertEquals("client checksum should be replaced", CHECKSUM, sf.getUploadSha256());
+
+		sf.setUploadSha256(CLIENT_CHECKSUM);
+		FileStreamSubscriber subscriber = fileProcessor.subscribe(sf, false);
+		byte[] contents = FILE_CONTENTS.getBytes();
+		subscriber.onBytes(contents, 0, contents.length);
+		subscriber.complete();
+		assertEquals("client checksum should be replaced while streaming", CHECKSUM, sf.getUploadSha256());
+
+		verify(sequenceFileRepository, times(2)).saveMetadata(sf);
+	}
+
 	@Test(expected = FileProcessorException.class)
 	public void testFileNotExists() throws IOException {
 		final SequenceFile sf = new SequenceFile(Paths.get("/reallyfakefile"));
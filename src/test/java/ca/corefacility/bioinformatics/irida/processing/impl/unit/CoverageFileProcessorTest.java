@@ -2,6 +2,7 @@ package ca.corefacility.bioinformatics.irida.processing.impl.unit;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -11,6 +12,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 
 import ca.corefacility.bioinformatics.irida.model.project.Project;
@@ -20,7 +22,8 @@ import ca.corefacility.bioinformatics.irida.model.sample.QCEntry.QCEntryStatus;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
-import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCSummary;
+import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
 import ca.corefacility.bioinformatics.irida.processing.impl.CoverageFileProcessor;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.AnalysisRepository;
 import ca.corefacility.bioinformatics.irida.repositories.sample.QCEntryRepository;
@@ -46,11 +49,11 @@ public class CoverageFileProcessorTest {
 		p.setMinimumCoverage(2);
 		SequenceFile file = new SequenceFile();
 		SequencingObject o = new SingleEndSequenceFile(file);
-		AnalysisFastQC fqc = mock(AnalysisFastQC.class);
 		Long baseCount = 300L;
+		FastQCSummary fqc = new FastQCSummary(file.getId(), 3, baseCount, 100, 100, (short) 50);
 
-		when(analysisRepository.findFastqcAnalysisForSequenceFile(file)).thenReturn(fqc);
-		when(fqc.getTotalBases()).thenReturn(baseCount);
+		when(analysisRepository.findFastqcSummariesForSequenceFiles(anyCollectionOf(Long.class))).thenReturn(
+				ImmutableList.of(fqc));
 
 		processor.process(o);
 
@@ -73,11 +76,11 @@ public class CoverageFileProcessorTest {
 		p.setMinimumCoverage(5);
 		SequenceFile file = new SequenceFile();
 		SequencingObject o = new SingleEndSequenceFile(file);
-		AnalysisFastQC fqc = mock(AnalysisFastQC.class);
 		Long baseCount = 300L;
+		FastQCSummary fqc = new FastQCSummary(file.getId(), 3, baseCount, 100, 100, (short) 50);
 
-		when(analysisRepository.findFastqcAnalysisForSequenceFile(file)).thenReturn(fqc);
-		when(fqc.getTotalBases()).thenReturn(baseCount);
+		when(analysisRepository.findFastqcSummariesForSequenceFiles(anyCollectionOf(Long.class))).thenReturn(
+				ImmutableList.of(fqc));
 
 		processor.process(o);
 
@@ -100,14 +103,14 @@ public class CoverageFileProcessorTest {
 		p.setMinimumCoverage(2);
 		SequenceFile file = new SequenceFile();
 		SequencingObject o = new SingleEndSequenceFile(file);
-		AnalysisFastQC fqc = mock(AnalysisFastQC.class);
 		Long baseCount = 300L;
+		FastQCSummary fqc = new FastQCSummary(file.getId(), 3, baseCount, 100, 100, (short) 50);
 
 		QCEntry existingQc = new CoverageQCEntry();
 		o.setQcEntries(Sets.newHashSet(existingQc));
 
-		when(analysisRepository.findFastqcAnalysisForSequenceFile(file)).thenReturn(fqc);
-		when(fqc.getTotalBases()).thenReturn(baseCount);
+		when(analysisRepository.findFastqcSummariesForSequenceFiles(anyCollectionOf(Long.class))).thenReturn(
+				ImmutableList.of(fqc));
 
 		processor.process(o);
 
@@ -123,4 +126,15 @@ public class CoverageFileProcessorTest {
 		assertEquals("should be positive coverage", QCEntryStatus.POSITIVE, qc.getStatus());
 	}
 
+	@Test(expected = FileProcessorException.class)
+	public void testMissingFastQC() {
+		SequenceFile file = new SequenceFile();
+		SequencingObject o = new SingleEndSequenceFile(file);
+
+		when(analysisRepository.findFastqcSummariesForSequenceFiles(anyCollectionOf(Long.class))).thenReturn(
+				ImmutableList.of());
+
+		processor.process(o);
+	}
+
 }
@@ -5,6 +5,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
@@ -24,6 +25,7 @@ import org.springframework.util.ReflectionUtils;
 
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.OverrepresentedSequence;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFilePair;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
@@ -121,6 +123,45 @@ public class FastqcFileProcessorTest {
 
 	}
 
+	@Test
+	public void testHandlePairedFastqFiles() throws IOException, IllegalAccessException {
+		// more records than a single batch, to make sure every batch is seen
+		final int records = 25000;
+		final StringBuilder contents = new StringBuilder();
+		for (int i = 0; i < records; i++) {
+			contents.append("@read").append(i).append("\n").append(SEQUENCE).append("\n+\n?????????\n");
+		}
+
+		SequenceFile forward = createFastq(contents.toString());
+		forward.setId(1L);
+		SequenceFile reverse = createFastq(contents.toString());
+		reverse.setId(2L);
+		SequenceFilePair pair = new SequenceFilePair(forward, reverse);
+
+		fileProcessor.process(pair);
+
+		ArgumentCaptor<SequenceFile> argument = ArgumentCaptor.forClass(SequenceFile.class);
+		verify(sequenceFileRepository, times(2)).saveMetadata(argument.capture());
+
+		final Field fastqcAnalysis = ReflectionUtils.findField(SequenceFile.class, "fastqcAnalysis");
+		ReflectionUtils.makeAccessible(fastqcAnalysis);
+		for (SequenceFile updatedFile : argument.getAllValues()) {
+			AnalysisFastQC updated = (AnalysisFastQC) fastqcAnalysis.get(updatedFile);
+			assertEquals("Total sequences was not correct.", Integer.valueOf(records), updated.getTotalSequences());
+			assertEquals("Total number of bases was not correct.", Long.valueOf(SEQUENCE.length() * records),
+					updated.getTotalBases());
+			assertTrue("Duplication level chart was not created.",
+					((byte[]) updated.getDuplicationLevelChart()).length > 0);
+		}
+	}
+
+	private SequenceFile createFastq(String contents) throws IOException {
+		Path fastq = Files.createTempFile(null, null);
+		Files.write(fastq, contents.getBytes());
+		Runtime.getRuntime().addShutdownHook(new DeleteFileOnExit(fastq));
+		return new SequenceFile(fastq);
+	}
+
 	private static final class DeleteFileOnExit extends Thread {
 
 		private final Path fileToDelete;
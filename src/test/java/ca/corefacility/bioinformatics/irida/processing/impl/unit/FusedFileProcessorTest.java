@@ -0,0 +1,152 @@
+package ca.corefacility.bioinformatics.irida.processing.impl.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.MessageSource;
+
+import com.google.common.collect.Lists;
+
+import ca.corefacility.bioinformatics.irida.model.sample.FileProcessorErrorQCEntry;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
+import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.impl.ChecksumFileProcessor;
+import ca.corefacility.bioinformatics.irida.processing.impl.FastqcFileProcessor;
+import ca.corefacility.bioinformatics.irida.processing.impl.FusedFileProcessor;
+import ca.corefacility.bioinformatics.irida.processing.impl.GzipFileProcessor;
+import ca.corefacility.bioinformatics.irida.repositories.sample.QCEntryRepository;
+import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
+
+/**
+ * Tests for {@link FusedFileProcessor}.
+ */
+public class FusedFileProcessorTest {
+	private static final String SEQUENCE = "ACGTACGTN";
+	private static final String FASTQ_FILE_CONTENTS = "@testread\n" + SEQUENCE + "\n+\n?????????\n@testread2\n"
+			+ SEQUENCE + "\n+\n?????????\n";
+	private static final String FASTA_FILE_CONTENTS = ">test read\n" + SEQUENCE;
+
+	private FusedFileProcessor fileProcessor;
+	private SequenceFileRepository sequenceFileRepository;
+	private QCEntryRepository qcEntryRepository;
+
+	@Before
+	public void setUp() {
+		sequenceFileRepository = mock(SequenceFileRepository.class);
+		qcEntryRepository = mock(QCEntryRepository.class);
+
+		ChecksumFileProcessor checksum = new ChecksumFileProcessor(sequenceFileRepository);
+		GzipFileProcessor gzip = new GzipFileProcessor(sequenceFileRepository, Boolean.FALSE);
+		FastqcFileProcessor fastqc = new FastqcFileProcessor(mock(MessageSource.class), sequenceFileRepository);
+
+		fileProcessor = new FusedFileProcessor(qcEntryRepository, Lists.newArrayList(checksum, gzip, fastqc));
+	}
+
+	@Test
+	public void testCompressedFastqFile() throws IOException {
+		Path compressed = Files.createTempFile(null, ".fastq.gz");
+		try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed))) {
+			out.write(FASTQ_FILE_CONTENTS.getBytes());
+		}
+		String expectedChecksum = DigestUtils.sha256Hex(Files.readAllBytes(compressed));
+
+		SequenceFile sf = new SequenceFile(compressed);
+		sf.setId(1L);
+		fileProcessor.process(new SingleEndSequenceFile(sf));
+
+		assertEquals("checksum should be calculated on the uploaded bytes", expectedChecksum, sf.getUploadSha256());
+		assertEquals("file should have been decompressed", FASTQ_FILE_CONTENTS,
+				new String(Files.readAllBytes(sf.getFile())));
+		assertEquals("file name should not have a gzip extension", compressed.getFileName().toString()
+				.replace(".gz", ""), sf.getFile().getFileName().toString());
+		assertNotNull("FastQC should have run", sf.getFastQCAnalysis());
+		assertEquals("FastQC should have seen every record", Integer.valueOf(2),
+				sf.getFastQCAnalysis().getTotalSequences());
+
+		verify(sequenceFileRepository).save(sf);
+		verify(qcEntryRepository, never()).save(any(FileProcessorErrorQCEntry.class));
+	}
+
+	@Test
+	public void testUncompressedFastqFile() throws IOException {
+		Path fastq = Files.createTempFile(null, ".fastq");
+		Files.write(fastq, FASTQ_FILE_CONTENTS.getBytes());
+
+		SequenceFile sf = new SequenceFile(fastq);
+		sf.setId(1L);
+		fileProcessor.process(new SingleEndSequenceFile(sf));
+
+		assertEquals("checksum should be calculated", DigestUtils.sha256Hex(FASTQ_FILE_CONTENTS),
+				sf.getUploadSha256());
+		assertEquals("file should not have moved", fastq, sf.getFile());
+		assertEquals("FastQC should have seen every record", Integer.valueOf(2),
+				sf.getFastQCAnalysis().getTotalSequences());
+
+		verify(sequenceFileRepository, never()).save(any(SequenceFile.class));
+	}
+
+	@Test
+	public void testMalformedFileStillChecksummed() throws IOException {
+		Path fasta = Files.createTempFile(null, null);
+		Files.write(fasta, FASTA_FILE_CONTENTS.getBytes());
+
+		SequenceFile sf = new SequenceFile(fasta);
+		sf.setId(1L);
+		SingleEndSequenceFile so = new SingleEndSequenceFile(sf);
+		fileProcessor.process(so);
+
+		assertEquals("checksum should be calculated even if FastQC fails",
+				DigestUtils.sha256Hex(FASTA_FILE_CONTENTS), sf.getUploadSha256());
+		assertNull("FastQC should not have been stored", sf.getFastQCAnalysis());
+		verify(qcEntryRepository).save(any(FileProcessorErrorQCEntry.class));
+	}
+
+	@Test
+	public void testCompressedFastaFileProcessedUnfused() throws IOException {
+		Path compressed = Files.createTempFile(null, ".fasta.gz");
+		try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed))) {
+			out.write(FASTA_FILE_CONTENTS.getBytes());
+		}
+		String expectedChecksum = DigestUtils.sha256Hex(Files.readAllBytes(compressed));
+
+		SequenceFile sf = new SequenceFile(compressed);
+		sf.setId(1L);
+		fileProcessor.process(new SingleEndSequenceFile(sf));
+
+		assertEquals("checksum should be calculated on the uploaded bytes", expectedChecksum, sf.getUploadSha256());
+		assertEquals("file should have been decompressed", FASTA_FILE_CONTENTS,
+				new String(Files.readAllBytes(sf.getFile())));
+		assertNull("FastQC should not have been stored", sf.getFastQCAnalysis());
+		verify(qcEntryRepository).save(any(FileProcessorErrorQCEntry.class));
+	}
+
+	@Test(expected = FileProcessorException.class)
+	public void testModifyingProcessorFails() throws IOException {
+		Path compressed = Files.createTempFile(null, ".gz");
+		try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed))) {
+			out.write(FASTQ_FILE_CONTENTS.getBytes());
+		}
+
+		SequenceFile sf = new SequenceFile(compressed);
+		sf.setId(1L);
+		when(sequenceFileRepository.save(any(SequenceFile.class))).thenThrow(new RuntimeException());
+
+		fileProcessor.process(new SingleEndSequenceFile(sf));
+	}
+}
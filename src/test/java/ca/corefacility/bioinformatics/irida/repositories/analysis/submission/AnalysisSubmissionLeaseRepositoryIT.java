@@ -0,0 +1,192 @@
+package ca.corefacility.bioinformatics.irida.repositories.analysis.submission;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.security.test.context.support.WithSecurityContextTestExcecutionListener;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+
+import com.github.springtestdbunit.DbUnitTestExecutionListener;
+import com.github.springtestdbunit.annotation.DatabaseSetup;
+import com.github.springtestdbunit.annotation.DatabaseTearDown;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+import ca.corefacility.bioinformatics.irida.config.data.IridaApiJdbcDataSourceConfig;
+import ca.corefacility.bioinformatics.irida.config.services.IridaApiServicesConfig;
+import ca.corefacility.bioinformatics.irida.model.enums.AnalysisCleanedState;
+import ca.corefacility.bioinformatics.irida.model.enums.AnalysisState;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission.Priority;
+
+/**
+ * Tests for the queries in {@link AnalysisSubmissionRepository} that lease
+ * submissions to analysis scheduler nodes.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(loader = AnnotationConfigContextLoader.class, classes = { IridaApiServicesConfig.class,
+		IridaApiJdbcDataSourceConfig.class })
+@ActiveProfiles("it")
+@TestExecutionListeners({ DependencyInjectionTestExecutionListener.class, DbUnitTestExecutionListener.class,
+		WithSecurityContextTestExcecutionListener.class })
+@DatabaseSetup("/ca/corefacility/bioinformatics/irida/repositories/analysis/submission/AnalysisSubmissionLeaseRepositoryIT.xml")
+@DatabaseTearDown("/ca/corefacility/bioinformatics/irida/test/integration/TableReset.xml")
+public class AnalysisSubmissionLeaseRepositoryIT {
+
+	private static final String NODE1 = "node1";
+	private static final String NODE2 = "node2";
+
+	@Autowired
+	private AnalysisSubmissionRepository analysisSubmissionRepository;
+
+	/**
+	 * Tests finding free, expired and already held submissions, longest
+	 * without a lease first.
+	 */
+	@Test
+	public void testFindLeasableIds() {
+		List<Long> ids = analysisSubmissionRepository.findLeasableIds(AnalysisState.RUNNING, Priority.HIGH, NODE1,
+				new Date(), new PageRequest(0, 10));
+
+		assertEquals("should find the free, expired and held submissions", ImmutableList.of(1L, 3L, 4L), ids);
+	}
+
+	/**
+	 * Tests finding leasable submissions by cleaned state.
+	 */
+	@Test
+	public void testFindLeasableIdsByCleanedState() {
+		List<Long> ids = analysisSubmissionRepository.findLeasableIds(AnalysisState.COMPLETED,
+				AnalysisCleanedState.NOT_CLEANED, NODE1, new Date(), new PageRequest(0, 10));
+
+		assertEquals("should find the uncleaned submission", ImmutableList.of(7L), ids);
+	}
+
+	/**
+	 * Tests only one of two nodes claiming the same submission gets it.
+	 */
+	@Test
+	public void testClaimLeasesRace() {
+		Date now = new Date();
+		Date expiry = date("2100-01-01 00:00:00");
+
+		assertEquals("the first node should claim the submission", 1,
+				analysisSubmissionRepository.claimLeases(ImmutableList.of(1L), NODE1, expiry, now));
+		assertEquals("the second node should not claim the submission", 0,
+				analysisSubmissionRepository.claimLeases(ImmutableList.of(1L), NODE2, expiry, now));
+
+		assertEquals("the first node should hold the lease", NODE1,
+				analysisSubmissionRepository.findOne(1L).getLeaseOwner());
+		assertEquals("the second node should not load the submission", 0,
+				analysisSubmissionRepository.findByIdsAndLeaseOwner(ImmutableList.of(1L), NODE2).size());
+		assertEquals("a lease held by another node should not be claimed", 0,
+				analysisSubmissionRepository.claimLeases(ImmutableList.of(2L), NODE1, expiry, now));
+	}
+
+	/**
+	 * Tests a lease that ran out can be claimed by another node.
+	 */
+	@Test
+	public void testClaimExpiredLease() {
+		Date expiry = date("2100-01-01 00:00:00");
+
+		assertEquals("the expired lease should be claimed", 1,
+				analysisSubmissionRepository.claimLeases(ImmutableList.of(3L), NODE1, expiry, new Date()));
+
+		AnalysisSubmission submission = analysisSubmissionRepository.findOne(3L);
+		assertEquals("the lease should be taken over", NODE1, submission.getLeaseOwner());
+		assertEquals("the lease should have the new expiry", expiry.getTime(),
+				submission.getLeaseExpiry().getTime());
+	}
+
+	/**
+	 * Tests a node only renews its own leases.
+	 */
+	@Test
+	public void testRenewLeases() {
+		Date expiry = date("2050-01-01 00:00:00");
+
+		assertEquals("only the held lease should be renewed", 1,
+				analysisSubmissionRepository.renewLeases(ImmutableList.of(4L, 2L), NODE1, expiry));
+
+		assertEquals("the held lease should have the new expiry", expiry.getTime(),
+				analysisSubmissionRepository.findOne(4L).getLeaseExpiry().getTime());
+		assertEquals("the other node's lease should be unchanged", date("2100-01-01 00:00:00").getTime(),
+				analysisSubmissionRepository.findOne(2L).getLeaseExpiry().getTime());
+	}
+
+	/**
+	 * Tests a node only releases its own leases, and the expiry is kept.
+	 */
+	@Test
+	public void testReleaseLeases() {
+		assertEquals("only the held lease should be released", 1,
+				analysisSubmissionRepository.releaseLeases(ImmutableList.of(4L, 2L), NODE1));
+
+		AnalysisSubmission released = analysisSubmissionRepository.findOne(4L);
+		assertNull("the lease should be released", released.getLeaseOwner());
+		assertEquals("the expiry should be kept", date("2100-01-01 00:00:00").getTime(),
+				released.getLeaseExpiry().getTime());
+		assertEquals("the other node's lease should be kept", NODE2,
+				analysisSubmissionRepository.findOne(2L).getLeaseOwner());
+	}
+
+	/**
+	 * Tests finding submissions whose lease ran out without being released.
+	 */
+	@Test
+	public void testFindIdsWithExpiredLease() {
+		List<Long> ids = analysisSubmissionRepository.findIdsWithExpiredLease(
+				ImmutableList.of(AnalysisState.PREPARING, AnalysisState.SUBMITTING, AnalysisState.RUNNING),
+				new Date());
+
+		assertEquals("should find the abandoned submissions", ImmutableSet.of(3L, 9L), Sets.newHashSet(ids));
+	}
+
+	/**
+	 * Tests saving a copy of a submission loaded before it was claimed doesn't
+	 * overwrite the lease.
+	 */
+	@Test
+	@WithMockUser(username = "aaron", roles = "ADMIN")
+	public void testSaveDoesNotOverwriteLease() {
+		AnalysisSubmission stale = analysisSubmissionRepository.findOne(1L);
+		assertNull("the submission should not be leased yet", stale.getLeaseOwner());
+
+		analysisSubmissionRepository.claimLeases(ImmutableList.of(1L), NODE1, date("2100-01-01 00:00:00"),
+				new Date());
+
+		stale.setAnalysisState(AnalysisState.FINISHED_RUNNING);
+		analysisSubmissionRepository.save(stale);
+
+		AnalysisSubmission saved = analysisSubmissionRepository.findOne(1L);
+		assertEquals("the submission should be updated", AnalysisState.FINISHED_RUNNING, saved.getAnalysisState());
+		assertEquals("the lease should not be overwritten", NODE1, saved.getLeaseOwner());
+		assertNotNull("the lease expiry should not be overwritten", saved.getLeaseExpiry());
+	}
+
+	private Date date(String date) {
+		try {
+			return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse(date);
+		} catch (ParseException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package ca.corefacility.bioinformatics.irida.repositories.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.guava.GuavaCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+
+import ca.corefacility.bioinformatics.irida.config.repository.IridaApiCacheConfig;
+import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+
+/**
+ * Tests for {@link ReferenceCacheEvictionListener} and {@link ReferenceCacheStatistics}.
+ */
+public class ReferenceCacheEvictionListenerTest {
+	private SimpleCacheManager cacheManager;
+	private ReferenceCacheEvictionListener listener;
+	private ReferenceCacheStatistics statistics;
+
+	@Before
+	public void setUp() {
+		cacheManager = new SimpleCacheManager();
+		cacheManager.setCaches(ImmutableList.of(region(IridaApiCacheConfig.USERS),
+				region(IridaApiCacheConfig.METADATA_FIELDS)));
+		cacheManager.afterPropertiesSet();
+
+		listener = new ReferenceCacheEvictionListener(cacheManager);
+		statistics = new ReferenceCacheStatistics(cacheManager);
+
+		cacheManager.getCache(IridaApiCacheConfig.USERS)
+				.put("fbristow", new User());
+		cacheManager.getCache(IridaApiCacheConfig.METADATA_FIELDS)
+				.put("label:serotype", new MetadataTemplateField("serotype", "text"));
+	}
+
+	@After
+	public void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	public void testWritingEntityClearsItsRegion() {
+		listener.onPostUpdate(updateOf(new User()));
+
+		assertNull("users should be cleared", cacheManager.getCache(IridaApiCacheConfig.USERS)
+				.get("fbristow"));
+		assertNotNull("metadata fields should be kept", cacheManager.getCache(IridaApiCacheConfig.METADATA_FIELDS)
+				.get("label:serotype"));
+	}
+
+	@Test
+	public void testWritingUncachedEntityKeepsRegions() {
+		listener.onPostUpdate(updateOf(new Sample()));
+
+		assertNotNull("users should be kept", cacheManager.getCache(IridaApiCacheConfig.USERS)
+				.get("fbristow"));
+		assertNotNull("metadata fields should be kept", cacheManager.getCache(IridaApiCacheConfig.METADATA_FIELDS)
+				.get("label:serotype"));
+	}
+
+	@Test
+	public void testRegionClearedAgainAfterCommit() {
+		TransactionSynchronizationManager.initSynchronization();
+		listener.onPostUpdate(updateOf(new MetadataTemplateField("serotype", "text")));
+
+		// a read before the commit puts the old field back
+		cacheManager.getCache(IridaApiCacheConfig.METADATA_FIELDS)
+				.put("label:serotype", new MetadataTemplateField("serotype", "text"));
+
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			synchronization.afterCommit();
+		}
+
+		assertNull("metadata fields should be cleared after commit",
+				cacheManager.getCache(IridaApiCacheConfig.METADATA_FIELDS)
+						.get("label:serotype"));
+	}
+
+	@Test
+	public void testHitRatio() {
+		cacheManager.getCache(IridaApiCacheConfig.USERS)
+				.get("fbristow");
+		cacheManager.getCache(IridaApiCacheConfig.USERS)
+				.get("tom");
+
+		assertEquals("half of the reads should be hits", 0.5, statistics.getHitRatio(IridaApiCacheConfig.USERS),
+				0.001);
+		assertEquals("should report both regions", 2, statistics.getRegionNames().length);
+	}
+
+	private static GuavaCache region(String name) {
+		return new GuavaCache(name, CacheBuilder.newBuilder()
+				.recordStats()
+				.build(), false);
+	}
+
+	private static PostUpdateEvent updateOf(Object entity) {
+		PostUpdateEvent event = mock(PostUpdateEvent.class);
+		when(event.getEntity()).thenReturn(entity);
+		return event;
+	}
+}
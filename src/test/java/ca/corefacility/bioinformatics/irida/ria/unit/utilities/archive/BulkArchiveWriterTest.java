@@ -0,0 +1,202 @@
+package ca.corefacility.bioinformatics.irida.ria.unit.utilities.archive;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+
+import ca.corefacility.bioinformatics.irida.ria.utilities.archive.ArchiveEntry;
+import ca.corefacility.bioinformatics.irida.ria.utilities.archive.ArchiveFormat;
+import ca.corefacility.bioinformatics.irida.ria.utilities.archive.BulkArchiveWriter;
+
+/**
+ * Unit tests for {@link BulkArchiveWriter}.
+ */
+public class BulkArchiveWriterTest {
+	private Path directory;
+	private Path textFile;
+	private Path gzipFile;
+	private byte[] text;
+	private byte[] gzip;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory(null);
+
+		// a text file spanning several deflate blocks
+		StringBuilder reads = new StringBuilder();
+		Random random = new Random(1);
+		for (int i = 0; reads.length() < 600 * 1024; i++) {
+			reads.append("@read").append(i).append("\n");
+			for (int j = 0; j < 50; j++) {
+				reads.append("ACGT".charAt(random.nextInt(4)));
+			}
+			reads.append("\n+\nIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIIII\n");
+		}
+		text = reads.toString().getBytes(StandardCharsets.UTF_8);
+		textFile = Files.write(directory.resolve("reads.fastq"), text);
+
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+			out.write(text);
+		}
+		gzip = compressed.toByteArray();
+		gzipFile = Files.write(directory.resolve("reads.fastq.gz"), gzip);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.walk(directory).sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+	}
+
+	@Test
+	public void testZipInParallel() throws IOException {
+		BulkArchiveWriter writer = new BulkArchiveWriter(4, Deflater.DEFAULT_COMPRESSION);
+		try {
+			testZip(writer);
+		} finally {
+			writer.shutdown();
+		}
+	}
+
+	@Test
+	public void testZipOnOneThread() throws IOException {
+		BulkArchiveWriter writer = new BulkArchiveWriter(1, Deflater.DEFAULT_COMPRESSION);
+		try {
+			testZip(writer);
+		} finally {
+			writer.shutdown();
+		}
+	}
+
+	@Test
+	public void testTar() throws IOException {
+		BulkArchiveWriter writer = new BulkArchiveWriter(1, Deflater.DEFAULT_COMPRESSION);
+		String longName = "project/" + String.join("", Collections.nCopies(20, "sample-")) + "/reads.fastq";
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			writer.write(ArchiveFormat.TAR, ImmutableList.of(ArchiveEntry.forFile("project/reads.fastq.gz", gzipFile),
+					ArchiveEntry.forFile(longName, textFile)), out);
+		} finally {
+			writer.shutdown();
+		}
+
+		Map<String, byte[]> entries = readTar(out.toByteArray());
+		assertEquals("should have both entries", 2, entries.size());
+		assertArrayEquals("gzip file should be unchanged", gzip, entries.get("project/reads.fastq.gz"));
+		assertArrayEquals("long name should be kept", text, entries.get(longName));
+	}
+
+	private void testZip(BulkArchiveWriter writer) throws IOException {
+		byte[] provenance = "{}".getBytes(StandardCharsets.UTF_8);
+		List<ArchiveEntry> entries = ImmutableList.of(ArchiveEntry.forFile("project/reads.fastq.gz", gzipFile),
+				ArchiveEntry.forFile("project/reads.fastq", textFile),
+				ArchiveEntry.forBytes("project/reads.fastq-prov.json", provenance));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		writer.write(ArchiveFormat.ZIP, entries, out);
+		byte[] archive = out.toByteArray();
+
+		// a stored entry carries its CRC-32 in the local header instead of a
+		// data descriptor
+		ByteBuffer local = ByteBuffer.wrap(archive).order(ByteOrder.LITTLE_ENDIAN);
+		CRC32 crc = new CRC32();
+		crc.update(gzip);
+		assertEquals("should start with a local header", 0x04034b50, local.getInt(0));
+		assertEquals("gzip file should not have a data descriptor", 0, local.getShort(6) & 0x0008);
+		assertEquals("local header should have the CRC-32", (int) crc.getValue(), local.getInt(14));
+
+		// read the archive as a stream, like a browser download would be
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+			ZipEntry entry = zip.getNextEntry();
+			assertEquals("should be the gzip file", "project/reads.fastq.gz", entry.getName());
+			assertEquals("gzip file should be stored", ZipEntry.STORED, entry.getMethod());
+			assertArrayEquals("gzip file should be unchanged", gzip, ByteStreams.toByteArray(zip));
+
+			entry = zip.getNextEntry();
+			assertEquals("should be the text file", "project/reads.fastq", entry.getName());
+			assertEquals("text file should be deflated", ZipEntry.DEFLATED, entry.getMethod());
+			assertArrayEquals("text file should be unchanged", text, ByteStreams.toByteArray(zip));
+
+			entry = zip.getNextEntry();
+			assertEquals("should be the provenance", "project/reads.fastq-prov.json", entry.getName());
+			assertArrayEquals("provenance should be unchanged", provenance, ByteStreams.toByteArray(zip));
+
+			assertNull("should be no more entries", zip.getNextEntry());
+		}
+
+		// and from the central directory, like an unzip tool would
+		Path zipFile = Files.write(directory.resolve("archive.zip"), archive);
+		try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+			assertEquals("should have all entries", 3, zip.size());
+
+			ZipEntry entry = zip.getEntry("project/reads.fastq.gz");
+			assertEquals("gzip file should be stored", ZipEntry.STORED, entry.getMethod());
+			assertEquals("should record the CRC-32", crc.getValue(), entry.getCrc());
+			assertArrayEquals("gzip file should be unchanged", gzip,
+					ByteStreams.toByteArray(zip.getInputStream(entry)));
+
+			entry = zip.getEntry("project/reads.fastq");
+			assertEquals("text file should be deflated", ZipEntry.DEFLATED, entry.getMethod());
+			assertEquals("should record the size", text.length, entry.getSize());
+			assertArrayEquals("text file should be unchanged", text,
+					ByteStreams.toByteArray(zip.getInputStream(entry)));
+
+			entry = zip.getEntry("project/reads.fastq-prov.json");
+			assertArrayEquals("provenance should be unchanged", provenance,
+					ByteStreams.toByteArray(zip.getInputStream(entry)));
+		}
+	}
+
+	/**
+	 * Read the entries of a tar archive, using pax path records for long names.
+	 */
+	private static Map<String, byte[]> readTar(byte[] archive) {
+		Map<String, byte[]> entries = new HashMap<>();
+		String paxPath = null;
+		int offset = 0;
+		while (archive[offset] != 0) {
+			byte[] header = Arrays.copyOfRange(archive, offset, offset + 512);
+			String name = new String(header, 0, 100, StandardCharsets.UTF_8).replace("\0", "");
+			int size = Integer.parseInt(new String(header, 124, 11, StandardCharsets.US_ASCII), 8);
+			byte[] content = Arrays.copyOfRange(archive, offset + 512, offset + 512 + size);
+			offset += 512 + (size + 511) / 512 * 512;
+
+			if (header[156] == 'x') {
+				String record = new String(content, StandardCharsets.UTF_8);
+				paxPath = record.substring(record.indexOf("path=") + 5, record.length() - 1);
+			} else {
+				entries.put(paxPath != null ? paxPath : name, content);
+				paxPath = null;
+			}
+		}
+		return entries;
+	}
+}
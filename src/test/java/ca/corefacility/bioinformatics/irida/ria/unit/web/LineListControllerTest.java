@@ -1,21 +1,35 @@
 package ca.corefacility.bioinformatics.irida.ria.unit.web;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.*;
 
+import java.util.Date;
 import java.util.Locale;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.context.MessageSource;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Sort.Direction;
 
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.SampleMetadataQuery;
+import ca.corefacility.bioinformatics.irida.ria.web.components.agGrid.AgGridServerSideRequest;
 import ca.corefacility.bioinformatics.irida.ria.web.linelist.LineListController;
+import ca.corefacility.bioinformatics.irida.ria.web.linelist.dto.UISampleMetadata;
+import ca.corefacility.bioinformatics.irida.ria.web.linelist.dto.UISampleMetadataPage;
 import ca.corefacility.bioinformatics.irida.security.permissions.project.ProjectOwnerPermission;
 import ca.corefacility.bioinformatics.irida.security.permissions.sample.UpdateSamplePermission;
 import ca.corefacility.bioinformatics.irida.service.ProjectService;
 import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateService;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
 /**
  * Unit test for {@link LineListController}
  */
@@ -49,9 +63,45 @@ public class LineListControllerTest {
 	}
 
 	@Test
-	public void testGetAllProjectMetadataEntries() {
+	public void testGetProjectSamplesMetadataPage() {
 		long projectId = 1L;
-		lineListController.getProjectSamplesMetadataEntries(projectId);
-		verify(sampleService, times(1)).getSamplesForProject(any(Project.class));
+		Project project = new Project("Line List Project");
+		project.setId(projectId);
+		Sample sample = new Sample("Sample 1");
+		sample.setId(2L);
+		sample.setModifiedDate(new Date());
+		when(projectService.read(projectId)).thenReturn(project);
+		when(sampleService.getSamplesForProjectShallow(eq(project), any(SampleMetadataQuery.class))).thenReturn(
+				new PageImpl<>(ImmutableList.of(new ProjectSampleJoin(project, sample, true)), null, 120L));
+		when(sampleService.getMetadataValuesForProjectSamples(project, ImmutableList.of(2L))).thenReturn(
+				ImmutableMap.of(2L, ImmutableMap.of(5L, "Salmonella")));
+
+		AgGridServerSideRequest request = new AgGridServerSideRequest(100, 200);
+		request.setSortModel(ImmutableList.of(new AgGridServerSideRequest.SortModel("irida-5", "desc")));
+		request.setFilterModel(ImmutableMap.of("irida-7", new AgGridServerSideRequest.FilterModel("text", "contains", "ON"),
+				UISampleMetadata.SAMPLE_NAME, new AgGridServerSideRequest.FilterModel("text", "contains", "Sample")));
+		request.setQuickFilter("Salm");
+
+		UISampleMetadataPage page = lineListController.getProjectSamplesMetadataPage(projectId, request);
+
+		assertEquals("Should have the total number of samples", 120L, page.getLastRow());
+		assertEquals("Should have the sample in the block", 1, page.getRows().size());
+		UISampleMetadata row = page.getRows().get(0);
+		assertEquals("Should have the sample name", "Sample 1", row.get(UISampleMetadata.SAMPLE_NAME));
+		assertEquals("Should have the metadata value", "Salmonella", row.get("irida-5"));
+		assertEquals("Should not be editable without project permission", "false", row.get(UISampleMetadata.EDITABLE));
+
+		ArgumentCaptor<SampleMetadataQuery> captor = ArgumentCaptor.forClass(SampleMetadataQuery.class);
+		verify(sampleService).getSamplesForProjectShallow(eq(project), captor.capture());
+		SampleMetadataQuery query = captor.getValue();
+		assertEquals("Should start at the block", 100, query.getOffset());
+		assertEquals("Should read the block", 100, query.getLimit());
+		assertEquals("Should sort on the metadata field", Long.valueOf(5L), query.getSortFieldId());
+		assertEquals("Should sort descending", Direction.DESC, query.getSortDirection());
+		assertEquals("Should filter on the metadata field", "ON", query.getMetadataFilters().get(7L));
+		assertEquals("Should filter on the sample name", "Sample",
+				query.getPropertyFilters().get(SampleMetadataQuery.SampleProperty.SAMPLE_NAME));
+		assertEquals("Should search every field", "Salm", query.getSearch());
+		verify(updateSamplePermission, never()).isAllowed(any(), any());
 	}
 }
@@ -10,6 +10,7 @@ import ca.corefacility.bioinformatics.irida.model.workflow.structure.IridaWorkfl
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
 import ca.corefacility.bioinformatics.irida.pipeline.results.AnalysisSubmissionSampleProcessor;
 import ca.corefacility.bioinformatics.irida.ria.unit.TestDataFactory;
+import ca.corefacility.bioinformatics.irida.ria.utilities.archive.BulkArchiveWriter;
 import ca.corefacility.bioinformatics.irida.ria.web.analysis.AnalysisController;
 import ca.corefacility.bioinformatics.irida.ria.web.analysis.dto.AnalysisOutputFileInfo;
 import ca.corefacility.bioinformatics.irida.ria.web.components.AnalysisOutputFileDownloadManager;
@@ -80,7 +81,7 @@ public class AnalysisControllerTest {
 		analysisController = new AnalysisController(analysisSubmissionServiceMock, iridaWorkflowsServiceMock,
 				userServiceMock, sampleService, projectServiceMock, updatePermission, metadataTemplateService,
 				sequencingObjectService, analysesListingService, analysisSubmissionSampleProcessor,
-				analysisOutputFileDownloadManager, messageSourceMock);
+				analysisOutputFileDownloadManager, mock(BulkArchiveWriter.class), messageSourceMock);
 	}
 
 	@Test
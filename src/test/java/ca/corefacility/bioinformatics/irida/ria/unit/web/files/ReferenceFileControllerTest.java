@@ -22,6 +22,7 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
@@ -99,7 +100,7 @@ public class ReferenceFileControllerTest {
 		logger.debug("Testing download reference file");
 		MockHttpServletResponse response = new MockHttpServletResponse();
 
-		controller.downloadReferenceFile(FILE_ID, response);
+		controller.downloadReferenceFile(FILE_ID, new MockHttpServletRequest(), response);
 		assertTrue("Response should contain a \"Content-Disposition\" header.",
 				response.containsHeader("Content-Disposition"));
 		assertEquals("Content-Disposition should include the file name", "attachment; filename=\"test_file.fastq\"",
@@ -16,6 +16,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.ui.ExtendedModelMap;
 import org.springframework.ui.Model;
@@ -26,6 +27,7 @@ import ca.corefacility.bioinformatics.irida.ria.web.files.SequenceFileController
 import ca.corefacility.bioinformatics.irida.service.AnalysisService;
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
 import ca.corefacility.bioinformatics.irida.service.SequencingRunService;
+import ca.corefacility.bioinformatics.irida.web.filter.HttpHeadFilter;
 
 /**
  * Unit Tests for @{link SequenceFileController}
@@ -91,7 +93,7 @@ public class SequenceFileControllerTest {
 		logger.debug("Testing downloadSequenceFile");
 		MockHttpServletResponse response = new MockHttpServletResponse();
 
-		controller.downloadSequenceFile(OBJECT_ID, FILE_ID, response);
+		controller.downloadSequenceFile(OBJECT_ID, FILE_ID, new MockHttpServletRequest(), response);
 		assertTrue("Response should contain a \"Content-Disposition\" header.",
 				response.containsHeader("Content-Disposition"));
 		assertEquals("Content-Disposition should include the file name", "attachment; filename=\"test_file.fastq\"",
@@ -103,6 +105,19 @@ public class SequenceFileControllerTest {
 		assertArrayEquals("Response contents the correct file content", origBytes, responseBytes);
 	}
 
+	@Test
+	public void testHeadSequenceFile() throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("HEAD", "/");
+		request.setAttribute(HttpHeadFilter.HEAD_REQUEST_ATTRIBUTE, Boolean.TRUE);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		controller.downloadSequenceFile(OBJECT_ID, FILE_ID, request, response);
+
+		assertEquals("Content-Length should be the file size", String.valueOf(Files.size(Paths.get(FILE_PATH))),
+				response.getHeader("Content-Length"));
+		assertEquals("HEAD response should not have a body", 0, response.getContentAsByteArray().length);
+	}
+
 	private void testModel(Model model) {
 		assertTrue("Model should contain information about the file.", model.containsAttribute("file"));
 		assertTrue("Model should contain the created date for the file.", model.containsAttribute("created"));
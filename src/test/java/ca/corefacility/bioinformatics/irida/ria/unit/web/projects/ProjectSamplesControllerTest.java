@@ -11,6 +11,7 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -31,12 +32,16 @@ import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.SampleQCSummary;
 import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
 import ca.corefacility.bioinformatics.irida.model.user.Role;
 import ca.corefacility.bioinformatics.irida.model.user.User;
 import ca.corefacility.bioinformatics.irida.ria.unit.TestDataFactory;
+import ca.corefacility.bioinformatics.irida.ria.utilities.archive.BulkArchiveWriter;
+import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesExportToFile;
+import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesExportTypes;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesParams;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesResponse;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.models.DataTablesResponseModel;
@@ -50,6 +55,7 @@ import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 import ca.corefacility.bioinformatics.irida.service.user.UserService;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 
 public class ProjectSamplesControllerTest {
@@ -78,7 +84,7 @@ public class ProjectSamplesControllerTest {
 		messageSource = mock(MessageSource.class);
 
 		controller = new ProjectSamplesController(projectService, sampleService, sequencingObjectService,
-				projectUtils, messageSource);
+				projectUtils, new BulkArchiveWriter(1, Deflater.DEFAULT_COMPRESSION), messageSource);
 		user.setId(1L);
 
 		mockSidebarInfo();
@@ -310,6 +316,8 @@ public class ProjectSamplesControllerTest {
 						any(Integer.class), any(Integer.class), any(
 								Sort.class)))
 				.thenReturn(TestDataFactory.getPageOfProjectSampleJoin());
+		when(sampleService.getQCSummariesForProjectSamples(any(Page.class))).thenReturn(
+				ImmutableMap.of(23L, new SampleQCSummary(23L, 1000L, ImmutableList.of())));
 		DataTablesParams params = mock(DataTablesParams.class);
 		when(params.getSort()).thenReturn(new Sort(Direction.ASC, "sample.sampleName"));
 		DataTablesResponse response = controller
@@ -321,6 +329,36 @@ public class ProjectSamplesControllerTest {
 
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testExportProjectSamplesTable() throws IOException {
+		when(projectService.read(anyLong())).thenReturn(project);
+		when(sampleService
+				.getFilteredSamplesForProjects(any(List.class), any(List.class), any(String.class), any(String.class), any(String.class), any(Date.class), any(Date.class),
+						any(Integer.class), any(Integer.class), any(
+								Sort.class)))
+				.thenReturn(TestDataFactory.getPageOfProjectSampleJoin());
+		when(sampleService.getQCSummariesForProjectSamples(any(Page.class))).thenReturn(
+				ImmutableMap.of(23L, new SampleQCSummary(23L, 1000L, ImmutableList.of())));
+		DataTablesParams params = mock(DataTablesParams.class);
+		when(params.getSort()).thenReturn(new Sort(Direction.ASC, "sample.sampleName"));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		controller.exportProjectSamplesTable(1L, DataTablesExportTypes.csv, params, ImmutableList.of(),
+				ImmutableList.of(), new UISampleFilter(), null, response, Locale.US);
+
+		assertEquals("Should be a csv file", "text/csv", response.getContentType());
+		assertTrue("Should contain the sample", response.getContentAsString().contains("Joined Sample"));
+
+		// the samples should be read a page at a time, with the join id to keep the order stable
+		ArgumentCaptor<Sort> sortCaptor = ArgumentCaptor.forClass(Sort.class);
+		verify(sampleService).getFilteredSamplesForProjects(any(List.class), any(List.class), any(String.class),
+				any(String.class), any(String.class), any(Date.class), any(Date.class), eq(0),
+				eq(DataTablesExportToFile.EXPORT_PAGE_SIZE), sortCaptor.capture());
+		assertEquals("Should sort by the join id last", Direction.ASC,
+				sortCaptor.getValue().getOrderFor("id").getDirection());
+	}
+
 	@Test
 	public void testDownloadSamples() throws IOException {
 		Project project = TestDataFactory.constructProject();
@@ -337,7 +375,7 @@ public class ProjectSamplesControllerTest {
 		when(sampleService.readMultiple(ImmutableList.of(sample.getId()))).thenReturn(ImmutableList.of(sample));
 		when(sequencingObjectService.getSequencingObjectsForSample(sample)).thenReturn(filejoin);
 
-		controller.downloadSamples(project.getId(), ImmutableList.of(sample.getId()), response);
+		controller.downloadSamples(project.getId(), ImmutableList.of(sample.getId()), "zip", response);
 
 		verify(projectService).read(project.getId());
 		verify(sampleService).readMultiple(ImmutableList.of(sample.getId()));
@@ -373,7 +411,7 @@ public class ProjectSamplesControllerTest {
 		when(sampleService.readMultiple(ImmutableList.of(sample.getId()))).thenReturn(ImmutableList.of(sample));
 		when(sequencingObjectService.getSequencingObjectsForSample(sample)).thenReturn(filejoin);
 
-		controller.downloadSamples(project.getId(), ImmutableList.of(sample.getId()), response);
+		controller.downloadSamples(project.getId(), ImmutableList.of(sample.getId()), "zip", response);
 
 		verify(projectService).read(project.getId());
 		verify(sampleService).readMultiple(ImmutableList.of(sample.getId()));
@@ -268,7 +268,7 @@ public class SamplesControllerTest {
 		when(sampleService.getGenomeAssemblyForSample(sample, assemblyId)).thenReturn(genomeAssembly);
 		when(readSamplePermission.isAllowed(any(Authentication.class), eq(sample))).thenReturn(true);
 
-		controller.downloadAssembly(sampleId, assemblyId, response);
+		controller.downloadAssembly(sampleId, assemblyId, new MockHttpServletRequest(), response);
 
 		verify(sampleService).read(sampleId);
 		verify(sampleService).getGenomeAssemblyForSample(sample, assemblyId);
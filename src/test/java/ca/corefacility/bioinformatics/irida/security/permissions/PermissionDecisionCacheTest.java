@@ -0,0 +1,154 @@
+package ca.corefacility.bioinformatics.irida.security.permissions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.google.common.collect.ImmutableList;
+
+import ca.corefacility.bioinformatics.irida.events.UserGroupMembershipChangedEvent;
+import ca.corefacility.bioinformatics.irida.model.event.DataAddedToSampleProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.event.UserRemovedProjectEvent;
+import ca.corefacility.bioinformatics.irida.model.joins.Join;
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectSampleJoinRepository;
+import ca.corefacility.bioinformatics.irida.repositories.sample.SampleRepository;
+import ca.corefacility.bioinformatics.irida.security.permissions.project.ReadProjectPermission;
+import ca.corefacility.bioinformatics.irida.security.permissions.sample.ReadSamplePermission;
+
+/**
+ * Tests for {@link PermissionDecisionCache}.
+ */
+public class PermissionDecisionCacheTest {
+	private ReadSamplePermission readSamplePermission;
+	private SampleRepository sampleRepository;
+	private ProjectSampleJoinRepository psjRepository;
+	private ReadProjectPermission readProjectPermission;
+
+	private Authentication auth;
+	private Sample sample;
+	private Project project;
+
+	@Before
+	public void setUp() {
+		sampleRepository = mock(SampleRepository.class);
+		psjRepository = mock(ProjectSampleJoinRepository.class);
+		readProjectPermission = mock(ReadProjectPermission.class);
+		readSamplePermission = new ReadSamplePermission(sampleRepository, psjRepository, readProjectPermission);
+
+		auth = new UsernamePasswordAuthenticationToken("fbristow", "password1");
+
+		project = new Project();
+		sample = new Sample();
+		sample.setId(1L);
+		List<Join<Project, Sample>> projectSampleList = ImmutableList.of(new ProjectSampleJoin(project, sample,
+				true));
+
+		when(sampleRepository.findOne(1L)).thenReturn(sample);
+		when(psjRepository.getProjectForSample(sample)).thenReturn(projectSampleList);
+		when(readProjectPermission.isAllowed(any(), eq(project))).thenReturn(true);
+	}
+
+	@After
+	public void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	public void testCachedForRequest() {
+		PermissionDecisionCache cache = new PermissionDecisionCache(0, 100);
+		readSamplePermission.setDecisionCache(cache);
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+		assertTrue("permission should be granted", readSamplePermission.isAllowed(auth, 1L));
+		assertTrue("permission should be granted", readSamplePermission.isAllowed(auth, sample));
+
+		verify(sampleRepository, times(1)).findOne(1L);
+		verify(psjRepository, times(1)).getProjectForSample(sample);
+		assertEquals("should have one request hit", 1, cache.getRequestHitCount());
+		assertEquals("should have one miss", 1, cache.getMissCount());
+
+		// a new request shouldn't see the decision without a shared cache
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		assertTrue("permission should be granted", readSamplePermission.isAllowed(auth, 1L));
+		verify(psjRepository, times(2)).getProjectForSample(sample);
+	}
+
+	@Test
+	public void testNotCachedOutsideRequest() {
+		PermissionDecisionCache cache = new PermissionDecisionCache(0, 100);
+		readSamplePermission.setDecisionCache(cache);
+
+		readSamplePermission.isAllowed(auth, 1L);
+		readSamplePermission.isAllowed(auth, 1L);
+
+		verify(psjRepository, times(2)).getProjectForSample(sample);
+	}
+
+	@Test
+	public void testCachedBetweenRequests() {
+		PermissionDecisionCache cache = new PermissionDecisionCache(60, 100);
+		readSamplePermission.setDecisionCache(cache);
+
+		readSamplePermission.isAllowed(auth, 1L);
+		readSamplePermission.isAllowed(auth, 1L);
+
+		verify(psjRepository, times(1)).getProjectForSample(sample);
+		assertEquals("should have one shared hit", 1, cache.getSharedHitCount());
+
+		// a different user shouldn't get the cached decision
+		readSamplePermission.isAllowed(new UsernamePasswordAuthenticationToken("tom", "password1"), 1L);
+		verify(psjRepository, times(2)).getProjectForSample(sample);
+	}
+
+	@Test
+	public void testInvalidatedByProjectEvent() {
+		PermissionDecisionCache cache = new PermissionDecisionCache(60, 100);
+		readSamplePermission.setDecisionCache(cache);
+
+		readSamplePermission.isAllowed(auth, 1L);
+
+		cache.handleProjectEvent(new DataAddedToSampleProjectEvent(project, sample));
+		readSamplePermission.isAllowed(auth, 1L);
+		verify(psjRepository, times(1)).getProjectForSample(sample);
+
+		cache.handleProjectEvent(new UserRemovedProjectEvent(project, new User()));
+		readSamplePermission.isAllowed(auth, 1L);
+		verify(psjRepository, times(2)).getProjectForSample(sample);
+	}
+
+	@Test
+	public void testInvalidatedByUserGroupMembershipChange() {
+		PermissionDecisionCache cache = new PermissionDecisionCache(60, 100);
+		readSamplePermission.setDecisionCache(cache);
+
+		readSamplePermission.isAllowed(auth, 1L);
+		readSamplePermission.isAllowed(auth, 1L);
+		verify(psjRepository, times(1)).getProjectForSample(sample);
+		assertEquals("the second decision should be a cache hit", 0.5, cache.getHitRatio(), 0.0);
+
+		cache.handleUserGroupMembershipChanged(new UserGroupMembershipChangedEvent(1L));
+		assertEquals("no decisions should be cached", 0, cache.getSharedSize());
+		readSamplePermission.isAllowed(auth, 1L);
+		verify(psjRepository, times(2)).getProjectForSample(sample);
+	}
+}
@@ -3,8 +3,10 @@ package ca.corefacility.bioinformatics.irida.security.permissions.sample;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
@@ -19,6 +21,8 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 
+import com.google.common.collect.ImmutableList;
+
 import ca.corefacility.bioinformatics.irida.model.enums.ProjectRole;
 import ca.corefacility.bioinformatics.irida.model.joins.Join;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
@@ -138,4 +142,40 @@ public class ReadSamplePermissionTest {
 		// we should fast pass through to permission granted for administrators.
 		verifyZeroInteractions(psjRepository);
 	}
+
+	@Test
+	public void testGrantPermissionInBulk() {
+		Authentication auth = new UsernamePasswordAuthenticationToken("fbristow", "password1");
+		when(psjRepository.getReadableSampleIds(anyCollectionOf(Long.class), eq("fbristow")))
+				.thenReturn(ImmutableList.of(1L, 2L, 3L));
+
+		assertTrue("permission was not granted.", readSamplePermission.isAllowed(auth, ImmutableList.of(1L, 2L, 3L)));
+
+		// every sample was granted by the bulk query, so none should be loaded
+		verify(sampleRepository, never()).findOne(any(Long.class));
+		verify(psjRepository, never()).getProjectForSample(any(Sample.class));
+	}
+
+	@Test
+	public void testBulkFallsBackToSingleObject() {
+		Project p = new Project();
+		Sample s = new Sample();
+		s.setId(2L);
+		List<Join<Project, Sample>> projectSampleList = ImmutableList.of(new ProjectSampleJoin(p, s, true));
+
+		Authentication auth = new UsernamePasswordAuthenticationToken("fbristow", "password1");
+		when(psjRepository.getReadableSampleIds(anyCollectionOf(Long.class), eq("fbristow")))
+				.thenReturn(ImmutableList.of(1L));
+		when(psjRepository.getProjectForSample(s)).thenReturn(projectSampleList);
+		when(readProjectPermission.isAllowed(any(), eq(p))).thenReturn(false);
+
+		Sample s1 = new Sample();
+		s1.setId(1L);
+
+		assertFalse("permission should not be granted.", readSamplePermission.isAllowed(auth, ImmutableList.of(s1, s)));
+
+		// only the sample that wasn't granted in bulk should be checked
+		verify(psjRepository, never()).getProjectForSample(s1);
+		verify(psjRepository).getProjectForSample(s);
+	}
 }
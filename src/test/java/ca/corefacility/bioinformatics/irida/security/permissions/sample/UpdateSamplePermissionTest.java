@@ -2,7 +2,12 @@ package ca.corefacility.bioinformatics.irida.security.permissions.sample;
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
@@ -14,6 +19,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 
+import ca.corefacility.bioinformatics.irida.model.enums.ProjectRole;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
@@ -99,4 +105,19 @@ public class UpdateSamplePermissionTest {
 
 		assertFalse("Permission to update sample should not be given.", updateSamplePermission.isAllowed(auth, s));
 	}
+
+	@Test
+	public void testGrantPermissionInBulk() {
+		final Sample s1 = new Sample();
+		s1.setId(1L);
+		final Sample s2 = new Sample();
+		s2.setId(2L);
+
+		when(projectSampleJoinRepository.getUpdatableSampleIds(anyCollectionOf(Long.class), eq("fbristow"),
+				eq(ProjectRole.PROJECT_OWNER))).thenReturn(ImmutableList.of(1L, 2L));
+
+		assertTrue("Permission to update samples should be given.",
+				updateSamplePermission.isAllowed(auth, ImmutableList.of(s1, s2)));
+		verify(projectSampleJoinRepository, never()).getProjectForSample(any(Sample.class));
+	}
 }
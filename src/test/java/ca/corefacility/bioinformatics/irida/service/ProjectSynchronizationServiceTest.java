@@ -1,19 +1,26 @@
 package ca.corefacility.bioinformatics.irida.service;
 
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import ca.corefacility.bioinformatics.irida.exceptions.ProjectSynchronizationException;
 import ca.corefacility.bioinformatics.irida.model.RemoteAPI;
+import ca.corefacility.bioinformatics.irida.model.joins.Join;
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.project.ProjectSyncFrequency;
 import ca.corefacility.bioinformatics.irida.model.remote.RemoteStatus;
 import ca.corefacility.bioinformatics.irida.model.remote.RemoteStatus.SyncStatus;
+import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFilePair;
 import ca.corefacility.bioinformatics.irida.model.user.User;
 import ca.corefacility.bioinformatics.irida.service.remote.*;
@@ -21,11 +28,16 @@ import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateServi
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
 public class ProjectSynchronizationServiceTest {
@@ -62,7 +74,8 @@ public class ProjectSynchronizationServiceTest {
 
 		syncService = new ProjectSynchronizationService(projectService, sampleService, objectService,
 				metadataTemplateService, projectRemoteService, sampleRemoteService, singleEndRemoteService,
-				pairRemoteService, tokenService);
+				pairRemoteService, tokenService, MoreExecutors.sameThreadExecutor(),
+				MoreExecutors.sameThreadExecutor(), 1);
 
 		api = new RemoteAPI();
 		expired = new Project();
@@ -125,6 +138,129 @@ public class ProjectSynchronizationServiceTest {
 		assertEquals(SyncStatus.SYNCHRONIZED, remoteProject.getRemoteStatus().getSyncStatus());
 	}
 	
+	@Test
+	public void testSyncProjectsSampleError() {
+		expired.getRemoteStatus().setSyncStatus(SyncStatus.MARKED);
+		when(projectService.read(expired.getId())).thenReturn(expired);
+		Project remoteProject = new Project();
+		remoteProject.setRemoteStatus(expired.getRemoteStatus());
+		expired.getRemoteStatus().setReadBy(new User());
+		when(projectService.getProjectsWithRemoteSyncStatus(RemoteStatus.SyncStatus.MARKED))
+				.thenReturn(Lists.newArrayList(expired));
+		when(projectRemoteService.read(expired.getRemoteStatus().getURL())).thenReturn(remoteProject);
+		when(projectService.update(remoteProject)).thenReturn(remoteProject);
+
+		Sample badSample = new Sample();
+		badSample.setRemoteStatus(new RemoteStatus("http://bad", api));
+		Sample goodSample = new Sample();
+		goodSample.setRemoteStatus(new RemoteStatus("http://good", api));
+		when(sampleRemoteService.getSamplesForProject(remoteProject))
+				.thenReturn(Lists.newArrayList(badSample, goodSample));
+		when(sampleRemoteService.getSampleMetadata(badSample)).thenThrow(new IllegalStateException("Bad sample"));
+		when(sampleService.create(goodSample)).thenReturn(goodSample);
+
+		syncService.findMarkedProjectsToSync();
+
+		// the other samples should still be synchronized
+		verify(projectService).addSampleToProject(remoteProject, goodSample, true);
+		assertEquals(SyncStatus.SYNCHRONIZED, goodSample.getRemoteStatus().getSyncStatus());
+		assertEquals(SyncStatus.ERROR, expired.getRemoteStatus().getSyncStatus());
+		assertNull("progress should be cleared", syncService.getSyncProgress(expired.getId()));
+	}
+
+	@Test
+	public void testSyncProjectsOnlyChangedSamples() {
+		Date lastSynchronized = new Date(1000);
+		expired.getRemoteStatus().setSyncStatus(SyncStatus.MARKED);
+		expired.getRemoteStatus().setLastSynchronized(lastSynchronized);
+		expired.getRemoteStatus().setReadBy(new User());
+		when(projectService.read(expired.getId())).thenReturn(expired);
+		Project remoteProject = new Project();
+		remoteProject.setRemoteStatus(new RemoteStatus("http://expired", api));
+		when(projectService.getProjectsWithRemoteSyncStatus(RemoteStatus.SyncStatus.MARKED))
+				.thenReturn(Lists.newArrayList(expired));
+		when(projectRemoteService.read(expired.getRemoteStatus().getURL())).thenReturn(remoteProject);
+		when(projectService.update(remoteProject)).thenReturn(remoteProject);
+		when(sampleService.update(any(Sample.class))).thenAnswer(i -> i.getArguments()[0]);
+
+		Sample unchanged = new Sample();
+		unchanged.setRemoteStatus(new RemoteStatus("http://unchanged", api));
+		Sample changed = new Sample();
+		changed.setRemoteStatus(new RemoteStatus("http://changed", api));
+
+		Sample localUnchanged = new Sample();
+		RemoteStatus localUnchangedStatus = new RemoteStatus("http://unchanged", api);
+		localUnchangedStatus.setSyncStatus(SyncStatus.SYNCHRONIZED);
+		localUnchanged.setRemoteStatus(localUnchangedStatus);
+		Sample localChanged = new Sample();
+		RemoteStatus localChangedStatus = new RemoteStatus("http://changed", api);
+		localChangedStatus.setSyncStatus(SyncStatus.SYNCHRONIZED);
+		localChanged.setRemoteStatus(localChangedStatus);
+
+		when(sampleService.getSamplesForProject(remoteProject)).thenReturn(Lists.<Join<Project, Sample>> newArrayList(
+				new ProjectSampleJoin(remoteProject, localUnchanged, true),
+				new ProjectSampleJoin(remoteProject, localChanged, true)));
+		when(sampleRemoteService.getSamplesForProject(remoteProject))
+				.thenReturn(Lists.newArrayList(unchanged, changed));
+		when(sampleRemoteService.isChangedSinceSupported(remoteProject)).thenReturn(true);
+		when(sampleRemoteService.getSamplesForProjectChangedSince(eq(remoteProject), any(Date.class)))
+				.thenReturn(Lists.newArrayList(changed));
+		when(sampleRemoteService.getProjectSampleMetadata(eq(remoteProject), any(Date.class)))
+				.thenReturn(ImmutableMap.<String, Map<String, MetadataEntry>> of("http://changed", new HashMap<>()));
+
+		syncService.findMarkedProjectsToSync();
+
+		// only the changed sample should be read, and its metadata came from the bulk request
+		verify(pairRemoteService).getSequenceFilePairsForSample(changed);
+		verify(pairRemoteService, never()).getSequenceFilePairsForSample(unchanged);
+		verify(sampleRemoteService, never()).getSampleMetadata(any(Sample.class));
+
+		ArgumentCaptor<Date> since = ArgumentCaptor.forClass(Date.class);
+		verify(sampleRemoteService).getSamplesForProjectChangedSince(eq(remoteProject), since.capture());
+		assertTrue("should look for changes since before the last sync", since.getValue().before(lastSynchronized));
+
+		assertEquals(SyncStatus.SYNCHRONIZED, remoteProject.getRemoteStatus().getSyncStatus());
+		assertTrue("last synchronized time should be updated",
+				remoteProject.getRemoteStatus().getLastSynchronized().after(lastSynchronized));
+	}
+
+	@Test
+	public void testSyncProjectsSharesNewMetadataFields() {
+		expired.getRemoteStatus().setSyncStatus(SyncStatus.MARKED);
+		when(projectService.read(expired.getId())).thenReturn(expired);
+		Project remoteProject = new Project();
+		remoteProject.setRemoteStatus(expired.getRemoteStatus());
+		expired.getRemoteStatus().setReadBy(new User());
+		when(projectService.getProjectsWithRemoteSyncStatus(RemoteStatus.SyncStatus.MARKED))
+				.thenReturn(Lists.newArrayList(expired));
+		when(projectRemoteService.read(expired.getRemoteStatus().getURL())).thenReturn(remoteProject);
+		when(projectService.update(remoteProject)).thenReturn(remoteProject);
+
+		Sample sample1 = new Sample();
+		sample1.setRemoteStatus(new RemoteStatus("http://sample1", api));
+		Sample sample2 = new Sample();
+		sample2.setRemoteStatus(new RemoteStatus("http://sample2", api));
+		when(sampleRemoteService.getSamplesForProject(remoteProject))
+				.thenReturn(Lists.newArrayList(sample1, sample2));
+		when(sampleRemoteService.getSampleMetadata(sample1))
+				.thenReturn(Maps.newHashMap(ImmutableMap.of("serotype", new MetadataEntry("a", "text"))));
+		when(sampleRemoteService.getSampleMetadata(sample2))
+				.thenReturn(Maps.newHashMap(ImmutableMap.of("serotype", new MetadataEntry("b", "text"))));
+		when(sampleService.create(any(Sample.class))).thenAnswer(i -> i.getArguments()[0]);
+
+		MetadataTemplateField field = new MetadataTemplateField("serotype", "text");
+		when(metadataTemplateService.getOrCreateMetadataFields(ImmutableSet.of("serotype")))
+				.thenReturn(ImmutableMap.of("serotype", field));
+
+		syncService.findMarkedProjectsToSync();
+
+		// the new field should be created once, before the samples are synchronized
+		verify(metadataTemplateService).getOrCreateMetadataFields(ImmutableSet.of("serotype"));
+		verify(metadataTemplateService, never()).getMetadataMap(any(Map.class));
+		assertEquals("a", sample1.getMetadata().get(field).getValue());
+		assertEquals("b", sample2.getMetadata().get(field).getValue());
+	}
+
 	@Test
 	public void testSyncNewSample(){
 		Sample sample = new Sample();
@@ -12,6 +12,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
@@ -498,6 +499,10 @@ public class AnalysisExecutionServiceGalaxyIT {
 		assertTrue("percent complete is incorrect", 10.0f <= percentComplete && percentComplete <= 90.0f);
 
 		analysisExecutionGalaxyITService.waitUntilSubmissionComplete(analysisExecuted);
+		// record the progress the way the analysis scheduler would
+		GalaxyWorkflowStatus workflowStatus = analysisExecutionService.getWorkflowStatus(analysisExecuted);
+		analysisSubmissionRepository.updateProgress(analysisExecuted.getId(), workflowStatus.getCompleteWorkflowItems(),
+				workflowStatus.getTotalWorkflowItems(), new Date());
 		percentComplete = analysisSubmissionService.getPercentCompleteForAnalysisSubmission(analysisSubmitted.getId());
 		assertEquals("percent complete is incorrect", 90.0f, percentComplete, DELTA);
 
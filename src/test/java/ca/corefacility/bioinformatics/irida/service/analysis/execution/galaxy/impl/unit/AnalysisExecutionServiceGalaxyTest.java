@@ -3,6 +3,7 @@ package ca.corefacility.bioinformatics.irida.service.analysis.execution.galaxy.i
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -11,6 +12,7 @@ import static org.mockito.Mockito.doThrow;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -38,6 +40,7 @@ import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
 import ca.corefacility.bioinformatics.irida.model.workflow.IridaWorkflow;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.Analysis;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisOutputFile;
 import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowState;
 import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowStatus;
 import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.PreparedWorkflowGalaxy;
@@ -243,7 +246,7 @@ public class AnalysisExecutionServiceGalaxyTest {
 
 		preparedWorkflow = new PreparedWorkflowGalaxy(ANALYSIS_ID, LIBRARY_ID, workflowInputsGalaxy);
 
-		when(galaxyWorkflowService.uploadGalaxyWorkflow(workflowFile)).thenReturn(REMOTE_WORKFLOW_ID);
+		when(galaxyWorkflowService.getOrUploadGalaxyWorkflow(WORKFLOW_ID, workflowFile)).thenReturn(REMOTE_WORKFLOW_ID);
 		
 		when(galaxyHistoriesService.deleteHistory(ANALYSIS_ID)).thenReturn(new HistoryDeleteResponse());
 	}
@@ -271,7 +274,7 @@ public class AnalysisExecutionServiceGalaxyTest {
 
 		assertEquals("analysisSubmission not equal to returned submission", analysisPrepared, returnedSubmission);
 
-		verify(galaxyWorkflowService).uploadGalaxyWorkflow(workflowFile);
+		verify(galaxyWorkflowService).getOrUploadGalaxyWorkflow(WORKFLOW_ID, workflowFile);
 		verify(analysisWorkspaceService).prepareAnalysisWorkspace(analysisPreparing);
 		verify(analysisSubmissionService, times(2)).update(any(AnalysisSubmission.class));
 	}
@@ -289,7 +292,7 @@ public class AnalysisExecutionServiceGalaxyTest {
 	@Test(expected = WorkflowUploadException.class)
 	public void testPrepareSubmissionFailInvalidWorkflow() throws InterruptedException, IOException,
 			IridaWorkflowNotFoundException, ExecutionManagerException, ExecutionException {
-		when(galaxyWorkflowService.uploadGalaxyWorkflow(workflowFile)).thenThrow(
+		when(galaxyWorkflowService.getOrUploadGalaxyWorkflow(WORKFLOW_ID, workflowFile)).thenThrow(
 				new WorkflowUploadException(null, null));
 
 		when(analysisSubmissionService.update(analysisSubmission)).thenReturn(analysisPreparing);
@@ -486,6 +489,26 @@ public class AnalysisExecutionServiceGalaxyTest {
 		verify(analysisSubmissionService, times(2)).update(any(AnalysisSubmission.class));
 	}
 	
+	/**
+	 * Tests the output staging directory is deleted once the analysis is saved.
+	 */
+	@Test
+	public void testTransferAnalysisResultsDeletesOutputDirectory() throws ExecutionManagerException, IOException,
+			IridaWorkflowNotFoundException, InterruptedException, ExecutionException, IridaWorkflowAnalysisTypeException {
+		Path outputDirectory = Paths.get("/tmp/analysis-output-staging/analysis-output1");
+		AnalysisOutputFile outputFile = mock(AnalysisOutputFile.class);
+		when(outputFile.getFile()).thenReturn(outputDirectory.resolve("output.txt"));
+		when(analysisResults.getAnalysisOutputFiles()).thenReturn(Sets.newHashSet(outputFile));
+		when(analysisSubmissionService.exists(INTERNAL_ANALYSIS_ID)).thenReturn(true);
+		when(analysisSubmissionService.update(analysisFinishedRunning)).thenReturn(analysisCompleting);
+		when(analysisSubmissionService.update(analysisCompleting)).thenReturn(analysisCompleted);
+
+		workflowManagement.transferAnalysisResults(analysisFinishedRunning).get();
+
+		verify(analysisService).create(analysisResults);
+		verify(analysisWorkspaceService).deleteOutputDirectory(outputDirectory);
+	}
+
 	/**
 	 * Tests successfully getting analysis results even if updating samples failed.
 	 */
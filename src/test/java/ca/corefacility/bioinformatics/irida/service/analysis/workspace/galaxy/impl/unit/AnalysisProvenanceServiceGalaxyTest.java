@@ -2,16 +2,22 @@ package ca.corefacility.bioinformatics.irida.service.analysis.workspace.galaxy.i
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -24,12 +30,14 @@ import ca.corefacility.bioinformatics.irida.service.analysis.workspace.galaxy.An
 
 import com.github.jmchilton.blend4j.galaxy.JobsClient;
 import com.github.jmchilton.blend4j.galaxy.ToolsClient;
+import com.github.jmchilton.blend4j.galaxy.beans.Dataset;
 import com.github.jmchilton.blend4j.galaxy.beans.HistoryContents;
 import com.github.jmchilton.blend4j.galaxy.beans.HistoryContentsProvenance;
 import com.github.jmchilton.blend4j.galaxy.beans.JobDetails;
 import com.github.jmchilton.blend4j.galaxy.beans.Tool;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
 /**
@@ -262,6 +270,123 @@ public class AnalysisProvenanceServiceGalaxyTest {
 				.getExecutionTimeParameters().get("akey"));
 	}
 
+	@Test
+	public void testBuildToolExecutionsSharedPredecessor() throws ExecutionManagerException {
+		final HistoryContents hc1 = new HistoryContents();
+		hc1.setName("output1");
+		hc1.setId("output1Id");
+		final HistoryContents hc2 = new HistoryContents();
+		hc2.setName("output2");
+		hc2.setId("output2Id");
+		final HistoryContentsProvenance output1Provenance = provenance("job1",
+				ImmutableMap.of("input", (Object) ImmutableMap.of("id", "sharedId")));
+		final HistoryContentsProvenance output2Provenance = provenance("job2",
+				ImmutableMap.of("input", (Object) ImmutableMap.of("id", "sharedId")));
+		final HistoryContentsProvenance sharedProvenance = provenance("job0", ImmutableMap.of("akey", (Object) "value"));
+		when(galaxyHistoriesService.showHistoryContents(any(String.class))).thenReturn(Lists.newArrayList(hc1, hc2));
+		when(galaxyHistoriesService.showProvenance(any(String.class), eq("output1Id"))).thenReturn(output1Provenance);
+		when(galaxyHistoriesService.showProvenance(any(String.class), eq("output2Id"))).thenReturn(output2Provenance);
+		when(galaxyHistoriesService.showProvenance(any(String.class), eq("sharedId"))).thenReturn(sharedProvenance);
+		when(jobsClient.showJob(any(String.class))).thenReturn(new JobDetails());
+		when(toolsClient.showTool(any(String.class))).thenReturn(new Tool());
+
+		final Map<String, ToolExecution> toolExecutions = provenanceService.buildToolExecutionsForOutputFiles(
+				analysisSubmission(), ImmutableSet.of("output1", "output2"));
+
+		assertEquals("should be a tool execution for each output", 2, toolExecutions.size());
+		assertSame("shared step should be the same tool execution", toolExecutions.get("output1")
+				.getPreviousSteps().iterator().next(), toolExecutions.get("output2").getPreviousSteps().iterator()
+				.next());
+		verify(galaxyHistoriesService, times(1)).showHistoryContents(any(String.class));
+		verify(galaxyHistoriesService, times(1)).showProvenance(any(String.class), eq("sharedId"));
+	}
+
+	@Test
+	public void testBuildToolExecutionsSameJob() throws ExecutionManagerException {
+		final HistoryContents hc1 = new HistoryContents();
+		hc1.setName("output1");
+		hc1.setId("output1Id");
+		final HistoryContents hc2 = new HistoryContents();
+		hc2.setName("output2");
+		hc2.setId("output2Id");
+		final HistoryContentsProvenance jobProvenance = provenance("job1", ImmutableMap.of("akey", (Object) "value"));
+		when(galaxyHistoriesService.showHistoryContents(any(String.class))).thenReturn(Lists.newArrayList(hc1, hc2));
+		when(galaxyHistoriesService.showProvenance(any(String.class), any(String.class))).thenReturn(jobProvenance);
+		when(jobsClient.showJob(any(String.class))).thenReturn(new JobDetails());
+		when(toolsClient.showTool(any(String.class))).thenReturn(new Tool());
+
+		final Map<String, ToolExecution> toolExecutions = provenanceService.buildToolExecutionsForOutputFiles(
+				analysisSubmission(), ImmutableSet.of("output1", "output2"));
+
+		assertSame("outputs of the same job should share a tool execution", toolExecutions.get("output1"),
+				toolExecutions.get("output2"));
+	}
+
+	@Test
+	public void testBuildToolExecutionsFromDatasets() throws ExecutionManagerException {
+		final Dataset dataset = new Dataset();
+		dataset.setName("output1");
+		dataset.setId("output1Id");
+		final HistoryContentsProvenance jobProvenance = provenance("job1", ImmutableMap.of("akey", (Object) "value"));
+		when(galaxyHistoriesService.showProvenance(any(String.class), eq("output1Id"))).thenReturn(jobProvenance);
+		when(jobsClient.showJob(any(String.class))).thenReturn(new JobDetails());
+		when(toolsClient.showTool(any(String.class))).thenReturn(new Tool());
+
+		final Map<String, ToolExecution> toolExecutions = provenanceService.buildToolExecutionsForOutputFiles(
+				analysisSubmission(), ImmutableMap.of("output1", dataset));
+
+		assertEquals("should be a tool execution for the output", "value", toolExecutions.get("output1")
+				.getExecutionTimeParameters().get("akey"));
+		verify(galaxyHistoriesService, never()).showHistoryContents(any(String.class));
+	}
+
+	/**
+	 * Tests a cycle is found when each output's branch reaches it through a
+	 * step that the other branch is already loading, instead of each step
+	 * waiting on the other forever.
+	 */
+	@Test(timeout = 10000, expected = ExecutionManagerException.class)
+	public void testBuildToolExecutionsCycleAcrossOutputs() throws ExecutionManagerException {
+		final Dataset output1 = new Dataset();
+		output1.setId("output1Id");
+		final Dataset output2 = new Dataset();
+		output2.setId("output2Id");
+		// output1 <- a <- b <- a, and output2 <- b
+		final HistoryContentsProvenance output1Provenance = provenance("job1",
+				ImmutableMap.of("input", (Object) ImmutableMap.of("id", "aId")));
+		final HistoryContentsProvenance output2Provenance = provenance("job2",
+				ImmutableMap.of("input", (Object) ImmutableMap.of("id", "bId")));
+		final HistoryContentsProvenance aProvenance = provenance("job3",
+				ImmutableMap.of("input", (Object) ImmutableMap.of("id", "bId")));
+		final HistoryContentsProvenance bProvenance = provenance("job4",
+				ImmutableMap.of("input", (Object) ImmutableMap.of("id", "aId")));
+		when(galaxyHistoriesService.showProvenance(any(String.class), eq("output1Id"))).thenReturn(output1Provenance);
+		when(galaxyHistoriesService.showProvenance(any(String.class), eq("output2Id"))).thenReturn(output2Provenance);
+		when(galaxyHistoriesService.showProvenance(any(String.class), eq("aId"))).thenReturn(aProvenance);
+		when(galaxyHistoriesService.showProvenance(any(String.class), eq("bId"))).thenReturn(bProvenance);
+		when(jobsClient.showJob(any(String.class))).thenReturn(new JobDetails());
+		when(toolsClient.showTool(any(String.class))).thenReturn(new Tool());
+
+		// load the steps in the order they're found, so both outputs' steps
+		// are in flight before either reaches the cycle
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			provenanceService = new AnalysisProvenanceServiceGalaxy(galaxyHistoriesService, toolsClient, jobsClient,
+					executor);
+			provenanceService.buildToolExecutionsForOutputFiles(analysisSubmission(),
+					ImmutableMap.of("output1", output1, "output2", output2));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private HistoryContentsProvenance provenance(final String jobId, final Map<String, Object> parameters) {
+		final HistoryContentsProvenance provenance = mock(HistoryContentsProvenance.class);
+		when(provenance.getJobId()).thenReturn(jobId);
+		when(provenance.getParameters()).thenReturn(parameters);
+		return provenance;
+	}
+
 	private String analysisSubmission() {
 		return UUID.randomUUID().toString();
 	}
@@ -37,9 +37,12 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.core.task.SyncTaskExecutor;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
@@ -716,8 +719,9 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 				.thenReturn(Sets.newHashSet(singleFiles));
 
 		when(iridaWorkflowsService.getIridaWorkflow(workflowId)).thenReturn(iridaWorkflowSingle);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID)).thenReturn(output1Dataset);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output2Filename, HISTORY_ID)).thenReturn(output2Dataset);
+		when(galaxyHistoriesService.getDatasetsForFilesInHistory(Sets.newHashSet(output1Filename, output2Filename),
+				HISTORY_ID)).thenReturn(
+						ImmutableMap.of(output1Filename, output1Dataset, output2Filename, output2Dataset));
 
 		when(sequencingObjectService.getUniqueSamplesForSequencingObjects(singleFiles))
 				.thenReturn(sampleSingleSequenceFileMap);
@@ -733,8 +737,12 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		assertEquals("missing output file for analysis", "SampleA-output2.txt",
 				analysis.getAnalysisOutputFile("output2").getLabel());
 
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output1.txt", HISTORY_ID);
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output2.txt", HISTORY_ID);
+		verify(galaxyHistoriesService).getDatasetsForFilesInHistory(Sets.newHashSet("output1.txt", "output2.txt"),
+				HISTORY_ID);
+		verify(galaxyHistoriesService, never()).getDatasetForFileInHistory(any(String.class), any(String.class));
+		verify(analysisProvenanceServiceGalaxy).buildToolExecutionsForOutputFiles(HISTORY_ID,
+				ImmutableMap.of(output1Filename, output1Dataset, output2Filename, output2Dataset));
+		verify(galaxyHistoriesService, never()).showHistoryContents(any(String.class));
 	}
 
 	/**
@@ -757,8 +765,9 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		submission.setRemoteAnalysisId(HISTORY_ID);
 
 		when(iridaWorkflowsService.getIridaWorkflow(workflowId)).thenReturn(iridaWorkflowSingle);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID)).thenReturn(output1Dataset);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output2Filename, HISTORY_ID)).thenReturn(output2Dataset);
+		when(galaxyHistoriesService.getDatasetsForFilesInHistory(Sets.newHashSet(output1Filename, output2Filename),
+				HISTORY_ID)).thenReturn(
+						ImmutableMap.of(output1Filename, output1Dataset, output2Filename, output2Dataset));
 
 		when(sequencingObjectService.getSequencingObjectsForAnalysisSubmission(submission))
 				.thenReturn(Sets.newHashSet(pairedFiles));
@@ -777,8 +786,9 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		assertEquals("missing output file for analysis", "SampleB-output2.txt",
 				analysis.getAnalysisOutputFile("output2").getLabel());
 
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output1.txt", HISTORY_ID);
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output2.txt", HISTORY_ID);
+		verify(galaxyHistoriesService).getDatasetsForFilesInHistory(Sets.newHashSet("output1.txt", "output2.txt"),
+				HISTORY_ID);
+		verify(galaxyHistoriesService, never()).getDatasetForFileInHistory(any(String.class), any(String.class));
 	}
 
 	/**
@@ -814,8 +824,9 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 
 		when(iridaWorkflowsService.getIridaWorkflow(workflowIdMultiSamples))
 				.thenReturn(iridaWorkflowSinglePairedMultipleSamples);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID)).thenReturn(output1Dataset);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output2Filename, HISTORY_ID)).thenReturn(output2Dataset);
+		when(galaxyHistoriesService.getDatasetsForFilesInHistory(Sets.newHashSet(output1Filename, output2Filename),
+				HISTORY_ID)).thenReturn(
+						ImmutableMap.of(output1Filename, output1Dataset, output2Filename, output2Dataset));
 
 		when(sequencingObjectService.getUniqueSamplesForSequencingObjects(joinedFiles))
 				.thenReturn(joinedMap);
@@ -833,8 +844,9 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		assertEquals("missing output file for analysis", "output2.txt",
 				analysis.getAnalysisOutputFile("output2").getLabel());
 
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output1.txt", HISTORY_ID);
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output2.txt", HISTORY_ID);
+		verify(galaxyHistoriesService).getDatasetsForFilesInHistory(Sets.newHashSet("output1.txt", "output2.txt"),
+				HISTORY_ID);
+		verify(galaxyHistoriesService, never()).getDatasetForFileInHistory(any(String.class), any(String.class));
 	}
 
 	/**
@@ -865,8 +877,9 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 				SequenceFilePair.class)).thenReturn(pairedFiles);
 
 		when(iridaWorkflowsService.getIridaWorkflow(workflowId)).thenReturn(iridaWorkflowSingle);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID)).thenReturn(output1Dataset);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output2Filename, HISTORY_ID)).thenReturn(output2Dataset);
+		when(galaxyHistoriesService.getDatasetsForFilesInHistory(Sets.newHashSet(output1Filename, output2Filename),
+				HISTORY_ID)).thenReturn(
+						ImmutableMap.of(output1Filename, output1Dataset, output2Filename, output2Dataset));
 
 		when(sequencingObjectService.getUniqueSamplesForSequencingObjects(singleFiles))
 				.thenReturn(sampleSingleSequenceFileMap);
@@ -886,8 +899,9 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		assertEquals("missing output file for analysis", "output2.txt",
 				analysis.getAnalysisOutputFile("output2").getLabel());
 
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output1.txt", HISTORY_ID);
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output2.txt", HISTORY_ID);
+		verify(galaxyHistoriesService).getDatasetsForFilesInHistory(Sets.newHashSet("output1.txt", "output2.txt"),
+				HISTORY_ID);
+		verify(galaxyHistoriesService, never()).getDatasetForFileInHistory(any(String.class), any(String.class));
 	}
 
 	/**
@@ -910,8 +924,9 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		submission.setRemoteAnalysisId(HISTORY_ID);
 
 		when(iridaWorkflowsService.getIridaWorkflow(workflowId)).thenReturn(iridaWorkflowSingle);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID)).thenReturn(output1Dataset);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output2Filename, HISTORY_ID)).thenReturn(output2Dataset);
+		when(galaxyHistoriesService.getDatasetsForFilesInHistory(Sets.newHashSet(output1Filename, output2Filename),
+				HISTORY_ID)).thenReturn(
+						ImmutableMap.of(output1Filename, output1Dataset, output2Filename, output2Dataset));
 
 		Analysis analysis = workflowPreparation.getAnalysisResults(submission);
 
@@ -926,8 +941,9 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		assertEquals("missing output file for analysis", "output2.txt",
 				analysis.getAnalysisOutputFile("output2").getLabel());
 
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output1.txt", HISTORY_ID);
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output2.txt", HISTORY_ID);
+		verify(galaxyHistoriesService).getDatasetsForFilesInHistory(Sets.newHashSet("output1.txt", "output2.txt"),
+				HISTORY_ID);
+		verify(galaxyHistoriesService, never()).getDatasetForFileInHistory(any(String.class), any(String.class));
 	}
 
 	/**
@@ -948,9 +964,50 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		submission.setRemoteAnalysisId(HISTORY_ID);
 
 		when(iridaWorkflowsService.getIridaWorkflow(workflowId)).thenReturn(iridaWorkflowSingle);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID))
-				.thenThrow(new GalaxyDatasetException());
+		when(galaxyHistoriesService.getDatasetsForFilesInHistory(Sets.newHashSet(output1Filename, output2Filename),
+				HISTORY_ID)).thenThrow(new GalaxyDatasetException());
 
 		workflowPreparation.getAnalysisResults(submission);
 	}
+
+	/**
+	 * Tests the output staging directory is deleted when getting the
+	 * analysis results fails.
+	 * 
+	 * @throws IridaWorkflowNotFoundException
+	 * @throws IOException
+	 * @throws ExecutionManagerException
+	 * @throws IridaWorkflowAnalysisTypeException
+	 */
+	@Test
+	public void testGetAnalysisResultsFailDeletesOutputDirectory() throws IridaWorkflowNotFoundException,
+			IridaWorkflowAnalysisTypeException, ExecutionManagerException, IOException {
+		Path stagingDirectory = Files.createTempDirectory(null);
+		workflowPreparation = new AnalysisWorkspaceServiceGalaxy(galaxyHistoriesService, galaxyWorkflowService,
+				galaxyLibrariesService, iridaWorkflowsService, analysisCollectionServiceGalaxy,
+				analysisProvenanceServiceGalaxy, analysisParameterServiceGalaxy, sequencingObjectService,
+				new SyncTaskExecutor(), stagingDirectory);
+
+		submission = AnalysisSubmission.builder(workflowId).name("my analysis").inputFiles(singleInputFiles)
+				.referenceFile(referenceFile).build();
+		submission.setRemoteWorkflowId(WORKFLOW_ID);
+		submission.setRemoteAnalysisId(HISTORY_ID);
+
+		when(iridaWorkflowsService.getIridaWorkflow(workflowId)).thenReturn(iridaWorkflowSingle);
+		when(galaxyHistoriesService.getDatasetsForFilesInHistory(Sets.newHashSet(output1Filename, output2Filename),
+				HISTORY_ID)).thenThrow(new GalaxyDatasetException());
+
+		try {
+			workflowPreparation.getAnalysisResults(submission);
+			fail("getting the results should fail");
+		} catch (GalaxyDatasetException e) {
+			// expected
+		}
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(stagingDirectory)) {
+			assertFalse("the output directory should be deleted", stream.iterator().hasNext());
+		} finally {
+			Files.delete(stagingDirectory);
+		}
+	}
 }
@@ -1,19 +1,23 @@
 package ca.corefacility.bioinformatics.irida.service.impl.integration.sample;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.nio.file.Path;
+import java.util.Calendar;
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import javax.validation.ConstraintViolationException;
 
+import org.apache.commons.lang3.time.DateUtils;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,6 +36,7 @@ import org.springframework.test.context.support.DependencyInjectionTestExecution
 import com.github.springtestdbunit.DbUnitTestExecutionListener;
 import com.github.springtestdbunit.annotation.DatabaseSetup;
 import com.github.springtestdbunit.annotation.DatabaseTearDown;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
@@ -45,8 +50,10 @@ import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.SampleGenomeAssemblyJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.project.ReferenceFile;
+import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
 import ca.corefacility.bioinformatics.irida.model.sample.QCEntry;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
 import ca.corefacility.bioinformatics.irida.repositories.joins.sample.SampleGenomeAssemblyJoinRepository;
 import ca.corefacility.bioinformatics.irida.repositories.sample.SampleRepository;
@@ -99,6 +106,29 @@ public class SampleServiceImplIT {
 		assertEquals("Wrong name was saved.", sampleName, saved.getSampleName());
 	}
 
+	/**
+	 * Editing only a metadata value should still let remote installations see
+	 * the sample as changed.
+	 */
+	@Test
+	@WithMockUser(username = "fbristow", roles = "ADMIN")
+	public void testGetSamplesForProjectChangedSinceMetadataEdit() {
+		Project project = projectService.read(1L);
+		// dates are stored to the second
+		Date since = DateUtils.truncate(new Date(), Calendar.SECOND);
+
+		assertFalse("sample should not have changed yet", sampleService
+				.getSamplesForProjectChangedSince(project, since).stream().anyMatch(s -> s.getId().equals(1L)));
+
+		Sample sample = sampleService.read(1L);
+		MetadataTemplateField field = sample.getMetadata().keySet().iterator().next();
+		sample.mergeMetadata(ImmutableMap.of(field, new MetadataEntry("Paratyphi", "text")));
+		sampleService.update(sample);
+
+		assertTrue("sample with edited metadata should have changed", sampleService
+				.getSamplesForProjectChangedSince(project, since).stream().anyMatch(s -> s.getId().equals(1L)));
+	}
+
 	/**
 	 * Straightforward merging of samples all belonging to the same project.
 	 */
@@ -1,12 +1,15 @@
 package ca.corefacility.bioinformatics.irida.service.impl.unit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.mockito.Mockito.*;
 
 import java.io.IOException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -17,6 +20,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.core.task.SyncTaskExecutor;
 
 import com.github.jmchilton.blend4j.galaxy.HistoriesClient;
 import com.google.common.collect.Sets;
@@ -110,6 +114,8 @@ public class AnalysisExecutionScheduledTaskImplTest {
 		analysisSubmission.setId(INTERNAL_ID);
 		analysisSubmission.setRemoteAnalysisId(ANALYSIS_ID);
 		when(galaxyJobErrorsService.createNewJobErrors(analysisSubmission)).thenReturn(new ArrayList<>());
+		when(analysisSubmissionRepository.save(anyListOf(AnalysisSubmission.class))).thenAnswer(
+				invocation -> invocation.getArguments()[0]);
 	}
 
 	/**
@@ -242,7 +248,7 @@ public class AnalysisExecutionScheduledTaskImplTest {
 		analysisExecutionScheduledTask.monitorRunningAnalyses();
 
 		assertEquals(AnalysisState.FINISHED_RUNNING, analysisSubmission.getAnalysisState());
-		verify(analysisSubmissionRepository).save(analysisSubmission);
+		verify(analysisSubmissionRepository).save(Arrays.asList(analysisSubmission));
 	}
 
 	/**
@@ -268,8 +274,134 @@ public class AnalysisExecutionScheduledTaskImplTest {
 
 		assertEquals(AnalysisState.RUNNING, analysisSubmission.getAnalysisState());
 		verify(analysisSubmissionRepository, never()).save(analysisSubmission);
+		verify(analysisSubmissionRepository).updateProgress(eq(INTERNAL_ID), eq(0), eq(1), any(Date.class));
+		assertEquals("progress should be recorded", Integer.valueOf(1), analysisSubmission.getTotalWorkflowItems());
+		assertNotNull("progress date should be recorded", analysisSubmission.getProgressUpdatedDate());
 	}
 	
+	/**
+	 * Tests that a running analysis whose status hasn't changed is checked
+	 * less often, and its progress isn't written again.
+	 * 
+	 * @throws ExecutionManagerException
+	 */
+	@Test
+	public void testMonitorRunningAnalysesSkipsUnchanged() throws ExecutionManagerException {
+		analysisExecutionScheduledTask = new AnalysisExecutionScheduledTaskImpl(analysisSubmissionRepository,
+				analysisExecutionService, CleanupAnalysisSubmissionCondition.ALWAYS_CLEANUP, galaxyJobErrorsService,
+				jobErrorRepository, new SyncTaskExecutor(), 1);
+		analysisSubmission.setAnalysisState(AnalysisState.RUNNING);
+		Map<GalaxyWorkflowState, Set<String>> stateIds = Util.buildStateIdsWithStateFilled(GalaxyWorkflowState.RUNNING,
+				Sets.newHashSet("1"));
+
+		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
+				Arrays.asList(analysisSubmission));
+		when(analysisSubmissionRepository.findIdsByAnalysisState(AnalysisState.RUNNING)).thenReturn(
+				Arrays.asList(INTERNAL_ID));
+		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(
+				new GalaxyWorkflowStatus(GalaxyWorkflowState.RUNNING, stateIds));
+
+		// first pass records the progress, second finds it unchanged, third is skipped
+		analysisExecutionScheduledTask.monitorRunningAnalyses();
+		analysisExecutionScheduledTask.monitorRunningAnalyses();
+		assertEquals("unchanged analysis should be skipped", 0,
+				analysisExecutionScheduledTask.monitorRunningAnalyses()
+						.size());
+
+		verify(analysisExecutionService, times(2)).getWorkflowStatus(analysisSubmission);
+		verify(analysisSubmissionRepository, times(1)).updateProgress(eq(INTERNAL_ID), eq(0), eq(1),
+				any(Date.class));
+	}
+
+	/**
+	 * Tests that progress already recorded by another node isn't written
+	 * again, and the analysis is checked less often.
+	 * 
+	 * @throws ExecutionManagerException
+	 */
+	@Test
+	public void testMonitorRunningAnalysesSkipsProgressRecordedByAnotherNode() throws ExecutionManagerException {
+		analysisExecutionScheduledTask = new AnalysisExecutionScheduledTaskImpl(analysisSubmissionRepository,
+				analysisExecutionService, CleanupAnalysisSubmissionCondition.ALWAYS_CLEANUP, galaxyJobErrorsService,
+				jobErrorRepository, new SyncTaskExecutor(), 1);
+		analysisSubmission.setAnalysisState(AnalysisState.RUNNING);
+		analysisSubmission.setProgress(0, 1, new Date());
+		Map<GalaxyWorkflowState, Set<String>> stateIds = Util.buildStateIdsWithStateFilled(GalaxyWorkflowState.RUNNING,
+				Sets.newHashSet("1"));
+
+		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
+				Arrays.asList(analysisSubmission));
+		when(analysisSubmissionRepository.findIdsByAnalysisState(AnalysisState.RUNNING)).thenReturn(
+				Arrays.asList(INTERNAL_ID));
+		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(
+				new GalaxyWorkflowStatus(GalaxyWorkflowState.RUNNING, stateIds));
+
+		// first pass finds the recorded progress unchanged, second is skipped
+		analysisExecutionScheduledTask.monitorRunningAnalyses();
+		analysisExecutionScheduledTask.monitorRunningAnalyses();
+
+		verify(analysisExecutionService, times(1)).getWorkflowStatus(analysisSubmission);
+		verify(analysisSubmissionRepository, never()).updateProgress(eq(INTERNAL_ID), eq(0), eq(1),
+				any(Date.class));
+	}
+
+	/**
+	 * Tests that an analysis that stopped running isn't skipped if it runs
+	 * again later.
+	 * 
+	 * @throws ExecutionManagerException
+	 */
+	@Test
+	public void testMonitorRunningAnalysesForgetsStoppedAnalyses() throws ExecutionManagerException {
+		analysisExecutionScheduledTask = new AnalysisExecutionScheduledTaskImpl(analysisSubmissionRepository,
+				analysisExecutionService, CleanupAnalysisSubmissionCondition.ALWAYS_CLEANUP, galaxyJobErrorsService,
+				jobErrorRepository, new SyncTaskExecutor(), 1);
+		analysisSubmission.setAnalysisState(AnalysisState.RUNNING);
+		analysisSubmission.setProgress(0, 1, new Date());
+		Map<GalaxyWorkflowState, Set<String>> stateIds = Util.buildStateIdsWithStateFilled(GalaxyWorkflowState.RUNNING,
+				Sets.newHashSet("1"));
+
+		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
+				Arrays.asList(analysisSubmission));
+		when(analysisSubmissionRepository.findIdsByAnalysisState(AnalysisState.RUNNING)).thenReturn(
+				Arrays.asList(INTERNAL_ID), Collections.<Long> emptyList());
+		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(
+				new GalaxyWorkflowStatus(GalaxyWorkflowState.RUNNING, stateIds));
+
+		// the second pass would be skipped, but the analysis stopped running in between
+		analysisExecutionScheduledTask.monitorRunningAnalyses();
+		analysisExecutionScheduledTask.monitorRunningAnalyses();
+
+		verify(analysisExecutionService, times(2)).getWorkflowStatus(analysisSubmission);
+	}
+
+	/**
+	 * Tests that state changes are saved one at a time if they can't be saved
+	 * together.
+	 * 
+	 * @throws ExecutionManagerException
+	 */
+	@Test
+	public void testMonitorRunningAnalysesSaveFailedBatch() throws ExecutionManagerException {
+		analysisSubmission.setAnalysisState(AnalysisState.RUNNING);
+		Map<GalaxyWorkflowState, Set<String>> stateIds = Util.buildStateIdsWithStateFilled(GalaxyWorkflowState.OK,
+				Sets.newHashSet("1"));
+
+		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
+				Arrays.asList(analysisSubmission));
+		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(
+				new GalaxyWorkflowStatus(GalaxyWorkflowState.OK, stateIds));
+		when(analysisSubmissionRepository.save(anyListOf(AnalysisSubmission.class))).thenThrow(
+				new IllegalStateException("broken"));
+		when(analysisSubmissionRepository.save(analysisSubmission)).thenReturn(analysisSubmission);
+
+		Set<Future<AnalysisSubmission>> submissions = analysisExecutionScheduledTask.monitorRunningAnalyses();
+
+		assertEquals("submission should still be returned", 1, submissions.size());
+		assertEquals(AnalysisState.FINISHED_RUNNING, analysisSubmission.getAnalysisState());
+		verify(analysisSubmissionRepository).save(analysisSubmission);
+	}
+
 	/**
 	 * Tests successfully skipping over switching analysis state for a queued
 	 * analysis in Galaxy.
@@ -318,7 +450,7 @@ public class AnalysisExecutionScheduledTaskImplTest {
 		analysisExecutionScheduledTask.monitorRunningAnalyses();
 
 		assertEquals(AnalysisState.ERROR, analysisSubmission.getAnalysisState());
-		verify(analysisSubmissionRepository).save(analysisSubmission);
+		verify(analysisSubmissionRepository).save(Arrays.asList(analysisSubmission));
 	}
 	
 	/**
@@ -340,7 +472,7 @@ public class AnalysisExecutionScheduledTaskImplTest {
 		analysisExecutionScheduledTask.monitorRunningAnalyses();
 
 		assertEquals(AnalysisState.ERROR, analysisSubmission.getAnalysisState());
-		verify(analysisSubmissionRepository).save(analysisSubmission);
+		verify(analysisSubmissionRepository).save(Arrays.asList(analysisSubmission));
 	}
 
 	/**
@@ -366,7 +498,7 @@ public class AnalysisExecutionScheduledTaskImplTest {
 		analysisExecutionScheduledTask.monitorRunningAnalyses();
 
 		assertEquals(AnalysisState.ERROR, analysisSubmission.getAnalysisState());
-		verify(analysisSubmissionRepository).save(analysisSubmission);
+		verify(analysisSubmissionRepository).save(Arrays.asList(analysisSubmission));
 	}
 
 	/**
@@ -1,13 +1,18 @@
 package ca.corefacility.bioinformatics.irida.service.impl.unit;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Map;
 
 import javax.validation.Validator;
@@ -15,11 +20,17 @@ import javax.validation.Validator;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFilePair;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.Analysis;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisOutputFile;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCSummary;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.type.BuiltInAnalysisTypes;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.AnalysisOutputFileRepository;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.AnalysisRepository;
@@ -71,4 +82,34 @@ public class AnalysisServiceTest {
 		verify(analysisOutputFileRepository, times(3)).save(any(AnalysisOutputFile.class));
 		verify(analysisRepository).save(analysis);
 	}
+
+	@Test
+	public void testGetFastQCSummariesForSequencingObjects() {
+		SequenceFile file1 = new SequenceFile();
+		file1.setId(1L);
+		SequenceFile file2 = new SequenceFile();
+		file2.setId(2L);
+		SequencingObject pair = new SequenceFilePair(file1, file2);
+
+		FastQCSummary summary1 = new FastQCSummary(1L, 10, 1000L, 100, 100, (short) 50);
+		FastQCSummary summary2 = new FastQCSummary(2L, 10, 1000L, 100, 100, (short) 50);
+		when(analysisRepository.findFastqcSummariesForSequenceFiles(ImmutableSet.of(1L, 2L))).thenReturn(
+				Arrays.asList(summary1, summary2));
+
+		Map<Long, FastQCSummary> summaries = analysisService
+				.getFastQCSummariesForSequencingObjects(ImmutableList.of(pair));
+
+		assertEquals("should have a summary for each file", 2, summaries.size());
+		assertEquals(summary1, summaries.get(1L));
+		assertEquals(summary2, summaries.get(2L));
+	}
+
+	@Test
+	public void testGetFastQCSummariesForNoSequencingObjects() {
+		Map<Long, FastQCSummary> summaries = analysisService.getFastQCSummariesForSequencingObjects(ImmutableList
+				.of());
+
+		assertTrue("should not have any summaries", summaries.isEmpty());
+		verify(analysisRepository, times(0)).findFastqcSummariesForSequenceFiles(anyCollectionOf(Long.class));
+	}
 }
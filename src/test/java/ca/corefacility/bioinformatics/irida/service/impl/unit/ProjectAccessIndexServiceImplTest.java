@@ -0,0 +1,177 @@
+package ca.corefacility.bioinformatics.irida.service.impl.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.google.common.collect.ImmutableList;
+
+import ca.corefacility.bioinformatics.irida.model.enums.ProjectRole;
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.project.ProjectUserAccess;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroup;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupJoin;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupJoin.UserGroupRole;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupProjectJoin;
+import ca.corefacility.bioinformatics.irida.repositories.ProjectRepository;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectUserAccessRepository;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectUserJoinRepository;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.UserGroupProjectJoinRepository;
+import ca.corefacility.bioinformatics.irida.repositories.user.UserGroupJoinRepository;
+import ca.corefacility.bioinformatics.irida.service.ProjectAccessIndexService;
+import ca.corefacility.bioinformatics.irida.service.impl.ProjectAccessIndexServiceImpl;
+
+/**
+ * Unit tests for {@link ProjectAccessIndexServiceImpl}.
+ */
+public class ProjectAccessIndexServiceImplTest {
+	private ProjectAccessIndexService accessIndexService;
+	private ProjectUserAccessRepository accessRepository;
+	private ProjectRepository projectRepository;
+	private ProjectUserJoinRepository pujRepository;
+	private UserGroupProjectJoinRepository ugpjRepository;
+	private UserGroupJoinRepository ugRepository;
+
+	private Project project;
+	private User owner;
+	private User member;
+	private UserGroup group;
+
+	@Before
+	public void setUp() {
+		accessRepository = mock(ProjectUserAccessRepository.class);
+		projectRepository = mock(ProjectRepository.class);
+		pujRepository = mock(ProjectUserJoinRepository.class);
+		ugpjRepository = mock(UserGroupProjectJoinRepository.class);
+		ugRepository = mock(UserGroupJoinRepository.class);
+		accessIndexService = new ProjectAccessIndexServiceImpl(accessRepository, projectRepository, pujRepository,
+				ugpjRepository, ugRepository);
+
+		project = new Project("project");
+		project.setId(1L);
+		owner = new User();
+		owner.setId(1L);
+		owner.setUsername("owner");
+		member = new User();
+		member.setId(2L);
+		member.setUsername("member");
+		group = new UserGroup("group");
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void testReindexProject() {
+		when(pujRepository.getUsersForProject(project))
+				.thenReturn(ImmutableList.of(new ProjectUserJoin(project, owner, ProjectRole.PROJECT_USER)));
+		when(ugpjRepository.findGroupsByProject(project))
+				.thenReturn(ImmutableList.of(new UserGroupProjectJoin(project, group, ProjectRole.PROJECT_OWNER)));
+		when(ugRepository.findUsersInGroup(group)).thenReturn(ImmutableList.of(
+				new UserGroupJoin(owner, group, UserGroupRole.GROUP_MEMBER),
+				new UserGroupJoin(member, group, UserGroupRole.GROUP_MEMBER)));
+
+		accessIndexService.reindexProject(project);
+
+		ArgumentCaptor<Iterable> saved = ArgumentCaptor.forClass(Iterable.class);
+		verify(accessRepository).deleteAccessForProject(project);
+		verify(accessRepository).save(saved.capture());
+
+		Map<String, ProjectUserAccess> byUser = byUsername(saved.getValue());
+		assertEquals("should index both users", 2, byUser.size());
+
+		// owner is a direct member, but gets the higher role from the group
+		assertEquals("should have highest role", ProjectRole.PROJECT_OWNER, byUser.get("owner").getProjectRole());
+		assertFalse("owner is a direct member", byUser.get("owner").isViaGroup());
+
+		assertEquals("should have group role", ProjectRole.PROJECT_OWNER, byUser.get("member").getProjectRole());
+		assertTrue("member is only in the group", byUser.get("member").isViaGroup());
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void testReindexProjectRemovesStaleEntries() {
+		ProjectUserAccess current = new ProjectUserAccess(owner, project, ProjectRole.PROJECT_OWNER, false);
+		ProjectUserAccess stale = new ProjectUserAccess(member, project, ProjectRole.PROJECT_USER, true);
+
+		when(pujRepository.getUsersForProject(project))
+				.thenReturn(ImmutableList.of(new ProjectUserJoin(project, owner, ProjectRole.PROJECT_OWNER)));
+		when(accessRepository.getAccessForProject(project)).thenReturn(ImmutableList.of(current, stale));
+
+		accessIndexService.reindexProject(project);
+
+		// all of the project's entries are replaced
+		ArgumentCaptor<Iterable> saved = ArgumentCaptor.forClass(Iterable.class);
+		verify(accessRepository).deleteAccessForProject(project);
+		verify(accessRepository).save(saved.capture());
+
+		Map<String, ProjectUserAccess> byUser = byUsername(saved.getValue());
+		assertEquals("should only index the owner", ImmutableList.of("owner"),
+				ImmutableList.copyOf(byUser.keySet()));
+		assertEquals("should keep the owner's role", ProjectRole.PROJECT_OWNER, byUser.get("owner").getProjectRole());
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void testReindexUser() {
+		when(pujRepository.getProjectsForUser(member))
+				.thenReturn(ImmutableList.of(new ProjectUserJoin(project, member, ProjectRole.PROJECT_USER)));
+		when(accessRepository.getAccessForUser(member)).thenReturn(
+				ImmutableList.of(new ProjectUserAccess(member, project, ProjectRole.PROJECT_USER, true)));
+
+		accessIndexService.reindexUser(member);
+
+		ArgumentCaptor<Iterable> saved = ArgumentCaptor.forClass(Iterable.class);
+		verify(accessRepository).deleteAccessForUser(member);
+		verify(accessRepository).save(saved.capture());
+
+		ProjectUserAccess access = (ProjectUserAccess) saved.getValue().iterator().next();
+		assertFalse("member is now a direct member", access.isViaGroup());
+	}
+
+	@Test
+	public void testReindexUserUnchanged() {
+		when(pujRepository.getProjectsForUser(member))
+				.thenReturn(ImmutableList.of(new ProjectUserJoin(project, member, ProjectRole.PROJECT_USER)));
+		when(accessRepository.getAccessForUser(member)).thenReturn(
+				ImmutableList.of(new ProjectUserAccess(member, project, ProjectRole.PROJECT_USER, false)));
+
+		accessIndexService.reindexUser(member);
+
+		verify(accessRepository, never()).deleteAccessForUser(member);
+		verify(accessRepository, never()).save(any(Iterable.class));
+	}
+
+	@Test
+	public void testRebuildConsistentIndex() {
+		when(projectRepository.findAll()).thenReturn(ImmutableList.of(project));
+		when(pujRepository.getUsersForProject(project))
+				.thenReturn(ImmutableList.of(new ProjectUserJoin(project, owner, ProjectRole.PROJECT_OWNER)));
+		when(accessRepository.getAccessForProject(project)).thenReturn(
+				ImmutableList.of(new ProjectUserAccess(owner, project, ProjectRole.PROJECT_OWNER, false)));
+
+		assertEquals("nothing should be corrected", 0, accessIndexService.rebuild());
+		verify(accessRepository, never()).deleteAccessForProject(project);
+	}
+
+	private static Map<String, ProjectUserAccess> byUsername(Iterable<?> entries) {
+		Collection<ProjectUserAccess> access = StreamSupport.stream(entries.spliterator(), false)
+				.map(ProjectUserAccess.class::cast).collect(Collectors.toList());
+		return access.stream().collect(Collectors.toMap(a -> a.getUser().getUsername(), Function.identity()));
+	}
+}
@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -15,11 +16,13 @@ import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import com.google.common.collect.Lists;
 
+import ca.corefacility.bioinformatics.irida.events.ProjectEventQueue;
 import ca.corefacility.bioinformatics.irida.model.enums.ProjectRole;
 import ca.corefacility.bioinformatics.irida.model.event.ProjectEvent;
 import ca.corefacility.bioinformatics.irida.model.event.UserRoleSetProjectEvent;
@@ -47,11 +50,15 @@ public class ProjectEventEmailScheduedTaskImplTest {
 	@Mock
 	EmailController emailController;
 
+	@Mock
+	ProjectEventQueue eventQueue;
+
 	@Before
 	public void setUp() {
 		MockitoAnnotations.initMocks(this);
 
-		task = new ProjectEventEmailScheduledTaskImpl(userService, eventService, projectService, emailController);
+		task = new ProjectEventEmailScheduledTaskImpl(userService, eventService, projectService, emailController,
+				eventQueue);
 
 		when(emailController.isMailConfigured()).thenReturn(true);
 	}
@@ -76,6 +83,10 @@ public class ProjectEventEmailScheduedTaskImplTest {
 		Date now = new Date();
 		task.emailUserTasks();
 
+		InOrder inOrder = inOrder(eventQueue, eventService);
+		inOrder.verify(eventQueue).flush();
+		inOrder.verify(eventService).getEventsForUserAfterDate(eq(tom), any(Date.class));
+
 		verify(userService).getUsersWithEmailSubscriptions();
 
 		ArgumentCaptor<Date> dateCaptor = ArgumentCaptor.forClass(Date.class);
@@ -0,0 +1,271 @@
+package ca.corefacility.bioinformatics.irida.service.impl.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
+import ca.corefacility.bioinformatics.irida.exceptions.InvalidPropertyException;
+import ca.corefacility.bioinformatics.irida.exceptions.SequenceFileUploadOffsetException;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFilePair;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFileUpload;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
+import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileUploadRepository;
+import ca.corefacility.bioinformatics.irida.service.SequenceFileUploadService;
+import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
+import ca.corefacility.bioinformatics.irida.service.impl.SequenceFileUploadServiceImpl;
+
+/**
+ * Unit tests for {@link SequenceFileUploadServiceImpl}.
+ */
+public class SequenceFileUploadServiceImplTest {
+	private static final byte[] FILE_CONTENTS = "@read1\nACGTACGTAC\n+\nIIIIIIIIII\n@read2\nTTGGCCAATT\n+\nIIIIIIIIII\n"
+			.getBytes();
+
+	private SequenceFileUploadService uploadService;
+	private SequenceFileUploadRepository uploadRepository;
+	private SequencingObjectService sequencingObjectService;
+	private Path baseDirectory;
+
+	private Sample sample;
+	private Map<Long, SequenceFileUpload> uploads;
+
+	@Before
+	public void setUp() throws IOException {
+		uploadRepository = mock(SequenceFileUploadRepository.class);
+		sequencingObjectService = mock(SequencingObjectService.class);
+		baseDirectory = Files.createTempDirectory(null);
+
+		uploadService = new SequenceFileUploadServiceImpl(uploadRepository, sequencingObjectService, baseDirectory,
+				60000);
+
+		sample = new Sample("sample");
+		sample.setId(1L);
+
+		uploads = new HashMap<>();
+		when(uploadRepository.save(any(SequenceFileUpload.class))).thenAnswer(i -> {
+			SequenceFileUpload upload = (SequenceFileUpload) i.getArguments()[0];
+			upload.setId(uploads.size() + 1L);
+			uploads.put(upload.getId(), upload);
+			return upload;
+		});
+		when(uploadRepository.findOne(any(Long.class))).thenAnswer(i -> uploads.get(i.getArguments()[0]));
+		when(sequencingObjectService.createSequencingObjectInSample(any(SequencingObject.class), any(Sample.class)))
+				.thenAnswer(i -> new SampleSequencingObjectJoin((Sample) i.getArguments()[1],
+						(SequencingObject) i.getArguments()[0]));
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.walk(baseDirectory).sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+	}
+
+	@Test
+	public void testUploadInChunks() throws IOException {
+		SequenceFileUpload upload = uploadService.createUpload(sample, "reads.fastq", (long) FILE_CONTENTS.length);
+		assertEquals("nothing should be committed", 0, uploadService.getCommittedOffset(sample, upload.getId()));
+
+		int split = FILE_CONTENTS.length / 2;
+		long committed = uploadService.writeChunk(sample, upload.getId(), 0, (long) split, chunk(0, split));
+		assertEquals("first chunk should be committed", split, committed);
+
+		committed = uploadService.writeChunk(sample, upload.getId(), split,
+				(long) (FILE_CONTENTS.length - split), chunk(split, FILE_CONTENTS.length));
+		assertEquals("whole file should be committed", FILE_CONTENTS.length, committed);
+
+		SampleSequencingObjectJoin join = uploadService.completeUploads(sample, ImmutableList.of(upload.getId()),
+				null);
+
+		assertTrue("should create a single end file", join.getObject() instanceof SingleEndSequenceFile);
+		SequenceFile file = ((SingleEndSequenceFile) join.getObject()).getSequenceFile();
+		assertEquals("checksum should be calculated while uploading", DigestUtils.sha256Hex(FILE_CONTENTS),
+				file.getUploadSha256());
+		assertTrue("checksum should be marked as calculated by the server", file.isUploadSha256Calculated());
+		assertEquals("should use the uploaded file name", "reads.fastq", file.getFile().getFileName().toString());
+		assertTrue("file should be staged under the sequence file directory",
+				file.getFile().startsWith(baseDirectory));
+
+		verify(uploadRepository).delete(upload);
+	}
+
+	@Test
+	public void testUploadPair() throws IOException {
+		SequenceFileUpload forward = uploadService.createUpload(sample, "reads_R1.fastq", null);
+		SequenceFileUpload reverse = uploadService.createUpload(sample, "reads_R2.fastq", null);
+
+		uploadService.writeChunk(sample, forward.getId(), 0, null, chunk(0, FILE_CONTENTS.length));
+		uploadService.writeChunk(sample, reverse.getId(), 0, null, chunk(0, FILE_CONTENTS.length));
+
+		SampleSequencingObjectJoin join = uploadService.completeUploads(sample,
+				ImmutableList.of(forward.getId(), reverse.getId()), null);
+
+		assertTrue("should create a pair", join.getObject() instanceof SequenceFilePair);
+		for (SequenceFile file : join.getObject().getFiles()) {
+			assertEquals("checksum should be calculated while uploading", DigestUtils.sha256Hex(FILE_CONTENTS),
+					file.getUploadSha256());
+		}
+	}
+
+	@Test
+	public void testChunkAtWrongOffset() throws IOException {
+		SequenceFileUpload upload = uploadService.createUpload(sample, "reads.fastq", null);
+		uploadService.writeChunk(sample, upload.getId(), 0, null, chunk(0, 10));
+
+		try {
+			uploadService.writeChunk(sample, upload.getId(), 20, null, chunk(20, 30));
+			fail("should not accept a chunk that skips bytes");
+		} catch (SequenceFileUploadOffsetException e) {
+			assertEquals("should report the committed offset", 10, e.getCommittedOffset());
+		}
+
+		assertEquals("failed chunk should not be written", 10,
+				uploadService.getCommittedOffset(sample, upload.getId()));
+	}
+
+	@Test
+	public void testChunkLongerThanLength() throws IOException {
+		SequenceFileUpload upload = uploadService.createUpload(sample, "reads.fastq", (long) FILE_CONTENTS.length);
+		uploadService.writeChunk(sample, upload.getId(), 0, 10L, chunk(0, 10));
+
+		try {
+			uploadService.writeChunk(sample, upload.getId(), 10, 10L, chunk(10, 30));
+			fail("should not accept a chunk longer than its length");
+		} catch (InvalidPropertyException e) {
+			// expected
+		}
+
+		assertEquals("chunk should be rolled back", 10, uploadService.getCommittedOffset(sample, upload.getId()));
+	}
+
+	@Test
+	public void testChunkShorterThanLength() throws IOException {
+		SequenceFileUpload upload = uploadService.createUpload(sample, "reads.fastq", (long) FILE_CONTENTS.length);
+		uploadService.writeChunk(sample, upload.getId(), 0, 10L, chunk(0, 10));
+
+		try {
+			uploadService.writeChunk(sample, upload.getId(), 10, 20L, chunk(10, 20));
+			fail("should not accept a chunk shorter than its length");
+		} catch (InvalidPropertyException e) {
+			// expected
+		}
+
+		assertEquals("chunk should be rolled back", 10, uploadService.getCommittedOffset(sample, upload.getId()));
+
+		uploadService.writeChunk(sample, upload.getId(), 10, (long) (FILE_CONTENTS.length - 10),
+				chunk(10, FILE_CONTENTS.length));
+		SampleSequencingObjectJoin join = uploadService.completeUploads(sample, ImmutableList.of(upload.getId()),
+				null);
+		SequenceFile file = ((SingleEndSequenceFile) join.getObject()).getSequenceFile();
+		assertEquals("checksum should not include the rolled back chunk", DigestUtils.sha256Hex(FILE_CONTENTS),
+				file.getUploadSha256());
+	}
+
+	@Test
+	public void testResumeAfterInterruptedChunk() throws IOException {
+		SequenceFileUpload upload = uploadService.createUpload(sample, "reads.fastq", (long) FILE_CONTENTS.length);
+
+		int received = 25;
+		try {
+			uploadService.writeChunk(sample, upload.getId(), 0, null, interruptedChunk(received));
+			fail("chunk should fail");
+		} catch (IOException e) {
+			// expected
+		}
+
+		long committed = uploadService.getCommittedOffset(sample, upload.getId());
+		assertEquals("received bytes should be kept", received, committed);
+
+		// resume on a new instance, as if the server had restarted
+		uploadService = new SequenceFileUploadServiceImpl(uploadRepository, sequencingObjectService, baseDirectory,
+				60000);
+		uploadService.writeChunk(sample, upload.getId(), committed, null, chunk(received, FILE_CONTENTS.length));
+
+		SampleSequencingObjectJoin join = uploadService.completeUploads(sample, ImmutableList.of(upload.getId()),
+				null);
+		SequenceFile file = ((SingleEndSequenceFile) join.getObject()).getSequenceFile();
+		assertEquals("checksum should cover the whole file", DigestUtils.sha256Hex(FILE_CONTENTS),
+				file.getUploadSha256());
+	}
+
+	@Test(expected = SequenceFileUploadOffsetException.class)
+	public void testCompleteUnfinishedUpload() throws IOException {
+		SequenceFileUpload upload = uploadService.createUpload(sample, "reads.fastq", (long) FILE_CONTENTS.length);
+		uploadService.writeChunk(sample, upload.getId(), 0, null, chunk(0, 10));
+
+		try {
+			uploadService.completeUploads(sample, ImmutableList.of(upload.getId()), null);
+		} finally {
+			verify(sequencingObjectService, never()).createSequencingObjectInSample(any(SequencingObject.class),
+					any(Sample.class));
+		}
+	}
+
+	@Test(expected = EntityNotFoundException.class)
+	public void testUploadForOtherSample() throws IOException {
+		SequenceFileUpload upload = uploadService.createUpload(sample, "reads.fastq", null);
+
+		Sample other = new Sample("other");
+		other.setId(2L);
+		uploadService.writeChunk(other, upload.getId(), 0, null, chunk(0, 10));
+	}
+
+	@Test
+	public void testCancelUpload() throws IOException {
+		SequenceFileUpload upload = uploadService.createUpload(sample, "reads.fastq", null);
+		uploadService.writeChunk(sample, upload.getId(), 0, null, chunk(0, 10));
+
+		uploadService.cancelUpload(sample, upload.getId());
+
+		verify(uploadRepository).delete(upload);
+		assertFalse("staged file should be removed",
+				Files.exists(baseDirectory.resolve("uploads").resolve(upload.getId().toString())));
+	}
+
+	private static InputStream chunk(int from, int to) {
+		return new ByteArrayInputStream(Arrays.copyOfRange(FILE_CONTENTS, from, to));
+	}
+
+	/**
+	 * Get a stream that fails after sending some of the file, like a dropped
+	 * connection.
+	 */
+	private static InputStream interruptedChunk(int length) {
+		return new InputStream() {
+			private int position = 0;
+
+			@Override
+			public int read() throws IOException {
+				if (position >= length) {
+					throw new IOException("connection reset");
+				}
+				return FILE_CONTENTS[position++];
+			}
+		};
+	}
+}
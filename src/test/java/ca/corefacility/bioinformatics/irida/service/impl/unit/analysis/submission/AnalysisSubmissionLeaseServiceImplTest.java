@@ -0,0 +1,217 @@
+package ca.corefacility.bioinformatics.irida.service.impl.unit.analysis.submission;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+
+import com.google.common.collect.ImmutableList;
+
+import ca.corefacility.bioinformatics.irida.model.enums.AnalysisState;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission.Priority;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.AnalysisSubmissionRepository;
+import ca.corefacility.bioinformatics.irida.service.impl.analysis.submission.AnalysisSubmissionLeaseServiceImpl;
+
+/**
+ * Tests for {@link AnalysisSubmissionLeaseServiceImpl}.
+ */
+public class AnalysisSubmissionLeaseServiceImplTest {
+
+	private static final String OWNER = "node1";
+
+	@Mock
+	private AnalysisSubmissionRepository analysisSubmissionRepository;
+
+	@Mock
+	private Set<SequencingObject> sequenceFiles;
+
+	private AnalysisSubmissionLeaseServiceImpl leaseService;
+
+	private AnalysisSubmission high;
+	private AnalysisSubmission medium;
+
+	/**
+	 * Setup for tests.
+	 */
+	@Before
+	public void setup() {
+		MockitoAnnotations.initMocks(this);
+
+		leaseService = new AnalysisSubmissionLeaseServiceImpl(analysisSubmissionRepository, OWNER, 60000, 100);
+
+		high = submission(1L, Priority.HIGH, AnalysisState.NEW);
+		medium = submission(2L, Priority.MEDIUM, AnalysisState.NEW);
+	}
+
+	/**
+	 * Tests claiming submissions highest priority first, up to the limit.
+	 */
+	@Test
+	public void testClaimHighestPriorityFirst() {
+		when(analysisSubmissionRepository.findLeasableIds(eq(AnalysisState.NEW), eq(Priority.HIGH), eq(OWNER),
+				any(Date.class), any(Pageable.class))).thenReturn(ImmutableList.of(1L));
+		when(analysisSubmissionRepository.findLeasableIds(eq(AnalysisState.NEW), eq(Priority.MEDIUM), eq(OWNER),
+				any(Date.class), any(Pageable.class))).thenReturn(ImmutableList.of(2L));
+		when(analysisSubmissionRepository.findByIdsAndLeaseOwner(anyCollectionOf(Long.class), eq(OWNER)))
+				.thenReturn(ImmutableList.of(high, medium));
+
+		List<AnalysisSubmission> claimed = leaseService.claim(AnalysisState.NEW, 2);
+
+		assertEquals("both submissions should be claimed", ImmutableList.of(high, medium), claimed);
+		verify(analysisSubmissionRepository).claimLeases(eq(ImmutableList.of(1L, 2L)), eq(OWNER),
+				any(Date.class), any(Date.class));
+		verify(analysisSubmissionRepository, never()).findLeasableIds(eq(AnalysisState.NEW), eq(Priority.LOW),
+				eq(OWNER), any(Date.class), any(Pageable.class));
+	}
+
+	/**
+	 * Tests a submission moved on by another node before it was claimed is
+	 * released again.
+	 */
+	@Test
+	public void testClaimReleasesSubmissionsInAnotherState() {
+		medium.setAnalysisState(AnalysisState.PREPARING);
+		when(analysisSubmissionRepository.findLeasableIds(eq(AnalysisState.NEW), eq(Priority.HIGH), eq(OWNER),
+				any(Date.class), any(Pageable.class))).thenReturn(ImmutableList.of(1L, 2L));
+		when(analysisSubmissionRepository.findByIdsAndLeaseOwner(anyCollectionOf(Long.class), eq(OWNER)))
+				.thenReturn(ImmutableList.of(high, medium));
+
+		List<AnalysisSubmission> claimed = leaseService.claim(AnalysisState.NEW);
+
+		assertEquals("only the new submission should be claimed", ImmutableList.of(high), claimed);
+		verify(analysisSubmissionRepository).releaseLeases(ImmutableList.of(2L), OWNER);
+	}
+
+	/**
+	 * Tests leases held for running work are renewed until the work finishes,
+	 * and the rest are released.
+	 */
+	@Test
+	public void testHeldLeasesRenewedUntilWorkFinishes() {
+		when(analysisSubmissionRepository.findLeasableIds(eq(AnalysisState.NEW), eq(Priority.HIGH), eq(OWNER),
+				any(Date.class), any(Pageable.class))).thenReturn(ImmutableList.of(1L, 2L));
+		when(analysisSubmissionRepository.findByIdsAndLeaseOwner(anyCollectionOf(Long.class), eq(OWNER)))
+				.thenReturn(ImmutableList.of(high, medium));
+		when(analysisSubmissionRepository.renewLeases(anyCollectionOf(Long.class), eq(OWNER), any(Date.class)))
+				.thenReturn(1);
+
+		List<AnalysisSubmission> claimed = leaseService.claim(AnalysisState.NEW);
+		CompletableFuture<AnalysisSubmission> work = new CompletableFuture<>();
+		leaseService.hold(high, work);
+		leaseService.release(claimed);
+
+		verify(analysisSubmissionRepository).releaseLeases(ImmutableList.of(2L), OWNER);
+
+		leaseService.renewLeases();
+		verify(analysisSubmissionRepository).renewLeases(eq(ImmutableList.of(1L)), eq(OWNER), any(Date.class));
+
+		work.complete(high);
+		leaseService.renewLeases();
+		verify(analysisSubmissionRepository).releaseLeases(ImmutableList.of(1L), OWNER);
+		verify(analysisSubmissionRepository, times(1)).renewLeases(anyCollectionOf(Long.class), eq(OWNER),
+				any(Date.class));
+	}
+
+	/**
+	 * Tests work on a submission is cancelled when its lease is taken over by
+	 * another node, and the lease isn't renewed again.
+	 */
+	@Test
+	public void testLostLeaseCancelsWork() {
+		when(analysisSubmissionRepository.findLeasableIds(eq(AnalysisState.NEW), eq(Priority.HIGH), eq(OWNER),
+				any(Date.class), any(Pageable.class))).thenReturn(ImmutableList.of(1L, 2L));
+		when(analysisSubmissionRepository.findByIdsAndLeaseOwner(anyCollectionOf(Long.class), eq(OWNER)))
+				.thenReturn(ImmutableList.of(high, medium), ImmutableList.of(medium));
+		when(analysisSubmissionRepository.renewLeases(anyCollectionOf(Long.class), eq(OWNER), any(Date.class)))
+				.thenReturn(1);
+
+		leaseService.claim(AnalysisState.NEW);
+		CompletableFuture<AnalysisSubmission> highWork = new CompletableFuture<>();
+		CompletableFuture<AnalysisSubmission> mediumWork = new CompletableFuture<>();
+		leaseService.hold(high, highWork);
+		leaseService.hold(medium, mediumWork);
+
+		int lost = leaseService.renewLeases();
+
+		assertEquals("one lease should be lost", 1, lost);
+		assertTrue("work on the lost submission should be cancelled", highWork.isCancelled());
+		assertFalse("work on the held submission should keep running", mediumWork.isDone());
+
+		leaseService.renewLeases();
+		verify(analysisSubmissionRepository).renewLeases(eq(ImmutableList.of(2L)), eq(OWNER), any(Date.class));
+		verify(analysisSubmissionRepository, never()).releaseLeases(anyCollectionOf(Long.class), eq(OWNER));
+	}
+
+	/**
+	 * Tests work is cancelled if the lease on its submission was lost before
+	 * the work was held.
+	 */
+	@Test
+	public void testHoldAfterLeaseLostCancelsWork() {
+		when(analysisSubmissionRepository.findLeasableIds(eq(AnalysisState.NEW), eq(Priority.HIGH), eq(OWNER),
+				any(Date.class), any(Pageable.class))).thenReturn(ImmutableList.of(1L));
+		when(analysisSubmissionRepository.findByIdsAndLeaseOwner(anyCollectionOf(Long.class), eq(OWNER)))
+				.thenReturn(ImmutableList.of(high), ImmutableList.of());
+		when(analysisSubmissionRepository.renewLeases(anyCollectionOf(Long.class), eq(OWNER), any(Date.class)))
+				.thenReturn(0);
+
+		leaseService.claim(AnalysisState.NEW);
+		assertEquals("the lease should be lost", 1, leaseService.renewLeases());
+
+		CompletableFuture<AnalysisSubmission> work = new CompletableFuture<>();
+		leaseService.hold(high, work);
+
+		assertTrue("work on the lost submission should be cancelled", work.isCancelled());
+	}
+
+	/**
+	 * Tests submissions abandoned part way through a stage are switched to
+	 * error.
+	 */
+	@Test
+	public void testRecoverExpiredLeases() {
+		high.setAnalysisState(AnalysisState.PREPARING);
+		when(analysisSubmissionRepository.findIdsWithExpiredLease(anyCollectionOf(AnalysisState.class),
+				any(Date.class))).thenReturn(ImmutableList.of(1L));
+		when(analysisSubmissionRepository.findByIdsAndLeaseOwner(anyCollectionOf(Long.class), eq(OWNER)))
+				.thenReturn(ImmutableList.of(high));
+
+		int recovered = leaseService.recoverExpiredLeases();
+
+		assertEquals("the abandoned submission should be recovered", 1, recovered);
+		assertEquals("the abandoned submission should be in error", AnalysisState.ERROR, high.getAnalysisState());
+		verify(analysisSubmissionRepository).save(high);
+		verify(analysisSubmissionRepository).releaseLeases(ImmutableList.of(1L), OWNER);
+	}
+
+	private AnalysisSubmission submission(Long id, Priority priority, AnalysisState state) {
+		AnalysisSubmission submission = AnalysisSubmission.builder(UUID.randomUUID())
+				.name("submission" + id)
+				.inputFiles(sequenceFiles)
+				.priority(priority)
+				.build();
+		submission.setId(id);
+		submission.setAnalysisState(state);
+		return submission;
+	}
+}
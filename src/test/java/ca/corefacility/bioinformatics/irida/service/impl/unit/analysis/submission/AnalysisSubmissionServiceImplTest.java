@@ -16,9 +16,7 @@ import ca.corefacility.bioinformatics.irida.exceptions.ExecutionManagerException
 import ca.corefacility.bioinformatics.irida.exceptions.NoPercentageCompleteException;
 import ca.corefacility.bioinformatics.irida.model.enums.AnalysisCleanedState;
 import ca.corefacility.bioinformatics.irida.model.enums.AnalysisState;
-import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowStatus;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
-import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyHistoriesService;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.AnalysisSubmissionRepository;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.JobErrorRepository;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.ProjectAnalysisSubmissionJoinRepository;
@@ -53,10 +51,6 @@ public class AnalysisSubmissionServiceImplTest {
 	
 	@Mock
 	private Validator validator;
-	@Mock
-	private GalaxyHistoriesService galaxyHistoriesService;
-	@Mock
-	private GalaxyWorkflowStatus galaxyWorkflowStatus;
 
 	private AnalysisSubmissionServiceImpl analysisSubmissionServiceImpl;
 
@@ -80,7 +74,7 @@ public class AnalysisSubmissionServiceImplTest {
 		MockitoAnnotations.initMocks(this);
 
 		analysisSubmissionServiceImpl = new AnalysisSubmissionServiceImpl(analysisSubmissionRepository, userRepository,
-				referenceFileRepository, sequencingObjectService, galaxyHistoriesService, pasRepository,
+				referenceFileRepository, sequencingObjectService, pasRepository,
 				jobErrorRepository, iridaWorkflowsService, validator);
 		analysisSubmissionServiceImpl.setAnalysisExecutionService(analysisExecutionService);
 
@@ -149,7 +143,7 @@ public class AnalysisSubmissionServiceImplTest {
 
 	/**
 	 * Tests getting the percent complete in the running state when the workflow
-	 * has just started in Galaxy.
+	 * had just started in Galaxy the last time it was checked.
 	 * 
 	 * @throws EntityNotFoundException
 	 * @throws ExecutionManagerException
@@ -158,8 +152,7 @@ public class AnalysisSubmissionServiceImplTest {
 	public void testGetPercentageCompleteStateRunningJustStarted() throws EntityNotFoundException,
 			ExecutionManagerException {
 		when(analysisSubmission.getAnalysisState()).thenReturn(AnalysisState.RUNNING);
-		when(galaxyHistoriesService.getStatusForHistory(HISTORY_ID)).thenReturn(galaxyWorkflowStatus);
-		when(galaxyWorkflowStatus.getProportionComplete()).thenReturn(0.0f);
+		when(analysisSubmission.getProportionComplete()).thenReturn(0.0f);
 
 		assertEquals("invalid percent complete",
 				AnalysisSubmissionServiceImpl.STATE_PERCENTAGE.get(AnalysisState.RUNNING),
@@ -168,7 +161,7 @@ public class AnalysisSubmissionServiceImplTest {
 
 	/**
 	 * Tests getting the percent complete in the running state when the workflow
-	 * is halfway complete in Galaxy.
+	 * was halfway complete in Galaxy the last time it was checked.
 	 * 
 	 * @throws EntityNotFoundException
 	 * @throws ExecutionManagerException
@@ -177,8 +170,7 @@ public class AnalysisSubmissionServiceImplTest {
 	public void testGetPercentageCompleteStateRunningHalfway() throws EntityNotFoundException,
 			ExecutionManagerException {
 		when(analysisSubmission.getAnalysisState()).thenReturn(AnalysisState.RUNNING);
-		when(galaxyHistoriesService.getStatusForHistory(HISTORY_ID)).thenReturn(galaxyWorkflowStatus);
-		when(galaxyWorkflowStatus.getProportionComplete()).thenReturn(0.5f);
+		when(analysisSubmission.getProportionComplete()).thenReturn(0.5f);
 
 		Float runningState = AnalysisSubmissionServiceImpl.STATE_PERCENTAGE.get(AnalysisState.RUNNING);
 		Float finishedState = AnalysisSubmissionServiceImpl.STATE_PERCENTAGE.get(AnalysisState.FINISHED_RUNNING);
@@ -189,7 +181,7 @@ public class AnalysisSubmissionServiceImplTest {
 
 	/**
 	 * Tests getting the percent complete in the running state when the workflow
-	 * is 100% complete in Galaxy.
+	 * was 100% complete in Galaxy the last time it was checked.
 	 * 
 	 * @throws EntityNotFoundException
 	 * @throws ExecutionManagerException
@@ -198,8 +190,7 @@ public class AnalysisSubmissionServiceImplTest {
 	public void testGetPercentageCompleteStateRunningFullyComplete() throws EntityNotFoundException,
 			ExecutionManagerException {
 		when(analysisSubmission.getAnalysisState()).thenReturn(AnalysisState.RUNNING);
-		when(galaxyHistoriesService.getStatusForHistory(HISTORY_ID)).thenReturn(galaxyWorkflowStatus);
-		when(galaxyWorkflowStatus.getProportionComplete()).thenReturn(1.0f);
+		when(analysisSubmission.getProportionComplete()).thenReturn(1.0f);
 
 		assertEquals("invalid percent complete", 90.0f,
 				analysisSubmissionServiceImpl.getPercentCompleteForAnalysisSubmission(ID), DELTA);
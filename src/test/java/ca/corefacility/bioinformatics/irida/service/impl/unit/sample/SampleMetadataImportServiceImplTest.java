@@ -0,0 +1,122 @@
+package ca.corefacility.bioinformatics.irida.service.impl.unit.sample;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.SampleMetadataImport;
+import ca.corefacility.bioinformatics.irida.service.impl.sample.SampleMetadataImportServiceImpl;
+import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateService;
+import ca.corefacility.bioinformatics.irida.service.sample.SampleMetadataImportService;
+import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
+
+/**
+ * Unit tests for {@link SampleMetadataImportServiceImpl}.
+ */
+public class SampleMetadataImportServiceImplTest {
+	private SampleService sampleService;
+	private MetadataTemplateService metadataTemplateService;
+	private SampleMetadataImportService importService;
+
+	private Project project;
+	private MetadataTemplateField serotype;
+	private List<Map<String, String>> rows;
+
+	@Before
+	public void setUp() {
+		sampleService = mock(SampleService.class);
+		metadataTemplateService = mock(MetadataTemplateService.class);
+		importService = new SampleMetadataImportServiceImpl(sampleService, metadataTemplateService,
+				new SyncTaskExecutor());
+
+		SecurityContextHolder.getContext()
+				.setAuthentication(new UsernamePasswordAuthenticationToken("fbristow", "password1"));
+
+		project = new Project();
+		project.setId(1L);
+		serotype = new MetadataTemplateField("serotype", "text");
+		rows = ImmutableList.of(ImmutableMap.of("name", "sample1", "serotype", "O157"),
+				ImmutableMap.of("name", "sample2", "serotype", "O104"));
+
+		Map<String, Long> sampleIds = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		sampleIds.put("sample1", 10L);
+		when(sampleService.getSampleIdsBySampleName(project, ImmutableSet.of("sample1", "sample2"))).thenReturn(
+				sampleIds);
+		when(metadataTemplateService.getOrCreateMetadataFields(ImmutableSet.of("serotype"))).thenReturn(
+				ImmutableMap.of("serotype", serotype));
+	}
+
+	@After
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testImportMergesFoundSamples() {
+		doAnswer(invocation -> {
+			((IntConsumer) invocation.getArguments()[1]).accept(1);
+			return null;
+		}).when(sampleService)
+				.mergeSampleMetadata(any(), any(IntConsumer.class));
+
+		SampleMetadataImport metadataImport = importService.startImport(project, "name", rows);
+
+		ArgumentCaptor<Map> captor = ArgumentCaptor.forClass(Map.class);
+		verify(sampleService).mergeSampleMetadata(captor.capture(), any(IntConsumer.class));
+		Map<Long, Map<MetadataTemplateField, MetadataEntry>> metadata = captor.getValue();
+
+		assertEquals("only the found sample should be merged", ImmutableSet.of(10L), metadata.keySet());
+		assertEquals("metadata should be set on the sample", "O157", metadata.get(10L)
+				.get(serotype)
+				.getValue());
+		assertEquals("import should be complete", SampleMetadataImport.State.COMPLETE, metadataImport.getState());
+		assertEquals("one sample should be saved", 1, metadataImport.getSaved());
+		assertEquals("missing sample should be recorded", ImmutableList.of("sample2"),
+				metadataImport.getMissingSamples());
+		assertEquals("import should be found by id", metadataImport, importService.getImport(metadataImport.getId()));
+	}
+
+	@Test
+	public void testFailedImport() {
+		doThrow(new IllegalStateException("database is gone")).when(sampleService)
+				.mergeSampleMetadata(any(), any(IntConsumer.class));
+
+		SampleMetadataImport metadataImport = importService.startImport(project, "name", rows);
+
+		assertEquals("import should have failed", SampleMetadataImport.State.ERROR, metadataImport.getState());
+		assertTrue("error should be recorded", metadataImport.getErrorMessage()
+				.contains("database is gone"));
+	}
+
+	@Test(expected = EntityNotFoundException.class)
+	public void testGetUnknownImport() {
+		importService.getImport("not-an-import");
+	}
+}
@@ -1,7 +1,10 @@
 package ca.corefacility.bioinformatics.irida.service.impl.unit.sample;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -11,6 +14,7 @@ import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import javax.validation.Validation;
 import javax.validation.Validator;
@@ -18,7 +22,10 @@ import javax.validation.ValidatorFactory;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
 import ca.corefacility.bioinformatics.irida.exceptions.AnalysisAlreadySetException;
@@ -26,12 +33,15 @@ import ca.corefacility.bioinformatics.irida.exceptions.SequenceFileAnalysisExcep
 import ca.corefacility.bioinformatics.irida.model.joins.Join;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.QCEntry;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.SampleQCSummary;
+import ca.corefacility.bioinformatics.irida.model.sample.SampleSequenceFileBases;
 import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
-import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCSummary;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.AnalysisRepository;
 import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectSampleJoinRepository;
 import ca.corefacility.bioinformatics.irida.repositories.joins.sample.SampleGenomeAssemblyJoinRepository;
@@ -252,17 +262,57 @@ public class SampleServiceImplTest {
 
 		SampleSequencingObjectJoin join = new SampleSequencingObjectJoin(s1, new SingleEndSequenceFile(sf1));
 
-		AnalysisFastQC analysisFastQC1 = AnalysisFastQC.sloppyBuilder().executionManagerAnalysisId("id")
-				.totalBases(1000L).build();
-		sf1.setFastQCAnalysis(analysisFastQC1);
+		FastQCSummary summary1 = new FastQCSummary(sf1.getId(), 10, 1000L, 100, 100, (short) 50);
 
 		when(ssoRepository.getSequencesForSample(s1)).thenReturn(Arrays.asList(join));
-		when(analysisRepository.findFastqcAnalysisForSequenceFile(sf1)).thenReturn(analysisFastQC1);
+		when(analysisRepository.findFastqcSummariesForSequenceFiles(ImmutableSet.of(sf1.getId()))).thenReturn(
+				Arrays.asList(summary1));
 
 		double coverage = sampleService.estimateCoverageForSample(s1, 500L);
 		assertEquals(2.0, coverage, deltaFloatEquality);
 	}
 
+	/**
+	 * Tests getting the total bases and QC entries for a page of samples.
+	 */
+	@Test
+	public void testGetQCSummariesForProjectSamples() {
+		Project p = new Project();
+		Sample s1 = new Sample();
+		s1.setId(1L);
+		Sample s2 = new Sample();
+		s2.setId(2L);
+		Sample s3 = new Sample();
+		s3.setId(3L);
+
+		Page<ProjectSampleJoin> page = new PageImpl<>(Lists.newArrayList(new ProjectSampleJoin(p, s1, true),
+				new ProjectSampleJoin(p, s2, true), new ProjectSampleJoin(p, s3, true)));
+
+		// s1 has a single end file and a pair, s2 has a file without fastqc,
+		// s3 has no files
+		when(ssoRepository.getSingleEndFileBasesForSamples(Arrays.asList(1L, 2L, 3L))).thenReturn(
+				Arrays.asList(new SampleSequenceFileBases(1L, 10L, 100L, 1000L),
+						new SampleSequenceFileBases(2L, 20L, 200L, null)));
+		when(ssoRepository.getPairedFileBasesForSamples(Arrays.asList(1L, 2L, 3L))).thenReturn(
+				Arrays.asList(new SampleSequenceFileBases(1L, 11L, 101L, 500L),
+						new SampleSequenceFileBases(1L, 11L, 102L, 500L)));
+
+		QCEntry qcEntry = mock(QCEntry.class);
+		when(qcEntry.getSequencingObjectId()).thenReturn(11L);
+		when(qcEntryRepository.getQCEntriesForSequencingObjects(anyCollectionOf(Long.class))).thenReturn(
+				Arrays.asList(qcEntry));
+
+		Map<Long, SampleQCSummary> summaries = sampleService.getQCSummariesForProjectSamples(page);
+
+		assertEquals("should have a summary for each sample", 3, summaries.size());
+		assertEquals("should add bases from all files", Long.valueOf(2000L), summaries.get(1L).getTotalBases());
+		assertEquals("should have the qc entry", Arrays.asList(qcEntry), summaries.get(1L).getQcEntries());
+		assertNull("should not have bases with missing fastqc", summaries.get(2L).getTotalBases());
+		assertNull("should not estimate coverage with missing fastqc", summaries.get(2L).estimateCoverage(100L));
+		assertEquals("should have no bases without files", Long.valueOf(0L), summaries.get(3L).getTotalBases());
+		assertTrue("should have no qc entries", summaries.get(3L).getQcEntries().isEmpty());
+	}
+
 	/**
 	 * Tests out passing an invalid reference length.
 	 * 
@@ -308,12 +358,11 @@ public class SampleServiceImplTest {
 
 		SampleSequencingObjectJoin join = new SampleSequencingObjectJoin(s1, new SingleEndSequenceFile(sf1));
 
-		AnalysisFastQC analysisFastQC1 = AnalysisFastQC.sloppyBuilder().executionManagerAnalysisId("id")
-				.totalBases(1000L).build();
-		sf1.setFastQCAnalysis(analysisFastQC1);
+		FastQCSummary summary1 = new FastQCSummary(sf1.getId(), 10, 1000L, 100, 100, (short) 50);
 
 		when(ssoRepository.getSequencesForSample(s1)).thenReturn(Arrays.asList(join));
-		when(analysisRepository.findFastqcAnalysisForSequenceFile(sf1)).thenReturn(analysisFastQC1);
+		when(analysisRepository.findFastqcSummariesForSequenceFiles(ImmutableSet.of(sf1.getId()))).thenReturn(
+				Arrays.asList(summary1));
 
 		long actualBases = sampleService.getTotalBasesForSample(s1);
 		assertEquals(1000, actualBases);
@@ -335,22 +384,17 @@ public class SampleServiceImplTest {
 		SequenceFile sf1 = new SequenceFile();
 		sf1.setId(2222L);
 		SequenceFile sf2 = new SequenceFile();
-		sf1.setId(3333L);
+		sf2.setId(3333L);
 
 		SampleSequencingObjectJoin join1 = new SampleSequencingObjectJoin(s1, new SingleEndSequenceFile(sf1));
 		SampleSequencingObjectJoin join2 = new SampleSequencingObjectJoin(s1, new SingleEndSequenceFile(sf2));
 
-		AnalysisFastQC analysisFastQC1 = AnalysisFastQC.sloppyBuilder().executionManagerAnalysisId("id")
-				.totalBases(1000L).build();
-		sf1.setFastQCAnalysis(analysisFastQC1);
-
-		AnalysisFastQC analysisFastQC2 = AnalysisFastQC.sloppyBuilder().executionManagerAnalysisId("id2")
-				.totalBases(1000L).build();
-		sf2.setFastQCAnalysis(analysisFastQC2);
+		FastQCSummary summary1 = new FastQCSummary(sf1.getId(), 10, 1000L, 100, 100, (short) 50);
+		FastQCSummary summary2 = new FastQCSummary(sf2.getId(), 10, 1000L, 100, 100, (short) 50);
 
 		when(ssoRepository.getSequencesForSample(s1)).thenReturn(Arrays.asList(join1, join2));
-		when(analysisRepository.findFastqcAnalysisForSequenceFile(sf1)).thenReturn(analysisFastQC1);
-		when(analysisRepository.findFastqcAnalysisForSequenceFile(sf2)).thenReturn(analysisFastQC2);
+		when(analysisRepository.findFastqcSummariesForSequenceFiles(ImmutableSet.of(sf1.getId(), sf2.getId())))
+				.thenReturn(Arrays.asList(summary1, summary2));
 
 		long actualBases = sampleService.getTotalBasesForSample(s1);
 		assertEquals(2000, actualBases);
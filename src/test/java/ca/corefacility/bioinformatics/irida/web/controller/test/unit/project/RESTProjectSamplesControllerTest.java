@@ -9,6 +9,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +36,7 @@ import ca.corefacility.bioinformatics.irida.web.controller.api.RESTGenericContro
 import ca.corefacility.bioinformatics.irida.web.controller.api.projects.RESTProjectSamplesController;
 import ca.corefacility.bioinformatics.irida.web.controller.api.projects.RESTProjectsController;
 import ca.corefacility.bioinformatics.irida.web.controller.api.samples.RESTSampleMetadataController;
+import ca.corefacility.bioinformatics.irida.web.controller.api.samples.RESTSampleSequenceFileUploadsController;
 import ca.corefacility.bioinformatics.irida.web.controller.api.samples.RESTSampleSequenceFilesController;
 import ca.corefacility.bioinformatics.irida.web.controller.test.unit.TestDataFactory;
 
@@ -160,7 +162,8 @@ public class RESTProjectSamplesControllerTest {
 				RESTSampleSequenceFilesController.REL_SAMPLE_SEQUENCE_FILE_PAIRS,
 				RESTSampleSequenceFilesController.REL_SAMPLE_SEQUENCE_FILE_UNPAIRED,
 				RESTProjectSamplesController.REL_PROJECT, RESTProjectSamplesController.REL_PROJECT_SAMPLE,
-				RESTSampleMetadataController.METADATA_REL);
+				RESTSampleMetadataController.METADATA_REL,
+				RESTSampleSequenceFileUploadsController.REL_SAMPLE_UPLOADS);
 		for (Link link : links) {
 			assertTrue("rels should contain link [" + link + "]", rels.contains(link.getRel()));
 			assertNotNull("rels should remove link [" + link + "]", rels.remove(link.getRel()));
@@ -168,6 +171,29 @@ public class RESTProjectSamplesControllerTest {
 		assertTrue("Rels should be empty after removing expected links", rels.isEmpty());
 	}
 
+	@Test
+	public void testGetProjectSamplesChangedSince() {
+		Project p = TestDataFactory.constructProject();
+		Sample s = TestDataFactory.constructSample();
+		Date since = new Date(1000);
+
+		when(sampleService.getSamplesForProjectChangedSince(p, since)).thenReturn(Lists.newArrayList(s));
+		when(projectService.read(p.getId())).thenReturn(p);
+
+		ModelMap modelMap = controller.getProjectSamplesChangedSince(p.getId(), since.getTime());
+
+		verify(sampleService).getSamplesForProjectChangedSince(p, since);
+
+		@SuppressWarnings("unchecked")
+		ResourceCollection<Sample> samples = (ResourceCollection<Sample>) modelMap
+				.get(RESTGenericController.RESOURCE_NAME);
+		assertEquals(1, samples.size());
+		assertEquals("http://localhost/api/projects/" + p.getId() + "/samples?since=1000",
+				samples.getLink(Link.REL_SELF).getHref());
+		assertEquals("http://localhost/api/samples/" + s.getId(),
+				samples.iterator().next().getLink(Link.REL_SELF).getHref());
+	}
+
 	@Test
 	public void testGetProjectSample() throws IOException {
 		Project p = TestDataFactory.constructProject();
@@ -0,0 +1,240 @@
+package ca.corefacility.bioinformatics.irida.web.controller.test.unit.samples;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.hateoas.Link;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.ui.ModelMap;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.HttpHeaders;
+
+import ca.corefacility.bioinformatics.irida.exceptions.InvalidPropertyException;
+import ca.corefacility.bioinformatics.irida.model.IridaResourceSupport;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFileUpload;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
+import ca.corefacility.bioinformatics.irida.service.SequenceFileUploadService;
+import ca.corefacility.bioinformatics.irida.service.SequencingRunService;
+import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
+import ca.corefacility.bioinformatics.irida.web.assembler.resource.RootResource;
+import ca.corefacility.bioinformatics.irida.web.controller.api.RESTGenericController;
+import ca.corefacility.bioinformatics.irida.web.controller.api.samples.RESTSampleSequenceFileUploadsController;
+import ca.corefacility.bioinformatics.irida.web.controller.api.samples.RESTSampleSequenceFileUploadsController.CompleteUploadsRequest;
+import ca.corefacility.bioinformatics.irida.web.controller.api.samples.RESTSampleSequenceFileUploadsController.UploadRequest;
+import ca.corefacility.bioinformatics.irida.web.controller.api.samples.RESTSampleSequenceFilesController;
+import ca.corefacility.bioinformatics.irida.web.controller.test.unit.TestDataFactory;
+
+/**
+ * Unit tests for {@link RESTSampleSequenceFileUploadsController}.
+ */
+public class SampleSequenceFileUploadsControllerTest {
+	private static final long FILE_SIZE = 100L;
+
+	private RESTSampleSequenceFileUploadsController controller;
+	private SampleService sampleService;
+	private SequencingRunService sequencingRunService;
+	private SequenceFileUploadService uploadService;
+
+	private Sample sample;
+	private SequenceFileUpload upload;
+	private String uploadLocation;
+
+	@Before
+	public void setUp() {
+		sampleService = mock(SampleService.class);
+		sequencingRunService = mock(SequencingRunService.class);
+		uploadService = mock(SequenceFileUploadService.class);
+
+		controller = new RESTSampleSequenceFileUploadsController(sampleService, sequencingRunService, uploadService);
+
+		sample = TestDataFactory.constructSample();
+		upload = new SequenceFileUpload(sample, "reads.fastq", FILE_SIZE);
+		upload.setId(3L);
+		uploadLocation = "http://localhost/api/samples/" + sample.getId() + "/uploads/" + upload.getId();
+
+		when(sampleService.read(sample.getId())).thenReturn(sample);
+		when(uploadService.readUploadForSample(sample, upload.getId())).thenReturn(upload);
+	}
+
+	@Test
+	public void testStartUpload() {
+		UploadRequest request = new UploadRequest();
+		request.setFileName("reads.fastq");
+		request.setFileSize(FILE_SIZE);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		when(uploadService.createUpload(sample, "reads.fastq", FILE_SIZE)).thenReturn(upload);
+
+		ModelMap modelMap = controller.startUpload(sample.getId(), request, response);
+
+		verify(uploadService).createUpload(sample, "reads.fastq", FILE_SIZE);
+		assertEquals("response must have CREATED status", HttpStatus.CREATED.value(), response.getStatus());
+		assertEquals("location must be the upload", uploadLocation, response.getHeader(HttpHeaders.LOCATION));
+
+		IridaResourceSupport resource = (IridaResourceSupport) modelMap.get(RESTGenericController.RESOURCE_NAME);
+		assertEquals("self link must be the upload", uploadLocation, resource.getLink(Link.REL_SELF).getHref());
+		assertEquals("complete link must be correct", "http://localhost/api/samples/" + sample.getId()
+				+ "/uploads/complete", resource.getLink(RESTSampleSequenceFileUploadsController.REL_COMPLETE_UPLOADS)
+				.getHref());
+		assertNotNull("sample link must exist", resource.getLink(RESTSampleSequenceFilesController.REL_SAMPLE));
+	}
+
+	@Test
+	public void testReadUpload() throws IOException {
+		when(uploadService.getCommittedOffset(sample, upload.getId())).thenReturn(10L);
+
+		ModelMap modelMap = controller.readUpload(sample.getId(), upload.getId());
+
+		verify(uploadService).getCommittedOffset(sample, upload.getId());
+		IridaResourceSupport resource = (IridaResourceSupport) modelMap.get(RESTGenericController.RESOURCE_NAME);
+		assertEquals("self link must be the upload", uploadLocation, resource.getLink(Link.REL_SELF).getHref());
+	}
+
+	@Test
+	public void testWriteChunk() throws IOException {
+		MockHttpServletRequest request = chunkRequest(10);
+		when(uploadService.writeChunk(eq(sample), eq(upload.getId()), eq(10L), eq(10L), any(InputStream.class)))
+				.thenReturn(20L);
+
+		ModelMap modelMap = controller.writeChunk(sample.getId(), upload.getId(), "bytes 10-19/" + FILE_SIZE,
+				request);
+
+		verify(uploadService).writeChunk(eq(sample), eq(upload.getId()), eq(10L), eq(10L), any(InputStream.class));
+		assertNotNull("upload must be returned", modelMap.get(RESTGenericController.RESOURCE_NAME));
+	}
+
+	@Test
+	public void testWriteWholeFile() throws IOException {
+		MockHttpServletRequest request = chunkRequest((int) FILE_SIZE);
+		when(uploadService.writeChunk(eq(sample), eq(upload.getId()), eq(0L), eq((Long) null),
+				any(InputStream.class))).thenReturn(FILE_SIZE);
+
+		controller.writeChunk(sample.getId(), upload.getId(), null, request);
+
+		verify(uploadService).writeChunk(eq(sample), eq(upload.getId()), eq(0L), eq((Long) null),
+				any(InputStream.class));
+	}
+
+	@Test
+	public void testWriteChunkUnknownTotal() throws IOException {
+		MockHttpServletRequest request = chunkRequest(10);
+
+		controller.writeChunk(sample.getId(), upload.getId(), "bytes 0-9/*", request);
+
+		verify(uploadService).writeChunk(eq(sample), eq(upload.getId()), eq(0L), eq(10L), any(InputStream.class));
+	}
+
+	@Test(expected = InvalidPropertyException.class)
+	public void testWriteChunkMalformedRange() throws IOException {
+		try {
+			controller.writeChunk(sample.getId(), upload.getId(), "bytes=0-9", chunkRequest(10));
+		} finally {
+			verifyNothingWritten();
+		}
+	}
+
+	@Test(expected = InvalidPropertyException.class)
+	public void testWriteChunkEndBeforeStart() throws IOException {
+		try {
+			controller.writeChunk(sample.getId(), upload.getId(), "bytes 9-0/" + FILE_SIZE, chunkRequest(10));
+		} finally {
+			verifyNothingWritten();
+		}
+	}
+
+	@Test(expected = InvalidPropertyException.class)
+	public void testWriteChunkLongerThanRange() throws IOException {
+		try {
+			controller.writeChunk(sample.getId(), upload.getId(), "bytes 0-9/" + FILE_SIZE, chunkRequest(11));
+		} finally {
+			verifyNothingWritten();
+		}
+	}
+
+	@Test(expected = InvalidPropertyException.class)
+	public void testWriteChunkShorterThanRange() throws IOException {
+		try {
+			controller.writeChunk(sample.getId(), upload.getId(), "bytes 0-9/" + FILE_SIZE, chunkRequest(9));
+		} finally {
+			verifyNothingWritten();
+		}
+	}
+
+	@Test(expected = InvalidPropertyException.class)
+	public void testWriteChunkPastTotal() throws IOException {
+		try {
+			controller.writeChunk(sample.getId(), upload.getId(), "bytes 95-104/" + FILE_SIZE, chunkRequest(10));
+		} finally {
+			verifyNothingWritten();
+		}
+	}
+
+	@Test(expected = InvalidPropertyException.class)
+	public void testWriteChunkWrongTotal() throws IOException {
+		try {
+			controller.writeChunk(sample.getId(), upload.getId(), "bytes 0-9/" + (FILE_SIZE * 2), chunkRequest(10));
+		} finally {
+			verifyNothingWritten();
+		}
+	}
+
+	@Test
+	public void testCancelUpload() {
+		ModelMap modelMap = controller.cancelUpload(sample.getId(), upload.getId());
+
+		verify(uploadService).cancelUpload(sample, upload.getId());
+		RootResource resource = (RootResource) modelMap.get(RESTGenericController.RESOURCE_NAME);
+		assertEquals("sample link must be correct", "http://localhost/api/samples/" + sample.getId(),
+				resource.getLink(RESTSampleSequenceFilesController.REL_SAMPLE).getHref());
+	}
+
+	@Test
+	public void testCompleteUploads() throws IOException {
+		SingleEndSequenceFile so = TestDataFactory.constructSingleEndSequenceFile();
+		List<Long> uploads = ImmutableList.of(upload.getId());
+		CompleteUploadsRequest request = new CompleteUploadsRequest();
+		request.setUploads(uploads);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		when(uploadService.completeUploads(sample, uploads, null)).thenReturn(
+				new SampleSequencingObjectJoin(sample, so));
+
+		ModelMap modelMap = controller.completeUploads(sample.getId(), request, response);
+
+		verify(uploadService).completeUploads(sample, uploads, null);
+		verify(sequencingRunService, never()).read(anyLong());
+		assertEquals("response must have CREATED status", HttpStatus.CREATED.value(), response.getStatus());
+		Object o = modelMap.get(RESTGenericController.RESOURCE_NAME);
+		assertTrue("object must be the new sequencing object", o instanceof SingleEndSequenceFile);
+		assertEquals("location must be the new sequencing object", so.getLink(Link.REL_SELF).getHref(),
+				response.getHeader(HttpHeaders.LOCATION));
+	}
+
+	private MockHttpServletRequest chunkRequest(int length) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setContent(new byte[length]);
+		return request;
+	}
+
+	private void verifyNothingWritten() throws IOException {
+		verify(uploadService, never()).writeChunk(any(Sample.class), anyLong(), anyLong(), anyLong(),
+				any(InputStream.class));
+	}
+}
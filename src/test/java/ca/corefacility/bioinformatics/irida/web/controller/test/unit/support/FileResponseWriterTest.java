@@ -0,0 +1,158 @@
+package ca.corefacility.bioinformatics.irida.web.controller.test.unit.support;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import ca.corefacility.bioinformatics.irida.web.filter.HttpHeadFilter;
+import ca.corefacility.bioinformatics.irida.web.spring.view.FileResponseWriter;
+
+import com.google.common.net.HttpHeaders;
+
+/**
+ * Unit tests for {@link FileResponseWriter}.
+ */
+public class FileResponseWriterTest {
+	private static final byte[] FILE_CONTENTS = "@read1\nACGTACGTAC\n+\nIIIIIIIIII\n".getBytes();
+	private static final String CONTENT_TYPE = "application/fastq";
+	private static final String ETAG = "\"abc-1\"";
+
+	private Path file;
+	private MockHttpServletRequest request;
+	private MockHttpServletResponse response;
+
+	@Before
+	public void setUp() throws IOException {
+		file = Files.createTempFile(null, ".fastq");
+		Files.write(file, FILE_CONTENTS);
+		request = new MockHttpServletRequest("GET", "/file");
+		response = new MockHttpServletResponse();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	public void testWholeFile() throws IOException {
+		FileResponseWriter.writeFile(file, CONTENT_TYPE, ETAG, request, response);
+
+		assertEquals("should send the whole file", HttpServletResponse.SC_OK, response.getStatus());
+		assertEquals("should accept ranges", "bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+		assertEquals("should send the etag", ETAG, response.getHeader(HttpHeaders.ETAG));
+		assertArrayEquals("should send the file contents", FILE_CONTENTS, response.getContentAsByteArray());
+	}
+
+	@Test
+	public void testSingleRange() throws IOException {
+		request.addHeader(HttpHeaders.RANGE, "bytes=8-17");
+
+		FileResponseWriter.writeFile(file, CONTENT_TYPE, ETAG, request, response);
+
+		assertEquals("should send part of the file", HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+		assertEquals("should describe the range", "bytes 8-17/" + FILE_CONTENTS.length,
+				response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertArrayEquals("should send the range", Arrays.copyOfRange(FILE_CONTENTS, 8, 18),
+				response.getContentAsByteArray());
+	}
+
+	@Test
+	public void testSuffixRange() throws IOException {
+		request.addHeader(HttpHeaders.RANGE, "bytes=-11");
+
+		FileResponseWriter.writeFile(file, CONTENT_TYPE, ETAG, request, response);
+
+		assertArrayEquals("should send the end of the file",
+				Arrays.copyOfRange(FILE_CONTENTS, FILE_CONTENTS.length - 11, FILE_CONTENTS.length),
+				response.getContentAsByteArray());
+	}
+
+	@Test
+	public void testMultipleRanges() throws IOException {
+		request.addHeader(HttpHeaders.RANGE, "bytes=0-6,8-17");
+
+		FileResponseWriter.writeFile(file, CONTENT_TYPE, ETAG, request, response);
+
+		assertEquals("should send part of the file", HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+		assertTrue("should be a multipart response", response.getContentType().startsWith("multipart/byteranges"));
+
+		String body = response.getContentAsString();
+		assertEquals("content length should match the body", body.length(), response.getContentLength());
+		assertTrue("should contain the first range", body.contains("Content-Range: bytes 0-6/"
+				+ FILE_CONTENTS.length + "\r\n\r\n" + new String(Arrays.copyOfRange(FILE_CONTENTS, 0, 7))));
+		assertTrue("should contain the second range", body.contains("Content-Range: bytes 8-17/"
+				+ FILE_CONTENTS.length + "\r\n\r\n" + new String(Arrays.copyOfRange(FILE_CONTENTS, 8, 18))));
+	}
+
+	@Test
+	public void testUnsatisfiableRange() throws IOException {
+		request.addHeader(HttpHeaders.RANGE, "bytes=1000-");
+
+		FileResponseWriter.writeFile(file, CONTENT_TYPE, ETAG, request, response);
+
+		assertEquals("range should not be satisfiable", HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE,
+				response.getStatus());
+		assertEquals("should send the file length", "bytes */" + FILE_CONTENTS.length,
+				response.getHeader(HttpHeaders.CONTENT_RANGE));
+	}
+
+	@Test
+	public void testIfRangeChanged() throws IOException {
+		request.addHeader(HttpHeaders.RANGE, "bytes=8-17");
+		request.addHeader(HttpHeaders.IF_RANGE, "\"abc-0\"");
+
+		FileResponseWriter.writeFile(file, CONTENT_TYPE, ETAG, request, response);
+
+		assertEquals("should send the whole changed file", HttpServletResponse.SC_OK, response.getStatus());
+		assertArrayEquals("should send the file contents", FILE_CONTENTS, response.getContentAsByteArray());
+	}
+
+	@Test
+	public void testIfRangeMatches() throws IOException {
+		request.addHeader(HttpHeaders.RANGE, "bytes=8-17");
+		request.addHeader(HttpHeaders.IF_RANGE, ETAG);
+
+		FileResponseWriter.writeFile(file, CONTENT_TYPE, ETAG, request, response);
+
+		assertEquals("should send the range", HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+	}
+
+	@Test
+	public void testHead() throws IOException {
+		request.setAttribute(HttpHeadFilter.HEAD_REQUEST_ATTRIBUTE, Boolean.TRUE);
+
+		FileResponseWriter.writeFile(file, CONTENT_TYPE, ETAG, request, response);
+
+		assertEquals("should send the file length", FILE_CONTENTS.length, response.getContentLength());
+		assertEquals("should not send a body", 0, response.getContentAsByteArray().length);
+	}
+
+	@Test
+	public void testSendfile() throws IOException {
+		request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		request.addHeader(HttpHeaders.RANGE, "bytes=8-");
+
+		FileResponseWriter.writeFile(file, CONTENT_TYPE, ETAG, request, response);
+
+		assertEquals("should hand the file to the container", file.toAbsolutePath().toString(),
+				request.getAttribute("org.apache.tomcat.sendfile.filename"));
+		assertEquals("should start at the range", 8L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+		assertEquals("should end after the range", (long) FILE_CONTENTS.length,
+				request.getAttribute("org.apache.tomcat.sendfile.end"));
+		assertEquals("should not write the body", 0, response.getContentAsByteArray().length);
+	}
+}